@@ -20,6 +20,13 @@ repositories {
     }
 }
 
+// Benchmarks of the motion engine over the synthetic trees of the tests.
+// Run them with `./gradlew jmh -PjmhArgs="MotionHandlerBenchmark -p handler=Comment"`
+val jmh: SourceSet by sourceSets.creating {
+    compileClasspath += sourceSets.test.get().output + sourceSets.test.get().compileClasspath
+    runtimeClasspath += sourceSets.test.get().output + sourceSets.test.get().runtimeClasspath
+}
+
 // Configure Gradle IntelliJ Plugin
 // Read more: https://plugins.jetbrains.com/docs/intellij/tools-intellij-platform-gradle-plugin.html
 dependencies {
@@ -45,6 +52,9 @@ dependencies {
     testRuntimeOnly("junit:junit:4.13.2")
     testImplementation("org.mockito:mockito-core:5.18.0")
     testImplementation("org.mockito:mockito-junit-jupiter:5.18.0")
+
+    "jmhImplementation"("org.openjdk.jmh:jmh-core:1.37")
+    "jmhAnnotationProcessor"("org.openjdk.jmh:jmh-generator-annprocess:1.37")
 }
 
 intellijPlatform {
@@ -74,6 +84,24 @@ tasks {
     }
 
 
+    register<JavaExec>("jmh") {
+        description = "Runs the JMH benchmarks, pass the JMH arguments with -PjmhArgs."
+        group = "verification"
+        mainClass = "org.openjdk.jmh.Main"
+        classpath = jmh.runtimeClasspath + files(test.map { it.classpath })
+        args(providers.gradleProperty("jmhArgs").map { it.trim().split(Regex("\\s+")) }.getOrElse(emptyList()))
+        // The light fixtures of the benchmarks need the sandbox and the IDE arguments of the tests,
+        // the forked benchmark JVMs inherit them
+        dependsOn("prepareTestSandbox")
+        javaLauncher = test.flatMap { it.javaLauncher }
+        doFirst {
+            val testTask = test.get()
+            jvmArgumentProviders.addAll(testTask.jvmArgumentProviders)
+            systemProperties(testTask.systemProperties)
+            jvmArgs(testTask.jvmArgs ?: emptyList<String>())
+        }
+    }
+
     test {
         useJUnitPlatform()
 //        jvmArgs = jvmArgs?.filter { !it.contains("kotlinx-coroutines-core") } ?: emptyList()
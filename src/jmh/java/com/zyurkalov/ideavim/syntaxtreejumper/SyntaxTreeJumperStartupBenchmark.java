@@ -0,0 +1,46 @@
+package com.zyurkalov.ideavim.syntaxtreejumper;
+
+import com.intellij.openapi.util.Disposer;
+import com.intellij.testFramework.fixtures.IdeaProjectTestFixture;
+import com.intellij.testFramework.fixtures.IdeaTestFixtureFactory;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the initialization of the extension, which registers all the mappings and runs on every load of IdeaVim
+ * and every {@code :source ~/.ideavimrc}. Runs in a light test application with the IdeaVim plugin, like the tests.
+ * The first initialization of a session also loads the classes and parses the key sequences,
+ * see the "Startup" entry of {@code :SyntaxTreeJumperStats} for it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SyntaxTreeJumperStartupBenchmark {
+
+    private IdeaProjectTestFixture fixture;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        fixture = IdeaTestFixtureFactory.getFixtureFactory()
+                .createLightFixtureBuilder(getClass().getName())
+                .getFixture();
+        fixture.setUp();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        fixture.tearDown();
+    }
+
+    @Benchmark
+    public SyntaxTreeJumper init() {
+        SyntaxTreeJumper extension = new SyntaxTreeJumper();
+        extension.init();
+        Disposer.dispose(extension);
+        return extension;
+    }
+}
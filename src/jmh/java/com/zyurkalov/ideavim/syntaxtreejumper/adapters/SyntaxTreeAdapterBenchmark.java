@@ -0,0 +1,98 @@
+package com.zyurkalov.ideavim.syntaxtreejumper.adapters;
+
+import com.intellij.psi.PsiElement;
+import com.zyurkalov.ideavim.syntaxtreejumper.MotionDirection;
+import com.zyurkalov.ideavim.syntaxtreejumper.Offsets;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how the adapter finds the element under a caret or selection, and the token classification
+ * that every sibling step runs, for snapshot and live PSI nodes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SyntaxTreeAdapterBenchmark {
+    private static final int QUERIES = 1024;
+
+    @Param({"1000", "100000", "1000000"})
+    public int nodes;
+
+    @Param({"2", "8", "64"})
+    public int fanOut;
+
+    private SyntaxTreeAdapter adapter;
+    private Offsets[] carets;
+    private Offsets[] selections;
+    private SyntaxTreeSnapshot snapshot;
+    private int[] nodeIndices;
+    private PsiElement[] elements;
+    private int query;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SyntheticSyntaxTree tree = new SyntheticSyntaxTree(nodes, fanOut);
+        adapter = tree.getAdapter();
+        int[] offsets = tree.randomOffsets(QUERIES * 2, 42);
+        carets = new Offsets[QUERIES];
+        selections = new Offsets[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            carets[i] = new Offsets(offsets[i], offsets[i]);
+            int other = offsets[QUERIES + i];
+            selections[i] = new Offsets(Math.min(offsets[i], other), Math.max(offsets[i], other) + 1);
+        }
+        snapshot = tree.getSnapshot();
+        Random random = new Random(42);
+        nodeIndices = new int[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            nodeIndices[i] = random.nextInt(snapshot.size());
+        }
+        elements = new PsiElement[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            elements[i] = snapshot.getElement(nodeIndices[i]);
+        }
+    }
+
+    private int nextQuery() {
+        query = (query + 1) & (QUERIES - 1);
+        return query;
+    }
+
+    @Benchmark
+    public SyntaxNode findCurrentElementAtCaret() {
+        return adapter.findCurrentElement(carets[nextQuery()], MotionDirection.FORWARD);
+    }
+
+    @Benchmark
+    public SyntaxNode findCurrentElementOfSelection() {
+        return adapter.findCurrentElement(selections[nextQuery()], MotionDirection.FORWARD);
+    }
+
+    @Benchmark
+    public ElementWithSiblings findElementWithSiblingsAtCaret() {
+        return adapter.findElementWithSiblings(carets[nextQuery()], MotionDirection.BACKWARD);
+    }
+
+    @Benchmark
+    public ElementWithSiblings findElementWithSiblingsOfSelection() {
+        return adapter.findElementWithSiblings(selections[nextQuery()], MotionDirection.BACKWARD);
+    }
+
+    @Benchmark
+    public boolean isASymbolToSkip() {
+        // A new node every time, the nodes cache their categories
+        return SyntaxTreeAdapter.isASymbolToSkip(new PsiSyntaxNode(snapshot, nodeIndices[nextQuery()]));
+    }
+
+    @Benchmark
+    public boolean isASymbolToSkipOnPsi() {
+        // The same nodes without a snapshot, like in files that are not cached
+        return SyntaxTreeAdapter.isASymbolToSkip(new PsiSyntaxNode(elements[nextQuery()]));
+    }
+}
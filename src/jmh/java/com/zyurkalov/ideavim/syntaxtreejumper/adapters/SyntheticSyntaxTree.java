@@ -0,0 +1,129 @@
+package com.zyurkalov.ideavim.syntaxtreejumper.adapters;
+
+import com.intellij.lang.Language;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.tree.IElementType;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Random;
+
+import static com.zyurkalov.ideavim.syntaxtreejumper.adapters.FakePsiElementTreeBuilder.MyFakePsiElement;
+import static com.zyurkalov.ideavim.syntaxtreejumper.adapters.FakePsiElementTreeBuilder.branch;
+import static com.zyurkalov.ideavim.syntaxtreejumper.adapters.FakePsiElementTreeBuilder.leaf;
+
+/**
+ * A balanced tree of {@link FakePsiElementTreeBuilder} elements with a given number of nodes and fan-out,
+ * and an adapter over its snapshot. The depth follows from both: 1M nodes are 5 levels deep with a fan-out
+ * of 64 and 20 levels deep with a fan-out of 2.
+ * <p>
+ * The leaves cycle through identifiers, whitespace and punctuation, so the text looks like code to the
+ * text-based checks. Every {@value #COMMENT_INTERVAL}th leaf is a comment and every {@value #FUNCTION_INTERVAL}th
+ * branch is a function definition, with element types that the default rules classify, so the handlers of
+ * these categories find targets. The other nodes have no {@link NodeCategory}: handlers of other categories
+ * skip the whole tree, handlers without categories search all of it, which is their worst case.
+ */
+public final class SyntheticSyntaxTree {
+    private static final String[] LEAF_TEXTS = {"foo", " ", "barBaz", "(", "x1", ",", " ", "y_2", ")", ";", "\n"};
+    private static final String COMMENT_TEXT = "// note\n";
+    static final int COMMENT_INTERVAL = 32;
+    static final int FUNCTION_INTERVAL = 8;
+    private static final IElementType COMMENT = new IElementType("LINE_COMMENT", Language.ANY);
+    private static final IElementType FUNCTION = new IElementType("FUNCTION_DEFINITION", Language.ANY);
+
+    private final SyntaxTreeSnapshot snapshot;
+    private final SyntaxTreeAdapter adapter;
+    private int leafCount;
+    private int branchCount;
+
+    public SyntheticSyntaxTree(int nodes, int fanOut) {
+        StringBuilder text = new StringBuilder();
+        MyFakePsiElement root = build(nodes, fanOut, text);
+        this.snapshot = SyntaxTreeSnapshot.build(root, 0, 0, text);
+        this.adapter = new SnapshotAdapter(snapshot);
+    }
+
+    private MyFakePsiElement build(int nodes, int fanOut, StringBuilder text) {
+        if (nodes == 1) {
+            int leafIndex = leafCount++;
+            if (leafIndex % COMMENT_INTERVAL == COMMENT_INTERVAL - 1) {
+                text.append(COMMENT_TEXT);
+                return leaf(COMMENT_TEXT).withElementType(COMMENT);
+            }
+            String leafText = LEAF_TEXTS[leafIndex % LEAF_TEXTS.length];
+            text.append(leafText);
+            return leaf(leafText);
+        }
+        // Spread the nodes below this one over at most fanOut children, as evenly as possible
+        int below = nodes - 1;
+        int childCount = Math.min(fanOut, below);
+        MyFakePsiElement[] children = new MyFakePsiElement[childCount];
+        for (int i = 0; i < childCount; i++) {
+            int childNodes = below / childCount + (i < below % childCount ? 1 : 0);
+            children[i] = build(childNodes, fanOut, text);
+        }
+        MyFakePsiElement branch = branch(children);
+        return ++branchCount % FUNCTION_INTERVAL == 0 ? branch.withElementType(FUNCTION) : branch;
+    }
+
+    public @NotNull SyntaxTreeAdapter getAdapter() {
+        return adapter;
+    }
+
+    public @NotNull SyntaxTreeSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    public int getTextLength() {
+        return snapshot.getEndOffset(snapshot.getRoot());
+    }
+
+    /**
+     * Gets random offsets inside the text, the same ones for the same seed.
+     */
+    public int[] randomOffsets(int count, long seed) {
+        Random random = new Random(seed);
+        int[] offsets = new int[count];
+        for (int i = 0; i < count; i++) {
+            offsets[i] = random.nextInt(getTextLength());
+        }
+        return offsets;
+    }
+
+    /**
+     * Answers the queries of the handlers from the snapshot, like {@link PsiSyntaxTreeAdapter} does for a file
+     * with a cached snapshot. The fake tree has no file.
+     */
+    private static final class SnapshotAdapter extends SyntaxTreeAdapter {
+        private final SyntaxTreeSnapshot snapshot;
+
+        private SnapshotAdapter(@NotNull SyntaxTreeSnapshot snapshot) {
+            this.snapshot = snapshot;
+        }
+
+        @Override
+        public @Nullable PsiFile getPsiFile() {
+            return null;
+        }
+
+        @Override
+        public @Nullable SyntaxNode findNodeAt(int offset) {
+            int index = snapshot.findLeafAt(offset);
+            return index != SyntaxTreeSnapshot.NONE ? new PsiSyntaxNode(snapshot, index) : null;
+        }
+
+        @Override
+        public @Nullable SyntaxNode findCommonParent(@NotNull SyntaxNode node1, @NotNull SyntaxNode node2) {
+            if (node1.getSnapshot() != snapshot || node2.getSnapshot() != snapshot) {
+                return null;
+            }
+            return new PsiSyntaxNode(snapshot,
+                    snapshot.findCommonParent(node1.getSnapshotIndex(), node2.getSnapshotIndex()));
+        }
+
+        @Override
+        public int getDocumentLength() {
+            return snapshot.getEndOffset(snapshot.getRoot());
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.zyurkalov.ideavim.syntaxtreejumper.motions;
+
+import com.zyurkalov.ideavim.syntaxtreejumper.MotionDirection;
+import com.zyurkalov.ideavim.syntaxtreejumper.Offsets;
+import com.zyurkalov.ideavim.syntaxtreejumper.adapters.SyntaxTreeAdapter;
+import com.zyurkalov.ideavim.syntaxtreejumper.adapters.SyntheticSyntaxTree;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+
+import static java.util.Map.entry;
+
+/**
+ * Measures one motion of every handler from random carets over synthetic trees.
+ * The full matrix is large, select a part of it with {@code -p}, e.g. {@code -p handler=Comment -p nodes=100000}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MotionHandlerBenchmark {
+    private static final int QUERIES = 1024;
+
+    static final Map<String, BiFunction<SyntaxTreeAdapter, MotionDirection, MotionHandler>> HANDLERS = Map.ofEntries(
+            entry("Element", SyntaxTreeNodesMotionHandler::new),
+            entry("ArgumentList", ArgumentParameterListMotionHandler::new),
+            entry("Statement", StatementMotionHandler::new),
+            entry("LoopConditional", LoopConditionalMotionHandler::new),
+            entry("MethodFunction", MethodFunctionMotionHandler::new),
+            entry("Operator", OperatorMotionHandler::new),
+            entry("Variable", VariableMotionHandler::new),
+            entry("CodeBlock", CodeBlockMotionHandler::new),
+            entry("FunctionCall", FunctionCallMotionHandler::new),
+            entry("Expression", ExpressionMotionHandler::new),
+            entry("DeclarationStatement", DeclarationStatementMotionHandler::new),
+            entry("ClassDefinition", ClassDefinitionMotionHandler::new),
+            entry("Comment", CommentMotionHandler::new),
+            entry("Template", TemplateMotionHandler::new),
+            entry("RightPartOfAssignment", RightPartOfAssignmentMotionHandler::new),
+            entry("Macro", MacroMotionHandler::new),
+            entry("Import", ImportMotionHandler::new),
+            entry("TypeUsage", TypeUsageMotionHandler::new),
+            entry("SmartSelectionExtend", (syntaxTree, direction) -> new SmartSelectionExtendHandler(syntaxTree))
+    );
+
+    @Param({"Element", "ArgumentList", "Statement", "LoopConditional", "MethodFunction", "Operator", "Variable",
+            "CodeBlock", "FunctionCall", "Expression", "DeclarationStatement", "ClassDefinition", "Comment",
+            "Template", "RightPartOfAssignment", "Macro", "Import", "TypeUsage", "SmartSelectionExtend"})
+    public String handler;
+
+    @Param({"FORWARD", "BACKWARD", "EXPAND", "SHRINK"})
+    public MotionDirection direction;
+
+    @Param({"1000", "100000", "1000000"})
+    public int nodes;
+
+    @Param({"2", "8", "64"})
+    public int fanOut;
+
+    private MotionHandler motionHandler;
+    private Offsets[] carets;
+    private int query;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SyntheticSyntaxTree tree = new SyntheticSyntaxTree(nodes, fanOut);
+        motionHandler = HANDLERS.get(handler).apply(tree.getAdapter(), direction);
+        int[] offsets = tree.randomOffsets(QUERIES, 42);
+        carets = new Offsets[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            carets[i] = new Offsets(offsets[i], offsets[i]);
+        }
+    }
+
+    @Benchmark
+    public Optional<Offsets> findNext() {
+        query = (query + 1) & (QUERIES - 1);
+        return motionHandler.findNext(carets[query]);
+    }
+}
@@ -0,0 +1,71 @@
+package com.zyurkalov.ideavim.syntaxtreejumper.motions;
+
+import com.zyurkalov.ideavim.syntaxtreejumper.MotionDirection;
+import com.zyurkalov.ideavim.syntaxtreejumper.Offsets;
+import com.zyurkalov.ideavim.syntaxtreejumper.adapters.SyntheticSyntaxTree;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares resolving a motion for every caret separately with {@link MotionHandler#findNthForAll}.
+ * Half of the carets are placed next to another caret, like the carets of a column selection.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MultiCaretBenchmark {
+
+    @Param({"1", "10", "100", "1000", "2000"})
+    public int carets;
+
+    @Param({"Element", "ArgumentList", "Comment"})
+    public String handler;
+
+    @Param({"FORWARD", "BACKWARD"})
+    public MotionDirection direction;
+
+    @Param({"100000"})
+    public int nodes;
+
+    @Param({"8"})
+    public int fanOut;
+
+    @Param({"1", "3"})
+    public int count;
+
+    private MotionHandler motionHandler;
+    private List<Offsets> caretOffsets;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SyntheticSyntaxTree tree = new SyntheticSyntaxTree(nodes, fanOut);
+        motionHandler = MotionHandlerBenchmark.HANDLERS.get(handler).apply(tree.getAdapter(), direction);
+        int[] offsets = tree.randomOffsets(carets, 42);
+        caretOffsets = new ArrayList<>(carets);
+        for (int i = 0; i < carets; i++) {
+            int offset = i % 2 == 1 ? Math.min(offsets[i - 1] + 1, tree.getTextLength() - 1) : offsets[i];
+            caretOffsets.add(new Offsets(offset, offset));
+        }
+    }
+
+    @Benchmark
+    public List<Optional<Offsets>> perCaret() {
+        List<Optional<Offsets>> results = new ArrayList<>(carets);
+        for (Offsets offsets : caretOffsets) {
+            results.add(motionHandler.findNth(offsets, count));
+        }
+        return results;
+    }
+
+    @Benchmark
+    public List<Optional<Offsets>> allCaretsInOnePass() {
+        return motionHandler.findNthForAll(caretOffsets, count);
+    }
+}
@@ -0,0 +1,48 @@
+package com.zyurkalov.ideavim.syntaxtreejumper.motions;
+
+import com.zyurkalov.ideavim.syntaxtreejumper.MotionDirection;
+import com.zyurkalov.ideavim.syntaxtreejumper.Offsets;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the sub-word search that {@link SubWordMotionHandler} runs on the leaf under the caret.
+ * The handler itself needs a real file to find the leaf, so only the search within the leaf text is measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SubWordFinderBenchmark {
+
+    @Param({"8", "64", "1024"})
+    public int identifierLength;
+
+    @Param({"FORWARD", "BACKWARD"})
+    public MotionDirection direction;
+
+    private SubWordFinder finder;
+    private String identifier;
+    private Offsets caret;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        finder = new SubWordFinder(direction);
+        String[] words = {"some", "Camel", "Case", "_snake", "_case", "XMLHttp", "Request", "42"};
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; text.length() < identifierLength; i++) {
+            text.append(words[i % words.length]);
+        }
+        identifier = text.substring(0, identifierLength);
+        int middle = identifierLength / 2;
+        caret = new Offsets(middle, middle);
+    }
+
+    @Benchmark
+    public Offsets findNext() {
+        return finder.findNext(caret, identifier);
+    }
+}
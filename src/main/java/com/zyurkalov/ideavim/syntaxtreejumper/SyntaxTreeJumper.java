@@ -3,33 +3,43 @@ package com.zyurkalov.ideavim.syntaxtreejumper;
 import com.intellij.openapi.Disposable;
 import com.intellij.openapi.editor.Editor;
 import com.intellij.openapi.editor.EditorFactory;
-import com.intellij.openapi.editor.event.EditorFactoryEvent;
-import com.intellij.openapi.editor.event.EditorFactoryListener;
-import com.maddyhome.idea.vim.api.VimEditor;
-import com.maddyhome.idea.vim.api.VimEditorGroup;
-import com.maddyhome.idea.vim.api.VimInjectorKt;
 import com.maddyhome.idea.vim.command.MappingMode;
+import com.maddyhome.idea.vim.extension.ExtensionHandler;
 import com.maddyhome.idea.vim.extension.VimExtension;
-import com.maddyhome.idea.vim.newapi.IjVimEditorKt;
 import com.zyurkalov.ideavim.syntaxtreejumper.config.MotionHandlerConfig;
 import com.zyurkalov.ideavim.syntaxtreejumper.config.ShortcutConfig;
 import com.zyurkalov.ideavim.syntaxtreejumper.handlers.FunctionHandler;
+import com.zyurkalov.ideavim.syntaxtreejumper.handlers.LazyExtensionHandler;
 import com.zyurkalov.ideavim.syntaxtreejumper.handlers.MoveSiblingHandler;
 import com.zyurkalov.ideavim.syntaxtreejumper.handlers.RepeatLastMotionHandler;
+import com.zyurkalov.ideavim.syntaxtreejumper.highlighting.HighlightingConfig;
+import com.zyurkalov.ideavim.syntaxtreejumper.highlighting.HighlightingListener;
 import com.zyurkalov.ideavim.syntaxtreejumper.highlighting.ToggleHighlightingHandler;
 import com.zyurkalov.ideavim.syntaxtreejumper.motions.*;
+import com.zyurkalov.ideavim.syntaxtreejumper.stats.MotionStats;
+import com.zyurkalov.ideavim.syntaxtreejumper.stats.StatsCommandHandler;
 import org.jetbrains.annotations.NotNull;
 
-import java.util.Collection;
+import javax.swing.KeyStroke;
 import java.util.EnumSet;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
 
 import static com.maddyhome.idea.vim.api.VimInjectorKt.injector;
+import static com.maddyhome.idea.vim.extension.VimExtensionFacade.addCommand;
 import static com.maddyhome.idea.vim.extension.VimExtensionFacade.putExtensionHandlerMapping;
 import static com.maddyhome.idea.vim.extension.VimExtensionFacade.putKeyMappingIfMissing;
 
 public class SyntaxTreeJumper implements VimExtension, Disposable {
 
-    private EditorFactoryListener editorFactoryListener;
+    /**
+     * The name under which the duration of {@link #init()} is recorded in {@link MotionStats}.
+     */
+    public static final String STARTUP_STATS_NAME = "Startup";
+
+    // The parsed key sequences of the commands and shortcuts, shared by all the initializations
+    private static final ConcurrentHashMap<String, List<KeyStroke>> parsedKeys = new ConcurrentHashMap<>();
+
     private boolean isDisposed = false;
 
     @Override
@@ -39,9 +49,15 @@ public class SyntaxTreeJumper implements VimExtension, Disposable {
 
     @Override
     public void init() {
-        registerStructuredMotionHandlers();
-        registerSpecialHandlers();
-        setupAutomaticHighlighting();
+        MotionStats.measure(STARTUP_STATS_NAME, "init", 0, () -> {
+            registerStructuredMotionHandlers();
+            registerSpecialHandlers();
+            registerCommands();
+            // Started by the highlighting toggle otherwise
+            if (HighlightingConfig.getInstance().isHighlightingEnabled()) {
+                setupAutomaticHighlighting();
+            }
+        });
     }
 
     /**
@@ -311,88 +327,19 @@ public class SyntaxTreeJumper implements VimExtension, Disposable {
 
     /**
      * Registers a single motion handler configuration.
+     * The handlers are created when their motion is used for the first time.
      */
     private void registerMotionHandler(MotionHandlerConfig config) {
-        // Register backward handler
-        putExtensionHandlerMapping(
-                EnumSet.of(MappingMode.NORMAL, MappingMode.VISUAL),
-                VimInjectorKt.getInjector().getParser().parseKeys(config.getBackwardCommand()),
-                getOwner(),
-                new FunctionHandler(MotionDirection.BACKWARD, config.handlerFactory()),
-                false);
-
-        // Register forward handler
-        putExtensionHandlerMapping(
-                EnumSet.of(MappingMode.NORMAL, MappingMode.VISUAL),
-                VimInjectorKt.getInjector().getParser().parseKeys(config.getForwardCommand()),
-                getOwner(),
-                new FunctionHandler(MotionDirection.FORWARD, config.handlerFactory()),
-                false);
-
-        // Register expand handler
-        putExtensionHandlerMapping(
-                EnumSet.of(MappingMode.NORMAL, MappingMode.VISUAL),
-                VimInjectorKt.getInjector().getParser().parseKeys(config.getExpandCommand()),
-                getOwner(),
-                new FunctionHandler(MotionDirection.EXPAND, config.handlerFactory()),
-                false);
-
-        // Register shrink handler
-        putExtensionHandlerMapping(
-                EnumSet.of(MappingMode.NORMAL, MappingMode.VISUAL),
-                VimInjectorKt.getInjector().getParser().parseKeys(config.getShrinkCommand()),
-                getOwner(),
-                new FunctionHandler(MotionDirection.SHRINK, config.handlerFactory()),
-                false);
-
-        // Register extend backward handler (for new caret)
-        putExtensionHandlerMapping(
-                EnumSet.of(MappingMode.NORMAL, MappingMode.VISUAL),
-                VimInjectorKt.getInjector().getParser().parseKeys(config.getExtendBackwardCommand()),
-                getOwner(),
-                new FunctionHandler(MotionDirection.BACKWARD, config.handlerFactory(), true),
-                false);
-
-        // Register extend forward handler (for new caret)
-        putExtensionHandlerMapping(
-                EnumSet.of(MappingMode.NORMAL, MappingMode.VISUAL),
-                VimInjectorKt.getInjector().getParser().parseKeys(config.getExtendForwardCommand()),
-                getOwner(),
-                new FunctionHandler(MotionDirection.FORWARD, config.handlerFactory(), true),
-                false);
-
-        // Register extend expand handler (for new caret)
-        putExtensionHandlerMapping(
-                EnumSet.of(MappingMode.NORMAL, MappingMode.VISUAL),
-                VimInjectorKt.getInjector().getParser().parseKeys(config.getExtendExpandCommand()),
-                getOwner(),
-                new FunctionHandler(MotionDirection.EXPAND, config.handlerFactory(), true),
-                false);
-
-        // Register extend shrink handler (for new caret)
-        putExtensionHandlerMapping(
-                EnumSet.of(MappingMode.NORMAL, MappingMode.VISUAL),
-                VimInjectorKt.getInjector().getParser().parseKeys(config.getExtendShrinkCommand()),
-                getOwner(),
-                new FunctionHandler(MotionDirection.SHRINK, config.handlerFactory(), true),
-                false);
+        for (boolean addNewCaret : new boolean[]{false, true}) {
+            for (MotionDirection direction : MotionDirection.values()) {
+                putHandlerMapping(config.getCommand(direction, addNewCaret), new LazyExtensionHandler(() ->
+                        new FunctionHandler(config.name(), direction, config.handlerFactory(), addNewCaret)));
+            }
+        }
 
         // Map all shortcuts to their respective commands
         for (ShortcutConfig shortcut : config.shortcuts()) {
-            String targetCommand = switch (shortcut.direction()) {
-                case FORWARD -> shortcut.addNewCaret() ? config.getExtendForwardCommand() : config.getForwardCommand();
-                case BACKWARD ->
-                        shortcut.addNewCaret() ? config.getExtendBackwardCommand() : config.getBackwardCommand();
-                case EXPAND -> shortcut.addNewCaret() ? config.getExtendExpandCommand() : config.getExpandCommand();
-                case SHRINK -> shortcut.addNewCaret() ? config.getExtendShrinkCommand() : config.getShrinkCommand();
-            };
-
-            putKeyMappingIfMissing(
-                    EnumSet.of(MappingMode.NORMAL, MappingMode.VISUAL),
-                    VimInjectorKt.getInjector().getParser().parseKeys(shortcut.keySequence()),
-                    getOwner(),
-                    VimInjectorKt.getInjector().getParser().parseKeys(targetCommand),
-                    true);
+            putKeyMapping(shortcut.keySequence(), config.getCommand(shortcut.direction(), shortcut.addNewCaret()));
         }
     }
 
@@ -402,171 +349,83 @@ public class SyntaxTreeJumper implements VimExtension, Disposable {
     private void registerSpecialHandlers() {
         // Smart Selection Extend Handler
         String commandSmartSelectionExtend = "<Plug>SmartSelectionExtend";
-
-        putExtensionHandlerMapping(
-                EnumSet.of(MappingMode.NORMAL, MappingMode.VISUAL),
-                VimInjectorKt.getInjector().getParser().parseKeys(commandSmartSelectionExtend),
-                getOwner(),
-                new FunctionHandler(MotionDirection.FORWARD, (syntaxTree, direction) ->
-                        new SmartSelectionExtendHandler(syntaxTree)),
-                false);
-
-        putKeyMappingIfMissing(
-                EnumSet.of(MappingMode.NORMAL, MappingMode.VISUAL),
-                VimInjectorKt.getInjector().getParser().parseKeys("<A-e>"),
-                getOwner(),
-                VimInjectorKt.getInjector().getParser().parseKeys(commandSmartSelectionExtend),
-                true);
+        putHandlerMapping(commandSmartSelectionExtend, new LazyExtensionHandler(() ->
+                new FunctionHandler("SmartSelectionExtend", MotionDirection.FORWARD, (syntaxTree, direction) ->
+                        new SmartSelectionExtendHandler(syntaxTree))));
+        putKeyMapping("<A-e>", commandSmartSelectionExtend);
 
         // Highlighting toggle
         String commandToggleHighlighting = "<Plug>ToggleHighlighting";
-        putExtensionHandlerMapping(
-                EnumSet.of(MappingMode.NORMAL, MappingMode.VISUAL),
-                VimInjectorKt.getInjector().getParser().parseKeys(commandToggleHighlighting),
-                getOwner(),
-                new ToggleHighlightingHandler(),
-                false);
-
-        putKeyMappingIfMissing(
-                EnumSet.of(MappingMode.NORMAL, MappingMode.VISUAL),
-                VimInjectorKt.getInjector().getParser().parseKeys("<A-h>"),
-                getOwner(),
-                VimInjectorKt.getInjector().getParser().parseKeys(commandToggleHighlighting),
-                true);
+        putHandlerMapping(commandToggleHighlighting, new ToggleHighlightingHandler(this::setupAutomaticHighlighting));
+        putKeyMapping("<A-h>", commandToggleHighlighting);
 
         // Sibling motion handlers (special case - doesn't use BiFunction pattern)
         String commandMoveToPrevSibling = "<Plug>MoveToPrevSibling";
         String commandMoveToNextSibling = "<Plug>MoveToNextSibling";
+        putHandlerMapping(commandMoveToPrevSibling, new MoveSiblingHandler(MotionDirection.BACKWARD));
+        putHandlerMapping(commandMoveToNextSibling, new MoveSiblingHandler(MotionDirection.FORWARD));
+        putKeyMapping("<C-A-[>", commandMoveToPrevSibling);
+        putKeyMapping("<C-A-]>", commandMoveToNextSibling);
+
+        // Repeat the last motion, in the same or another direction
+        registerRepeatHandler("<Plug>RepeatLastMotion", "<A-r>", RepeatLastMotionHandler.RepeatActionType.DIRECT);
+        registerRepeatHandler("<Plug>RepeatLastOppositeMotion", "<A-S-r>",
+                RepeatLastMotionHandler.RepeatActionType.OPPOSITE);
+        registerRepeatHandler("<Plug>RepeatLastLeftMotion", "<A-[>", RepeatLastMotionHandler.RepeatActionType.LEFT);
+        registerRepeatHandler("<Plug>RepeatLastRightMotion", "<A-]>", RepeatLastMotionHandler.RepeatActionType.RIGHT);
+        registerRepeatHandler("<Plug>RepeatLastUpMotion", "<A-S-[>", RepeatLastMotionHandler.RepeatActionType.UP);
+        registerRepeatHandler("<Plug>RepeatLastDownMotion", "<A-S-]>", RepeatLastMotionHandler.RepeatActionType.DOWN);
+    }
 
-        putExtensionHandlerMapping(
-                EnumSet.of(MappingMode.NORMAL, MappingMode.VISUAL),
-                VimInjectorKt.getInjector().getParser().parseKeys(commandMoveToPrevSibling),
-                getOwner(),
-                new MoveSiblingHandler(MotionDirection.BACKWARD),
-                false);
-
-        putExtensionHandlerMapping(
-                EnumSet.of(MappingMode.NORMAL, MappingMode.VISUAL),
-                VimInjectorKt.getInjector().getParser().parseKeys(commandMoveToNextSibling),
-                getOwner(),
-                new MoveSiblingHandler(MotionDirection.FORWARD),
-                false);
-
-        putKeyMappingIfMissing(
-                EnumSet.of(MappingMode.NORMAL, MappingMode.VISUAL),
-                VimInjectorKt.getInjector().getParser().parseKeys("<C-A-[>"),
-                getOwner(),
-                VimInjectorKt.getInjector().getParser().parseKeys(commandMoveToPrevSibling),
-                true);
-
-        putKeyMappingIfMissing(
-                EnumSet.of(MappingMode.NORMAL, MappingMode.VISUAL),
-                VimInjectorKt.getInjector().getParser().parseKeys("<C-A-]>"),
-                getOwner(),
-                VimInjectorKt.getInjector().getParser().parseKeys(commandMoveToNextSibling),
-                true);
-
-        // Repeat the last motion
-        String commandRepeatLastMotion = "<Plug>RepeatLastMotion";
-
-        putExtensionHandlerMapping(
-                EnumSet.of(MappingMode.NORMAL, MappingMode.VISUAL),
-                VimInjectorKt.getInjector().getParser().parseKeys(commandRepeatLastMotion),
-                getOwner(),
-                new RepeatLastMotionHandler(RepeatLastMotionHandler.RepeatActionType.DIRECT),
-                false);
-
-        putKeyMappingIfMissing(
-                EnumSet.of(MappingMode.NORMAL, MappingMode.VISUAL),
-                VimInjectorKt.getInjector().getParser().parseKeys("<A-r>"),
-                getOwner(),
-                VimInjectorKt.getInjector().getParser().parseKeys(commandRepeatLastMotion),
-                true);
-
-        // Repeat the last motion
-        String commandRepeatLastOppositeMotion = "<Plug>RepeatLastOppositeMotion";
-
-        putExtensionHandlerMapping(
-                EnumSet.of(MappingMode.NORMAL, MappingMode.VISUAL),
-                VimInjectorKt.getInjector().getParser().parseKeys(commandRepeatLastOppositeMotion),
-                getOwner(),
-                new RepeatLastMotionHandler(RepeatLastMotionHandler.RepeatActionType.OPPOSITE),
-                false);
-
-        putKeyMappingIfMissing(
-                EnumSet.of(MappingMode.NORMAL, MappingMode.VISUAL),
-                VimInjectorKt.getInjector().getParser().parseKeys("<A-S-r>"),
-                getOwner(),
-                VimInjectorKt.getInjector().getParser().parseKeys(commandRepeatLastOppositeMotion),
-                true);
-
-        // Repeat the last motion to the left
-        String commandRepeatLastLeftMotion = "<Plug>RepeatLastLeftMotion";
-
-        putExtensionHandlerMapping(
-                EnumSet.of(MappingMode.NORMAL, MappingMode.VISUAL),
-                VimInjectorKt.getInjector().getParser().parseKeys(commandRepeatLastLeftMotion),
-                getOwner(),
-                new RepeatLastMotionHandler(RepeatLastMotionHandler.RepeatActionType.LEFT),
-                false);
-
-        putKeyMappingIfMissing(
-                EnumSet.of(MappingMode.NORMAL, MappingMode.VISUAL),
-                VimInjectorKt.getInjector().getParser().parseKeys("<A-[>"),
-                getOwner(),
-                VimInjectorKt.getInjector().getParser().parseKeys(commandRepeatLastLeftMotion),
-                true);
-
-        // Repeat the last motion to the right
-        String commandRepeatLastRightMotion = "<Plug>RepeatLastRightMotion";
-
-        putExtensionHandlerMapping(
-                EnumSet.of(MappingMode.NORMAL, MappingMode.VISUAL),
-                VimInjectorKt.getInjector().getParser().parseKeys(commandRepeatLastRightMotion),
-                getOwner(),
-                new RepeatLastMotionHandler(RepeatLastMotionHandler.RepeatActionType.RIGHT),
-                false);
-
-        putKeyMappingIfMissing(
-                EnumSet.of(MappingMode.NORMAL, MappingMode.VISUAL),
-                VimInjectorKt.getInjector().getParser().parseKeys("<A-]>"),
-                getOwner(),
-                VimInjectorKt.getInjector().getParser().parseKeys(commandRepeatLastRightMotion),
-                true);
-
-        // Repeat the last motion up
-        String commandRepeatLastUpMotion = "<Plug>RepeatLastUpMotion";
+    private void registerRepeatHandler(String command, String keySequence,
+                                       RepeatLastMotionHandler.RepeatActionType actionType) {
+        putHandlerMapping(command, new RepeatLastMotionHandler(actionType));
+        putKeyMapping(keySequence, command);
+    }
 
+    /**
+     * Maps a {@code <Plug>} command to its handler in the normal and visual modes.
+     */
+    private void putHandlerMapping(String command, ExtensionHandler handler) {
         putExtensionHandlerMapping(
                 EnumSet.of(MappingMode.NORMAL, MappingMode.VISUAL),
-                VimInjectorKt.getInjector().getParser().parseKeys(commandRepeatLastUpMotion),
+                parseKeys(command),
                 getOwner(),
-                new RepeatLastMotionHandler(RepeatLastMotionHandler.RepeatActionType.UP),
+                handler,
                 false);
+    }
 
+    /**
+     * Maps a key sequence to a {@code <Plug>} command in the normal and visual modes,
+     * unless the user has already mapped the command.
+     */
+    private void putKeyMapping(String keySequence, String command) {
         putKeyMappingIfMissing(
                 EnumSet.of(MappingMode.NORMAL, MappingMode.VISUAL),
-                VimInjectorKt.getInjector().getParser().parseKeys("<A-S-[>"),
+                parseKeys(keySequence),
                 getOwner(),
-                VimInjectorKt.getInjector().getParser().parseKeys(commandRepeatLastUpMotion),
+                parseKeys(command),
                 true);
+    }
 
-        // Repeat the last motion down
-        String commandRepeatLastDownMotion = "<Plug>RepeatLastDownMotion";
-
-        putExtensionHandlerMapping(
-                EnumSet.of(MappingMode.NORMAL, MappingMode.VISUAL),
-                VimInjectorKt.getInjector().getParser().parseKeys(commandRepeatLastDownMotion),
-                getOwner(),
-                new RepeatLastMotionHandler(RepeatLastMotionHandler.RepeatActionType.DOWN),
-                false);
+    /**
+     * Parses a key sequence, or gets it from the earlier parses. The commands are used by both their handler
+     * and their shortcuts, and all the sequences are parsed again on every {@code :source} of the vimrc.
+     */
+    private static List<KeyStroke> parseKeys(String keys) {
+        List<KeyStroke> keyStrokes = parsedKeys.get(keys);
+        if (keyStrokes == null) {
+            keyStrokes = parsedKeys.computeIfAbsent(keys, k -> injector.getParser().parseKeys(k));
+        }
+        return keyStrokes;
+    }
 
-        putKeyMappingIfMissing(
-                EnumSet.of(MappingMode.NORMAL, MappingMode.VISUAL),
-                VimInjectorKt.getInjector().getParser().parseKeys("<A-S-]>"),
-                getOwner(),
-                VimInjectorKt.getInjector().getParser().parseKeys(commandRepeatLastDownMotion),
-                true);
+    /**
+     * Registers the ex commands showing and clearing the motion statistics.
+     */
+    private void registerCommands() {
+        addCommand(StatsCommandHandler.SHOW_COMMAND, new StatsCommandHandler(false));
+        addCommand(StatsCommandHandler.RESET_COMMAND, new StatsCommandHandler(true));
     }
 
     /**
@@ -576,37 +435,10 @@ public class SyntaxTreeJumper implements VimExtension, Disposable {
         if (isDisposed) {
             return;
         }
-
-        // Set up highlighting for all currently open editors
-        VimEditorGroup editorGroup = injector.getEditorGroup();
-        Collection<VimEditor> allEditors = editorGroup.getEditors();
-
-        for (VimEditor vimEditor : allEditors) {
-            Editor editor = IjVimEditorKt.getIj(vimEditor);
-            FunctionHandler.setupEditorHighlighting(editor, vimEditor);
+        HighlightingListener.start(this);
+        for (Editor editor : EditorFactory.getInstance().getAllEditors()) {
+            HighlightingListener.update(editor);
         }
-
-        // Create and store the listener reference
-        editorFactoryListener = new EditorFactoryListener() {
-            @Override
-            public void editorCreated(@NotNull EditorFactoryEvent event) {
-                if (isDisposed) {
-                    return;
-                }
-                Editor editor = event.getEditor();
-                var vimEditor = IjVimEditorKt.getVim(editor);
-                FunctionHandler.setupEditorHighlighting(editor, vimEditor);
-            }
-
-            @Override
-            public void editorReleased(@NotNull EditorFactoryEvent event) {
-                Editor editor = event.getEditor();
-                FunctionHandler.cleanupEditor(editor);
-            }
-        };
-
-        // Register the listener manually so we can control its lifecycle
-        EditorFactory.getInstance().addEditorFactoryListener(editorFactoryListener);
     }
 
     @Override
@@ -617,16 +449,7 @@ public class SyntaxTreeJumper implements VimExtension, Disposable {
 
         isDisposed = true;
 
-        // Remove the editor factory listener
-        if (editorFactoryListener != null) {
-            EditorFactory.getInstance().removeEditorFactoryListener(editorFactoryListener);
-            editorFactoryListener = null;
-        }
-
-        // Clean up all remaining editors
-        Editor[] allEditors = EditorFactory.getInstance().getAllEditors();
-        for (Editor editor : allEditors) {
-            FunctionHandler.cleanupEditor(editor);
-        }
+        // The listener is removed with this extension, clean up the highlights of all editors
+        HighlightingListener.stop();
     }
-}
\ No newline at end of file
+}
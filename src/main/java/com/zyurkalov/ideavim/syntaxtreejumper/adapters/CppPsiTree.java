@@ -8,17 +8,28 @@ import org.jetbrains.annotations.Nullable;
 
 public class CppPsiTree {
     private final PsiFile psiFile;
+    @Nullable
+    private final SyntaxTreeSnapshot snapshot;
 
     public @Nullable PsiFile getPsiFile() {
         return psiFile;
     }
 
     public CppPsiTree(PsiFile file) {
+        this(file, null);
+    }
+
+    public CppPsiTree(PsiFile file, @Nullable SyntaxTreeSnapshot snapshot) {
         this.psiFile = file;
+        this.snapshot = snapshot;
     }
 
     @Nullable
     public CppSyntaxNode findNodeAt(int offset) {
+        if (snapshot != null) {
+            int index = snapshot.findLeafAt(offset);
+            return index != SyntaxTreeSnapshot.NONE ? new CppSyntaxNode(snapshot, index) : null;
+        }
         PsiElement element = psiFile.findElementAt(offset);
         return element != null ? new CppSyntaxNode(element) : null;
     }
@@ -32,11 +43,20 @@ public class CppPsiTree {
         CppSyntaxNode cppNode1 = (CppSyntaxNode) node1;
         CppSyntaxNode cppNode2 = (CppSyntaxNode) node2;
 
+        SyntaxTreeSnapshot nodeSnapshot = cppNode1.getSnapshot();
+        if (nodeSnapshot != null && nodeSnapshot == cppNode2.getSnapshot()) {
+            int commonParent = nodeSnapshot.findCommonParent(cppNode1.getSnapshotIndex(), cppNode2.getSnapshotIndex());
+            return new CppSyntaxNode(nodeSnapshot, commonParent);
+        }
+
         PsiElement commonParent = PsiTreeUtil.findCommonParent(cppNode1.getPsiElement(), cppNode2.getPsiElement());
         return commonParent != null ? new CppSyntaxNode(commonParent) : null;
     }
 
      public int getDocumentLength() {
+        if (snapshot != null) {
+            return snapshot.getEndOffset(snapshot.getRoot());
+        }
         return psiFile.getTextLength();
     }
 
@@ -12,7 +12,11 @@ public class CppSyntaxTreeAdapter extends SyntaxTreeAdapter {
     private final CppPsiTree cppPsiTree;
 
     public CppSyntaxTreeAdapter(@NotNull PsiFile psiFile) {
-        cppPsiTree = new CppPsiTree(psiFile);
+        this(psiFile, null);
+    }
+
+    public CppSyntaxTreeAdapter(@NotNull PsiFile psiFile, @Nullable SyntaxTreeSnapshot snapshot) {
+        cppPsiTree = new CppPsiTree(psiFile, snapshot);
     }
 
     @Override
@@ -8,17 +8,28 @@ import org.jetbrains.annotations.Nullable;
 
 public class LuaPsiTree {
     private final PsiFile psiFile;
+    @Nullable
+    private final SyntaxTreeSnapshot snapshot;
 
     public @Nullable PsiFile getPsiFile() {
         return psiFile;
     }
 
     public LuaPsiTree(PsiFile file) {
+        this(file, null);
+    }
+
+    public LuaPsiTree(PsiFile file, @Nullable SyntaxTreeSnapshot snapshot) {
         this.psiFile = file;
+        this.snapshot = snapshot;
     }
 
     @Nullable
     public LuaSyntaxNode findNodeAt(int offset) {
+        if (snapshot != null) {
+            int index = snapshot.findLeafAt(offset);
+            return index != SyntaxTreeSnapshot.NONE ? new LuaSyntaxNode(snapshot, index) : null;
+        }
         PsiElement element = psiFile.findElementAt(offset);
         return element != null ? new LuaSyntaxNode(element) : null;
     }
@@ -32,11 +43,20 @@ public class LuaPsiTree {
         LuaSyntaxNode luaNode1 = (LuaSyntaxNode) node1;
         LuaSyntaxNode luaNode2 = (LuaSyntaxNode) node2;
 
+        SyntaxTreeSnapshot nodeSnapshot = luaNode1.getSnapshot();
+        if (nodeSnapshot != null && nodeSnapshot == luaNode2.getSnapshot()) {
+            int commonParent = nodeSnapshot.findCommonParent(luaNode1.getSnapshotIndex(), luaNode2.getSnapshotIndex());
+            return new LuaSyntaxNode(nodeSnapshot, commonParent);
+        }
+
         PsiElement commonParent = PsiTreeUtil.findCommonParent(luaNode1.getPsiElement(), luaNode2.getPsiElement());
         return commonParent != null ? new LuaSyntaxNode(commonParent) : null;
     }
 
     public int getDocumentLength() {
+        if (snapshot != null) {
+            return snapshot.getEndOffset(snapshot.getRoot());
+        }
         return psiFile.getTextLength();
     }
 }
\ No newline at end of file
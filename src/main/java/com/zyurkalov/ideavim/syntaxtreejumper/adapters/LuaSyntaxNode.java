@@ -4,52 +4,30 @@ import com.intellij.psi.PsiElement;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
-import java.util.Arrays;
-import java.util.Collections;
-import java.util.List;
 import java.util.Objects;
 
 /**
  * Lua PSI-based implementation of SyntaxNode.
  */
 public class LuaSyntaxNode extends SyntaxNode {
+    private static final NodeCategoryTable TABLE = NodeCategoryTable.forRules("lua");
 
     public LuaSyntaxNode(PsiElement psiElement) {
         super(psiElement);
     }
 
-    @Override
-    @Nullable
-    public SyntaxNode getParent() {
-        PsiElement parent = psiElement.getParent();
-        return parent != null ? new LuaSyntaxNode(parent) : null;
-    }
-
-    @Override
-    @NotNull
-    public List<SyntaxNode> getChildren() {
-        PsiElement[] children = psiElement.getChildren();
-        if (children.length == 0) {
-            return Collections.emptyList();
-        }
-        return Arrays.stream(children)
-                .map(LuaSyntaxNode::new)
-                .map(node -> (SyntaxNode) node)
-                .toList();
+    public LuaSyntaxNode(@NotNull SyntaxTreeSnapshot snapshot, int index) {
+        super(snapshot, index);
     }
 
     @Override
-    @Nullable
-    public SyntaxNode getPreviousSibling() {
-        PsiElement sibling = psiElement.getPrevSibling();
-        return sibling != null ? new LuaSyntaxNode(sibling) : null;
+    protected @NotNull SyntaxNode createNode(@NotNull PsiElement element) {
+        return new LuaSyntaxNode(element);
     }
 
     @Override
-    @Nullable
-    public SyntaxNode getNextSibling() {
-        PsiElement sibling = psiElement.getNextSibling();
-        return sibling != null ? new LuaSyntaxNode(sibling) : null;
+    protected @NotNull SyntaxNode createNode(@NotNull SyntaxTreeSnapshot snapshot, int index) {
+        return new LuaSyntaxNode(snapshot, index);
     }
 
     @Override
@@ -57,49 +35,30 @@ public class LuaSyntaxNode extends SyntaxNode {
         if (!(other instanceof LuaSyntaxNode luaNode)) {
             return false;
         }
-        return psiElement.isEquivalentTo(luaNode.psiElement);
-    }
-
-    @Override
-    public SyntaxNode getFirstChild() {
-        PsiElement firstChild = psiElement.getFirstChild();
-        if (firstChild == null) {
-            return null;
-        }
-        return new LuaSyntaxNode(firstChild);
-    }
-
-    @Override
-    public SyntaxNode getLastChild() {
-        PsiElement lastChild = psiElement.getLastChild();
-        if (lastChild == null) {
-            return null;
-        }
-        return new LuaSyntaxNode(lastChild);
+        return isEquivalentElement(luaNode);
     }
 
     @Override
     public boolean equals(Object obj) {
         if (this == obj) return true;
         if (!(obj instanceof LuaSyntaxNode that)) return false;
-        return Objects.equals(psiElement, that.psiElement);
+        return Objects.equals(getIdentity(), that.getIdentity());
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(psiElement);
+        return Objects.hash(getIdentity());
     }
 
     @Override
     public @NotNull String toString() {
-        return "LuaSyntaxNode{" + psiElement.getClass().getSimpleName() +
+        return "LuaSyntaxNode{" + getPsiElement().getClass().getSimpleName() +
                 ", text='" + getText() + "'}";
     }
 
     @Override
-    public boolean isMethodOrFunctionCallExpression() {
-        String typeName = getTypeName();
-        return typeName.equals("CALL_EXPR");
+    protected @NotNull NodeCategoryTable getCategoryTable() {
+        return TABLE;
     }
 
     @Override
@@ -108,116 +67,28 @@ public class LuaSyntaxNode extends SyntaxNode {
         if (parent == null) {
             return false;
         }
-        String typeName = getTypeName();
-        if (typeName.equals("PARAM_NAME_DEF")) {
+        if (hasCategory(NodeCategory.PARAMETER_NAME)) {
             return true;
         }
 
-        String parentTypeName = parent.getTypeName();
-        boolean isList = typeName.equals("LIST_ARGS") || typeName.equals("FUNC_BODY");
+        boolean isList = hasCategory(NodeCategory.ARGUMENT_LIST | NodeCategory.PARAMETER_LIST);
         if (isList && hasOnlyWhitespaceOrBracketsChildren()) {
             return true;
         }
-        return parentTypeName.equals("LIST_ARGS") &&
-                (typeName.endsWith("_EXPR") || typeName.equals("NAME_EXPR"));
-    }
-
-    @Override
-    public boolean isExpressionStatement() {
-        // In Lua, CALL_STAT is a statement that's just an expression
-        return getTypeName().equals("CALL_STAT");
-    }
-
-    @Override
-    public boolean isDeclarationStatement() {
-        String typeName = getTypeName();
-        return typeName.equals("LOCAL_DEF") || typeName.equals("ASSIGN_STAT");
-    }
-
-    @Override
-    public boolean isAStatement() {
-        String typeName = getTypeName();
-        return typeName.endsWith("_STAT");
-    }
-
-    @Override
-    public boolean isReturnStatement() {
-        return getTypeName().equals("RETURN_STAT");
-    }
-
-    @Override
-    public boolean isLoopStatement() {
-        String typeName = getTypeName();
-        return typeName.equals("WHILE_STAT") ||
-                typeName.equals("FOR_A_STAT") ||   // Numeric for loop
-                typeName.equals("FOR_B_STAT") ||   // Generic for loop
-                typeName.equals("REPEAT_STAT") ||
-                typeName.equals("IF_STAT");        // Including if as a control structure
-    }
-
-    @Override
-    public boolean isFunctionDefinition() {
-        String typeName = getTypeName();
-        // "Global Function", "Class Method", and LOCAL_FUNC_DEF
-        return typeName.equals("Global Function") ||
-                typeName.equals("Class Method") ||
-                typeName.equals("LOCAL_FUNC_DEF");
-    }
-
-    @Override
-    public boolean isMethodDefinition() {
-        // In Lua, methods are Class Methods with : syntax
-        String typeName = getTypeName();
-        if (!typeName.equals("Class Method")) {
-            return false;
-        }
-
-        // Check if it has : syntax by looking for CLASS_METHOD_NAME child
-        for (SyntaxNode child : getChildren()) {
-            if (child.getTypeName().equals("CLASS_METHOD_NAME")) {
-                // Check if the text contains ':'
-                return child.getText().contains(":");
-            }
-        }
-        return false;
+        return parent.hasCategory(NodeCategory.ARGUMENT_LIST) && hasCategory(NodeCategory.ARGUMENT);
     }
 
     @Override
     public boolean isVariable() {
-        String typeName = getTypeName();
         SyntaxNode parent = getParent();
 
         if (parent == null) {
             return false;
         }
 
-        String parentTypeName = parent.getTypeName();
-
-        // NAME_EXPR can be a variable reference
-        // NAME_DEF is a variable definition
-        boolean isNameType = typeName.equals("NAME_EXPR") || typeName.equals("NAME_DEF")
-                || typeName.equals("ID");
-
-
-        // Check if parent context makes this a variable
-        boolean isInVariableContext =
-                parentTypeName.equals("NAME_LIST") ||      // In local/assignment declarations
-                        parentTypeName.equals("VAR_LIST") ||       // In assignment left side
-                        parentTypeName.equals("INDEX_EXPR") ||     // Base of field access
-                        parentTypeName.equals("BINARY_EXPR") ||    // In expressions
-                        parentTypeName.equals("UNARY_EXPR") ||     // In unary expressions
-                        parentTypeName.equals("LIST_ARGS") ||      // As function argument
-                        parentTypeName.equals("EXPR_LIST") ||       // In expression lists
-                        parentTypeName.equals("NAME_EXPR") ||       // ID in name expression
-                        parentTypeName.equals("TABLE_FIELD");        // In table field assignments
-
-        return isNameType && isInVariableContext;
-    }
-
-    @Override
-    public boolean isBlock() {
-        String typeName = getTypeName();
-        return typeName.equals("LuaBlock");
+        // NAME_EXPR, NAME_DEF or ID in a context that makes it a variable,
+        // e.g. declarations, assignments, expressions, function arguments or table fields
+        return hasCategory(NodeCategory.VARIABLE_NAME) && parent.hasCategory(NodeCategory.VARIABLE_CONTEXT);
     }
 
     @Override
@@ -227,32 +98,7 @@ public class LuaSyntaxNode extends SyntaxNode {
 
     @Override
     public boolean isExpression() {
-        String typeName = getTypeName();
-        return typeName.endsWith("_EXPR");
-    }
-
-    @Override
-    public boolean isClassDefinition() {
-        String typeName = getTypeName();
-
-        if (typeName.equals("TABLE_EXPR")) {
-            return true;
-        }
-
-        if (!typeName.equals("LOCAL_DEF") && !typeName.equals("ASSIGN_STAT")) {
-            return false;
-        }
-
-        SyntaxNode nextSibling = getNextSibling();
-        if (nextSibling != null) {
-            String nextText = nextSibling.getText();
-            if (nextText.contains(".__index") || nextText.contains("setmetatable")) {
-                return true;
-            }
-        }
-
-        String text = getText();
-        return text.matches(".*=\\s*\\{\\s*\\}.*");
+        return hasCategory(NodeCategory.EXPRESSION);
     }
 
     @Override
@@ -262,14 +108,6 @@ public class LuaSyntaxNode extends SyntaxNode {
         return false;
     }
 
-    @Override
-    public boolean isComment() {
-        String typeName = getTypeName();
-        return typeName.equals("BLOCK_COMMENT") ||
-                typeName.equals("SHORT_COMMENT") ||
-                typeName.equals("DOC_COMMENT");
-    }
-
     @Override
     public boolean isMacro() {
         // Lua doesn't have macros in the C/Rust sense
@@ -277,39 +115,16 @@ public class LuaSyntaxNode extends SyntaxNode {
         return false;
     }
 
-    @Override
-    public boolean isImport() {
-        // In Lua, imports are require() calls
-        if (!isMethodOrFunctionCallExpression()) {
-            return false;
-        }
-
-        // Check if the call is to 'require'
-        for (SyntaxNode child : getChildren()) {
-            if (child.getTypeName().equals("NAME_EXPR") &&
-                    child.getText().equals("require")) {
-                return true;
-            }
-        }
-        return false;
-    }
-
     @Override
     public boolean isTypeUsage() {
         // In Lua, type usage appears in doc comments
-        String typeName = getTypeName();
         SyntaxNode parent = getParent();
 
         if (parent == null) {
             return false;
         }
 
-        String parentTypeName = parent.getTypeName();
-
         // Check if this is a type reference in doc comments
-        return (typeName.equals("GENERAL_TY") || typeName.equals("CLASS_NAME_REF")) &&
-                (parentTypeName.equals("TAG_PARAM") ||
-                        parentTypeName.equals("TAG_RETURN") ||
-                        parentTypeName.equals("TYPE_LIST"));
+        return hasCategory(NodeCategory.TYPE_USAGE) && parent.hasCategory(NodeCategory.TYPE_USAGE_CONTEXT);
     }
 }
\ No newline at end of file
@@ -12,7 +12,11 @@ public class LuaSyntaxTreeAdapter extends SyntaxTreeAdapter {
     private final LuaPsiTree luaPsiTree;
 
     public LuaSyntaxTreeAdapter(@NotNull PsiFile psiFile) {
-        luaPsiTree = new LuaPsiTree(psiFile);
+        this(psiFile, null);
+    }
+
+    public LuaSyntaxTreeAdapter(@NotNull PsiFile psiFile, @Nullable SyntaxTreeSnapshot snapshot) {
+        luaPsiTree = new LuaPsiTree(psiFile, snapshot);
     }
 
     @Override
@@ -0,0 +1,60 @@
+package com.zyurkalov.ideavim.syntaxtreejumper.adapters;
+
+/**
+ * Bit flags describing what a syntax node is, computed from its element type only.
+ * A {@link NodeCategoryTable} maps every element type of a language to a combination of these flags,
+ * so that the {@code is*()} predicates of {@link SyntaxNode} become bit tests.
+ * <p>
+ * Some flags only mark candidates, e.g. {@link #ARGUMENT} is an argument only inside an {@link #ARGUMENT_LIST};
+ * the predicates combine them with the categories of the parent or children.
+ */
+public final class NodeCategory {
+    public static final long NONE = 0;
+
+    public static final long COMPOUND_EXPRESSION = 1L;
+    public static final long FUNCTION_PARAMETER = 1L << 1;
+    /** Becomes a function argument when its parent is an argument list. */
+    public static final long ARGUMENT = 1L << 2;
+    public static final long ARGUMENT_LIST = 1L << 3;
+    /** A list that is selected as a whole when it is empty, but whose children are not arguments. */
+    public static final long PARAMETER_LIST = 1L << 4;
+    public static final long PARAMETER_NAME = 1L << 5;
+    public static final long METHOD_OR_FUNCTION_CALL = 1L << 6;
+    public static final long EXPRESSION_LIST = 1L << 7;
+    public static final long TYPE_PARAMETER = 1L << 8;
+    /** Becomes a type parameter when its parent is a type argument list. */
+    public static final long TYPE_ARGUMENT = 1L << 9;
+    public static final long TYPE_ARGUMENT_LIST = 1L << 10;
+    public static final long DECLARATION_STATEMENT = 1L << 11;
+    public static final long EXPRESSION_STATEMENT = 1L << 12;
+    public static final long RETURN_STATEMENT = 1L << 13;
+    public static final long LOOP = 1L << 14;
+    public static final long CONDITIONAL = 1L << 15;
+    public static final long METHOD_DEFINITION = 1L << 16;
+    public static final long FUNCTION_DEFINITION = 1L << 17;
+    public static final long METHOD_NAME = 1L << 18;
+    public static final long VARIABLE = 1L << 19;
+    /** A name that may be a variable, depending on its parent. */
+    public static final long VARIABLE_NAME = 1L << 20;
+    public static final long VARIABLE_CONTEXT = 1L << 21;
+    public static final long REFERENCE = 1L << 22;
+    public static final long BLOCK = 1L << 23;
+    public static final long STATEMENT = 1L << 24;
+    public static final long EXPRESSION = 1L << 25;
+    public static final long EQUAL_SYMBOL = 1L << 26;
+    public static final long CLASS_DEFINITION = 1L << 27;
+    /** Becomes a template when one of its children is a template marker. */
+    public static final long TEMPLATE_CANDIDATE = 1L << 28;
+    public static final long TEMPLATE_MARKER = 1L << 29;
+    public static final long COMMENT = 1L << 30;
+    public static final long MACRO = 1L << 31;
+    public static final long IMPORT = 1L << 32;
+    public static final long TYPE_USAGE = 1L << 33;
+    /** A parent required by languages where type usages only appear in some places, e.g. doc comments. */
+    public static final long TYPE_USAGE_CONTEXT = 1L << 34;
+    /** Punctuation tokens that are skipped when moving between siblings. */
+    public static final long SKIPPABLE = 1L << 35;
+
+    private NodeCategory() {
+    }
+}
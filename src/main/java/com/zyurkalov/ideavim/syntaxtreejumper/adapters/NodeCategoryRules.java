@@ -0,0 +1,513 @@
+package com.zyurkalov.ideavim.syntaxtreejumper.adapters;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Rules that map the element type names of a language to {@link NodeCategory} flags,
+ * loaded from the resource {@code /syntaxtreejumper/rules/<name>.rules}.
+ * <p>
+ * Every line of a rule file is one of:
+ * <ul>
+ *     <li>{@code CATEGORY [CATEGORY...] = PATTERN [PATTERN...]} gives the categories to the element types
+ *     that match one of the patterns. A pattern matches the whole type name, a {@code *} at its start or end
+ *     matches any text, a lone {@code *} matches every name. Quoted patterns match the type name exactly,
+ *     e.g. names with spaces or asterisks. A pattern may be followed by conditions, see below.</li>
+ *     <li>{@code extends NAME} applies the rules of another file first.</li>
+ *     <li>{@code override CATEGORY...} drops these categories from the result of the extended rules.</li>
+ *     <li>{@code languages PATTERN...} and {@code file-types PATTERN...} select the files the rules are for,
+ *     the patterns match the lowercase language id and file type name.</li>
+ * </ul>
+ * Empty lines and lines starting with {@code #} are ignored.
+ * <p>
+ * A condition in brackets after a pattern restricts it to the nodes around which the tree has some shape:
+ * <ul>
+ *     <li>{@code [child:PATTERN]} holds if a direct child of the node matches the pattern, leaf tokens included;</li>
+ *     <li>{@code [parent:PATTERN]} holds if the parent of the node matches the pattern;</li>
+ *     <li>{@code [text:"TEXT"]} holds if the text of the node is exactly the quoted text.</li>
+ * </ul>
+ * A {@code !} before the condition negates it, the patterns of conditions may have conditions of their own,
+ * and all conditions of a pattern must hold, e.g. {@code CLASS_DEFINITION = LOCAL_DEF[child:TABLE_EXPR]}.
+ * The categories of such patterns depend on the node and are computed by {@link #classifyNode(SyntaxNode)},
+ * {@link #classifyConditional(String)} gives those that the nodes of a type may get.
+ * <p>
+ * Other conditions on the parent or the children of a node are expressed by the candidate categories, e.g. an
+ * {@link NodeCategory#ARGUMENT} is an argument only inside an {@link NodeCategory#ARGUMENT_LIST},
+ * the predicates of {@link SyntaxNode} check them.
+ * <p>
+ * The rule files with a {@code languages} or {@code file-types} line are listed in {@code rules.list},
+ * the first one that matches a file is used for it. The default rules are not listed, their lines name the
+ * languages they are written for.
+ */
+public final class NodeCategoryRules {
+    static final String DIRECTORY = "/syntaxtreejumper/rules/";
+    private static final Map<String, Long> CATEGORIES_BY_NAME = collectCategoryNames();
+    private static final ConcurrentHashMap<String, NodeCategoryRules> LOADED = new ConcurrentHashMap<>();
+
+    private final String name;
+    @Nullable
+    private final NodeCategoryRules base;
+    private final long overridden;
+    private final Map<String, Long> exactNames;
+    private final Pattern[] patterns;
+    private final Pattern[] conditionalPatterns;
+    private final Pattern[] languages;
+    private final Pattern[] fileTypes;
+
+    private NodeCategoryRules(@NotNull String name, @Nullable NodeCategoryRules base, long overridden,
+                              @NotNull Map<String, Long> exactNames, @NotNull List<Pattern> patterns,
+                              @NotNull List<Pattern> conditionalPatterns, @NotNull List<Pattern> languages,
+                              @NotNull List<Pattern> fileTypes) {
+        this.name = name;
+        this.base = base;
+        this.overridden = overridden;
+        this.exactNames = exactNames;
+        this.patterns = patterns.toArray(Pattern[]::new);
+        this.conditionalPatterns = conditionalPatterns.toArray(Pattern[]::new);
+        this.languages = languages.toArray(Pattern[]::new);
+        this.fileTypes = fileTypes.toArray(Pattern[]::new);
+    }
+
+    /**
+     * Gets the rules of a resource file, loading them on the first call.
+     *
+     * @param name The name of the file without the extension, e.g. {@code "rust"}
+     * @throws IllegalArgumentException If the file does not exist or is malformed
+     */
+    @NotNull
+    public static NodeCategoryRules load(@NotNull String name) {
+        NodeCategoryRules rules = LOADED.get(name);
+        if (rules == null) {
+            // Not computeIfAbsent, the rules of the extended file are loaded from inside
+            rules = parse(name, readLines(DIRECTORY + name + ".rules"));
+            NodeCategoryRules previous = LOADED.putIfAbsent(name, rules);
+            rules = previous != null ? previous : rules;
+        }
+        return rules;
+    }
+
+    /**
+     * Finds the rules for the files of a language.
+     *
+     * @return The name of the rules, or null if the default rules apply
+     */
+    @Nullable
+    public static String findFor(@NotNull String languageId, @NotNull String fileTypeName) {
+        String language = languageId.toLowerCase(Locale.ROOT);
+        String fileType = fileTypeName.toLowerCase(Locale.ROOT);
+        for (String name : ListedRules.NAMES) {
+            NodeCategoryRules rules = load(name);
+            if (matchesAny(rules.languages, language) || matchesAny(rules.fileTypes, fileType)) {
+                return name;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Checks if rules were written for the files of a language: the rules found by {@link #findFor},
+     * or the default rules. Other languages get the default rules too, but their element types are named
+     * differently, so few of their nodes have categories.
+     */
+    public static boolean existFor(@NotNull String languageId, @NotNull String fileTypeName) {
+        if (findFor(languageId, fileTypeName) != null) {
+            return true;
+        }
+        NodeCategoryRules rules = load("default");
+        return matchesAny(rules.languages, languageId.toLowerCase(Locale.ROOT)) ||
+                matchesAny(rules.fileTypes, fileTypeName.toLowerCase(Locale.ROOT));
+    }
+
+    @NotNull
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Computes the categories of an element type from its name, which all nodes of the type have.
+     */
+    public long classify(@NotNull String typeName) {
+        long categories = base != null ? base.classify(typeName) & ~overridden : NodeCategory.NONE;
+        categories |= exactNames.getOrDefault(typeName, NodeCategory.NONE);
+        for (Pattern pattern : patterns) {
+            if (pattern.matches(typeName)) {
+                categories |= pattern.categories;
+            }
+        }
+        return categories;
+    }
+
+    /**
+     * Computes the categories that the nodes of an element type get if the conditions of their patterns hold,
+     * see {@link #classifyNode(SyntaxNode)}.
+     */
+    public long classifyConditional(@NotNull String typeName) {
+        long categories = base != null ? base.classifyConditional(typeName) & ~overridden : NodeCategory.NONE;
+        for (Pattern pattern : conditionalPatterns) {
+            if (pattern.matches(typeName)) {
+                categories |= pattern.categories;
+            }
+        }
+        return categories;
+    }
+
+    /**
+     * Computes the categories of the patterns with conditions that hold for a node.
+     * The conditions look at the types and the text of the nodes around it, so it is only worth calling
+     * for nodes whose type has {@link #classifyConditional(String) conditional categories}.
+     */
+    public long classifyNode(@NotNull SyntaxNode node) {
+        long categories = base != null ? base.classifyNode(node) & ~overridden : NodeCategory.NONE;
+        if (conditionalPatterns.length == 0) {
+            return categories;
+        }
+        String typeName = node.getTypeName();
+        for (Pattern pattern : conditionalPatterns) {
+            if ((categories & pattern.categories) != pattern.categories && pattern.matches(typeName) &&
+                    pattern.conditionsHold(node)) {
+                categories |= pattern.categories;
+            }
+        }
+        return categories;
+    }
+
+    /**
+     * Parses the lines of a rule file.
+     *
+     * @param name The name of the rules, used in error messages
+     */
+    @NotNull
+    static NodeCategoryRules parse(@NotNull String name, @NotNull List<String> lines) {
+        NodeCategoryRules base = null;
+        long overridden = NodeCategory.NONE;
+        Map<String, Long> exactNames = new HashMap<>();
+        List<Pattern> patterns = new ArrayList<>();
+        List<Pattern> conditionalPatterns = new ArrayList<>();
+        List<Pattern> languages = new ArrayList<>();
+        List<Pattern> fileTypes = new ArrayList<>();
+        for (int lineNumber = 1; lineNumber <= lines.size(); lineNumber++) {
+            String line = lines.get(lineNumber - 1).trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            String location = name + ".rules:" + lineNumber;
+            int equals = line.indexOf('=');
+            if (equals >= 0) {
+                long categories = parseCategories(line.substring(0, equals), location);
+                for (Pattern pattern : parsePatterns(line.substring(equals + 1), categories, location)) {
+                    if (pattern.conditions.length > 0) {
+                        conditionalPatterns.add(pattern);
+                    } else if (pattern.kind == Pattern.EXACT) {
+                        exactNames.merge(pattern.text, categories, (a, b) -> a | b);
+                    } else {
+                        patterns.add(pattern);
+                    }
+                }
+                continue;
+            }
+            String[] words = line.split("\\s+", 2);
+            String arguments = words.length > 1 ? words[1] : "";
+            switch (words[0]) {
+                case "extends" -> base = load(arguments.trim());
+                case "override" -> overridden |= parseCategories(arguments, location);
+                case "languages" -> languages.addAll(parseNamePatterns(arguments, location));
+                case "file-types" -> fileTypes.addAll(parseNamePatterns(arguments, location));
+                default -> throw new IllegalArgumentException(location + ": unknown directive " + words[0]);
+            }
+        }
+        return new NodeCategoryRules(name, base, overridden, exactNames, patterns, conditionalPatterns,
+                languages, fileTypes);
+    }
+
+    private static long parseCategories(@NotNull String text, @NotNull String location) {
+        long categories = NodeCategory.NONE;
+        for (String categoryName : text.trim().split("\\s+")) {
+            Long category = CATEGORIES_BY_NAME.get(categoryName);
+            if (category == null) {
+                throw new IllegalArgumentException(location + ": unknown category " + categoryName);
+            }
+            categories |= category;
+        }
+        return categories;
+    }
+
+    @NotNull
+    private static List<Pattern> parsePatterns(@NotNull String text, long categories, @NotNull String location) {
+        PatternParser parser = new PatternParser(text, location);
+        List<Pattern> patterns = new ArrayList<>();
+        while (parser.skipWhitespace()) {
+            patterns.add(parser.parsePattern(categories));
+        }
+        if (patterns.isEmpty()) {
+            throw new IllegalArgumentException(location + ": no patterns");
+        }
+        return patterns;
+    }
+
+    /**
+     * Parses the patterns of the names of languages or file types, which have no conditions.
+     */
+    @NotNull
+    private static List<Pattern> parseNamePatterns(@NotNull String text, @NotNull String location) {
+        List<Pattern> patterns = parsePatterns(text, NodeCategory.NONE, location);
+        for (Pattern pattern : patterns) {
+            if (pattern.conditions.length > 0) {
+                throw new IllegalArgumentException(location + ": conditions on a name pattern");
+            }
+        }
+        return patterns;
+    }
+
+    private static boolean matchesAny(@NotNull Pattern[] patterns, @NotNull String text) {
+        for (Pattern pattern : patterns) {
+            if (pattern.matches(text)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @NotNull
+    private static List<String> readLines(@NotNull String resource) {
+        InputStream stream = NodeCategoryRules.class.getResourceAsStream(resource);
+        if (stream == null) {
+            throw new IllegalArgumentException("Missing resource " + resource);
+        }
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(stream, StandardCharsets.UTF_8))) {
+            return reader.lines().toList();
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot read " + resource, e);
+        }
+    }
+
+    @NotNull
+    private static Map<String, Long> collectCategoryNames() {
+        Map<String, Long> categories = new HashMap<>();
+        for (Field field : NodeCategory.class.getFields()) {
+            if (Modifier.isStatic(field.getModifiers()) && field.getType() == long.class) {
+                try {
+                    categories.put(field.getName(), field.getLong(null));
+                } catch (IllegalAccessException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        }
+        return categories;
+    }
+
+    /**
+     * The names of the rules that select files, loaded on first use.
+     */
+    private static final class ListedRules {
+        static final List<String> NAMES = readLines(DIRECTORY + "rules.list").stream()
+                .map(String::trim)
+                .filter(line -> !line.isEmpty() && !line.startsWith("#"))
+                .toList();
+    }
+
+    /**
+     * Reads the patterns of a line and their conditions.
+     */
+    private static final class PatternParser {
+        private final String text;
+        private final String location;
+        private int position;
+
+        PatternParser(@NotNull String text, @NotNull String location) {
+            this.text = text;
+            this.location = location;
+        }
+
+        /**
+         * Skips whitespace before the next pattern.
+         *
+         * @return Whether there is a pattern left
+         */
+        boolean skipWhitespace() {
+            while (position < text.length() && Character.isWhitespace(text.charAt(position))) {
+                position++;
+            }
+            return position < text.length();
+        }
+
+        @NotNull
+        Pattern parsePattern(long categories) {
+            if (position < text.length() && text.charAt(position) == '"') {
+                return new Pattern(Pattern.EXACT, parseQuoted(), categories, parseConditions());
+            }
+            int start = position;
+            while (position < text.length() && !Character.isWhitespace(text.charAt(position)) &&
+                    "[]\"".indexOf(text.charAt(position)) < 0) {
+                position++;
+            }
+            if (position == start) {
+                throw new IllegalArgumentException(location + ": missing pattern at column " + (start + 1));
+            }
+            String name = text.substring(start, position);
+            return Pattern.parse(name, categories, parseConditions());
+        }
+
+        @NotNull
+        private Condition[] parseConditions() {
+            List<Condition> conditions = new ArrayList<>();
+            while (position < text.length() && text.charAt(position) == '[') {
+                position++;
+                boolean negated = position < text.length() && text.charAt(position) == '!';
+                if (negated) {
+                    position++;
+                }
+                int colon = text.indexOf(':', position);
+                if (colon < 0) {
+                    throw new IllegalArgumentException(location + ": missing ':' in a condition");
+                }
+                String relationName = text.substring(position, colon);
+                position = colon + 1;
+                Condition condition = switch (relationName) {
+                    case "child" -> new Condition(Condition.CHILD, negated, parsePattern(NodeCategory.NONE), null);
+                    case "parent" -> new Condition(Condition.PARENT, negated, parsePattern(NodeCategory.NONE), null);
+                    case "text" -> {
+                        if (position >= text.length() || text.charAt(position) != '"') {
+                            throw new IllegalArgumentException(location + ": the text of a condition must be quoted");
+                        }
+                        yield new Condition(Condition.TEXT, negated, null, parseQuoted());
+                    }
+                    default -> throw new IllegalArgumentException(location + ": unknown condition " + relationName);
+                };
+                if (position >= text.length() || text.charAt(position) != ']') {
+                    throw new IllegalArgumentException(location + ": unterminated condition");
+                }
+                position++;
+                conditions.add(condition);
+            }
+            return conditions.toArray(Condition[]::new);
+        }
+
+        @NotNull
+        private String parseQuoted() {
+            int end = text.indexOf('"', position + 1);
+            if (end < 0) {
+                throw new IllegalArgumentException(location + ": unterminated quote");
+            }
+            String quoted = text.substring(position + 1, end);
+            position = end + 1;
+            return quoted;
+        }
+    }
+
+    /**
+     * A type name pattern with the categories it gives.
+     */
+    private static final class Pattern {
+        static final int EXACT = 0;
+        static final int PREFIX = 1;
+        static final int SUFFIX = 2;
+        static final int PART = 3;
+
+        final int kind;
+        final String text;
+        final long categories;
+        final Condition[] conditions;
+
+        Pattern(int kind, @NotNull String text, long categories, @NotNull Condition[] conditions) {
+            this.kind = kind;
+            this.text = text;
+            this.categories = categories;
+            this.conditions = conditions;
+        }
+
+        @NotNull
+        static Pattern parse(@NotNull String pattern, long categories, @NotNull Condition[] conditions) {
+            // A lone "*" is a suffix pattern of the empty text, which matches every name
+            boolean anyStart = pattern.startsWith("*");
+            boolean anyEnd = pattern.length() > 1 && pattern.endsWith("*");
+            String text = pattern.substring(anyStart ? 1 : 0, pattern.length() - (anyEnd ? 1 : 0));
+            int kind = anyStart ? (anyEnd ? PART : SUFFIX) : (anyEnd ? PREFIX : EXACT);
+            return new Pattern(kind, text, categories, conditions);
+        }
+
+        boolean matches(@NotNull SyntaxNode node) {
+            return matches(node.getTypeName()) && conditionsHold(node);
+        }
+
+        boolean conditionsHold(@NotNull SyntaxNode node) {
+            for (Condition condition : conditions) {
+                if (!condition.holds(node)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        boolean matches(@NotNull String typeName) {
+            return switch (kind) {
+                case PREFIX -> typeName.startsWith(text);
+                case SUFFIX -> typeName.endsWith(text);
+                case PART -> typeName.contains(text);
+                default -> typeName.equals(text);
+            };
+        }
+    }
+
+    /**
+     * A condition on the node around which a pattern matches.
+     */
+    private static final class Condition {
+        static final int CHILD = 0;
+        static final int PARENT = 1;
+        static final int TEXT = 2;
+
+        final int relation;
+        final boolean negated;
+        @Nullable
+        final Pattern pattern;
+        @Nullable
+        final String text;
+
+        Condition(int relation, boolean negated, @Nullable Pattern pattern, @Nullable String text) {
+            this.relation = relation;
+            this.negated = negated;
+            this.pattern = pattern;
+            this.text = text;
+        }
+
+        boolean holds(@NotNull SyntaxNode node) {
+            return negated != test(node);
+        }
+
+        private boolean test(@NotNull SyntaxNode node) {
+            switch (relation) {
+                case CHILD -> {
+                    // Leaf tokens count, getChildren() leaves them out for some languages
+                    for (SyntaxNode child = node.getFirstChild(); child != null; child = child.getNextSibling()) {
+                        if (pattern.matches(child)) {
+                            return true;
+                        }
+                    }
+                    return false;
+                }
+                case PARENT -> {
+                    SyntaxNode parent = node.getParent();
+                    return parent != null && pattern.matches(parent);
+                }
+                default -> {
+                    // The length is known without building the text, which is only compared if it fits
+                    return node.getTextLength() == text.length() && text.contentEquals(node.getTextSequence());
+                }
+            }
+        }
+    }
+}
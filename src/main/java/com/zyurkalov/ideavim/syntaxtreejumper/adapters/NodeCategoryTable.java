@@ -0,0 +1,129 @@
+package com.zyurkalov.ideavim.syntaxtreejumper.adapters;
+
+import com.intellij.psi.tree.IElementType;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import static com.zyurkalov.ideavim.syntaxtreejumper.adapters.NodeCategory.*;
+
+/**
+ * Maps element types to {@link NodeCategory} flags.
+ * Every element type is classified by its name once with the {@link NodeCategoryRules} of the language,
+ * the result is cached by the element type index. The categories of the rules with conditions are
+ * computed per node, only for the types that may get them.
+ */
+public final class NodeCategoryTable {
+    private static final ConcurrentHashMap<String, NodeCategoryTable> TABLES = new ConcurrentHashMap<>();
+
+    /**
+     * The table of the default PSI implementation.
+     */
+    public static final NodeCategoryTable INSTANCE = forRules("default");
+
+    private static final long CLASSIFIED = Long.MIN_VALUE;
+
+    private final NodeCategoryRules rules;
+    /**
+     * Two entries per element type: the categories of the type, then the categories its nodes may get from
+     * the rules with conditions. The first entry is set last, with the {@link #CLASSIFIED} bit.
+     */
+    private volatile AtomicLongArray categoriesByTypeId = new AtomicLongArray(0);
+    private volatile long categoriesOfUntypedNodes = NONE;
+    private volatile long conditionalCategoriesOfUntypedNodes = NONE;
+
+    private NodeCategoryTable(@NotNull NodeCategoryRules rules) {
+        this.rules = rules;
+    }
+
+    /**
+     * Gets the shared table of the rules with the given name, see {@link NodeCategoryRules#load(String)}.
+     */
+    @NotNull
+    public static NodeCategoryTable forRules(@NotNull String name) {
+        return TABLES.computeIfAbsent(name, key -> new NodeCategoryTable(NodeCategoryRules.load(key)));
+    }
+
+    @NotNull
+    public NodeCategoryRules getRules() {
+        return rules;
+    }
+
+    /**
+     * Gets the categories that all nodes of an element type have.
+     *
+     * @param typeId The index of the element type, or {@link SyntaxTreeSnapshot#NONE} for elements without AST node
+     */
+    public long getCategories(int typeId) {
+        return getEntry(typeId, 0);
+    }
+
+    /**
+     * Gets the categories that the nodes of an element type may have: those of {@link #getCategories(int)}
+     * and those of the rules with conditions, see {@link NodeCategoryRules#classifyConditional(String)}.
+     */
+    public long getCandidateCategories(int typeId) {
+        return getEntry(typeId, 0) | getEntry(typeId, 1);
+    }
+
+    /**
+     * Gets the categories of a node, checking the conditions of the rules only if its type may get
+     * categories from them.
+     */
+    public long getCategories(@NotNull SyntaxNode node) {
+        int typeId = node.getTypeId();
+        long categories = getEntry(typeId, 0);
+        long conditional = getEntry(typeId, 1);
+        if (conditional != NONE) {
+            categories |= rules.classifyNode(node) & conditional;
+        }
+        return categories;
+    }
+
+    /**
+     * Gets an entry of an element type, see {@link #categoriesByTypeId}, classifying the type on the first call.
+     */
+    private long getEntry(int typeId, int entry) {
+        if (typeId < 0) {
+            long categories = categoriesOfUntypedNodes;
+            if (categories == NONE) {
+                conditionalCategoriesOfUntypedNodes = rules.classifyConditional("");
+                categories = classify("") | CLASSIFIED;
+                categoriesOfUntypedNodes = categories;
+            }
+            return entry == 0 ? categories & ~CLASSIFIED : conditionalCategoriesOfUntypedNodes;
+        }
+        AtomicLongArray cache = categoriesByTypeId;
+        if (2 * typeId < cache.length() && cache.get(2 * typeId) != NONE) {
+            return cache.get(2 * typeId + entry) & ~CLASSIFIED;
+        }
+        String typeName = IElementType.find((short) typeId).toString();
+        long[] entries = {classify(typeName) | CLASSIFIED, rules.classifyConditional(typeName)};
+        store(typeId, entries);
+        return entries[entry] & ~CLASSIFIED;
+    }
+
+    private synchronized void store(int typeId, long[] entries) {
+        AtomicLongArray cache = categoriesByTypeId;
+        if (2 * typeId >= cache.length()) {
+            int types = Math.max(typeId + 1, Math.max(cache.length(), IElementType.getAllocatedTypesCount()));
+            AtomicLongArray grown = new AtomicLongArray(2 * types);
+            for (int i = 0; i < cache.length(); i++) {
+                grown.set(i, cache.get(i));
+            }
+            cache = grown;
+            categoriesByTypeId = grown;
+        }
+        cache.set(2 * typeId + 1, entries[1]);
+        cache.set(2 * typeId, entries[0]);
+    }
+
+    /**
+     * Computes the categories of an element type from its name.
+     * Called once per element type, so it may be slow.
+     */
+    long classify(@NotNull String typeName) {
+        return rules.classify(typeName);
+    }
+}
@@ -5,53 +5,45 @@ import com.intellij.psi.PsiElement;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
-import java.util.Arrays;
-import java.util.Collections;
-import java.util.List;
 import java.util.Objects;
 
 /**
  * PSI-based implementation of SyntaxNode.
  */
 public class PsiSyntaxNode extends SyntaxNode {
+    private final NodeCategoryTable categoryTable;
 
     public PsiSyntaxNode(PsiElement psiElement) {
+        this(psiElement, NodeCategoryTable.INSTANCE);
+    }
+
+    public PsiSyntaxNode(PsiElement psiElement, @NotNull NodeCategoryTable categoryTable) {
         super(psiElement);
+        this.categoryTable = categoryTable;
     }
 
+    public PsiSyntaxNode(@NotNull SyntaxTreeSnapshot snapshot, int index) {
+        this(snapshot, index, NodeCategoryTable.INSTANCE);
+    }
 
-    @Override
-    @Nullable
-    public SyntaxNode getParent() {
-        PsiElement parent = psiElement.getParent();
-        return parent != null ? new PsiSyntaxNode(parent) : null;
+    public PsiSyntaxNode(@NotNull SyntaxTreeSnapshot snapshot, int index, @NotNull NodeCategoryTable categoryTable) {
+        super(snapshot, index);
+        this.categoryTable = categoryTable;
     }
 
     @Override
-    @NotNull
-    public List<SyntaxNode> getChildren() {
-        PsiElement[] children = psiElement.getChildren();
-        if (children.length == 0) {
-            return Collections.emptyList();
-        }
-        return Arrays.stream(children)
-                .map(PsiSyntaxNode::new)
-                .map(node -> (SyntaxNode) node)
-                .toList();
+    protected @NotNull SyntaxNode createNode(@NotNull PsiElement element) {
+        return new PsiSyntaxNode(element, categoryTable);
     }
 
     @Override
-    @Nullable
-    public SyntaxNode getPreviousSibling() {
-        PsiElement sibling = psiElement.getPrevSibling();
-        return sibling != null ? new PsiSyntaxNode(sibling) : null;
+    protected @NotNull SyntaxNode createNode(@NotNull SyntaxTreeSnapshot snapshot, int index) {
+        return new PsiSyntaxNode(snapshot, index, categoryTable);
     }
 
     @Override
-    @Nullable
-    public SyntaxNode getNextSibling() {
-        PsiElement sibling = psiElement.getNextSibling();
-        return sibling != null ? new PsiSyntaxNode(sibling) : null;
+    protected @NotNull NodeCategoryTable getCategoryTable() {
+        return categoryTable;
     }
 
     @Override
@@ -59,43 +51,24 @@ public class PsiSyntaxNode extends SyntaxNode {
         if (!(other instanceof PsiSyntaxNode otherNode)) {
             return false;
         }
-        return psiElement.isEquivalentTo(otherNode.getPsiElement());
-    }
-
-
-    @Override
-    public SyntaxNode getFirstChild() {
-        PsiElement firstChild = psiElement.getFirstChild();
-        if (firstChild == null) {
-            return  null;
-        }
-        return new PsiSyntaxNode(firstChild);
-    }
-
-    @Override
-    public SyntaxNode getLastChild() {
-        PsiElement lastChild = psiElement.getLastChild();
-        if (lastChild == null) {
-            return  null;
-        }
-        return new PsiSyntaxNode(lastChild);
+        return isEquivalentElement(otherNode);
     }
 
     @Override
     public boolean equals(Object obj) {
         if (this == obj) return true;
         if (!(obj instanceof PsiSyntaxNode other)) return false;
-        return Objects.equals(psiElement, other.psiElement);
+        return Objects.equals(getIdentity(), other.getIdentity());
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(psiElement);
+        return Objects.hash(getIdentity());
     }
 
     @Override
     public @NotNull String toString() {
-        return "PsiSyntaxNode{" + psiElement.getClass().getSimpleName() +
+        return "PsiSyntaxNode{" + getPsiElement().getClass().getSimpleName() +
                 ", text='" + getText() + "'}";
     }
 
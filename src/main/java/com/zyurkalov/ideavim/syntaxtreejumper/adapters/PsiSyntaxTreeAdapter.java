@@ -13,9 +13,26 @@ import org.jetbrains.annotations.Nullable;
  */
 public class PsiSyntaxTreeAdapter extends SyntaxTreeAdapter {
     private final PsiFile psiFile;
+    @Nullable
+    private final SyntaxTreeSnapshot snapshot;
+    private final NodeCategoryTable categoryTable;
 
     public PsiSyntaxTreeAdapter(@NotNull PsiFile psiFile) {
+        this(psiFile, null);
+    }
+
+    public PsiSyntaxTreeAdapter(@NotNull PsiFile psiFile, @Nullable SyntaxTreeSnapshot snapshot) {
+        this(psiFile, snapshot, NodeCategoryTable.INSTANCE);
+    }
+
+    /**
+     * @param categoryTable The table that classifies the element types of the file's language
+     */
+    public PsiSyntaxTreeAdapter(@NotNull PsiFile psiFile, @Nullable SyntaxTreeSnapshot snapshot,
+                                @NotNull NodeCategoryTable categoryTable) {
         this.psiFile = psiFile;
+        this.snapshot = snapshot;
+        this.categoryTable = categoryTable;
     }
 
     /**
@@ -37,8 +54,12 @@ public class PsiSyntaxTreeAdapter extends SyntaxTreeAdapter {
     @Override
     @Nullable
     public SyntaxNode findNodeAt(int offset) {
+        if (snapshot != null) {
+            int index = snapshot.findLeafAt(offset);
+            return index != SyntaxTreeSnapshot.NONE ? new PsiSyntaxNode(snapshot, index, categoryTable) : null;
+        }
         PsiElement element = psiFile.findElementAt(offset);
-        return element != null ? new PsiSyntaxNode(element) : null;
+        return element != null ? new PsiSyntaxNode(element, categoryTable) : null;
     }
 
     @Override
@@ -48,12 +69,21 @@ public class PsiSyntaxTreeAdapter extends SyntaxTreeAdapter {
             return null;
         }
 
+        SyntaxTreeSnapshot nodeSnapshot = psiNode1.getSnapshot();
+        if (nodeSnapshot != null && nodeSnapshot == psiNode2.getSnapshot()) {
+            int commonParent = nodeSnapshot.findCommonParent(psiNode1.getSnapshotIndex(), psiNode2.getSnapshotIndex());
+            return new PsiSyntaxNode(nodeSnapshot, commonParent, categoryTable);
+        }
+
         PsiElement commonParent = PsiTreeUtil.findCommonParent(psiNode1.getPsiElement(), psiNode2.getPsiElement());
-        return commonParent != null ? new PsiSyntaxNode(commonParent) : null;
+        return commonParent != null ? new PsiSyntaxNode(commonParent, categoryTable) : null;
     }
 
     @Override
     public int getDocumentLength() {
+        if (snapshot != null) {
+            return snapshot.getEndOffset(snapshot.getRoot());
+        }
         return psiFile.getTextLength();
     }
 }
\ No newline at end of file
@@ -0,0 +1,46 @@
+package com.zyurkalov.ideavim.syntaxtreejumper.adapters;
+
+import com.intellij.lang.Language;
+import com.intellij.openapi.fileTypes.FileType;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Provides the adapters of the languages that have {@link NodeCategoryRules}.
+ * C++, Rust and Lua get their own adapters, the other languages the PSI adapter with their node categories.
+ */
+public class RulesSyntaxTreeAdapterProvider implements SyntaxTreeAdapterProvider {
+
+    @Override
+    public @Nullable AdapterConstructor getAdapterConstructor(@NotNull Language language, @NotNull FileType fileType) {
+        // The first rules whose languages or file types match
+        String rules = NodeCategoryRules.findFor(language.getID(), fileType.getName());
+        if (rules == null) {
+            return null;
+        }
+        return switch (rules) {
+            case "cpp" -> CppSyntaxTreeAdapter::new;
+            case "rust" -> RustSyntaxTreeAdapter::new;
+            case "lua" -> LuaSyntaxTreeAdapter::new;
+            // Languages that only need their own node categories
+            default -> {
+                NodeCategoryTable table = NodeCategoryTable.forRules(rules);
+                yield (psiFile, snapshot) -> new PsiSyntaxTreeAdapter(psiFile, snapshot, table);
+            }
+        };
+    }
+
+    @Override
+    public boolean hasCompositePsiChildren(@NotNull Language language, @NotNull FileType fileType) {
+        String rules = NodeCategoryRules.findFor(language.getID(), fileType.getName());
+        if (rules == null) {
+            return false;
+        }
+        // The elements of these languages extend ASTWrapperPsiElement, while those of Java and the blocks of Kotlin
+        // are CompositePsiElements
+        return switch (rules) {
+            case "rust", "lua", "go", "python" -> true;
+            default -> false;
+        };
+    }
+}
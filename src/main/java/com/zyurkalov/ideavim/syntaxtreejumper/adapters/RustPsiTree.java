@@ -8,17 +8,28 @@ import org.jetbrains.annotations.Nullable;
 
 public class RustPsiTree {
     private final PsiFile psiFile;
+    @Nullable
+    private final SyntaxTreeSnapshot snapshot;
 
     public @Nullable PsiFile getPsiFile() {
         return psiFile;
     }
 
     public RustPsiTree(PsiFile file) {
+        this(file, null);
+    }
+
+    public RustPsiTree(PsiFile file, @Nullable SyntaxTreeSnapshot snapshot) {
         this.psiFile = file;
+        this.snapshot = snapshot;
     }
 
     @Nullable
     public RustSyntaxNode findNodeAt(int offset) {
+        if (snapshot != null) {
+            int index = snapshot.findLeafAt(offset);
+            return index != SyntaxTreeSnapshot.NONE ? new RustSyntaxNode(snapshot, index) : null;
+        }
         PsiElement element = psiFile.findElementAt(offset);
         return element != null ? new RustSyntaxNode(element) : null;
     }
@@ -32,11 +43,20 @@ public class RustPsiTree {
         RustSyntaxNode rustNode1 = (RustSyntaxNode) node1;
         RustSyntaxNode rustNode2 = (RustSyntaxNode) node2;
 
+        SyntaxTreeSnapshot nodeSnapshot = rustNode1.getSnapshot();
+        if (nodeSnapshot != null && nodeSnapshot == rustNode2.getSnapshot()) {
+            int commonParent = nodeSnapshot.findCommonParent(rustNode1.getSnapshotIndex(), rustNode2.getSnapshotIndex());
+            return new RustSyntaxNode(nodeSnapshot, commonParent);
+        }
+
         PsiElement commonParent = PsiTreeUtil.findCommonParent(rustNode1.getPsiElement(), rustNode2.getPsiElement());
         return commonParent != null ? new RustSyntaxNode(commonParent) : null;
     }
 
      public int getDocumentLength() {
+        if (snapshot != null) {
+            return snapshot.getEndOffset(snapshot.getRoot());
+        }
         return psiFile.getTextLength();
     }
 
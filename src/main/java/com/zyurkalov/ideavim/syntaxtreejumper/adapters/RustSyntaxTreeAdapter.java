@@ -12,7 +12,11 @@ public class RustSyntaxTreeAdapter extends SyntaxTreeAdapter {
     private final RustPsiTree rustPsiTree;
 
     public RustSyntaxTreeAdapter(@NotNull PsiFile psiFile) {
-        rustPsiTree = new RustPsiTree(psiFile);
+        this(psiFile, null);
+    }
+
+    public RustSyntaxTreeAdapter(@NotNull PsiFile psiFile, @Nullable SyntaxTreeSnapshot snapshot) {
+        rustPsiTree = new RustPsiTree(psiFile, snapshot);
     }
 
     @Override
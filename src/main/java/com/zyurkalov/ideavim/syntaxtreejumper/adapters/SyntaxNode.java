@@ -1,31 +1,110 @@
 package com.zyurkalov.ideavim.syntaxtreejumper.adapters;
 
+import com.intellij.lang.ASTNode;
+import com.intellij.lang.FileASTNode;
 import com.intellij.openapi.util.TextRange;
 import com.intellij.psi.PsiElement;
 import com.intellij.psi.PsiFile;
 import com.intellij.psi.PsiWhiteSpace;
+import com.intellij.psi.TokenType;
+import com.intellij.util.text.CharSequenceSubSequence;
 import com.zyurkalov.ideavim.syntaxtreejumper.MotionDirection;
 import com.zyurkalov.ideavim.syntaxtreejumper.Offsets;
+import com.zyurkalov.ideavim.syntaxtreejumper.stats.NodeVisitCounter;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
 
 /**
  * Represents a node in the syntax tree.
  */
 public abstract class SyntaxNode {
-    final protected PsiElement psiElement;
+    /**
+     * The longest text that {@link #isOperator()} accepts, including surrounding whitespace.
+     * The longest operator is "instanceof", the rest leaves room for whitespace inside the element.
+     */
+    public static final int MAX_OPERATOR_TEXT_LENGTH = 32;
+
+    /**
+     * The element, or null for a node of a snapshot built from the AST until {@link #getPsiElement()} is called.
+     * Code that may run for such nodes navigates and reads the snapshot instead.
+     */
+    @Nullable
+    private PsiElement psiElement;
+    @Nullable
+    final protected SyntaxTreeSnapshot snapshot;
+    final protected int index;
+    private long categories;
+    private boolean categoriesComputed;
 
     public SyntaxNode(PsiElement psiElement) {
         this.psiElement = psiElement;
+        this.snapshot = null;
+        this.index = SyntaxTreeSnapshot.NONE;
+        NodeVisitCounter.increment();
+    }
+
+    /**
+     * Creates a node backed by a snapshot. Navigation then uses the snapshot arrays instead of live PSI.
+     */
+    public SyntaxNode(@NotNull SyntaxTreeSnapshot snapshot, int index) {
+        this.psiElement = snapshot.isFromAst() ? null : snapshot.getElement(index);
+        this.snapshot = snapshot;
+        this.index = index;
+        NodeVisitCounter.increment();
+    }
+
+    /**
+     * Creates a node of the same language for a PSI element.
+     */
+    @NotNull
+    protected abstract SyntaxNode createNode(@NotNull PsiElement element);
+
+    /**
+     * Creates a node of the same language for a snapshot entry.
+     */
+    @NotNull
+    protected abstract SyntaxNode createNode(@NotNull SyntaxTreeSnapshot snapshot, int index);
+
+    @Nullable
+    private SyntaxNode createNodeOrNull(@Nullable PsiElement element) {
+        return element != null ? createNode(element) : null;
+    }
+
+    @Nullable
+    private SyntaxNode createNodeOrNull(int snapshotIndex) {
+        return snapshotIndex != SyntaxTreeSnapshot.NONE ? createNode(Objects.requireNonNull(snapshot), snapshotIndex) : null;
+    }
+
+    /**
+     * Gets the snapshot this node belongs to, or null if the node wraps live PSI.
+     */
+    @Nullable
+    public SyntaxTreeSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Gets the index of this node in its snapshot, or {@link SyntaxTreeSnapshot#NONE}.
+     */
+    public int getSnapshotIndex() {
+        return index;
     }
 
     /**
      * Gets the text range of this node in the document.
      */
     public TextRange getTextRange() {
+        if (snapshot != null) {
+            return new TextRange(snapshot.getStartOffset(index), snapshot.getEndOffset(index));
+        }
         return psiElement.getTextRange();
     }
 
@@ -35,38 +114,270 @@ public abstract class SyntaxNode {
      */
     @NotNull
     public String getText() {
-        return psiElement.getText();
+        if (snapshot != null) {
+            CharSequence text = snapshot.getText(index);
+            if (text != null) {
+                return text.toString();
+            }
+        }
+        return getPsiElement().getText();
+    }
+
+    /**
+     * Gets the text content of this node as a view over the file text, without copying it.
+     * Prefer it to {@link #getText()} for nodes that may be large, e.g. blocks or whole files.
+     */
+    @NotNull
+    public CharSequence getTextSequence() {
+        if (snapshot != null) {
+            CharSequence text = snapshot.getText(index);
+            if (text != null) {
+                return text;
+            }
+        }
+        PsiElement element = getPsiElement();
+        ASTNode node = element.getNode();
+        if (node == null) {
+            return getText();
+        }
+        if (node.getFirstChildNode() == null) {
+            // Leaves keep their text, composite nodes would collect it from the leaves
+            return node.getChars();
+        }
+        PsiFile file = element.getContainingFile();
+        if (file == null) {
+            return getText();
+        }
+        CharSequence fileText = file.getViewProvider().getContents();
+        TextRange range = getTextRange();
+        if (range == null || range.getEndOffset() > fileText.length()) {
+            return getText();
+        }
+        return new CharSequenceSubSequence(fileText, range.getStartOffset(), range.getEndOffset());
+    }
+
+    /**
+     * Gets the length of the text of this node without building the text.
+     */
+    public int getTextLength() {
+        if (snapshot != null) {
+            return snapshot.getEndOffset(index) - snapshot.getStartOffset(index);
+        }
+        return psiElement.getTextLength();
     }
 
     /**
      * Gets the parent node, or null if this is the root.
      */
     @Nullable
-    public abstract SyntaxNode getParent();
+    public SyntaxNode getParent() {
+        if (snapshot != null) {
+            int parent = snapshot.getParent(index);
+            // The root of a snapshot keeps its PSI parent, e.g. the directory of a file
+            return parent != SyntaxTreeSnapshot.NONE ? createNode(snapshot, parent) : createNodeOrNull(getPsiElement().getParent());
+        }
+        return createNodeOrNull(psiElement.getParent());
+    }
 
     /**
      * Gets all direct children of this node.
+     * Like {@link PsiElement#getChildren()}, it may omit leaf tokens for some languages.
      */
     @NotNull
-    public abstract List<SyntaxNode> getChildren();
+    public List<SyntaxNode> getChildren() {
+        if (snapshot != null) {
+            if (!snapshot.hasPsiChildren(index)) {
+                return Collections.emptyList();
+            }
+            List<SyntaxNode> children = new ArrayList<>();
+            for (int child = snapshot.getFirstChild(index); child != SyntaxTreeSnapshot.NONE; child = snapshot.getNextSibling(child)) {
+                if (snapshot.isPsiChild(child)) {
+                    children.add(createNode(snapshot, child));
+                }
+            }
+            return children;
+        }
+        PsiElement[] children = psiElement.getChildren();
+        if (children.length == 0) {
+            return Collections.emptyList();
+        }
+        return Arrays.stream(children)
+                .map(this::createNode)
+                .toList();
+    }
+
+    /**
+     * Checks if {@link #getChildren()} is not empty, without creating the child nodes.
+     */
+    public boolean hasChildren() {
+        if (snapshot != null) {
+            return snapshot.hasPsiChildren(index);
+        }
+        return psiElement.getChildren().length > 0;
+    }
+
+    /**
+     * Gets the number of nodes in {@link #getChildren()}, without creating them.
+     */
+    public int getChildCount() {
+        if (snapshot != null) {
+            if (!snapshot.hasPsiChildren(index)) {
+                return 0;
+            }
+            int count = 0;
+            for (int child = snapshot.getFirstChild(index); child != SyntaxTreeSnapshot.NONE; child = snapshot.getNextSibling(child)) {
+                if (snapshot.isPsiChild(child)) {
+                    count++;
+                }
+            }
+            return count;
+        }
+        return psiElement.getChildren().length;
+    }
+
+    /**
+     * Gets the child at a position of {@link #getChildren()}, creating only that node.
+     *
+     * @return The child, or null if the position is out of range
+     */
+    @Nullable
+    public SyntaxNode getChild(int position) {
+        if (position < 0) {
+            return null;
+        }
+        if (snapshot != null) {
+            if (!snapshot.hasPsiChildren(index)) {
+                return null;
+            }
+            int remaining = position;
+            for (int child = snapshot.getFirstChild(index); child != SyntaxTreeSnapshot.NONE; child = snapshot.getNextSibling(child)) {
+                if (snapshot.isPsiChild(child) && remaining-- == 0) {
+                    return createNode(snapshot, child);
+                }
+            }
+            return null;
+        }
+        PsiElement[] children = psiElement.getChildren();
+        return position < children.length ? createNode(children[position]) : null;
+    }
+
+    /**
+     * Finds the first node of {@link #getChildren()} that matches a predicate.
+     * The children are created one by one and the search stops at the match, no list is built.
+     *
+     * @return The child, or null if none matches
+     */
+    @Nullable
+    public SyntaxNode findChild(@NotNull Predicate<SyntaxNode> predicate) {
+        if (snapshot != null) {
+            if (!snapshot.hasPsiChildren(index)) {
+                return null;
+            }
+            for (int child = snapshot.getFirstChild(index); child != SyntaxTreeSnapshot.NONE; child = snapshot.getNextSibling(child)) {
+                if (snapshot.isPsiChild(child)) {
+                    SyntaxNode node = createNode(snapshot, child);
+                    if (predicate.test(node)) {
+                        return node;
+                    }
+                }
+            }
+            return null;
+        }
+        for (PsiElement child : psiElement.getChildren()) {
+            SyntaxNode node = createNode(child);
+            if (predicate.test(node)) {
+                return node;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Checks if a node of {@link #getChildren()} matches a predicate, see {@link #findChild(Predicate)}.
+     */
+    public boolean anyChildMatches(@NotNull Predicate<SyntaxNode> predicate) {
+        return findChild(predicate) != null;
+    }
+
+    /**
+     * Passes the nodes of {@link #getChildren()} to an action in order, without building a list.
+     */
+    public void forEachChild(@NotNull Consumer<SyntaxNode> action) {
+        findChild(child -> {
+            action.accept(child);
+            return false;
+        });
+    }
 
     /**
      * Gets the previous sibling node, or null if this is the first child.
      */
     @Nullable
-    public abstract SyntaxNode getPreviousSibling();
+    public SyntaxNode getPreviousSibling() {
+        if (snapshot != null) {
+            return createNodeOrNull(snapshot.getPreviousSibling(index));
+        }
+        return createNodeOrNull(psiElement.getPrevSibling());
+    }
 
     /**
      * Gets the next sibling node, or null if this is the last child.
      */
     @Nullable
-    public abstract SyntaxNode getNextSibling();
+    public SyntaxNode getNextSibling() {
+        if (snapshot != null) {
+            return createNodeOrNull(snapshot.getNextSibling(index));
+        }
+        return createNodeOrNull(psiElement.getNextSibling());
+    }
 
     /**
      * Checks if this node represents whitespace only.
+     * Only the leaves are inspected, and the check stops at the first leaf that is not blank.
      */
     public boolean isWhitespace() {
-        return psiElement instanceof PsiWhiteSpace || psiElement.getText().trim().isEmpty();
+        if (snapshot != null) {
+            ASTNode node = snapshot.getNode(index);
+            if (node != null && node.getElementType() == TokenType.WHITE_SPACE) {
+                return true;
+            }
+            CharSequence text = snapshot.getText(index);
+            if (text != null) {
+                // The text of a node is the text of its leaves
+                return isBlank(text);
+            }
+        }
+        PsiElement element = getPsiElement();
+        return element instanceof PsiWhiteSpace || isBlank(element);
+    }
+
+    private static boolean isBlank(@NotNull PsiElement element) {
+        PsiElement child = element.getFirstChild();
+        if (child == null) {
+            if (element instanceof PsiWhiteSpace) {
+                return true;
+            }
+            ASTNode node = element.getNode();
+            return isBlank(node != null ? node.getChars() : element.getText());
+        }
+        for (; child != null; child = child.getNextSibling()) {
+            if (!isBlank(child)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Same as {@code text.trim().isEmpty()}, without copying the text.
+     */
+    private static boolean isBlank(@NotNull CharSequence text) {
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) > ' ') {
+                return false;
+            }
+        }
+        return true;
     }
 
     /**
@@ -76,52 +387,141 @@ public abstract class SyntaxNode {
         return false;
     }
 
+    /**
+     * Checks if the elements of two nodes are equivalent, see {@link PsiElement#isEquivalentTo(PsiElement)}.
+     * Nodes of the same snapshot built from the AST are compared by index, which spares creating their PSI:
+     * elements of one file are equivalent only to themselves.
+     */
+    protected boolean isEquivalentElement(@NotNull SyntaxNode other) {
+        if (snapshot != null && snapshot == other.snapshot && snapshot.isFromAst()) {
+            return index == other.index;
+        }
+        return getPsiElement().isEquivalentTo(other.getPsiElement());
+    }
+
     /**
      * Gets a simple name for this node type (for debugging/tooltips).
      */
     @NotNull
     public String getNodeTypeName() {
-        return psiElement.getClass().getSimpleName();
+        return getPsiElement().getClass().getSimpleName();
     }
 
     /**
      * Gets the specific type or category name of the node.
      */
     public @NotNull String getTypeName() {
-        if (psiElement.getNode() == null) {
+        ASTNode node = snapshot != null ? snapshot.getNode(index) : psiElement.getNode();
+        if (node == null) {
             return "";
         }
-        return psiElement.getNode().getElementType().toString();
+        return node.getElementType().toString();
     }
 
-    public abstract SyntaxNode getFirstChild();
+    /**
+     * Gets the interned id of the element type ({@link com.intellij.psi.tree.IElementType#getIndex()}),
+     * or {@link SyntaxTreeSnapshot#NONE} if the element has no AST node.
+     */
+    public int getTypeId() {
+        if (snapshot != null) {
+            return snapshot.getTypeId(index);
+        }
+        ASTNode node = psiElement.getNode();
+        return node != null ? node.getElementType().getIndex() : SyntaxTreeSnapshot.NONE;
+    }
+
+    /**
+     * Gets the table that classifies the element types of this node's language.
+     */
+    @NotNull
+    protected NodeCategoryTable getCategoryTable() {
+        return NodeCategoryTable.INSTANCE;
+    }
+
+    /**
+     * Gets the {@link NodeCategory} flags of this node.
+     */
+    public long getCategories() {
+        if (!categoriesComputed) {
+            categories = getCategoryTable().getCategories(this);
+            categoriesComputed = true;
+        }
+        return categories;
+    }
 
-    public abstract SyntaxNode getLastChild();
+    /**
+     * Checks if this node has any of the given {@link NodeCategory} flags.
+     */
+    public boolean hasCategory(long category) {
+        return (getCategories() & category) != 0;
+    }
 
+    /**
+     * Checks if this node or any of its descendants may have one of the given {@link NodeCategory} flags.
+     * Only nodes backed by a snapshot know the categories of their descendants, the others always may.
+     */
+    public boolean mayContainCategory(long category) {
+        if (snapshot == null) {
+            return true;
+        }
+        return (snapshot.getSubtreeCategories(index, getCategoryTable()) & category) != 0;
+    }
+
+    @Nullable
+    public SyntaxNode getFirstChild() {
+        if (snapshot != null) {
+            return createNodeOrNull(snapshot.getFirstChild(index));
+        }
+        return createNodeOrNull(psiElement.getFirstChild());
+    }
+
+    @Nullable
+    public SyntaxNode getLastChild() {
+        if (snapshot != null) {
+            return createNodeOrNull(snapshot.getLastChild(index));
+        }
+        return createNodeOrNull(psiElement.getLastChild());
+    }
+
+    /**
+     * Gets the PSI element of this node. For a snapshot built from the AST, this creates the element,
+     * so prefer the other methods in code that runs for many nodes.
+     */
     @NotNull
     public PsiElement getPsiElement() {
-        return psiElement;
+        PsiElement element = psiElement;
+        if (element == null) {
+            element = Objects.requireNonNull(snapshot).getElement(index);
+            psiElement = element;
+        }
+        return element;
+    }
+
+    /**
+     * Gets the object that identifies the element of this node, for {@code equals} and {@code hashCode}.
+     * It is the AST node if there is one, which does not require creating PSI, and the element otherwise.
+     * Both are compared by reference.
+     */
+    @NotNull
+    public Object getIdentity() {
+        ASTNode node = snapshot != null ? snapshot.getNode(index) : psiElement.getNode();
+        return node != null ? node : getPsiElement();
     }
 
     // Helper methods - these remain as concrete implementations
     public boolean isCompoundExpression() {
-        return getTypeName().contains("BINARY") ||
-                getTypeName().contains("ADDITIVE") ||
-                getTypeName().contains("MULTIPLICATIVE") ||
-                getTypeName().contains("RELATIONAL") ||
-                getTypeName().contains("EQUALITY") ||
-                getTypeName().contains("EXPRESSION") ||
-                getTypeName().contains("EXPRESSION_LIST") ||
-                getTypeName().contains("PARAMETER_LIST") ||
-                getTypeName().contains("ARGUMENT_LIST") ||
-                getTypeName().contains("ArgumentList") ||
-                getTypeName().contains("PARAMETER_DECLARATION") ||
-                getTypeName().contains("COMPOUND_INITIALIZER") ||
-                getTypeName().contains("RECORD_HEADER") ||
-                getTypeName().contains("LOGICAL");
+        return hasCategory(NodeCategory.COMPOUND_EXPRESSION);
     }
 
     public boolean isOperator() {
+        // Do not build the text of long elements, e.g. class bodies, they are never operators
+        if (getTextLength() > MAX_OPERATOR_TEXT_LENGTH) {
+            return false;
+        }
+        // Nor of short elements with several tokens, e.g. expressions, which are most of the short elements
+        if (!isSingleToken()) {
+            return false;
+        }
         String text = getText().trim();
 
         // Single character operators common across all languages
@@ -171,19 +571,88 @@ public abstract class SyntaxNode {
         return false;
     }
 
+    /**
+     * Checks if this node has at most one token besides whitespace, e.g. a token or an element wrapping one.
+     * It walks the leaves and elements without creating nodes for them.
+     */
+    private boolean isSingleToken() {
+        if (snapshot != null) {
+            int single = index;
+            while (single != SyntaxTreeSnapshot.NONE) {
+                int current = single;
+                single = SyntaxTreeSnapshot.NONE;
+                for (int child = snapshot.getFirstChild(current); child != SyntaxTreeSnapshot.NONE; child = snapshot.getNextSibling(child)) {
+                    if (snapshot.getFirstChild(child) == SyntaxTreeSnapshot.NONE && isBlankLeaf(child)) {
+                        continue;
+                    }
+                    if (single != SyntaxTreeSnapshot.NONE) {
+                        return false;
+                    }
+                    single = child;
+                }
+            }
+            return true;
+        }
+        PsiElement single = psiElement;
+        while (single != null) {
+            PsiElement current = single;
+            single = null;
+            for (PsiElement child = current.getFirstChild(); child != null; child = child.getNextSibling()) {
+                if (child.getFirstChild() == null && isBlank(child)) {
+                    continue;
+                }
+                if (single != null) {
+                    return false;
+                }
+                single = child;
+            }
+        }
+        return true;
+    }
+
+    private boolean isBlankLeaf(int snapshotIndex) {
+        SyntaxTreeSnapshot tree = Objects.requireNonNull(snapshot);
+        CharSequence text = tree.getText(snapshotIndex);
+        return text != null ? isBlank(text) : isBlank(tree.getElement(snapshotIndex));
+    }
+
     public boolean hasOnlyWhitespaceOrBracketsChildren() {
-        int reasonableNumberOfSymbols = 10;
-        if (getText().replaceAll(" ", "").startsWith("()")) {
+        if (startsWithEmptyParentheses(getTextSequence())) {
             return true;
         }
-        List<SyntaxNode> children = getChildren().stream()
-                .filter(child -> !child.isWhitespace()).toList();
-        return children.size() == 2 && children.stream()
-                .allMatch(SyntaxNode::isBracket);
+        // Exactly two children besides whitespace, and both are brackets
+        int[] brackets = {0};
+        boolean hasOtherChildren = anyChildMatches(child ->
+                !child.isWhitespace() && (!child.isBracket() || ++brackets[0] > 2));
+        return !hasOtherChildren && brackets[0] == 2;
     }
 
 
+    /**
+     * Same as {@code text.replaceAll(" ", "").startsWith("()")}, without copying the text.
+     */
+    private static boolean startsWithEmptyParentheses(@NotNull CharSequence text) {
+        char expected = '(';
+        for (int i = 0; i < text.length(); i++) {
+            char character = text.charAt(i);
+            if (character == ' ') {
+                continue;
+            }
+            if (character != expected) {
+                return false;
+            }
+            if (expected == ')') {
+                return true;
+            }
+            expected = ')';
+        }
+        return false;
+    }
+
     public boolean isBracket() {
+        if (getTextLength() != 1) {
+            return false;
+        }
         return switch (getText()) {
             case "(", ")", "[", "]", "{", "}", ">", "<" -> true;
             default -> false;
@@ -194,50 +663,41 @@ public abstract class SyntaxNode {
      * Checks if a node represents a parameter list or argument list.
      */
     public boolean isFunctionParameter() {
-        String typeName = getTypeName();
-        return typeName.equals("PARAMETER") || typeName.equals("ARGUMENT");
+        return hasCategory(NodeCategory.FUNCTION_PARAMETER);
     }
 
     public boolean isFunctionArgument() {
 //        REFERENCE_EXPRESSION
-        String typeName = getTypeName();
-        boolean result = false;
         if (isArgumentList(this) && hasOnlyWhitespaceOrBracketsChildren()) {
             return true;
         }
-        try {
-            boolean b = isArgumentList(getParent());
-            result = typeName.contains("EXPRESSION") && b;
-        } catch (NullPointerException ignored) {
-        }
-        return result;
+        return hasCategory(NodeCategory.ARGUMENT) && isArgumentList(getParent());
     }
 
     private boolean isArgumentList(@Nullable SyntaxNode node) {
-        return Objects.requireNonNull(node).isExpressionList() &&
-                Objects.requireNonNull(node.getParent()).isMethodOrFunctionCallExpression();
+        if (node == null || !node.isExpressionList()) {
+            return false;
+        }
+        SyntaxNode parent = node.getParent();
+        return parent != null && parent.isMethodOrFunctionCallExpression();
     }
 
 
     public boolean isMethodOrFunctionCallExpression() {
-        String typeName = getTypeName();
-        return typeName.equals("METHOD_CALL_EXPRESSION");
+        return hasCategory(NodeCategory.METHOD_OR_FUNCTION_CALL);
     }
 
     public boolean isExpressionList() {
-        String typeName = getTypeName();
-        return typeName.equals("EXPRESSION_LIST");
+        return hasCategory(NodeCategory.EXPRESSION_LIST);
     }
 
     public boolean isTypeParameter() {
-        String typeName = getTypeName();
         SyntaxNode parent = getParent();
         if (parent == null) {
             return false;
         }
-        String parentTypeName = parent.getTypeName();
-        return typeName.equals("TYPE_PARAMETER") ||
-                typeName.equals("PATH_TYPE") && parentTypeName.equals("TYPE_ARGUMENT_LIST");
+        return hasCategory(NodeCategory.TYPE_PARAMETER) ||
+                hasCategory(NodeCategory.TYPE_ARGUMENT) && parent.hasCategory(NodeCategory.TYPE_ARGUMENT_LIST);
     }
 
     public boolean isInRightDirection(Offsets initialSelection, MotionDirection direction) {
@@ -256,48 +716,30 @@ public abstract class SyntaxNode {
     }
 
     public boolean isPsiFile() {
-        return psiElement instanceof PsiFile;
+        if (snapshot != null && snapshot.getNode(index) != null) {
+            return snapshot.getNode(index) instanceof FileASTNode;
+        }
+        return getPsiElement() instanceof PsiFile;
     }
 
     public boolean isDeclarationStatement() {
-        String typeName = getTypeName();
-        return typeName.equals("DECLARATION_STATEMENT") || typeName.equals("ASSIGNMENT_EXPRESSION");
+        return hasCategory(NodeCategory.DECLARATION_STATEMENT);
     }
 
     public boolean isExpressionStatement() {
-        String typeName = getTypeName();
-        return typeName.equals("EXPRESSION_STATEMENT");
+        return hasCategory(NodeCategory.EXPRESSION_STATEMENT);
     }
 
     public boolean isReturnStatement() {
-        String typeName = getTypeName();
-        return typeName.equals("RETURN_STATEMENT") ||
-                typeName.equals("RETURN");
+        return hasCategory(NodeCategory.RETURN_STATEMENT);
     }
 
     public boolean isLoopStatement() {
-        String typeName = getTypeName();
-        return typeName.equals("FOR_STATEMENT") ||
-                typeName.equals("WHILE_STATEMENT") ||
-                typeName.equals("DO_WHILE_STATEMENT") ||
-                typeName.equals("FOREACH_STATEMENT") ||
-                typeName.equals("FOR") ||
-                typeName.equals("WHILE") ||
-                typeName.equals("DO_WHILE") ||
-                typeName.equals("FOREACH");
+        return hasCategory(NodeCategory.LOOP);
     }
 
     public boolean isConditionalStatement() {
-        String typeName = getTypeName();
-        return typeName.equals("IF_STATEMENT") ||
-                typeName.equals("SWITCH_STATEMENT") ||
-                typeName.equals("CASE_STATEMENT") ||
-                typeName.equals("DEFAULT_CASE_STATEMENT") ||
-                typeName.equals("SWITCH_EXPRESSION") ||
-                typeName.equals("IF") ||
-                typeName.equals("SWITCH") ||
-                typeName.equals("CASE") ||
-                typeName.equals("DEFAULT");
+        return hasCategory(NodeCategory.CONDITIONAL);
     }
 
     public boolean isLoopOrConditionalStatement() {
@@ -305,23 +747,11 @@ public abstract class SyntaxNode {
     }
 
     public boolean isMethodDefinition() {
-        String typeName = getTypeName();
-        return typeName.equals("METHOD_DECLARATION") ||
-                typeName.equals("METHOD") ||
-                typeName.equals("METHOD_DEFINITION") ||
-                typeName.equals("CONSTRUCTOR_DECLARATION") ||
-                typeName.equals("DESTRUCTOR_DECLARATION") ||
-                typeName.equals("CONVERSION_FUNCTION_DECLARATION") ||
-                typeName.equals("CONSTRUCTOR");
+        return hasCategory(NodeCategory.METHOD_DEFINITION);
     }
 
     public boolean isFunctionDefinition() {
-        String typeName = getTypeName();
-        return typeName.equals("FUNCTION_DECLARATION") ||
-                typeName.equals("FUNCTION_DEFINITION") ||
-                typeName.equals("TEMPLATE_FUNCTION_DECLARATION") ||
-                typeName.equals("FUNCTION") ||
-                typeName.equals("LAMBDA_EXPRESSION");
+        return hasCategory(NodeCategory.FUNCTION_DEFINITION);
     }
 
     public boolean areBordersEqual(Offsets initialSelection) {
@@ -342,42 +772,36 @@ public abstract class SyntaxNode {
         if (grandParent == null) {
             return false;
         }
-        String parentTypeName = parent.getTypeName();
-        boolean isParentMatchesRequirement =
-                parentTypeName.equals("LOCAL_VARIABLE") ||
-                        parentTypeName.equals("FIELD") ||
-                        (parentTypeName.equals("REFERENCE_EXPRESSION") && parent.getTextRange().equals(getTextRange()));
-        return getTypeName().equals("IDENTIFIER") && isParentMatchesRequirement;
+        if (!hasCategory(NodeCategory.VARIABLE_NAME)) {
+            return false;
+        }
+        return parent.hasCategory(NodeCategory.VARIABLE_CONTEXT) ||
+                (parent.hasCategory(NodeCategory.REFERENCE) && parent.getTextRange().equals(getTextRange()));
     }
 
     public boolean isBlock() {
-        String typeName = getTypeName();
-        return typeName.equals("CODE_BLOCK") ||
-                typeName.equals("BLOCK_STATEMENT");
+        return hasCategory(NodeCategory.BLOCK);
     }
 
     public boolean isAStatement() {
-        String typeName = getTypeName();
-        return typeName.contains("_STATEMENT");
+        return hasCategory(NodeCategory.STATEMENT);
     }
 
 
     public boolean isExpression() {
-        String typeName = getTypeName();
         SyntaxNode parent = getParent();
         if (parent == null) {
             return false;
         }
-        return typeName.endsWith("EXPRESSION") && !parent.isMethodOrFunctionCallExpression();
+        return hasCategory(NodeCategory.EXPRESSION) && !parent.isMethodOrFunctionCallExpression();
     }
 
     public boolean isEqualSymbol() {
-        return getTypeName().equals("EQ");
+        return hasCategory(NodeCategory.EQUAL_SYMBOL);
     }
 
     public boolean isClassDefinition() {
-        String typeName = getTypeName();
-        return typeName.equals("CLASS");
+        return hasCategory(NodeCategory.CLASS_DEFINITION);
     }
 
     public boolean isTemplate() {
@@ -385,20 +809,19 @@ public abstract class SyntaxNode {
     }
 
     public boolean isComment() {
-        return getTypeName().endsWith("_COMMENT");
+        return hasCategory(NodeCategory.COMMENT);
     }
 
     public boolean isMacro() {
-        return false;
+        return hasCategory(NodeCategory.MACRO);
     }
 
     public boolean isImport() {
-        String typeName = getTypeName();
-        return typeName.contains("IMPORT_STATEMENT");
+        return hasCategory(NodeCategory.IMPORT);
     }
 
     public boolean isTypeUsage() {
-        return false;
+        return hasCategory(NodeCategory.TYPE_USAGE);
     }
 
 }
\ No newline at end of file
@@ -61,38 +61,26 @@ public abstract class SyntaxTreeAdapter {
         return sibling;
     }
 
+    /**
+     * Checks if the node is whitespace, an operator or a punctuation token that navigation between siblings skips.
+     * The check uses the element type and the text length, it builds the text only for short tokens.
+     */
     public static boolean isASymbolToSkip(SyntaxNode sibling) {
-        if (sibling.isOperator()) {
+        if (sibling.hasCategory(NodeCategory.SKIPPABLE) || sibling.isOperator()) {
+            return true;
+        }
+        // Operators cover "=", "||", ",", "+", "-", "/", "*" and ";", only brackets and quotes are left
+        if (sibling.getTextLength() == 1 && isSkippableCharacter(sibling.getTextSequence().charAt(0))) {
             return true;
         }
-        return sibling.isWhitespace() ||
-                sibling.getText().trim().isEmpty() ||
-                sibling.getText().equals("=") ||
-                sibling.getText().equals("||") ||
-                sibling.getText().equals(",") ||
-                sibling.getText().equals("+") ||
-                sibling.getText().equals("-") ||
-                sibling.getText().equals("/") ||
-                sibling.getText().equals("*") ||
-                sibling.getText().equals("(") ||
-                sibling.getText().equals(")") ||
-                sibling.getText().equals("[") ||
-                sibling.getText().equals("]") ||
-                sibling.getText().equals("{") ||
-                sibling.getText().equals("}") ||
-                sibling.getText().equals("'") ||
-                sibling.getText().equals("\"") ||
-                sibling.getText().equals(";") ||
-                sibling.getTypeName().equals("OPERATION_SIGN") ||
-                sibling.getTypeName().equals("COMMA") ||
-                sibling.getTypeName().equals("OROR") ||
-                sibling.getTypeName().equals("SEMICOLON") ||
-                sibling.getTypeName().equals("RPAR") ||
-                sibling.getTypeName().equals("LPAR") ||
-                sibling.getTypeName().equals("RBRACE") ||
-                sibling.getTypeName().equals("LBRACE") ||
-                sibling.getTypeName().equals("RBRACK") ||
-                sibling.getTypeName().equals("LBRACK");
+        return sibling.isWhitespace();
+    }
+
+    private static boolean isSkippableCharacter(char character) {
+        return switch (character) {
+            case '(', ')', '[', ']', '{', '}', '\'', '"' -> true;
+            default -> false;
+        };
     }
 
     /**
@@ -157,7 +145,7 @@ public abstract class SyntaxTreeAdapter {
     @NotNull
     public SyntaxNode replaceWithParentIfParentEqualsTheNode(@NotNull SyntaxNode node) {
         SyntaxNode parent = node.getParent();
-        while (parent != null && parent.getText().equals(node.getText())) {
+        while (parent != null && hasSameText(parent, node)) {
             node = parent;
             parent = node.getParent();
         }
@@ -169,13 +157,21 @@ public abstract class SyntaxTreeAdapter {
             return null;
         }
         SyntaxNode parent = node.getParent();
-        while (parent != null && parent.getText().equals(node.getText())) {
+        while (parent != null && hasSameText(parent, node)) {
             node = parent;
             parent = node.getParent();
         }
         return parent;
     }
 
+    /**
+     * Checks if a parent has the same text as its descendant.
+     * The parent contains the descendant, so their texts are equal exactly when their lengths are.
+     */
+    private static boolean hasSameText(@NotNull SyntaxNode parent, @NotNull SyntaxNode descendant) {
+        return parent.getTextLength() == descendant.getTextLength();
+    }
+
     /**
      * Finds the smallest common parent that fully encompasses the current selection
      */
@@ -269,8 +265,7 @@ public abstract class SyntaxTreeAdapter {
      */
     @Nullable
     public SyntaxNode findCurrentElement(Offsets initialOffsets, MotionDirection direction) {
-        boolean isOnlyCaretButNoSelection = initialOffsets.leftOffset() >= initialOffsets.rightOffset() - 1;
-        if (isOnlyCaretButNoSelection) {
+        if (isOnlyCaretButNoSelection(initialOffsets)) {
             SyntaxNode nodeAt = findNodeAt(initialOffsets.leftOffset());
             if (nodeAt == null) {
                 return null;
@@ -292,6 +287,14 @@ public abstract class SyntaxTreeAdapter {
         }
     }
 
+    /**
+     * Checks if the offsets are a caret, or a selection of one character,
+     * which {@link #findCurrentElement} resolves from the element at the left offset alone.
+     */
+    public static boolean isOnlyCaretButNoSelection(Offsets offsets) {
+        return offsets.leftOffset() >= offsets.rightOffset() - 1;
+    }
+
     /**
      * Public method to find the current element and its siblings based on the given offsets.
      * This method can be reused by other classes like PsiElementHighlighter.
@@ -4,16 +4,32 @@ import com.intellij.lang.Language;
 import com.intellij.openapi.editor.Editor;
 import com.intellij.openapi.fileTypes.FileType;
 import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.Key;
 import com.intellij.openapi.vfs.VirtualFile;
 import com.intellij.psi.PsiFile;
 import com.intellij.psi.PsiManager;
+import com.zyurkalov.ideavim.syntaxtreejumper.adapters.SyntaxTreeAdapterProvider.AdapterConstructor;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.lang.ref.SoftReference;
+import java.util.concurrent.ConcurrentHashMap;
+
 /**
  * Factory class for creating appropriate SyntaxTreeAdapter instances based on file type and language.
+ * The adapter of a language is chosen by the {@link SyntaxTreeAdapterProvider} extensions.
  */
 public class SyntaxTreeAdapterFactory {
+    /**
+     * Files at least this long are navigated over a snapshot built from the AST, which keeps the PSI of
+     * most of the file from being created, see {@link SyntaxTreeSnapshot#buildFromAst(PsiFile)}.
+     * Only for the languages whose provider allows it, see {@link SyntaxTreeAdapterProvider#hasCompositePsiChildren}.
+     */
+    public static final int AST_SNAPSHOT_MIN_FILE_LENGTH = 1_000_000;
+
+    // Held softly like the snapshot it references, see SyntaxTreeSnapshotCache
+    private static final Key<SoftReference<CachedAdapter>> ADAPTER_KEY =
+            Key.create("SyntaxTreeJumper.SyntaxTreeAdapter");
 
     /**
      * Creates a SyntaxTreeAdapter for the given editor.
@@ -43,97 +59,75 @@ public class SyntaxTreeAdapterFactory {
 
     /**
      * Creates a SyntaxTreeAdapter for the given PSI file.
+     * The adapter is reused until the snapshot of the file changes.
      *
      * @param psiFile The PSI file to create an adapter for
      * @return The appropriate adapter, or null if no suitable adapter can be created
      */
     public static @NotNull SyntaxTreeAdapter createAdapter(@NotNull PsiFile psiFile) {
-        Language language = psiFile.getLanguage();
-        FileType fileType = psiFile.getFileType();
-
-        // Check for C++ files first (as they might need special handling)
-        if (isCppFile(language, fileType)) {
-            return createCppAdapter(psiFile);
-        } else if (isRustFile(language, fileType)) {
-            return createRustAdapter(psiFile);
-        } else if (isLuaFile(language, fileType)) {
-            return createLuaAdapter(psiFile);
+        AdapterChoice choice = Constructors.get(psiFile.getLanguage(), psiFile.getFileType());
+        AdapterConstructor constructor = choice.constructor();
+        // Built once per modification of the file and shared by all motions and editors
+        SyntaxTreeSnapshot snapshot = SyntaxTreeSnapshotCache.getSnapshot(psiFile,
+                choice.astSnapshots() && psiFile.getTextLength() >= AST_SNAPSHOT_MIN_FILE_LENGTH);
+
+        SoftReference<CachedAdapter> reference = psiFile.getUserData(ADAPTER_KEY);
+        CachedAdapter cached = reference != null ? reference.get() : null;
+        if (cached != null && cached.snapshot() == snapshot && cached.constructor() == constructor) {
+            return cached.adapter();
+        }
+        SyntaxTreeAdapter adapter;
+        try {
+            adapter = constructor.create(psiFile, snapshot);
+        } catch (Exception e) {
+            adapter = new PsiSyntaxTreeAdapter(psiFile, snapshot);
         }
+        psiFile.putUserData(ADAPTER_KEY, new SoftReference<>(new CachedAdapter(snapshot, constructor, adapter)));
+        return adapter;
+    }
 
-        // For all other languages, use the PSI adapter
-        return new PsiSyntaxTreeAdapter(psiFile);
+    private record CachedAdapter(@NotNull SyntaxTreeSnapshot snapshot, @NotNull AdapterConstructor constructor,
+                                 @NotNull SyntaxTreeAdapter adapter) {
     }
 
-    /**
-     * Determines if the file is a C++ file based on language and file type.
-     */
-    private static boolean isCppFile(@NotNull Language language, @NotNull FileType fileType) {
-        String languageId = language.getID().toLowerCase();
-        String fileTypeName = fileType.getName().toLowerCase();
-
-        // Check for C++ language identifiers
-        return languageId.contains("cpp") ||
-                languageId.contains("c++") ||
-                languageId.contains("objective-c") ||
-                fileTypeName.contains("cpp") ||
-                fileTypeName.contains("c++") ||
-                fileTypeName.contains("objectivec");
+    private record LanguageAndFileType(@NotNull Language language, @NotNull FileType fileType) {
     }
 
     /**
-     * Determines if the file is a Rust file based on language and file type.
+     * The constructor of the adapters of a language, and whether its large files get snapshots from the AST.
      */
-    private static boolean isRustFile(@NotNull Language language, @NotNull FileType fileType) {
-        String languageId = language.getID().toLowerCase();
-        String fileTypeName = fileType.getName().toLowerCase();
-
-        // Check for Rust language identifiers
-        return languageId.contains("rust") ||
-                fileTypeName.contains("rust");
+    private record AdapterChoice(@NotNull AdapterConstructor constructor, boolean astSnapshots) {
     }
 
     /**
-     * Determines if the file is a Lua file based on language and file type.
+     * The adapter constructors chosen by the {@link SyntaxTreeAdapterProvider}s, loaded on first use.
+     * Cleared when plugins add or remove providers.
      */
-    private static boolean isLuaFile(@NotNull Language language, @NotNull FileType fileType) {
-        String languageId = language.getID().toLowerCase();
-        String fileTypeName = fileType.getName().toLowerCase();
-
-        // Check for Lua language identifiers
-        return languageId.contains("lua") ||
-                fileTypeName.contains("lua");
-    }
-
+    private static final class Constructors {
+        private static final AdapterChoice DEFAULT = new AdapterChoice(PsiSyntaxTreeAdapter::new, false);
+        private static final ConcurrentHashMap<LanguageAndFileType, AdapterChoice> BY_LANGUAGE =
+                new ConcurrentHashMap<>();
 
-    private static @NotNull SyntaxTreeAdapter createCppAdapter(@NotNull PsiFile psiFile) {
-        try {
-            return new CppSyntaxTreeAdapter(psiFile);
-        } catch (Exception e) {
-            return new PsiSyntaxTreeAdapter(psiFile);
+        static {
+            SyntaxTreeAdapterProvider.EP_NAME.addChangeListener(BY_LANGUAGE::clear, null);
         }
-    }
 
-    private static @NotNull SyntaxTreeAdapter createRustAdapter(@NotNull PsiFile psiFile) {
-        try {
-            return new RustSyntaxTreeAdapter(psiFile);
-        } catch (Exception e) {
-            return new PsiSyntaxTreeAdapter(psiFile);
+        @NotNull
+        static AdapterChoice get(@NotNull Language language, @NotNull FileType fileType) {
+            return BY_LANGUAGE.computeIfAbsent(new LanguageAndFileType(language, fileType), key -> {
+                for (SyntaxTreeAdapterProvider provider : SyntaxTreeAdapterProvider.EP_NAME.getExtensionList()) {
+                    AdapterConstructor constructor = provider.getAdapterConstructor(key.language(), key.fileType());
+                    if (constructor != null) {
+                        return new AdapterChoice(constructor,
+                                provider.hasCompositePsiChildren(key.language(), key.fileType()));
+                    }
+                }
+                // For all other languages, use the PSI adapter
+                return DEFAULT;
+            });
         }
     }
 
-    /**
-     * Creates a Lua-specific adapter.
-     * Falls back to the PSI adapter if a Lua adapter cannot be created.
-     */
-    private static @NotNull SyntaxTreeAdapter createLuaAdapter(@NotNull PsiFile psiFile) {
-        try {
-            return new LuaSyntaxTreeAdapter(psiFile);
-        } catch (Exception e) {
-            return new PsiSyntaxTreeAdapter(psiFile);
-        }
-    }
-
-
     // Utility methods for debugging. We only use them when adding new languages
 
     /**
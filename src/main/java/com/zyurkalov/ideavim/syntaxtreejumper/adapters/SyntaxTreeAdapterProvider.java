@@ -0,0 +1,53 @@
+package com.zyurkalov.ideavim.syntaxtreejumper.adapters;
+
+import com.intellij.lang.Language;
+import com.intellij.openapi.extensions.ExtensionPointName;
+import com.intellij.openapi.fileTypes.FileType;
+import com.intellij.psi.PsiFile;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Chooses the {@link SyntaxTreeAdapter} for the files of a language.
+ * Other plugins can contribute providers to the {@code syntaxTreeAdapterProvider} extension point;
+ * the providers are asked in their order, the built-in {@link RulesSyntaxTreeAdapterProvider} comes last.
+ * <p>
+ * {@link SyntaxTreeAdapterFactory} asks the providers once per language and file type and caches the result,
+ * so a provider may be slow to decide, but the returned constructor is called for every motion.
+ */
+public interface SyntaxTreeAdapterProvider {
+    ExtensionPointName<SyntaxTreeAdapterProvider> EP_NAME =
+            ExtensionPointName.create("com.zyurkalov.ideavim-syntaxtreejumper.syntaxTreeAdapterProvider");
+
+    /**
+     * Gets the constructor of the adapters for the files of a language.
+     *
+     * @return The constructor, or null if this provider does not support the language
+     */
+    @Nullable
+    AdapterConstructor getAdapterConstructor(@NotNull Language language, @NotNull FileType fileType);
+
+    /**
+     * Tells if the large files of a language may be navigated over a snapshot built from the AST,
+     * see {@link SyntaxTreeSnapshot#buildFromAst(PsiFile)}. That snapshot assumes that {@code getChildren()}
+     * of an element returns the children that have children of their own, like {@code ASTDelegatePsiElement}
+     * does. Languages whose elements also return their tokens, like the {@code CompositePsiElement}s of Java,
+     * would be navigated differently, so they keep the default.
+     * Only asked for the languages that this provider returned a constructor for.
+     */
+    default boolean hasCompositePsiChildren(@NotNull Language language, @NotNull FileType fileType) {
+        return false;
+    }
+
+    /**
+     * Creates the adapter of a file.
+     */
+    @FunctionalInterface
+    interface AdapterConstructor {
+        /**
+         * @param snapshot The current snapshot of the file, shared by all adapters of the file
+         */
+        @NotNull
+        SyntaxTreeAdapter create(@NotNull PsiFile psiFile, @NotNull SyntaxTreeSnapshot snapshot);
+    }
+}
@@ -0,0 +1,753 @@
+package com.zyurkalov.ideavim.syntaxtreejumper.adapters;
+
+import com.intellij.lang.ASTNode;
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiFile;
+import com.intellij.util.text.CharSequenceSubSequence;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Array-backed copy of a PSI tree: an immutable structure with lazily filled caches.
+ * The nodes and their links never change, the PSI elements of a snapshot built from the AST, the target indices
+ * and the subtree categories are filled in when they are first asked for.
+ * <p>
+ * Nodes are stored in pre-order, so the subtree of node {@code i} occupies the indices
+ * {@code [i, getSubtreeEnd(i))} and index order matches document order.
+ * All links between nodes are plain int indices, which lets the adapters navigate the tree
+ * without calling into PSI. The snapshot keeps the original {@link PsiElement}s so that
+ * language-specific predicates can still inspect them.
+ * <p>
+ * A snapshot can also be built from the AST, see {@link #buildFromAst(PsiFile)}. It then keeps the {@link ASTNode}s
+ * and creates the PSI element of a node only when {@link #getElement(int)} asks for it, so navigating a large file
+ * does not create PSI for all of it.
+ * <p>
+ * When the text of the tree is known, the snapshot keeps it and hands out views of it,
+ * see {@link #getText(int)}.
+ * <p>
+ * For every {@link NodeCategoryTable} that asked for them, the snapshot keeps the union of the categories of
+ * every subtree, see {@link #getSubtreeCategories(int, NodeCategoryTable)}. They are carried over to the snapshots
+ * created by {@link #withRebuiltSubtree}, which only recomputes them for the rebuilt subtree and its ancestors.
+ */
+public final class SyntaxTreeSnapshot {
+    public static final int NONE = -1;
+
+    private static final byte PSI_CHILD = 1;          // the element is returned by parent.getChildren()
+    private static final byte HAS_PSI_CHILDREN = 2;   // element.getChildren() is not empty
+
+    private final PsiElement[] elements;
+    private final ASTNode[] nodes;
+    private final boolean fromAst;
+    private final int[] parent;
+    private final int[] firstChild;
+    private final int[] lastChild;
+    private final int[] nextSibling;
+    private final int[] previousSibling;
+    private final int[] startOffset;
+    private final int[] endOffset;
+    private final int[] typeId;
+    private final int[] subtreeEnd;
+    private final int[] depth;
+    private final byte[] flags;
+    private final int[] leaves;
+    private final long modificationStamp;
+    @Nullable
+    private final CharSequence text;
+    private final ConcurrentHashMap<Object, TargetIndex> targetIndices = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<NodeCategoryTable, long[]> subtreeCategories = new ConcurrentHashMap<>();
+
+    private SyntaxTreeSnapshot(Builder builder, long modificationStamp, @Nullable CharSequence text) {
+        int size = builder.size;
+        this.elements = trim(builder.elements, size);
+        this.nodes = trim(builder.nodes, size);
+        this.fromAst = builder.fromAst;
+        this.parent = trim(builder.parent, size);
+        this.firstChild = trim(builder.firstChild, size);
+        this.lastChild = trim(builder.lastChild, size);
+        this.nextSibling = trim(builder.nextSibling, size);
+        this.previousSibling = trim(builder.previousSibling, size);
+        this.startOffset = trim(builder.startOffset, size);
+        this.endOffset = trim(builder.endOffset, size);
+        this.typeId = trim(builder.typeId, size);
+        this.subtreeEnd = trim(builder.subtreeEnd, size);
+        this.depth = trim(builder.depth, size);
+        this.flags = trim(builder.flags, size);
+        this.leaves = trim(builder.leaves, builder.leafCount);
+        this.modificationStamp = modificationStamp;
+        this.text = text;
+    }
+
+    /**
+     * Builds a snapshot of the whole file.
+     */
+    @NotNull
+    public static SyntaxTreeSnapshot build(@NotNull PsiFile psiFile) {
+        // The contents of the view provider is the text PSI was built from,
+        // for files open in an editor it is the immutable char sequence of the committed document
+        return build(psiFile, 0, psiFile.getModificationStamp(), psiFile.getViewProvider().getContents());
+    }
+
+    /**
+     * Builds a snapshot of the whole file from its AST, without creating PSI elements.
+     * <p>
+     * {@code getChildren()} cannot be asked without PSI, so {@link #isPsiChild(int)} assumes that it returns
+     * the children that have children of their own, like {@code ASTDelegatePsiElement} does, and leaves tokens out.
+     * Only the file returns all its children, like {@code PsiFileImpl} does. Languages whose elements follow
+     * other rules must not use this snapshot, see {@link SyntaxTreeAdapterProvider#hasCompositePsiChildren}.
+     */
+    @NotNull
+    public static SyntaxTreeSnapshot buildFromAst(@NotNull PsiFile psiFile) {
+        ASTNode root = psiFile.getNode();
+        if (root == null) {
+            return build(psiFile);
+        }
+        Builder builder = new Builder(Math.max(16, root.getTextLength() / 4), true);
+        builder.walk(root, 0);
+        CharSequence text = psiFile.getViewProvider().getContents();
+        if (text.length() < builder.endOffset[0]) {
+            text = null;
+        }
+        // The root keeps its PSI, which exists anyway and is asked for its parent
+        builder.elements[0] = psiFile;
+        builder.markAllChildren(0);
+        return new SyntaxTreeSnapshot(builder, psiFile.getModificationStamp(), text);
+    }
+
+    /**
+     * Builds a snapshot of the tree below {@code root}.
+     *
+     * @param root              The root element of the snapshot
+     * @param rootStartOffset   The document offset of the root element
+     * @param modificationStamp The modification stamp the snapshot corresponds to
+     */
+    @NotNull
+    public static SyntaxTreeSnapshot build(@NotNull PsiElement root, int rootStartOffset, long modificationStamp) {
+        return build(root, rootStartOffset, modificationStamp, null);
+    }
+
+    /**
+     * Builds a snapshot of the tree below {@code root} that also keeps the text of the tree.
+     *
+     * @param text The text the offsets of the snapshot refer to, ignored if it does not match the tree
+     */
+    @NotNull
+    static SyntaxTreeSnapshot build(@NotNull PsiElement root, int rootStartOffset, long modificationStamp,
+                                    @Nullable CharSequence text) {
+        Builder builder = new Builder(Math.max(16, root.getTextLength() / 4), false);
+        builder.walk(root, rootStartOffset);
+        if (text != null && text.length() < builder.endOffset[0]) {
+            text = null;
+        }
+        return new SyntaxTreeSnapshot(builder, modificationStamp, text);
+    }
+
+    /**
+     * Creates a snapshot in which the subtree of a node is rebuilt from PSI and the rest of the tree is copied.
+     * Nodes after the subtree are renumbered and their offsets are shifted by the change of the subtree length.
+     * <p>
+     * The PSI outside the subtree must not have changed since this snapshot was built,
+     * the element of the node itself must still be in the tree. A snapshot built from the AST
+     * rebuilds the subtree from the AST as well.
+     *
+     * @param index             The node whose subtree changed
+     * @param modificationStamp The modification stamp the new snapshot corresponds to
+     * @param text              The new text of the tree, or null
+     */
+    @NotNull
+    public SyntaxTreeSnapshot withRebuiltSubtree(int index, long modificationStamp, @Nullable CharSequence text) {
+        int oldSubtreeEnd = subtreeEnd[index];
+        Builder subtree = new Builder(Math.max(16, oldSubtreeEnd - index), fromAst);
+        if (fromAst) {
+            subtree.walk(nodes[index], startOffset[index]);
+            // Keep the element of the root if it was created, the root itself is not replaced
+            subtree.elements[0] = elements[index];
+            if (index == getRoot()) {
+                subtree.markAllChildren(0);
+            }
+        } else {
+            subtree.walk(elements[index], startOffset[index]);
+        }
+
+        int sizeDelta = subtree.size - (oldSubtreeEnd - index);
+        int offsetDelta = subtree.endOffset[0] - endOffset[index];
+        Builder builder = new Builder(size() + sizeDelta, fromAst);
+        builder.size = size() + sizeDelta;
+
+        // Nodes before the subtree keep their indices, only the ancestors of the subtree grow or shrink
+        for (int i = 0; i < index; i++) {
+            boolean isAncestor = subtreeEnd[i] > index;
+            copyNode(builder, i, i, oldSubtreeEnd, sizeDelta, isAncestor ? offsetDelta : 0);
+            builder.startOffset[i] = startOffset[i];
+        }
+        for (int i = 0; i < subtree.size; i++) {
+            int target = index + i;
+            builder.elements[target] = subtree.elements[i];
+            builder.nodes[target] = subtree.nodes[i];
+            builder.parent[target] = i == 0 ? parent[index] : subtree.parent[i] + index;
+            builder.firstChild[target] = shift(subtree.firstChild[i], index);
+            builder.lastChild[target] = shift(subtree.lastChild[i], index);
+            builder.nextSibling[target] = i == 0
+                    ? renumber(nextSibling[index], oldSubtreeEnd, sizeDelta) : shift(subtree.nextSibling[i], index);
+            builder.previousSibling[target] = i == 0 ? previousSibling[index] : shift(subtree.previousSibling[i], index);
+            builder.startOffset[target] = subtree.startOffset[i];
+            builder.endOffset[target] = subtree.endOffset[i];
+            builder.typeId[target] = subtree.typeId[i];
+            builder.subtreeEnd[target] = subtree.subtreeEnd[i] + index;
+            builder.depth[target] = subtree.depth[i] + depth[index];
+            builder.flags[target] = i == 0
+                    ? (byte) ((flags[index] & PSI_CHILD) | (subtree.flags[0] & HAS_PSI_CHILDREN)) : subtree.flags[i];
+        }
+        for (int i = oldSubtreeEnd; i < size(); i++) {
+            int target = i + sizeDelta;
+            copyNode(builder, i, target, oldSubtreeEnd, sizeDelta, offsetDelta);
+            builder.startOffset[target] = startOffset[i] + offsetDelta;
+        }
+
+        int firstLeafAfter = 0;
+        while (firstLeafAfter < leaves.length && leaves[firstLeafAfter] < oldSubtreeEnd) {
+            firstLeafAfter++;
+        }
+        int leavesBefore = 0;
+        while (leavesBefore < leaves.length && leaves[leavesBefore] < index) {
+            leavesBefore++;
+        }
+        builder.leaves = new int[leavesBefore + subtree.leafCount + leaves.length - firstLeafAfter];
+        System.arraycopy(leaves, 0, builder.leaves, 0, leavesBefore);
+        for (int i = 0; i < subtree.leafCount; i++) {
+            builder.leaves[leavesBefore + i] = subtree.leaves[i] + index;
+        }
+        for (int i = firstLeafAfter; i < leaves.length; i++) {
+            builder.leaves[leavesBefore + subtree.leafCount + i - firstLeafAfter] = leaves[i] + sizeDelta;
+        }
+        builder.leafCount = builder.leaves.length;
+        SyntaxTreeSnapshot rebuilt = new SyntaxTreeSnapshot(builder, modificationStamp, text);
+        subtreeCategories.forEach((table, categories) -> rebuilt.subtreeCategories.put(table,
+                rebuilt.updateSubtreeCategories(table, categories, index, oldSubtreeEnd)));
+        return rebuilt;
+    }
+
+    /**
+     * Computes the subtree categories of this snapshot from those of the snapshot it was rebuilt from.
+     * Only the nodes of the rebuilt subtree and its ancestors are classified again.
+     *
+     * @param oldCategories  The subtree categories of the old snapshot
+     * @param index          The root of the rebuilt subtree
+     * @param oldSubtreeEnd  The end of the subtree in the old snapshot
+     */
+    private long[] updateSubtreeCategories(@NotNull NodeCategoryTable table, long[] oldCategories,
+                                           int index, int oldSubtreeEnd) {
+        long[] categories = new long[size()];
+        int newSubtreeEnd = subtreeEnd[index];
+        System.arraycopy(oldCategories, 0, categories, 0, index);
+        System.arraycopy(oldCategories, oldSubtreeEnd, categories, newSubtreeEnd, size() - newSubtreeEnd);
+        collectSubtreeCategories(table, categories, index, newSubtreeEnd);
+        for (int ancestor = parent[index]; ancestor != NONE; ancestor = parent[ancestor]) {
+            long ancestorCategories = table.getCandidateCategories(typeId[ancestor]);
+            for (int child = firstChild[ancestor]; child != NONE; child = nextSibling[child]) {
+                ancestorCategories |= categories[child];
+            }
+            categories[ancestor] = ancestorCategories;
+        }
+        return categories;
+    }
+
+    /**
+     * Computes the subtree categories of the nodes in {@code [from, to)}, which must be a whole subtree.
+     * The entries of these nodes must be empty.
+     */
+    private void collectSubtreeCategories(@NotNull NodeCategoryTable table, long[] categories, int from, int to) {
+        // Children follow their parent in pre-order, so every node is complete before it is added to its parent
+        for (int i = to - 1; i >= from; i--) {
+            categories[i] |= table.getCandidateCategories(typeId[i]);
+            if (i > from) {
+                categories[parent[i]] |= categories[i];
+            }
+        }
+    }
+
+    /**
+     * Copies a node outside the rebuilt subtree, all links into the part after the subtree are renumbered.
+     */
+    private void copyNode(Builder builder, int source, int target, int oldSubtreeEnd, int sizeDelta, int endOffsetDelta) {
+        builder.elements[target] = elements[source];
+        builder.nodes[target] = nodes[source];
+        builder.parent[target] = renumber(parent[source], oldSubtreeEnd, sizeDelta);
+        builder.firstChild[target] = renumber(firstChild[source], oldSubtreeEnd, sizeDelta);
+        builder.lastChild[target] = renumber(lastChild[source], oldSubtreeEnd, sizeDelta);
+        builder.nextSibling[target] = renumber(nextSibling[source], oldSubtreeEnd, sizeDelta);
+        builder.previousSibling[target] = renumber(previousSibling[source], oldSubtreeEnd, sizeDelta);
+        builder.endOffset[target] = endOffset[source] + endOffsetDelta;
+        builder.typeId[target] = typeId[source];
+        builder.subtreeEnd[target] = renumber(subtreeEnd[source], oldSubtreeEnd, sizeDelta);
+        builder.depth[target] = depth[source];
+        builder.flags[target] = flags[source];
+    }
+
+    private static int renumber(int index, int oldSubtreeEnd, int sizeDelta) {
+        // Nodes outside the subtree only link to its root, which keeps its index, or to nodes around it
+        return index >= oldSubtreeEnd ? index + sizeDelta : index;
+    }
+
+    private static int shift(int index, int delta) {
+        return index == NONE ? NONE : index + delta;
+    }
+
+    public int size() {
+        return elements.length;
+    }
+
+    public long getModificationStamp() {
+        return modificationStamp;
+    }
+
+    /**
+     * The target indices built for this snapshot, by the key of the motion.
+     */
+    @NotNull
+    ConcurrentHashMap<Object, TargetIndex> getTargetIndices() {
+        return targetIndices;
+    }
+
+    public int getRoot() {
+        return 0;
+    }
+
+    /**
+     * Gets the PSI element of the node. A snapshot built from the AST creates it on the first call.
+     */
+    @NotNull
+    public PsiElement getElement(int index) {
+        PsiElement element = elements[index];
+        if (element == null) {
+            // ASTNode.getPsi() returns the same element every time, so racing threads store the same value
+            element = nodes[index].getPsi();
+            elements[index] = element;
+        }
+        return element;
+    }
+
+    /**
+     * Checks if the PSI element of the node exists in the snapshot, i.e. it was not built from the AST
+     * or {@link #getElement(int)} was called for the node.
+     */
+    boolean isElementCreated(int index) {
+        return elements[index] != null;
+    }
+
+    /**
+     * Gets the AST node of the node, or null if the element has none.
+     */
+    @Nullable
+    public ASTNode getNode(int index) {
+        return nodes[index];
+    }
+
+    /**
+     * Checks if the snapshot was built from the AST, see {@link #buildFromAst(PsiFile)}.
+     */
+    public boolean isFromAst() {
+        return fromAst;
+    }
+
+    public int getParent(int index) {
+        return parent[index];
+    }
+
+    public int getFirstChild(int index) {
+        return firstChild[index];
+    }
+
+    public int getLastChild(int index) {
+        return lastChild[index];
+    }
+
+    public int getNextSibling(int index) {
+        return nextSibling[index];
+    }
+
+    public int getPreviousSibling(int index) {
+        return previousSibling[index];
+    }
+
+    public int getStartOffset(int index) {
+        return startOffset[index];
+    }
+
+    public int getEndOffset(int index) {
+        return endOffset[index];
+    }
+
+    /**
+     * Gets the interned element type id ({@link com.intellij.psi.tree.IElementType#getIndex()}),
+     * or {@link #NONE} if the element has no AST node.
+     */
+    public int getTypeId(int index) {
+        return typeId[index];
+    }
+
+    /**
+     * Gets the exclusive end of the pre-order range occupied by the subtree of the node.
+     */
+    public int getSubtreeEnd(int index) {
+        return subtreeEnd[index];
+    }
+
+    /**
+     * Gets the text of the node as a view over the text of the tree, without copying it.
+     *
+     * @return The text, or null if the snapshot was built without text
+     */
+    @Nullable
+    public CharSequence getText(int index) {
+        if (text == null) {
+            return null;
+        }
+        return new CharSequenceSubSequence(text, startOffset[index], endOffset[index]);
+    }
+
+    /**
+     * Gets the union of the {@link NodeCategory} flags of the node and all its descendants,
+     * including the leaf tokens that {@code getChildren()} leaves out. The categories of rules with conditions
+     * are included whether their conditions hold or not, see {@link NodeCategoryTable#getCandidateCategories(int)}.
+     * The categories of the whole snapshot are computed on the first call for a table.
+     */
+    public long getSubtreeCategories(int index, @NotNull NodeCategoryTable table) {
+        return getSubtreeCategories(table)[index];
+    }
+
+    long[] getSubtreeCategories(@NotNull NodeCategoryTable table) {
+        return subtreeCategories.computeIfAbsent(table, t -> {
+            long[] categories = new long[size()];
+            collectSubtreeCategories(t, categories, 0, size());
+            return categories;
+        });
+    }
+
+    public int getDepth(int index) {
+        return depth[index];
+    }
+
+    /**
+     * Checks if the node is one of the elements returned by {@code parent.getChildren()}.
+     * Some PSI implementations leave leaf tokens out of {@code getChildren()}, and the motion handlers rely on that.
+     */
+    public boolean isPsiChild(int index) {
+        return (flags[index] & PSI_CHILD) != 0;
+    }
+
+    /**
+     * Checks if {@code getChildren()} of the node's element is not empty.
+     */
+    public boolean hasPsiChildren(int index) {
+        return (flags[index] & HAS_PSI_CHILDREN) != 0;
+    }
+
+    /**
+     * Finds the deepest non-empty node that contains the offset, like {@link PsiFile#findElementAt(int)}.
+     *
+     * @return The node index, or {@link #NONE} if no leaf contains the offset
+     */
+    public int findLeafAt(int offset) {
+        int low = 0;
+        int high = leaves.length - 1;
+        int candidate = NONE;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            if (startOffset[leaves[middle]] <= offset) {
+                candidate = leaves[middle];
+                low = middle + 1;
+            } else {
+                high = middle - 1;
+            }
+        }
+        if (candidate == NONE || endOffset[candidate] <= offset) {
+            return NONE;
+        }
+        return candidate;
+    }
+
+    /**
+     * Finds the node of an element.
+     *
+     * @param offset The start offset of the element in this snapshot
+     * @return The node index, or {@link #NONE} if the element is not in the snapshot at that offset
+     */
+    public int indexOf(@NotNull PsiElement element, int offset) {
+        // Start offsets never decrease in pre-order, find the first node that starts at the offset
+        int low = 0;
+        int high = elements.length - 1;
+        int first = elements.length;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            if (startOffset[middle] >= offset) {
+                first = middle;
+                high = middle - 1;
+            } else {
+                low = middle + 1;
+            }
+        }
+        // Snapshots built from the AST may not have created the element, but the element knows its node
+        ASTNode node = fromAst ? element.getNode() : null;
+        for (int i = first; i < elements.length && startOffset[i] == offset; i++) {
+            if (elements[i] == element || node != null && nodes[i] == node) {
+                return i;
+            }
+        }
+        return NONE;
+    }
+
+    /**
+     * Finds the smallest common ancestor of two nodes. A node is considered to be its own ancestor.
+     */
+    public int findCommonParent(int first, int second) {
+        while (depth[first] > depth[second]) {
+            first = parent[first];
+        }
+        while (depth[second] > depth[first]) {
+            second = parent[second];
+        }
+        while (first != second) {
+            first = parent[first];
+            second = parent[second];
+        }
+        return first;
+    }
+
+    private static int[] trim(int[] array, int size) {
+        return array.length == size ? array : Arrays.copyOf(array, size);
+    }
+
+    private static byte[] trim(byte[] array, int size) {
+        return array.length == size ? array : Arrays.copyOf(array, size);
+    }
+
+    private static <T> T[] trim(T[] array, int size) {
+        return array.length == size ? array : Arrays.copyOf(array, size);
+    }
+
+    /**
+     * Collects the snapshot while walking PSI or the AST once, without recursion.
+     */
+    private static final class Builder {
+        private final boolean fromAst;
+        private PsiElement[] elements;
+        private ASTNode[] nodes;
+        private int[] parent;
+        private int[] firstChild;
+        private int[] lastChild;
+        private int[] nextSibling;
+        private int[] previousSibling;
+        private int[] startOffset;
+        private int[] endOffset;
+        private int[] typeId;
+        private int[] subtreeEnd;
+        private int[] depth;
+        private byte[] flags;
+        private int[] leaves;
+        private int size;
+        private int leafCount;
+
+        Builder(int capacity, boolean fromAst) {
+            this.fromAst = fromAst;
+            elements = new PsiElement[capacity];
+            nodes = new ASTNode[capacity];
+            parent = new int[capacity];
+            firstChild = new int[capacity];
+            lastChild = new int[capacity];
+            nextSibling = new int[capacity];
+            previousSibling = new int[capacity];
+            startOffset = new int[capacity];
+            endOffset = new int[capacity];
+            typeId = new int[capacity];
+            subtreeEnd = new int[capacity];
+            depth = new int[capacity];
+            flags = new byte[capacity];
+            leaves = new int[capacity];
+        }
+
+        void walk(@NotNull PsiElement root, int rootStartOffset) {
+            int offset = rootStartOffset;
+            int current = add(root, NONE, NONE, offset);
+            PsiElement element = root;
+            while (true) {
+                ProgressManager.checkCanceled();
+                PsiElement child = element.getFirstChild();
+                if (child != null) {
+                    current = add(child, current, NONE, offset);
+                    element = child;
+                    continue;
+                }
+
+                offset += element.getTextLength();
+                endOffset[current] = offset;
+                subtreeEnd[current] = current + 1;
+                if (offset > startOffset[current]) {
+                    addLeaf(current);
+                }
+
+                while (true) {
+                    if (current == 0) {
+                        return;
+                    }
+                    PsiElement next = element.getNextSibling();
+                    int parentIndex = parent[current];
+                    if (next != null) {
+                        current = add(next, parentIndex, current, offset);
+                        element = next;
+                        break;
+                    }
+                    current = parentIndex;
+                    element = elements[current];
+                    endOffset[current] = offset;
+                    subtreeEnd[current] = size;
+                    markPsiChildren(current);
+                }
+            }
+        }
+
+        /**
+         * Same as {@link #walk(PsiElement, int)}, for the AST.
+         */
+        void walk(@NotNull ASTNode root, int rootStartOffset) {
+            int offset = rootStartOffset;
+            int current = add(root, NONE, NONE, offset);
+            ASTNode node = root;
+            while (true) {
+                ProgressManager.checkCanceled();
+                ASTNode child = node.getFirstChildNode();
+                if (child != null) {
+                    current = add(child, current, NONE, offset);
+                    node = child;
+                    continue;
+                }
+
+                offset += node.getTextLength();
+                endOffset[current] = offset;
+                subtreeEnd[current] = current + 1;
+                if (offset > startOffset[current]) {
+                    addLeaf(current);
+                }
+
+                while (true) {
+                    if (current == 0) {
+                        return;
+                    }
+                    ASTNode next = node.getTreeNext();
+                    int parentIndex = parent[current];
+                    if (next != null) {
+                        current = add(next, parentIndex, current, offset);
+                        node = next;
+                        break;
+                    }
+                    current = parentIndex;
+                    node = nodes[current];
+                    endOffset[current] = offset;
+                    subtreeEnd[current] = size;
+                    markCompositeChildren(current);
+                }
+            }
+        }
+
+        private int add(@NotNull PsiElement element, int parentIndex, int previousIndex, int offset) {
+            int index = add(element.getNode(), parentIndex, previousIndex, offset);
+            elements[index] = element;
+            return index;
+        }
+
+        private int add(@Nullable ASTNode node, int parentIndex, int previousIndex, int offset) {
+            ensureCapacity(size + 1);
+            int index = size++;
+            elements[index] = null;
+            nodes[index] = node;
+            parent[index] = parentIndex;
+            firstChild[index] = NONE;
+            lastChild[index] = NONE;
+            nextSibling[index] = NONE;
+            previousSibling[index] = previousIndex;
+            startOffset[index] = offset;
+            endOffset[index] = offset;
+            typeId[index] = node != null ? node.getElementType().getIndex() : NONE;
+            depth[index] = parentIndex == NONE ? 0 : depth[parentIndex] + 1;
+            flags[index] = 0;
+            if (previousIndex != NONE) {
+                nextSibling[previousIndex] = index;
+            } else if (parentIndex != NONE) {
+                firstChild[parentIndex] = index;
+            }
+            if (parentIndex != NONE) {
+                lastChild[parentIndex] = index;
+            }
+            return index;
+        }
+
+        private void addLeaf(int index) {
+            if (leafCount == leaves.length) {
+                leaves = Arrays.copyOf(leaves, leaves.length * 2);
+            }
+            leaves[leafCount++] = index;
+        }
+
+        /**
+         * Remembers which children {@code getChildren()} reports, as it may skip leaf tokens.
+         */
+        private void markPsiChildren(int index) {
+            PsiElement[] psiChildren = elements[index].getChildren();
+            int next = 0;
+            for (int child = firstChild[index]; child != NONE && next < psiChildren.length; child = nextSibling[child]) {
+                if (psiChildren[next] == elements[child]) {
+                    flags[child] |= PSI_CHILD;
+                    next++;
+                }
+            }
+            if (psiChildren.length > 0) {
+                flags[index] |= HAS_PSI_CHILDREN;
+            }
+        }
+
+        /**
+         * Marks the children that have children of their own, as {@code getChildren()} cannot be asked without PSI.
+         */
+        private void markCompositeChildren(int index) {
+            for (int child = firstChild[index]; child != NONE; child = nextSibling[child]) {
+                if (firstChild[child] != NONE) {
+                    flags[child] |= PSI_CHILD;
+                    flags[index] |= HAS_PSI_CHILDREN;
+                }
+            }
+        }
+
+        /**
+         * Marks all children as PSI children, like files report them.
+         */
+        void markAllChildren(int index) {
+            for (int child = firstChild[index]; child != NONE; child = nextSibling[child]) {
+                flags[child] |= PSI_CHILD;
+                flags[index] |= HAS_PSI_CHILDREN;
+            }
+        }
+
+        private void ensureCapacity(int capacity) {
+            if (capacity <= elements.length) {
+                return;
+            }
+            int newCapacity = Math.max(capacity, elements.length * 2);
+            elements = Arrays.copyOf(elements, newCapacity);
+            nodes = Arrays.copyOf(nodes, newCapacity);
+            parent = Arrays.copyOf(parent, newCapacity);
+            firstChild = Arrays.copyOf(firstChild, newCapacity);
+            lastChild = Arrays.copyOf(lastChild, newCapacity);
+            nextSibling = Arrays.copyOf(nextSibling, newCapacity);
+            previousSibling = Arrays.copyOf(previousSibling, newCapacity);
+            startOffset = Arrays.copyOf(startOffset, newCapacity);
+            endOffset = Arrays.copyOf(endOffset, newCapacity);
+            typeId = Arrays.copyOf(typeId, newCapacity);
+            subtreeEnd = Arrays.copyOf(subtreeEnd, newCapacity);
+            depth = Arrays.copyOf(depth, newCapacity);
+            flags = Arrays.copyOf(flags, newCapacity);
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.zyurkalov.ideavim.syntaxtreejumper.adapters;
+
+import com.intellij.openapi.util.Key;
+import com.intellij.openapi.util.TextRange;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.util.PsiTreeUtil;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.ref.SoftReference;
+
+/**
+ * Keeps one {@link SyntaxTreeSnapshot} per file.
+ * The snapshot is stored in the user data of the {@link PsiFile}, so every editor showing the file shares it.
+ * <p>
+ * When the file changes, {@link SyntaxTreeSnapshotUpdater} reports the changed elements. The cache remembers their
+ * common parent, and the next {@link #getSnapshot(PsiFile)} rebuilds only the subtree of that parent.
+ * The snapshot is rebuilt completely when the changes are unknown or span the whole file,
+ * or when the caller asks for a snapshot of the other kind, see {@link SyntaxTreeSnapshot#buildFromAst(PsiFile)}.
+ * <p>
+ * The snapshot references every element of the file, so it is only held softly, like the platform holds the AST
+ * of a file without a document. Otherwise one motion would keep the whole tree of a file after its editors closed.
+ */
+public final class SyntaxTreeSnapshotCache {
+    private static final Key<SoftReference<SyntaxTreeSnapshot>> SNAPSHOT_KEY =
+            Key.create("SyntaxTreeJumper.SyntaxTreeSnapshot");
+    private static final Key<PsiElement> CHANGED_ELEMENT_KEY = Key.create("SyntaxTreeJumper.ChangedElement");
+
+    private SyntaxTreeSnapshotCache() {
+    }
+
+    /**
+     * Checks if a snapshot of the file has been built, which {@link #getSnapshot(PsiFile)} then only has to update.
+     */
+    public static boolean hasSnapshot(@NotNull PsiFile psiFile) {
+        return getCachedSnapshot(psiFile) != null;
+    }
+
+    @Nullable
+    private static SyntaxTreeSnapshot getCachedSnapshot(@NotNull PsiFile psiFile) {
+        SoftReference<SyntaxTreeSnapshot> reference = psiFile.getUserData(SNAPSHOT_KEY);
+        return reference != null ? reference.get() : null;
+    }
+
+    /**
+     * Gets the snapshot matching the current state of the file, building or updating it if necessary.
+     * Must be called inside a read action.
+     */
+    @NotNull
+    public static SyntaxTreeSnapshot getSnapshot(@NotNull PsiFile psiFile) {
+        return getSnapshot(psiFile, false);
+    }
+
+    /**
+     * Same as {@link #getSnapshot(PsiFile)}, choosing how the snapshot is built.
+     *
+     * @param fromAst Whether to build the snapshot from the AST, which creates PSI only for the nodes that need it
+     */
+    @NotNull
+    public static SyntaxTreeSnapshot getSnapshot(@NotNull PsiFile psiFile, boolean fromAst) {
+        long modificationStamp = psiFile.getModificationStamp();
+        SyntaxTreeSnapshot snapshot = getCachedSnapshot(psiFile);
+        if (snapshot != null && snapshot.isFromAst() != fromAst) {
+            snapshot = null;
+        }
+        if (snapshot != null && snapshot.getModificationStamp() == modificationStamp) {
+            return snapshot;
+        }
+        SyntaxTreeSnapshot updated = snapshot != null ? update(psiFile, snapshot, modificationStamp) : null;
+        if (updated != null) {
+            snapshot = updated;
+        } else {
+            snapshot = fromAst ? SyntaxTreeSnapshot.buildFromAst(psiFile) : SyntaxTreeSnapshot.build(psiFile);
+        }
+        psiFile.putUserData(SNAPSHOT_KEY, new SoftReference<>(snapshot));
+        psiFile.putUserData(CHANGED_ELEMENT_KEY, null);
+        return snapshot;
+    }
+
+    /**
+     * Rebuilds the subtree of the changed element.
+     *
+     * @return The updated snapshot, or null if the snapshot has to be rebuilt completely
+     */
+    @Nullable
+    private static SyntaxTreeSnapshot update(@NotNull PsiFile psiFile, @NotNull SyntaxTreeSnapshot snapshot,
+                                             long modificationStamp) {
+        PsiElement changedElement = psiFile.getUserData(CHANGED_ELEMENT_KEY);
+        if (changedElement == null || !changedElement.isValid()) {
+            return null;
+        }
+        TextRange range = changedElement.getTextRange();
+        if (range == null) {
+            return null;
+        }
+        // All changes are inside the element, so the text before it and its start offset are the same as before
+        int index = snapshot.indexOf(changedElement, range.getStartOffset());
+        if (index == SyntaxTreeSnapshot.NONE) {
+            return null;
+        }
+        return snapshot.withRebuiltSubtree(index, modificationStamp, psiFile.getViewProvider().getContents());
+    }
+
+    /**
+     * Records that the children of an element changed.
+     * Must be called for every change of the file, otherwise the updated snapshot will miss it.
+     */
+    public static void elementChanged(@NotNull PsiFile psiFile, @NotNull PsiElement element) {
+        if (getCachedSnapshot(psiFile) == null) {
+            // Also forget the changes of a collected snapshot, the element would keep the tree alive
+            psiFile.putUserData(CHANGED_ELEMENT_KEY, null);
+            return;
+        }
+        PsiElement previous = psiFile.getUserData(CHANGED_ELEMENT_KEY);
+        PsiElement changedElement = previous != null ? PsiTreeUtil.findCommonParent(previous, element) : element;
+        if (changedElement == null || changedElement instanceof PsiFile) {
+            invalidate(psiFile);
+            return;
+        }
+        psiFile.putUserData(CHANGED_ELEMENT_KEY, changedElement);
+    }
+
+    /**
+     * Drops the cached snapshot of the file.
+     */
+    public static void invalidate(@NotNull PsiFile psiFile) {
+        psiFile.putUserData(SNAPSHOT_KEY, null);
+        psiFile.putUserData(CHANGED_ELEMENT_KEY, null);
+    }
+}
@@ -0,0 +1,60 @@
+package com.zyurkalov.ideavim.syntaxtreejumper.adapters;
+
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiTreeChangeAdapter;
+import com.intellij.psi.PsiTreeChangeEvent;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Reports PSI changes to {@link SyntaxTreeSnapshotCache}, so that cached snapshots are updated
+ * by rebuilding only the changed subtree instead of the whole file.
+ */
+public class SyntaxTreeSnapshotUpdater extends PsiTreeChangeAdapter {
+
+    @Override
+    public void childAdded(@NotNull PsiTreeChangeEvent event) {
+        elementChanged(event.getFile(), event.getParent());
+    }
+
+    @Override
+    public void childRemoved(@NotNull PsiTreeChangeEvent event) {
+        elementChanged(event.getFile(), event.getParent());
+    }
+
+    @Override
+    public void childReplaced(@NotNull PsiTreeChangeEvent event) {
+        elementChanged(event.getFile(), event.getParent());
+    }
+
+    @Override
+    public void childrenChanged(@NotNull PsiTreeChangeEvent event) {
+        elementChanged(event.getFile(), event.getParent());
+    }
+
+    @Override
+    public void childMoved(@NotNull PsiTreeChangeEvent event) {
+        elementChanged(event.getFile(), event.getOldParent());
+        elementChanged(event.getFile(), event.getNewParent());
+    }
+
+    @Override
+    public void propertyChanged(@NotNull PsiTreeChangeEvent event) {
+        PsiFile file = event.getFile();
+        if (file != null) {
+            SyntaxTreeSnapshotCache.invalidate(file);
+        }
+    }
+
+    private static void elementChanged(@Nullable PsiFile file, @Nullable PsiElement parent) {
+        if (file == null) {
+            return;
+        }
+        if (parent == null) {
+            SyntaxTreeSnapshotCache.invalidate(file);
+            return;
+        }
+        SyntaxTreeSnapshotCache.elementChanged(file, parent);
+    }
+}
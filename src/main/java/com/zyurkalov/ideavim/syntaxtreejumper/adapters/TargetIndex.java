@@ -0,0 +1,180 @@
+package com.zyurkalov.ideavim.syntaxtreejumper.adapters;
+
+import com.intellij.openapi.progress.ProgressManager;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Arrays;
+import java.util.function.Predicate;
+
+/**
+ * Sorted list of the nodes of a {@link SyntaxTreeSnapshot} that are targets of a motion, e.g. all comments of a file.
+ * <p>
+ * Jumping forward or backward becomes a binary search instead of a walk over siblings and subtrees.
+ * The targets are kept as snapshot indices: pre-order sorts them by start offset, and unlike offsets the indices
+ * also order nested nodes that start at the same offset.
+ * <p>
+ * The index gives the same result as walking the tree with {@code getNextSibling()}, {@code getPreviousSibling()}
+ * and descending into the nodes whose {@code getChildren()} is not empty: going forward finds the first target after
+ * the current node, going backward finds the outermost of the nearest targets before it. The one difference is
+ * that the walk of the motion handlers also stops at a sibling with the borders of the caret after its first step,
+ * which only exists in a run of three or more empty siblings at the caret. The index skips them, as they are
+ * not targets.
+ * <p>
+ * An index is built on first use and cached in the snapshot, so it is dropped together with the snapshot
+ * when the file changes. When all targets have one of some categories, building the index skips the subtrees
+ * that have none of them, which makes it cheap for categories that are rare in a file.
+ */
+public final class TargetIndex {
+    private final SyntaxTreeSnapshot snapshot;
+    private final int[] targets;
+    /**
+     * For every target, the deepest ancestor whose {@code getChildren()} is empty, or {@link SyntaxTreeSnapshot#NONE}.
+     * The tree walk never descends into such an ancestor, so it only finds the target from inside of it.
+     */
+    private final int[] blockers;
+
+    private TargetIndex(@NotNull SyntaxTreeSnapshot snapshot, @NotNull SyntaxNode factory,
+                        long targetCategories, @NotNull Predicate<SyntaxNode> isTarget) {
+        this.snapshot = snapshot;
+        long[] subtreeCategories = targetCategories != NodeCategory.NONE ?
+                snapshot.getSubtreeCategories(factory.getCategoryTable()) : null;
+        int[] found = new int[16];
+        int count = 0;
+        for (int index = 0; index < snapshot.size(); index++) {
+            ProgressManager.checkCanceled();
+            if (subtreeCategories != null && (subtreeCategories[index] & targetCategories) == 0) {
+                // Nothing in the subtree can be a target
+                index = snapshot.getSubtreeEnd(index) - 1;
+                continue;
+            }
+            if (isTarget.test(factory.createNode(snapshot, index))) {
+                if (count == found.length) {
+                    found = Arrays.copyOf(found, count * 2);
+                }
+                found[count++] = index;
+            }
+        }
+        this.targets = Arrays.copyOf(found, count);
+        this.blockers = new int[count];
+        for (int i = 0; i < count; i++) {
+            blockers[i] = findBlocker(targets[i]);
+        }
+    }
+
+    private int findBlocker(int index) {
+        for (int ancestor = snapshot.getParent(index); ancestor != SyntaxTreeSnapshot.NONE;
+             ancestor = snapshot.getParent(ancestor)) {
+            if (!snapshot.hasPsiChildren(ancestor)) {
+                return ancestor;
+            }
+        }
+        return SyntaxTreeSnapshot.NONE;
+    }
+
+    /**
+     * Gets the index of the targets matching a predicate in the snapshot of a node, building it if necessary.
+     *
+     * @param node     A node of the file, used to find the snapshot and to create nodes of the same language
+     * @param key      Identifies the predicate, e.g. the class of the motion handler
+     * @param isTarget Checks if a node is a target, must not depend on anything but the node
+     * @return The index, or null if the node is not backed by a snapshot
+     */
+    @Nullable
+    public static TargetIndex get(@NotNull SyntaxNode node, @NotNull Object key,
+                                  @NotNull Predicate<SyntaxNode> isTarget) {
+        return get(node, key, NodeCategory.NONE, isTarget);
+    }
+
+    /**
+     * Same as {@link #get(SyntaxNode, Object, Predicate)} for targets that have at least one of some categories.
+     *
+     * @param targetCategories The {@link NodeCategory} flags of which every target has one,
+     *                         or {@link NodeCategory#NONE} if the targets are not restricted to categories
+     */
+    @Nullable
+    public static TargetIndex get(@NotNull SyntaxNode node, @NotNull Object key, long targetCategories,
+                                  @NotNull Predicate<SyntaxNode> isTarget) {
+        SyntaxTreeSnapshot snapshot = node.getSnapshot();
+        if (snapshot == null) {
+            return null;
+        }
+        return snapshot.getTargetIndices().computeIfAbsent(key,
+                k -> new TargetIndex(snapshot, node, targetCategories, isTarget));
+    }
+
+    public int size() {
+        return targets.length;
+    }
+
+    /**
+     * Finds the first target that follows the node and is not inside it.
+     */
+    @Nullable
+    public SyntaxNode findNext(@NotNull SyntaxNode current) {
+        int currentIndex = getIndexOf(current);
+        int first = lowerBound(snapshot.getSubtreeEnd(currentIndex));
+        for (int i = first; i < targets.length; i++) {
+            if (isReachable(i, currentIndex)) {
+                return current.createNode(snapshot, targets[i]);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Finds the nearest target that precedes the node and does not contain it.
+     * Of nested targets, the outermost one is returned.
+     */
+    @Nullable
+    public SyntaxNode findPrevious(@NotNull SyntaxNode current) {
+        int currentIndex = getIndexOf(current);
+        for (int i = lowerBound(currentIndex) - 1; i >= 0; i--) {
+            int target = targets[i];
+            if (snapshot.getSubtreeEnd(target) > currentIndex || !isReachable(i, currentIndex)) {
+                // Ancestors of the current node are not targets
+                continue;
+            }
+            int outermost = target;
+            for (int ancestor = snapshot.getParent(target);
+                 ancestor != SyntaxTreeSnapshot.NONE && snapshot.getSubtreeEnd(ancestor) <= currentIndex;
+                 ancestor = snapshot.getParent(ancestor)) {
+                if (Arrays.binarySearch(targets, ancestor) >= 0) {
+                    outermost = ancestor;
+                }
+            }
+            return current.createNode(snapshot, outermost);
+        }
+        return null;
+    }
+
+    private int getIndexOf(@NotNull SyntaxNode node) {
+        if (node.getSnapshot() != snapshot) {
+            throw new IllegalArgumentException("The node does not belong to the snapshot of the index");
+        }
+        return node.getSnapshotIndex();
+    }
+
+    private boolean isReachable(int target, int currentIndex) {
+        int blocker = blockers[target];
+        return blocker == SyntaxTreeSnapshot.NONE ||
+                (blocker <= currentIndex && currentIndex < snapshot.getSubtreeEnd(blocker));
+    }
+
+    /**
+     * Finds the position of the first target whose index is not less than the given one.
+     */
+    private int lowerBound(int index) {
+        int low = 0;
+        int high = targets.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (targets[middle] < index) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+}
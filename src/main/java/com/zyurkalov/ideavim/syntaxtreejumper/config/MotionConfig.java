@@ -0,0 +1,89 @@
+package com.zyurkalov.ideavim.syntaxtreejumper.config;
+
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.components.PersistentStateComponent;
+import com.intellij.openapi.components.Service;
+import com.intellij.openapi.components.State;
+import com.intellij.openapi.components.Storage;
+import com.intellij.util.xmlb.XmlSerializerUtil;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Configuration service for the execution of the motions.
+ * <p>
+ * Motions that may take long run in a background read action with a progress indicator instead of on the EDT.
+ * A motion runs in the background in files of at least {@link #backgroundMinFileLength} characters,
+ * and in files as long as one where its search took more than {@link #backgroundMinMillis} before,
+ * until it is fast again in such a file.
+ * <p>
+ * Every motion stops when it visited more than {@link #getSearchMaxVisitedNodes} nodes or took
+ * more than {@link #searchMaxMillis}, in the background too.
+ * <p>
+ * The motions to functions, classes, imports and comments continue into the next or previous file of the directory
+ * when there is no target left in the file, unless {@link #continueInOtherFiles} is off.
+ */
+@Service
+@State(
+    name = "SyntaxTreeJumperMotions",
+    storages = @Storage("syntaxTreeJumperMotions.xml")
+)
+public final class MotionConfig implements PersistentStateComponent<MotionConfig> {
+
+    /**
+     * Files at least this long are always searched in the background.
+     */
+    public int backgroundMinFileLength = 2_000_000;
+    /**
+     * A motion whose search took longer than this runs in the background in files at least as long.
+     */
+    public int backgroundMinMillis = 200;
+    /**
+     * The maximum number of syntax nodes one motion may visit before it gives up, see {@code SearchBudget}.
+     */
+    public int searchMaxVisitedNodes = 5_000_000;
+    /**
+     * Overrides {@link #searchMaxVisitedNodes} for languages, by language id.
+     * The numbers to tune them with are in the "SearchBudget" line of {@code :SyntaxTreeJumperStats}.
+     */
+    public Map<String, Integer> searchMaxVisitedNodesByLanguage = new HashMap<>();
+    /**
+     * The maximum duration of one motion before it gives up.
+     */
+    public int searchMaxMillis = 3_000;
+    /**
+     * Whether the motions with targets in {@code FileTargetIndex} continue into other files.
+     */
+    public boolean continueInOtherFiles = true;
+    /**
+     * The motions with targets in {@code FileTargetIndex} jump with the index instead of the syntax tree in files
+     * at least this long, until the syntax tree of the file is built, e.g. for the first motion after a restart.
+     */
+    public int indexedMotionMinFileLength = 100_000;
+
+
+    public static MotionConfig getInstance() {
+        return ApplicationManager.getApplication().getService(MotionConfig.class);
+    }
+
+    /**
+     * Gets the maximum number of syntax nodes one motion may visit in the files of a language.
+     */
+    public int getSearchMaxVisitedNodes(@NotNull String languageId) {
+        return searchMaxVisitedNodesByLanguage.getOrDefault(languageId, searchMaxVisitedNodes);
+    }
+
+    @Nullable
+    @Override
+    public MotionConfig getState() {
+        return this;
+    }
+
+    @Override
+    public void loadState(@NotNull MotionConfig state) {
+        XmlSerializerUtil.copyBean(state, this);
+    }
+}
@@ -46,4 +46,16 @@ public record MotionHandlerConfig(
     public String getExtendShrinkCommand() {
         return "<Plug>" + "ExtendShrink" + name;
     }
+
+    /**
+     * Gets the command of the motion in a direction, or of the motion adding a new caret.
+     */
+    public String getCommand(MotionDirection direction, boolean addNewCaret) {
+        return switch (direction) {
+            case FORWARD -> addNewCaret ? getExtendForwardCommand() : getForwardCommand();
+            case BACKWARD -> addNewCaret ? getExtendBackwardCommand() : getBackwardCommand();
+            case EXPAND -> addNewCaret ? getExtendExpandCommand() : getExpandCommand();
+            case SHRINK -> addNewCaret ? getExtendShrinkCommand() : getShrinkCommand();
+        };
+    }
 }
\ No newline at end of file
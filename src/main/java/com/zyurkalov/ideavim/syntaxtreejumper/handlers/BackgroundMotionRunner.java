@@ -0,0 +1,105 @@
+package com.zyurkalov.ideavim.syntaxtreejumper.handlers;
+
+import com.intellij.ide.IdeEventQueue;
+import com.intellij.openapi.Disposable;
+import com.intellij.openapi.application.ReadAction;
+import com.intellij.openapi.editor.Document;
+import com.intellij.openapi.editor.Editor;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.progress.Task;
+import com.intellij.openapi.progress.impl.BackgroundableProcessIndicator;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.Disposer;
+import org.jetbrains.annotations.NotNull;
+
+import java.awt.event.KeyEvent;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Runs the search of a motion in a background read action, for the motions that would freeze the UI.
+ * <p>
+ * The search shows a cancellable progress in the status bar. It is cancelled by any key press, e.g. typing
+ * or Escape, by a change of the document and by the next background motion in the same editor.
+ * The result is applied on the EDT only if the document has not changed since the search started.
+ * <p>
+ * All methods must be called on the EDT.
+ */
+final class BackgroundMotionRunner {
+    private static final ConcurrentHashMap<Editor, ProgressIndicator> runningSearches = new ConcurrentHashMap<>();
+
+    private BackgroundMotionRunner() {
+    }
+
+    /**
+     * Starts a search, cancelling the one running in the editor.
+     *
+     * @param title  The text of the progress indicator
+     * @param search Finds the result, runs in a read action on a background thread and may be restarted
+     * @param apply  Applies the result on the EDT
+     */
+    static <T> void run(@NotNull Editor editor, @NotNull Project project, @NotNull String title,
+                        @NotNull Callable<T> search, @NotNull Consumer<T> apply) {
+        cancel(editor);
+        Document document = editor.getDocument();
+        long modificationStamp = document.getModificationStamp();
+        Disposable keyListener = Disposer.newDisposable("SyntaxTreeJumper background motion");
+
+        Task.Backgroundable task = new Task.Backgroundable(project, title, true) {
+            private T result;
+
+            @Override
+            public void run(@NotNull ProgressIndicator indicator) {
+                result = ReadAction.nonBlocking(search)
+                        .expireWhen(() -> editor.isDisposed() || document.getModificationStamp() != modificationStamp)
+                        .wrapProgress(indicator)
+                        .executeSynchronously();
+            }
+
+            @Override
+            public void onSuccess() {
+                if (!editor.isDisposed() && document.getModificationStamp() == modificationStamp) {
+                    apply.accept(result);
+                }
+            }
+
+            @Override
+            public void onFinished() {
+                Disposer.dispose(keyListener);
+            }
+        };
+        BackgroundableProcessIndicator indicator = new BackgroundableProcessIndicator(task);
+        runningSearches.put(editor, indicator);
+        Disposer.register(keyListener, () -> runningSearches.remove(editor, indicator));
+
+        // The key that started the motion has already been dispatched
+        IdeEventQueue.getInstance().addDispatcher(event -> {
+            if (event instanceof KeyEvent keyEvent && keyEvent.getID() == KeyEvent.KEY_PRESSED &&
+                    !isModifier(keyEvent.getKeyCode())) {
+                indicator.cancel();
+            }
+            return false;
+        }, keyListener);
+        ProgressManager.getInstance().runProcessWithProgressAsynchronously(task, indicator);
+    }
+
+    /**
+     * Cancels the search running in the editor, if any.
+     */
+    static void cancel(@NotNull Editor editor) {
+        ProgressIndicator indicator = runningSearches.remove(editor);
+        if (indicator != null) {
+            indicator.cancel();
+        }
+    }
+
+    private static boolean isModifier(int keyCode) {
+        return switch (keyCode) {
+            case KeyEvent.VK_SHIFT, KeyEvent.VK_CONTROL, KeyEvent.VK_ALT, KeyEvent.VK_META, KeyEvent.VK_ALT_GRAPH ->
+                    true;
+            default -> false;
+        };
+    }
+}
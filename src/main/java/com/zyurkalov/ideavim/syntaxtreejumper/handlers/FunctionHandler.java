@@ -4,11 +4,11 @@ import com.intellij.openapi.editor.Caret;
 import com.intellij.openapi.editor.Editor;
 import com.intellij.openapi.editor.LogicalPosition;
 import com.intellij.openapi.editor.ScrollType;
-import com.intellij.openapi.editor.event.CaretEvent;
-import com.intellij.openapi.editor.event.CaretListener;
-import com.intellij.openapi.editor.event.SelectionEvent;
-import com.intellij.openapi.editor.event.SelectionListener;
 import com.intellij.openapi.fileEditor.FileDocumentManager;
+import com.intellij.openapi.fileEditor.FileEditorManager;
+import com.intellij.openapi.fileEditor.OpenFileDescriptor;
+import com.intellij.openapi.project.DumbService;
+import com.intellij.openapi.project.Project;
 import com.intellij.openapi.vfs.VirtualFile;
 import com.intellij.psi.PsiFile;
 import com.intellij.psi.PsiManager;
@@ -23,23 +23,41 @@ import com.zyurkalov.ideavim.syntaxtreejumper.MotionDirection;
 import com.zyurkalov.ideavim.syntaxtreejumper.Offsets;
 import com.zyurkalov.ideavim.syntaxtreejumper.adapters.SyntaxTreeAdapter;
 import com.zyurkalov.ideavim.syntaxtreejumper.adapters.SyntaxTreeAdapterFactory;
-import com.zyurkalov.ideavim.syntaxtreejumper.highlighting.HighlightingConfig;
-import com.zyurkalov.ideavim.syntaxtreejumper.highlighting.PsiElementHighlighter;
+import com.zyurkalov.ideavim.syntaxtreejumper.adapters.SyntaxTreeSnapshotCache;
+import com.zyurkalov.ideavim.syntaxtreejumper.config.MotionConfig;
+import com.zyurkalov.ideavim.syntaxtreejumper.highlighting.HighlightingListener;
+import com.zyurkalov.ideavim.syntaxtreejumper.index.FileTarget;
+import com.zyurkalov.ideavim.syntaxtreejumper.index.FileTargetIndex;
+import com.zyurkalov.ideavim.syntaxtreejumper.index.TargetRanges;
 import com.zyurkalov.ideavim.syntaxtreejumper.motions.MotionHandler;
+import com.zyurkalov.ideavim.syntaxtreejumper.motions.SearchBudget;
+import com.zyurkalov.ideavim.syntaxtreejumper.stats.MotionStats;
+import com.zyurkalov.ideavim.syntaxtreejumper.stats.NodeVisitCounter;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 import java.util.function.BiFunction;
 import java.util.function.Function;
 
+import static com.maddyhome.idea.vim.api.VimInjectorKt.injector;
 import static com.zyurkalov.ideavim.syntaxtreejumper.MotionDirection.*;
 
 public class FunctionHandler implements ExtensionHandler {
 
+    /**
+     * The name under which the searches that used up their budget are recorded in {@link MotionStats},
+     * with the language id as the direction.
+     */
+    public static final String SEARCH_BUDGET_STATS_NAME = "SearchBudget";
+
+    private final String name;
+    private final String statsName;
     private final MotionDirection direction;
     private final BiFunction<SyntaxTreeAdapter, MotionDirection, MotionHandler> navigatorFactory;
     private final boolean addNewCaret;
@@ -51,58 +69,54 @@ public class FunctionHandler implements ExtensionHandler {
             case EXPAND -> SHRINK;
             case SHRINK -> EXPAND;
         };
-        return new FunctionHandler(oppositeDirection, navigatorFactory, addNewCaret);
+        return new FunctionHandler(name, oppositeDirection, navigatorFactory, addNewCaret);
     }
 
     public FunctionHandler withRightDirection() {
-        return new FunctionHandler(FORWARD, navigatorFactory, addNewCaret);
+        return new FunctionHandler(name, FORWARD, navigatorFactory, addNewCaret);
     }
 
     public FunctionHandler withLeftDirection() {
-        return new FunctionHandler(BACKWARD, navigatorFactory, addNewCaret);
+        return new FunctionHandler(name, BACKWARD, navigatorFactory, addNewCaret);
     }
 
     public FunctionHandler withUpDirection() {
-        return new FunctionHandler(EXPAND, navigatorFactory, addNewCaret);
+        return new FunctionHandler(name, EXPAND, navigatorFactory, addNewCaret);
     }
 
     public FunctionHandler withDownDirection() {
-        return new FunctionHandler(SHRINK, navigatorFactory, addNewCaret);
+        return new FunctionHandler(name, SHRINK, navigatorFactory, addNewCaret);
     }
 
     // Static variable to track the last executed FunctionHandler
     public static Optional<FunctionHandler> lastExecutedHandler = Optional.empty();
     public static Optional<OperatorArguments> lastExecutedHandlerArguments = Optional.empty();
 
-    // Static map to track highlighters per editor to avoid conflicts
-    private static final ConcurrentHashMap<Editor, PsiElementHighlighter> editorHighlighters =
-            new ConcurrentHashMap<>();
-
-    // Static map to track selection listeners per editor
-    private static final ConcurrentHashMap<Editor, SelectionListener> editorSelectionListeners =
-            new ConcurrentHashMap<>();
-
-    // Static map to track caret listeners per editor
-    private static final ConcurrentHashMap<Editor, CaretListener> editorCaretListeners =
-            new ConcurrentHashMap<>();
+    // Static map to track the shortest file in which the search of each motion and direction was too slow for
+    // the EDT, until a search in a file at least as long is fast again
+    private static final ConcurrentHashMap<String, Integer> slowFileLengths = new ConcurrentHashMap<>();
 
     /**
      * Constructor for motion without adding a new caret (backward compatibility).
      */
-    public FunctionHandler(MotionDirection direction, BiFunction<SyntaxTreeAdapter, MotionDirection, MotionHandler> navigatorFactory) {
-        this(direction, navigatorFactory, false);
+    public FunctionHandler(String name, MotionDirection direction,
+                           BiFunction<SyntaxTreeAdapter, MotionDirection, MotionHandler> navigatorFactory) {
+        this(name, direction, navigatorFactory, false);
     }
 
     /**
      * Constructor with a new caret addition parameter.
      *
+     * @param name             The name of the motion, used for the statistics
      * @param direction        The direction of the motion
      * @param navigatorFactory Factory to create the motion handler
      * @param addNewCaret      Whether to add a new caret with selection (true) or move existing carets (false)
      */
-    public FunctionHandler(MotionDirection direction, BiFunction<SyntaxTreeAdapter, MotionDirection,
+    public FunctionHandler(String name, MotionDirection direction, BiFunction<SyntaxTreeAdapter, MotionDirection,
             MotionHandler> navigatorFactory, boolean addNewCaret
     ) {
+        this.name = name;
+        this.statsName = addNewCaret ? "Extend" + name : name;
         this.direction = direction;
         this.navigatorFactory = navigatorFactory;
         this.addNewCaret = addNewCaret;
@@ -114,59 +128,236 @@ public class FunctionHandler implements ExtensionHandler {
             @NotNull ExecutionContext context,
             @NotNull OperatorArguments operatorArguments) {
         Editor editor = IjVimEditorKt.getIj(vimEditor);
-        if (editor.getProject() == null) return;
-        VirtualFile file = FileDocumentManager.getInstance().getFile(editor.getDocument());
-        if (file == null) return;
-        PsiFile psiFile = PsiManager.getInstance(editor.getProject()).findFile(file);
+        int fileLength = editor.getDocument().getTextLength();
+        if (shallRunInBackground(fileLength)) {
+            executeMotionInBackground(vimEditor, editor, operatorArguments);
+            return;
+        }
+        MotionStats.measure(statsName, direction.name(),
+                fileLength, () -> executeMotion(vimEditor, editor, operatorArguments));
+    }
+
+    /**
+     * Remembers whether the search of this motion was too slow for the EDT in a file of the given length.
+     * Building the syntax tree snapshot is not part of the search time, it is done once per file version.
+     */
+    private void recordSearchTime(int fileLength, long searchNanos) {
+        String key = statsName + direction;
+        if (TimeUnit.NANOSECONDS.toMillis(searchNanos) > MotionConfig.getInstance().backgroundMinMillis) {
+            // Too slow for the EDT, search in the background from now on in files at least as long
+            slowFileLengths.merge(key, fileLength, Math::min);
+        } else {
+            // Fast in a file at least as long, e.g. in the background at another caret position, try the EDT again
+            slowFileLengths.computeIfPresent(key,
+                    (k, slowFileLength) -> fileLength >= slowFileLength ? null : slowFileLength);
+        }
+    }
+
+    private boolean shallRunInBackground(int fileLength) {
+        if (fileLength >= MotionConfig.getInstance().backgroundMinFileLength) {
+            return true;
+        }
+        Integer slowFileLength = slowFileLengths.get(statsName + direction);
+        return slowFileLength != null && fileLength >= slowFileLength;
+    }
+
+    private void executeMotion(
+            @NotNull VimEditor vimEditor,
+            @NotNull Editor editor,
+            @NotNull OperatorArguments operatorArguments) {
+        PsiFile psiFile = findPsiFile(editor);
         if (psiFile == null) return;
 
         // Get the count from operatorArguments (defaults to 1 if no count provided)
         int count = operatorArguments.getCount1(); // This gets the count, defaulting to 1
 
-        // Get or create the syntax tree adapter for this editor
-        SyntaxTreeAdapter syntaxTree = SyntaxTreeAdapterFactory.createAdapter(psiFile);
-
-        MotionHandler navigator = navigatorFactory.apply(syntaxTree, direction);
-        List<LogicalPosition> caretPositionsToScrollTo = new ArrayList<>();
         List<Caret> carets = editor.getCaretModel().getAllCarets();
+        List<Caret> movedCarets = getMovedCarets(carets);
 
-        // Ensure highlighter and listeners are set up for this editor
-        setupEditorHighlighting(editor, vimEditor);
+        // Resolve the motion 'count' times for all carets in one pass
+        List<Offsets> initialOffsets = getOffsets(movedCarets);
+        List<Optional<Offsets>> foundOffsets = findTargets(psiFile, initialOffsets, count);
+        if (foundOffsets == null) {
+            reportExceededBudget(vimEditor);
+            return;
+        }
+        applyMotion(vimEditor, editor, operatorArguments, carets, movedCarets, initialOffsets, foundOffsets);
+    }
 
-        boolean anyMotionExecuted = false;
-        List<Offsets> newCaretOffsets = new ArrayList<>();
+    /**
+     * Same as {@link #executeMotion}, but searches in a background read action, see {@link BackgroundMotionRunner}.
+     * The carets are updated only if neither the document nor the carets changed during the search.
+     */
+    private void executeMotionInBackground(
+            @NotNull VimEditor vimEditor,
+            @NotNull Editor editor,
+            @NotNull OperatorArguments operatorArguments) {
+        Project project = editor.getProject();
+        PsiFile psiFile = findPsiFile(editor);
+        if (project == null || psiFile == null) return;
+
+        int count = operatorArguments.getCount1();
+        List<Caret> carets = editor.getCaretModel().getAllCarets();
+        List<Caret> movedCarets = getMovedCarets(carets);
+
+        List<Offsets> initialOffsets = getOffsets(movedCarets);
+        int fileLength = editor.getDocument().getTextLength();
+        BackgroundMotionRunner.run(editor, project, "Searching for " + name, () -> {
+            long startNanos = System.nanoTime();
+            long startVisitedNodes = NodeVisitCounter.get();
+            try {
+                return findTargets(psiFile, initialOffsets, count);
+            } finally {
+                MotionStats.record(statsName, direction.name(), System.nanoTime() - startNanos,
+                        NodeVisitCounter.get() - startVisitedNodes, fileLength);
+            }
+        }, foundOffsets -> {
+            if (foundOffsets == null) {
+                reportExceededBudget(vimEditor);
+                return;
+            }
+            // The carets may have been moved with the mouse in the meantime
+            if (editor.getCaretModel().getAllCarets().equals(carets) &&
+                    getOffsets(movedCarets).equals(initialOffsets)) {
+                applyMotion(vimEditor, editor, operatorArguments, carets, movedCarets, initialOffsets, foundOffsets);
+            }
+        });
+    }
+
+    private static @Nullable PsiFile findPsiFile(@NotNull Editor editor) {
+        if (editor.getProject() == null) return null;
+        VirtualFile file = FileDocumentManager.getInstance().getFile(editor.getDocument());
+        if (file == null) return null;
+        return PsiManager.getInstance(editor.getProject()).findFile(file);
+    }
 
-        // When creating new carets, we should only do that for frontier carets
-        int start_caret = 0;
-        int end_caret = carets.size() - 1;
+    /**
+     * Gets the carets the motion starts from.
+     * When creating new carets, we should only do that for frontier carets.
+     */
+    private @NotNull List<Caret> getMovedCarets(@NotNull List<Caret> carets) {
         if (addNewCaret && (direction == EXPAND || direction == BACKWARD)) {
-            end_caret = 0;
+            return carets.subList(0, 1);
         } else if (addNewCaret && (direction == SHRINK || direction == FORWARD)) {
-            start_caret = carets.size() - 1;
+            return carets.subList(carets.size() - 1, carets.size());
         }
+        return carets;
+    }
 
-        // Execute the motion 'count' times for each caret
-        for (int caret_i = start_caret; caret_i <= end_caret; caret_i++) {
-            Caret caret = carets.get(caret_i);
+    private static @NotNull List<Offsets> getOffsets(@NotNull List<Caret> carets) {
+        List<Offsets> offsets = new ArrayList<>(carets.size());
+        for (Caret caret : carets) {
             int startSelectionOffset = caret.getOffset();
             int endSelectionOffset = caret.getOffset();
             if (caret.hasSelection()) {
                 startSelectionOffset = caret.getSelectionStart();
                 endSelectionOffset = caret.getSelectionEnd();
             }
+            offsets.add(new Offsets(startSelectionOffset, endSelectionOffset));
+        }
+        return offsets;
+    }
 
-            var currentOffsets = new Offsets(startSelectionOffset, endSelectionOffset);
+    /**
+     * Finds the targets of the motion within the {@link SearchBudget} of the file's language.
+     *
+     * @return The results of {@link MotionHandler#findNthForAll}, or null if the search used up its budget
+     */
+    private @Nullable List<Optional<Offsets>> findTargets(@NotNull PsiFile psiFile,
+                                                          @NotNull List<Offsets> initialOffsets, int count) {
+        List<Optional<Offsets>> indexedOffsets = findTargetsInIndex(psiFile, initialOffsets, count);
+        if (indexedOffsets != null) {
+            return indexedOffsets;
+        }
+        MotionConfig config = MotionConfig.getInstance();
+        String languageId = psiFile.getLanguage().getID();
+        // Get or create the syntax tree adapter for this editor, building its snapshot is not part of the budget
+        SyntaxTreeAdapter syntaxTree = SyntaxTreeAdapterFactory.createAdapter(psiFile);
+        MotionHandler navigator = navigatorFactory.apply(syntaxTree, direction);
+        long searchStartNanos = System.nanoTime();
+        try {
+            return SearchBudget.run(config.getSearchMaxVisitedNodes(languageId), config.searchMaxMillis,
+                    () -> navigator.findNthForAll(initialOffsets, count));
+        } catch (SearchBudget.ExceededException e) {
+            // Recorded per language, to tune the limits of the languages
+            MotionStats.record(SEARCH_BUDGET_STATS_NAME, languageId, e.getNanos(), e.getVisitedNodes(),
+                    psiFile.getTextLength());
+            return null;
+        } finally {
+            recordSearchTime(psiFile.getTextLength(), System.nanoTime() - searchStartNanos);
+        }
+    }
 
-            // Apply the motion 'count' times
+    /**
+     * Finds the targets with {@link FileTargetIndex} in a large file that has no syntax tree snapshot yet,
+     * e.g. for the first motion in a file after a restart, so that the snapshot of the whole file is not built
+     * for it. The index is kept on disk by the platform and updated when the file changes.
+     *
+     * @return The same results as {@link MotionHandler#findNthForAll}, or null if the index cannot answer the motion
+     */
+    private @Nullable List<Optional<Offsets>> findTargetsInIndex(@NotNull PsiFile psiFile,
+                                                                 @NotNull List<Offsets> initialOffsets, int count) {
+        FileTarget target = FileTarget.forMotion(name);
+        VirtualFile file = psiFile.getVirtualFile();
+        if (target == null || (direction != FORWARD && direction != BACKWARD) || file == null ||
+                psiFile.getTextLength() < MotionConfig.getInstance().indexedMotionMinFileLength ||
+                SyntaxTreeSnapshotCache.hasSnapshot(psiFile) ||
+                // The index of a file with unsaved changes may be older than its PSI
+                FileDocumentManager.getInstance().isFileModified(file) ||
+                DumbService.isDumb(psiFile.getProject())) {
+            return null;
+        }
+        TargetRanges ranges = FileTargetIndex.getTargets(psiFile.getProject(), file, target);
+        List<Optional<Offsets>> results = new ArrayList<>(initialOffsets.size());
+        for (Offsets offsets : initialOffsets) {
+            // The syntax tree finds no element at the end of the file
+            if (offsets.rightOffset() >= psiFile.getTextLength() || !ranges.canFindTarget(offsets)) {
+                return null;
+            }
+            Offsets currentOffsets = offsets;
             for (int i = 0; i < count; i++) {
-                var optionalOffsets = navigator.findNext(currentOffsets);
-                if (optionalOffsets.isPresent()) {
-                    currentOffsets = optionalOffsets.get();
-                    anyMotionExecuted = true;
-                } else {
-                    // If we can't find the next position, stop trying
+                Optional<Offsets> found = ranges.findTarget(currentOffsets, direction == FORWARD);
+                if (found.isEmpty()) {
                     break;
                 }
+                currentOffsets = found.get();
+            }
+            // Like the syntax tree handlers, return the initial offsets when there is no target
+            results.add(Optional.of(currentOffsets));
+        }
+        return results;
+    }
+
+    private void reportExceededBudget(@NotNull VimEditor vimEditor) {
+        injector.getMessages().showStatusBarMessage(vimEditor,
+                "Syntax tree search for " + name + " stopped, the file is too large for it");
+    }
+
+    private void applyMotion(
+            @NotNull VimEditor vimEditor,
+            @NotNull Editor editor,
+            @NotNull OperatorArguments operatorArguments,
+            @NotNull List<Caret> carets,
+            @NotNull List<Caret> movedCarets,
+            @NotNull List<Offsets> initialOffsets,
+            @NotNull List<Optional<Offsets>> foundOffsets) {
+        // The syntax tree handlers return the initial offsets when they find nothing
+        if (carets.size() == 1 && !addNewCaret &&
+                foundOffsets.getFirst().map(initialOffsets.getFirst()::equals).orElse(true) &&
+                continueInOtherFile(editor, operatorArguments)) {
+            return;
+        }
+        List<LogicalPosition> caretPositionsToScrollTo = new ArrayList<>();
+        boolean anyMotionExecuted = false;
+        List<Offsets> newCaretOffsets = new ArrayList<>();
+
+        for (int caret_i = 0; caret_i < movedCarets.size(); caret_i++) {
+            Caret caret = movedCarets.get(caret_i);
+            var currentOffsets = initialOffsets.get(caret_i);
+            var optionalOffsets = foundOffsets.get(caret_i);
+            if (optionalOffsets.isPresent()) {
+                currentOffsets = optionalOffsets.get();
+                anyMotionExecuted = true;
             }
 
             // Only update position if we moved at least once
@@ -199,7 +390,7 @@ public class FunctionHandler implements ExtensionHandler {
 
         // Update highlighting based on new positions
         if (anyMotionExecuted) {
-            updateHighlightingForEditor(editor);
+            HighlightingListener.update(editor);
         }
 
         scrollToFirstOrLast(caretPositionsToScrollTo, editor);
@@ -213,108 +404,39 @@ public class FunctionHandler implements ExtensionHandler {
     }
 
     /**
-     * Sets up highlighting, caret, and selection listeners for the given editor if not already present.
-     */
-    public static void setupEditorHighlighting(@NotNull Editor editor, VimEditor vimEditor) {
-        // Set up highlighter
-        editorHighlighters.computeIfAbsent(editor, PsiElementHighlighter::new);
-
-
-        // Set up a caret listener
-        editorCaretListeners.computeIfAbsent(editor, e -> {
-            CaretListener caretListener = new CaretListener() {
-                @Override
-                public void caretPositionChanged(@NotNull CaretEvent event) {
-                    var mode = vimEditor.getMode();
-                    if (mode instanceof Mode.INSERT)
-                        clearHighlightsForEditor(editor);
-                    else
-                        updateHighlightingForEditor(editor);
-                }
-            };
-            editor.getCaretModel().addCaretListener(caretListener);
-            return caretListener;
-        });
-
-
-        // Set up a selection listener
-        editorSelectionListeners.computeIfAbsent(editor, e -> {
-            SelectionListener selectionListener = new SelectionListener() {
-                @Override
-                public void selectionChanged(@NotNull SelectionEvent event) {
-                    var mode = vimEditor.getMode();
-                    if (mode instanceof Mode.INSERT)
-                        clearHighlightsForEditor(editor);
-                    else
-                        updateHighlightingForEditor(editor);
-                }
-            };
-            editor.getSelectionModel().addSelectionListener(selectionListener);
-            return selectionListener;
-        });
-
-
-        // Initial highlighting update
-        updateHighlightingForEditor(editor);
-    }
-
-    /**
-     * Updates highlighting for all carets in the given editor.
+     * Continues a motion that found no target in the file with the nearest target in the next or previous file
+     * of the directory. The targets of the other files are looked up in {@link FileTargetIndex}.
+     *
+     * @return Whether the motion continued in another file
      */
-    public static void updateHighlightingForEditor(@NotNull Editor editor) {
-        HighlightingConfig config = HighlightingConfig.getInstance();
-
-        if (!config.isHighlightingEnabled()) {
-            clearHighlightsForEditor(editor);
-            return;
+    private boolean continueInOtherFile(@NotNull Editor editor, @NotNull OperatorArguments operatorArguments) {
+        FileTarget target = FileTarget.forMotion(name);
+        if (target == null || (direction != FORWARD && direction != BACKWARD) ||
+                !MotionConfig.getInstance().continueInOtherFiles) {
+            return false;
         }
-
-        if (editor.getProject() == null) return;
+        Project project = editor.getProject();
         VirtualFile file = FileDocumentManager.getInstance().getFile(editor.getDocument());
-        if (file == null) return;
-        PsiFile psiFile = PsiManager.getInstance(editor.getProject()).findFile(file);
-        if (psiFile == null) return;
-
-        // Get the syntax tree adapter for this editor - this will now use language detection
-        SyntaxTreeAdapter syntaxTree = SyntaxTreeAdapterFactory.createAdapter(psiFile);
-
-        PsiElementHighlighter highlighter = editorHighlighters.get(editor);
-        if (highlighter == null) return;
-
-        // Clear existing highlights
-        highlighter.clearHighlights();
-
-        // Check if there's any selection in any caret
-        boolean hasAnySelection = editor.getCaretModel().getAllCarets().stream()
-                .anyMatch(Caret::hasSelection);
-
-        Caret primaryCaret = editor.getCaretModel().getPrimaryCaret();
-        if (hasAnySelection) {
-            // If there's selection, highlight the primary caret's selection
-            if (primaryCaret.hasSelection()) {
-                highlighter.highlightElementAndSiblings(
-                        syntaxTree,
-                        primaryCaret.getSelectionStart(),
-                        primaryCaret.getSelectionEnd()
-                );
-            } else {
-                // Find the first caret with selection
-                for (Caret caret : editor.getCaretModel().getAllCarets()) {
-                    if (caret.hasSelection()) {
-                        highlighter.highlightElementAndSiblings(
-                                syntaxTree,
-                                caret.getSelectionStart(),
-                                caret.getSelectionEnd()
-                        );
-                        break;
-                    }
-                }
-            }
-        } else {
-            // If no selection, highlight based on the primary caret position
-            int offset = primaryCaret.getOffset();
-            highlighter.highlightElementAndSiblings(syntaxTree, offset, offset);
-        }
+        if (project == null || file == null) return false;
+
+        FileTargetIndex.Location location = FileTargetIndex.findInOtherFile(project, file, target, direction == FORWARD);
+        if (location == null) return false;
+        Offsets offsets = location.offsets();
+        Editor otherEditor = FileEditorManager.getInstance(project).openTextEditor(
+                new OpenFileDescriptor(project, location.file(), offsets.leftOffset()), true);
+        if (otherEditor == null || offsets.rightOffset() > otherEditor.getDocument().getTextLength()) return false;
+
+        Caret caret = otherEditor.getCaretModel().getPrimaryCaret();
+        caret.setSelection(offsets.leftOffset(), offsets.rightOffset());
+        caret.moveToOffset(offsets.leftOffset());
+        otherEditor.getScrollingModel().scrollToCaret(ScrollType.MAKE_VISIBLE);
+
+        VimEditor otherVimEditor = IjVimEditorKt.getVim(otherEditor);
+        HighlightingListener.update(otherEditor);
+        lastExecutedHandler = Optional.of(this);
+        lastExecutedHandlerArguments = Optional.of(operatorArguments);
+        otherVimEditor.setMode(new Mode.VISUAL(SelectionType.CHARACTER_WISE, new Mode.NORMAL()));
+        return true;
     }
 
     private void scrollToFirstOrLast(List<LogicalPosition> caretPositions, Editor editor) {
@@ -325,39 +447,4 @@ public class FunctionHandler implements ExtensionHandler {
         caretPositions.sort(Comparator.comparingInt(LogicalPosition::getLine));
         editor.getScrollingModel().scrollTo(getFirstOrLast.apply(caretPositions), ScrollType.MAKE_VISIBLE);
     }
-
-    /**
-     * Manually clear highlights for a specific editor.
-     * This can be called from external code if needed.
-     */
-    public static void clearHighlightsForEditor(@NotNull Editor editor) {
-        PsiElementHighlighter highlighter = editorHighlighters.get(editor);
-        if (highlighter != null) {
-            highlighter.clearHighlights();
-        }
-    }
-
-    /**
-     * Clean up highlighter, caret listener, selection listener, and syntax tree adapter when editor is disposed.
-     * Should be called from editor disposal listeners.
-     */
-    public static void cleanupEditor(@NotNull Editor editor) {
-        // Remove and clean up highlighter
-        PsiElementHighlighter highlighter = editorHighlighters.remove(editor);
-        if (highlighter != null) {
-            highlighter.clearHighlights();
-        }
-
-        // Remove selection listener
-        SelectionListener selectionListener = editorSelectionListeners.remove(editor);
-        if (selectionListener != null) {
-            editor.getSelectionModel().removeSelectionListener(selectionListener);
-        }
-
-        // Remove caret listener
-        CaretListener caretListener = editorCaretListeners.remove(editor);
-        if (caretListener != null) {
-            editor.getCaretModel().removeCaretListener(caretListener);
-        }
-    }
-}
\ No newline at end of file
+}
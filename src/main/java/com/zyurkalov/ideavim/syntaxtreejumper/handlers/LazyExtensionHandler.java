@@ -0,0 +1,42 @@
+package com.zyurkalov.ideavim.syntaxtreejumper.handlers;
+
+import com.maddyhome.idea.vim.api.ExecutionContext;
+import com.maddyhome.idea.vim.api.VimEditor;
+import com.maddyhome.idea.vim.command.OperatorArguments;
+import com.maddyhome.idea.vim.extension.ExtensionHandler;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.function.Supplier;
+
+/**
+ * Handler that creates the handler it delegates to when it is executed for the first time.
+ * Most of the mappings are never used in a session, so their handlers are not created when the extension
+ * is initialized.
+ */
+public final class LazyExtensionHandler implements ExtensionHandler {
+    private final Supplier<? extends ExtensionHandler> factory;
+    private volatile ExtensionHandler handler;
+
+    public LazyExtensionHandler(@NotNull Supplier<? extends ExtensionHandler> factory) {
+        this.factory = factory;
+    }
+
+    @Override
+    public void execute(
+            @NotNull VimEditor vimEditor,
+            @NotNull ExecutionContext context,
+            @NotNull OperatorArguments operatorArguments) {
+        getHandler().execute(vimEditor, context, operatorArguments);
+    }
+
+    @NotNull
+    private ExtensionHandler getHandler() {
+        ExtensionHandler result = handler;
+        if (result == null) {
+            // Creating the handler twice from two threads is harmless, they are equal
+            result = factory.get();
+            handler = result;
+        }
+        return result;
+    }
+}
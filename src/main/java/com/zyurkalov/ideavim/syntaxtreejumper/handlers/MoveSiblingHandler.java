@@ -19,6 +19,8 @@ import com.zyurkalov.ideavim.syntaxtreejumper.adapters.ElementWithSiblings;
 import com.zyurkalov.ideavim.syntaxtreejumper.adapters.SyntaxNode;
 import com.zyurkalov.ideavim.syntaxtreejumper.adapters.SyntaxTreeAdapter;
 import com.zyurkalov.ideavim.syntaxtreejumper.adapters.SyntaxTreeAdapterFactory;
+import com.zyurkalov.ideavim.syntaxtreejumper.highlighting.HighlightingListener;
+import com.zyurkalov.ideavim.syntaxtreejumper.stats.MotionStats;
 import org.jetbrains.annotations.NotNull;
 
 import java.util.ArrayList;
@@ -43,7 +45,12 @@ public class MoveSiblingHandler implements ExtensionHandler {
             @NotNull ExecutionContext context,
             @NotNull OperatorArguments operatorArguments) {
         Editor editor = IjVimEditorKt.getIj(vimEditor);
+        // The swap changes the file, its length is taken afterwards
+        MotionStats.measure("MoveSibling", direction.name(), () -> editor.getDocument().getTextLength(),
+                () -> swapWithSiblings(vimEditor, editor));
+    }
 
+    private void swapWithSiblings(@NotNull VimEditor vimEditor, @NotNull Editor editor) {
         // Get syntax tree adapter
         SyntaxTreeAdapter syntaxTree = SyntaxTreeAdapterFactory.createAdapter(editor);
         if (syntaxTree == null) {
@@ -96,7 +103,7 @@ public class MoveSiblingHandler implements ExtensionHandler {
 
         // Update highlighting if any motion was executed
         if (anyMotionExecuted) {
-            FunctionHandler.updateHighlightingForEditor(editor);
+            HighlightingListener.update(editor);
         }
 
         // Scroll to the appropriate caret position
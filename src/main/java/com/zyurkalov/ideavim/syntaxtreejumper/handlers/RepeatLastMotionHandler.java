@@ -4,6 +4,8 @@ import com.maddyhome.idea.vim.api.ExecutionContext;
 import com.maddyhome.idea.vim.api.VimEditor;
 import com.maddyhome.idea.vim.command.OperatorArguments;
 import com.maddyhome.idea.vim.extension.ExtensionHandler;
+import com.maddyhome.idea.vim.newapi.IjVimEditorKt;
+import com.zyurkalov.ideavim.syntaxtreejumper.stats.MotionStats;
 import org.jetbrains.annotations.NotNull;
 
 import java.util.Optional;
@@ -32,7 +34,17 @@ public class RepeatLastMotionHandler implements ExtensionHandler {
             @NotNull ExecutionContext context,
             @NotNull OperatorArguments operatorArguments
     ) {
+        // The repeated motion is also recorded under its own name
+        MotionStats.measure("RepeatLastMotion", repeatActionType.name(),
+                IjVimEditorKt.getIj(vimEditor).getDocument().getTextLength(),
+                () -> repeat(vimEditor, context, operatorArguments));
+    }
 
+    private void repeat(
+            @NotNull VimEditor vimEditor,
+            @NotNull ExecutionContext context,
+            @NotNull OperatorArguments operatorArguments
+    ) {
         // Check if there's a last executed handler to repeat
         if (lastExecutedHandler.isEmpty() || lastExecutedHandlerArguments.isEmpty()) {
             // No motion to repeat - silently return
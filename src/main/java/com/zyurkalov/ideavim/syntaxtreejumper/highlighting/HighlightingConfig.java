@@ -25,6 +25,19 @@ public final class HighlightingConfig implements PersistentStateComponent<Highli
     public boolean showPreviousSibling = true;
     public boolean showNextSibling = true;
     public boolean showTooltips = false;
+    /**
+     * How long the caret has to rest before the highlights are recomputed, so that holding a key
+     * computes them once instead of once per event.
+     */
+    public int updateDelayMillis = 30;
+    /**
+     * Whether to highlight the element and siblings of every visible caret instead of the primary one only.
+     */
+    public boolean highlightAllCarets = false;
+    /**
+     * The maximum number of carets highlighted when {@link #highlightAllCarets} is on.
+     */
+    public int maxHighlightedCarets = 100;
 
 
     public static HighlightingConfig getInstance() {
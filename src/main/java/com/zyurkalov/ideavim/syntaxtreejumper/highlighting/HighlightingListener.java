@@ -0,0 +1,140 @@
+package com.zyurkalov.ideavim.syntaxtreejumper.highlighting;
+
+import com.intellij.openapi.Disposable;
+import com.intellij.openapi.editor.Editor;
+import com.intellij.openapi.editor.EditorFactory;
+import com.intellij.openapi.editor.event.CaretEvent;
+import com.intellij.openapi.editor.event.CaretListener;
+import com.intellij.openapi.editor.event.EditorEventMulticaster;
+import com.intellij.openapi.editor.event.SelectionEvent;
+import com.intellij.openapi.editor.event.SelectionListener;
+import com.intellij.openapi.editor.ex.util.EditorUtil;
+import com.intellij.openapi.util.Disposer;
+import com.intellij.openapi.util.Key;
+import com.maddyhome.idea.vim.newapi.IjVimEditorKt;
+import com.maddyhome.idea.vim.state.mode.Mode;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Updates the highlights of the editors after caret and selection changes.
+ * <p>
+ * One listener is registered on the event multicaster of the {@link EditorFactory} for all editors, and only while
+ * the highlighting is on, so nothing is done on caret moves while it is off. The {@link HighlightingUpdater}
+ * of an editor is created on its first update and kept in the user data of the editor. It is disposed with
+ * the editor or when the highlighting is turned off, so that nothing outside of an editor references it.
+ * <p>
+ * All methods must be called on the EDT.
+ */
+public final class HighlightingListener implements CaretListener, SelectionListener {
+    private static final Key<HighlightingUpdater> UPDATER_KEY = Key.create("SyntaxTreeJumper.HighlightingUpdater");
+
+    // Disposed to remove the listener, null while it is not registered
+    private static @Nullable Disposable registration;
+
+    private HighlightingListener() {
+    }
+
+    /**
+     * Registers the listener, unless it is already registered.
+     *
+     * @param parent Removes the listener when disposed
+     */
+    public static void start(@NotNull Disposable parent) {
+        if (registration != null) {
+            return;
+        }
+        Disposable newRegistration = Disposer.newDisposable(parent, "SyntaxTreeJumper highlighting listener");
+        Disposer.register(newRegistration, () -> registration = null);
+        HighlightingListener listener = new HighlightingListener();
+        EditorEventMulticaster multicaster = EditorFactory.getInstance().getEventMulticaster();
+        multicaster.addCaretListener(listener, newRegistration);
+        multicaster.addSelectionListener(listener, newRegistration);
+        registration = newRegistration;
+    }
+
+    /**
+     * Removes the listener and the highlights and updaters of all editors.
+     */
+    public static void stop() {
+        if (registration != null) {
+            Disposer.dispose(registration);
+        }
+        for (Editor editor : EditorFactory.getInstance().getAllEditors()) {
+            release(editor);
+        }
+    }
+
+    /**
+     * Schedules an update of the highlighting of the given editor, or clears it if the highlighting is off.
+     * Updates requested in quick succession are merged, and the syntax tree is searched in the background.
+     */
+    public static void update(@NotNull Editor editor) {
+        if (!HighlightingConfig.getInstance().isHighlightingEnabled()) {
+            clear(editor);
+            return;
+        }
+        HighlightingUpdater updater = getOrCreateUpdater(editor);
+        if (updater != null) {
+            updater.scheduleUpdate();
+        }
+    }
+
+    /**
+     * Cancels the pending update of the given editor and removes its highlights.
+     */
+    public static void clear(@NotNull Editor editor) {
+        HighlightingUpdater updater = editor.getUserData(UPDATER_KEY);
+        if (updater != null) {
+            updater.clear();
+        }
+    }
+
+    /**
+     * Removes the highlights of the given editor and disposes its updater.
+     */
+    public static void release(@NotNull Editor editor) {
+        HighlightingUpdater updater = editor.getUserData(UPDATER_KEY);
+        if (updater != null) {
+            updater.clear();
+            Disposer.dispose(updater);
+        }
+    }
+
+    /**
+     * Gets the updater of the given editor, or null if it has none.
+     */
+    static @Nullable HighlightingUpdater getUpdater(@NotNull Editor editor) {
+        return editor.getUserData(UPDATER_KEY);
+    }
+
+    private static @Nullable HighlightingUpdater getOrCreateUpdater(@NotNull Editor editor) {
+        HighlightingUpdater updater = editor.getUserData(UPDATER_KEY);
+        if (updater != null || editor.isDisposed()) {
+            return updater;
+        }
+        updater = new HighlightingUpdater(editor, new PsiElementHighlighter(editor));
+        editor.putUserData(UPDATER_KEY, updater);
+        Disposer.register(updater, () -> editor.putUserData(UPDATER_KEY, null));
+        EditorUtil.disposeWithEditor(editor, updater);
+        return updater;
+    }
+
+    @Override
+    public void caretPositionChanged(@NotNull CaretEvent event) {
+        onCaretsChanged(event.getEditor());
+    }
+
+    @Override
+    public void selectionChanged(@NotNull SelectionEvent event) {
+        onCaretsChanged(event.getEditor());
+    }
+
+    private static void onCaretsChanged(@NotNull Editor editor) {
+        if (IjVimEditorKt.getVim(editor).getMode() instanceof Mode.INSERT) {
+            clear(editor);
+        } else {
+            update(editor);
+        }
+    }
+}
@@ -0,0 +1,246 @@
+package com.zyurkalov.ideavim.syntaxtreejumper.highlighting;
+
+import com.intellij.openapi.Disposable;
+import com.intellij.openapi.application.ModalityState;
+import com.intellij.openapi.application.ReadAction;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.editor.Caret;
+import com.intellij.openapi.editor.Document;
+import com.intellij.openapi.editor.Editor;
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.project.Project;
+import com.intellij.psi.PsiDocumentManager;
+import com.intellij.psi.PsiFile;
+import com.intellij.util.Alarm;
+import com.intellij.util.concurrency.AppExecutorUtil;
+import com.zyurkalov.ideavim.syntaxtreejumper.Offsets;
+import com.zyurkalov.ideavim.syntaxtreejumper.adapters.SyntaxTreeAdapter;
+import com.zyurkalov.ideavim.syntaxtreejumper.adapters.SyntaxTreeAdapterFactory;
+import com.zyurkalov.ideavim.syntaxtreejumper.stats.MotionStats;
+import com.zyurkalov.ideavim.syntaxtreejumper.stats.NodeVisitCounter;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.concurrency.CancellablePromise;
+
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Recomputes the highlights of an editor after caret and selection changes.
+ * <p>
+ * Requests are debounced: a burst of events, like the selection change and the caret move of one motion
+ * or a held key, results in one update after the caret has rested for {@link HighlightingConfig#updateDelayMillis}.
+ * The current element and its siblings are found in a non-blocking read action on a background thread,
+ * which is cancelled by newer requests and restarted by write actions. Only the result computed for
+ * the current document is applied on the EDT.
+ * <p>
+ * With {@link HighlightingConfig#highlightAllCarets}, every caret in the visible area is highlighted, up to
+ * {@link HighlightingConfig#maxHighlightedCarets}, and scrolling schedules an update too. The syntax tree is only
+ * searched from the visible carets, but the editor has no lookup of the carets in a range: getting the sorted
+ * carets still copies all of them on the EDT, so that part grows with the total number of carets.
+ * <p>
+ * The durations are recorded in {@link MotionStats} under {@link #STATS_NAME}: "update" is the time from
+ * the first request of a burst to the applied highlights, including the debounce delay, and "compute"
+ * is the time of the search in the background.
+ * <p>
+ * All methods must be called on the EDT.
+ */
+public final class HighlightingUpdater implements Disposable {
+    private static final Logger LOG = Logger.getInstance(HighlightingUpdater.class);
+    private static final long NOT_REQUESTED = -1;
+    public static final String STATS_NAME = "Highlighting";
+
+    private final Editor editor;
+    private final PsiElementHighlighter highlighter;
+    private final Alarm alarm;
+    private @Nullable CancellablePromise<List<PsiElementHighlighter.Highlight>> computation;
+    private long firstRequestNanos = NOT_REQUESTED;
+
+    public HighlightingUpdater(@NotNull Editor editor, @NotNull PsiElementHighlighter highlighter) {
+        this.editor = editor;
+        this.highlighter = highlighter;
+        this.alarm = new Alarm(Alarm.ThreadToUse.SWING_THREAD, this);
+        editor.getScrollingModel().addVisibleAreaListener(event -> {
+            if (HighlightingConfig.getInstance().highlightAllCarets &&
+                    HighlightingConfig.getInstance().isHighlightingEnabled() &&
+                    editor.getCaretModel().getCaretCount() > 1) {
+                scheduleUpdate();
+            }
+        }, this);
+    }
+
+    /**
+     * Schedules an update of the highlights, replacing the pending one.
+     */
+    public void scheduleUpdate() {
+        if (firstRequestNanos == NOT_REQUESTED) {
+            firstRequestNanos = System.nanoTime();
+        }
+        alarm.cancelAllRequests();
+        alarm.addRequest(this::startComputation, HighlightingConfig.getInstance().updateDelayMillis);
+    }
+
+    /**
+     * Cancels the pending update and removes the highlights.
+     */
+    public void clear() {
+        cancel();
+        highlighter.clearHighlights();
+    }
+
+    private void cancel() {
+        alarm.cancelAllRequests();
+        if (computation != null) {
+            computation.cancel();
+            computation = null;
+        }
+        firstRequestNanos = NOT_REQUESTED;
+    }
+
+    private void startComputation() {
+        Project project = editor.getProject();
+        if (editor.isDisposed() || project == null || !HighlightingConfig.getInstance().isHighlightingEnabled()) {
+            return;
+        }
+        List<Offsets> caretOffsets = getOffsetsToHighlight(editor);
+        Document document = editor.getDocument();
+        long modificationStamp = document.getModificationStamp();
+        computation = ReadAction.nonBlocking(() -> computeHighlights(project, document, caretOffsets))
+                .withDocumentsCommitted(project)
+                .coalesceBy(this)
+                .expireWith(this)
+                .finishOnUiThread(ModalityState.any(), highlights -> apply(highlights, modificationStamp))
+                .submit(AppExecutorUtil.getAppExecutorService());
+    }
+
+    private static @NotNull List<PsiElementHighlighter.Highlight> computeHighlights(
+            @NotNull Project project, @NotNull Document document, @NotNull List<Offsets> caretOffsets) {
+        PsiFile psiFile = PsiDocumentManager.getInstance(project).getPsiFile(document);
+        if (psiFile == null) {
+            return List.of();
+        }
+        long startNanos = System.nanoTime();
+        long startVisitedNodes = NodeVisitCounter.get();
+        SyntaxTreeAdapter syntaxTree = SyntaxTreeAdapterFactory.createAdapter(psiFile);
+        List<PsiElementHighlighter.Highlight> highlights;
+        if (caretOffsets.size() == 1) {
+            highlights = PsiElementHighlighter.computeHighlights(syntaxTree, caretOffsets.getFirst());
+        } else {
+            // Carets in the same element produce the same highlights, and the current element of one caret
+            // can be a sibling of another one: keep one highlight per range, the one of the first kind
+            Map<Long, PsiElementHighlighter.Highlight> merged = new LinkedHashMap<>();
+            for (Offsets offsets : caretOffsets) {
+                ProgressManager.checkCanceled();
+                for (PsiElementHighlighter.Highlight highlight :
+                        PsiElementHighlighter.computeHighlights(syntaxTree, offsets)) {
+                    merged.merge(getRangeKey(highlight), highlight,
+                            (first, second) -> first.kind().compareTo(second.kind()) <= 0 ? first : second);
+                }
+            }
+            highlights = new ArrayList<>(merged.values());
+        }
+        MotionStats.record(STATS_NAME, "compute", System.nanoTime() - startNanos,
+                NodeVisitCounter.get() - startVisitedNodes, document.getTextLength());
+        return highlights;
+    }
+
+    private static long getRangeKey(@NotNull PsiElementHighlighter.Highlight highlight) {
+        return ((long) highlight.startOffset() << 32) | (highlight.endOffset() & 0xFFFFFFFFL);
+    }
+
+    private void apply(@NotNull List<PsiElementHighlighter.Highlight> highlights, long modificationStamp) {
+        computation = null;
+        if (editor.isDisposed() || !HighlightingConfig.getInstance().isHighlightingEnabled()) {
+            return;
+        }
+        if (editor.getDocument().getModificationStamp() != modificationStamp) {
+            // The offsets were taken from an older text, compute them again
+            scheduleUpdate();
+            return;
+        }
+        highlighter.applyHighlights(highlights);
+        long latencyNanos = System.nanoTime() - firstRequestNanos;
+        MotionStats.record(STATS_NAME, "update", latencyNanos, 0, editor.getDocument().getTextLength());
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("Highlighting updated in " + TimeUnit.NANOSECONDS.toMillis(latencyNanos) + " ms");
+        }
+        firstRequestNanos = NOT_REQUESTED;
+    }
+
+    /**
+     * Gets the offsets of the carets to highlight: all visible carets if configured and there are several,
+     * otherwise the selection of the primary caret, or of the first caret with a selection,
+     * or the position of the primary caret if there is no selection.
+     */
+    private static @NotNull List<Offsets> getOffsetsToHighlight(@NotNull Editor editor) {
+        HighlightingConfig config = HighlightingConfig.getInstance();
+        if (config.highlightAllCarets && editor.getCaretModel().getCaretCount() > 1) {
+            return getVisibleCaretOffsets(editor, config.maxHighlightedCarets);
+        }
+        Caret primaryCaret = editor.getCaretModel().getPrimaryCaret();
+        if (!primaryCaret.hasSelection()) {
+            for (Caret caret : editor.getCaretModel().getAllCarets()) {
+                if (caret.hasSelection()) {
+                    return List.of(getOffsets(caret));
+                }
+            }
+        }
+        return List.of(getOffsets(primaryCaret));
+    }
+
+    /**
+     * Gets the offsets of the carets inside the visible lines, at most {@code maxCarets} of them.
+     */
+    private static @NotNull List<Offsets> getVisibleCaretOffsets(@NotNull Editor editor, int maxCarets) {
+        Document document = editor.getDocument();
+        if (document.getLineCount() == 0) {
+            return List.of(getOffsets(editor.getCaretModel().getPrimaryCaret()));
+        }
+        Rectangle visibleArea = editor.getScrollingModel().getVisibleArea();
+        int lastLine = document.getLineCount() - 1;
+        int topLine = Math.min(editor.xyToLogicalPosition(new Point(0, visibleArea.y)).line, lastLine);
+        int bottomLine = Math.min(
+                editor.xyToLogicalPosition(new Point(0, visibleArea.y + visibleArea.height)).line, lastLine);
+        int visibleStart = document.getLineStartOffset(topLine);
+        int visibleEnd = document.getLineEndOffset(bottomLine);
+
+        // The carets are sorted by their position, find the first visible one by binary search.
+        // Getting them copies all carets, only the offsets of the visible ones are taken.
+        List<Caret> carets = editor.getCaretModel().getAllCarets();
+        int low = 0;
+        int high = carets.size();
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (carets.get(middle).getSelectionEnd() < visibleStart) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        List<Offsets> caretOffsets = new ArrayList<>();
+        for (int i = low; i < carets.size() && caretOffsets.size() < maxCarets; i++) {
+            Offsets offsets = getOffsets(carets.get(i));
+            if (offsets.leftOffset() > visibleEnd) {
+                break;
+            }
+            caretOffsets.add(offsets);
+        }
+        return caretOffsets;
+    }
+
+    private static @NotNull Offsets getOffsets(@NotNull Caret caret) {
+        if (caret.hasSelection()) {
+            return new Offsets(caret.getSelectionStart(), caret.getSelectionEnd());
+        }
+        return new Offsets(caret.getOffset(), caret.getOffset());
+    }
+
+    @Override
+    public void dispose() {
+        cancel();
+    }
+}
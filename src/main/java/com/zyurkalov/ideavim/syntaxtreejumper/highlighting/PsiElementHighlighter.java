@@ -1,6 +1,7 @@
 package com.zyurkalov.ideavim.syntaxtreejumper.highlighting;
 
 import com.intellij.openapi.editor.Editor;
+import com.intellij.openapi.editor.ex.RangeHighlighterEx;
 import com.intellij.openapi.editor.markup.HighlighterLayer;
 import com.intellij.openapi.editor.markup.MarkupModel;
 import com.intellij.openapi.editor.markup.RangeHighlighter;
@@ -12,10 +13,14 @@ import com.zyurkalov.ideavim.syntaxtreejumper.adapters.ElementWithSiblings;
 import com.zyurkalov.ideavim.syntaxtreejumper.adapters.SyntaxNode;
 import com.zyurkalov.ideavim.syntaxtreejumper.adapters.SyntaxTreeAdapter;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.awt.*;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 
 /**
  * Manages highlighting of syntax elements with transparent background colors.
@@ -42,86 +47,214 @@ public class PsiElementHighlighter {
     );
 
     private final MarkupModel markupModel;
-    private final List<RangeHighlighter> activeHighlighters;
+    private List<ActiveHighlight> activeHighlights;
 
     public PsiElementHighlighter(@NotNull Editor editor) {
         this.markupModel = editor.getMarkupModel();
-        this.activeHighlighters = new ArrayList<>();
+        this.activeHighlights = new ArrayList<>();
+    }
+
+    /**
+     * The highlighted roles of an element, with their colors.
+     */
+    public enum Kind {
+        CURRENT_ELEMENT(CURRENT_ELEMENT_COLOR, "Current Element"),
+        PREVIOUS_SIBLING(PREVIOUS_SIBLING_COLOR, "Previous Sibling"),
+        NEXT_SIBLING(NEXT_SIBLING_COLOR, "Next Sibling");
+
+        // Shared by all highlighters of the kind, never modified
+        private final TextAttributes attributes;
+        private final String tooltip;
+
+        Kind(Color backgroundColor, String tooltip) {
+            this.attributes = new TextAttributes();
+            this.attributes.setBackgroundColor(backgroundColor);
+            this.tooltip = tooltip;
+        }
+    }
+
+    /**
+     * A range to highlight. It holds no PSI, so it can be computed in a background read action
+     * and applied later on the EDT.
+     */
+    public record Highlight(@NotNull Kind kind, int startOffset, int endOffset, @NotNull String nodeTypeName) {
+        private static Highlight of(@NotNull Kind kind, @NotNull SyntaxNode element) {
+            return new Highlight(kind, element.getTextRange().getStartOffset(), element.getTextRange().getEndOffset(),
+                    element.getNodeTypeName());
+        }
+    }
+
+    /**
+     * A highlight that is shown in the markup model.
+     */
+    private record ActiveHighlight(@NotNull Highlight highlight, @NotNull RangeHighlighter rangeHighlighter) {
     }
 
     /**
      * Highlights the current syntax element and its siblings based on the selection range.
      */
     public void highlightElementAndSiblings(@NotNull SyntaxTreeAdapter syntaxTree, int startOffset, int endOffset) {
-        HighlightingConfig config = HighlightingConfig.getInstance();
-
         // Check if highlighting is enabled
-        if (!config.isHighlightingEnabled()) {
+        if (!HighlightingConfig.getInstance().isHighlightingEnabled()) {
             return;
         }
+        applyHighlights(computeHighlights(syntaxTree, new Offsets(startOffset, endOffset)));
+    }
 
-        clearHighlights();
+    /**
+     * Finds the ranges of the current syntax element and its siblings, as enabled in the config.
+     * Needs read access, but does not touch the editor.
+     */
+    public static @NotNull List<Highlight> computeHighlights(@NotNull SyntaxTreeAdapter syntaxTree,
+                                                             @NotNull Offsets offsets) {
+        HighlightingConfig config = HighlightingConfig.getInstance();
 
         // Use SameLevelElementsMotionHandler to find the current element and its siblings
-        Offsets offsets = new Offsets(startOffset, endOffset);
         ElementWithSiblings elementWithSiblings = syntaxTree.findElementWithSiblings(offsets, MotionDirection.BACKWARD);
 
+        List<Highlight> highlights = new ArrayList<>(3);
         if (elementWithSiblings.currentElement() == null) {
-            return;
+            return highlights;
         }
 
         // Highlight current element
         if (config.showCurrentElement) {
-            highlightElement(elementWithSiblings.currentElement(), CURRENT_ELEMENT_COLOR, "Current Element");
+            highlights.add(Highlight.of(Kind.CURRENT_ELEMENT, elementWithSiblings.currentElement()));
         }
 
         // Highlight previous sibling
         if (config.showPreviousSibling && elementWithSiblings.previousSibling() != null &&
                 !elementWithSiblings.previousSibling().isPsiFile()
         ) {
-            highlightElement(elementWithSiblings.previousSibling(), PREVIOUS_SIBLING_COLOR, "Previous Sibling");
+            highlights.add(Highlight.of(Kind.PREVIOUS_SIBLING, elementWithSiblings.previousSibling()));
         }
 
         // Highlight next sibling
         if (config.showNextSibling && elementWithSiblings.nextSibling() != null &&
                 !elementWithSiblings.nextSibling().isPsiFile()
         ) {
-            highlightElement(elementWithSiblings.nextSibling(), NEXT_SIBLING_COLOR, "Next Sibling");
+            highlights.add(Highlight.of(Kind.NEXT_SIBLING, elementWithSiblings.nextSibling()));
         }
+        return highlights;
     }
 
     /**
-     * Clears all active highlights.
+     * Replaces the active highlights with the given ones. Must be called on the EDT.
+     * <p>
+     * Every change of the markup model repaints the editor and notifies its listeners, so the highlighters
+     * are diffed against the active ones: a highlighter that already covers a range is kept, and recolored
+     * if the role of the range changed, e.g. the next sibling became the current element.
+     * Highlighters are only added and removed for ranges that were not highlighted before.
      */
-    public void clearHighlights() {
-        for (RangeHighlighter highlighter : activeHighlighters) {
-            markupModel.removeHighlighter(highlighter);
+    public void applyHighlights(@NotNull List<Highlight> highlights) {
+        Map<Long, List<ActiveHighlight>> unusedByRange = new HashMap<>();
+        for (ActiveHighlight active : activeHighlights) {
+            RangeHighlighter rangeHighlighter = active.rangeHighlighter();
+            if (rangeHighlighter.isValid()) {
+                unusedByRange.computeIfAbsent(
+                        getRangeKey(rangeHighlighter.getStartOffset(), rangeHighlighter.getEndOffset()),
+                        key -> new ArrayList<>(1)).add(active);
+            } else {
+                markupModel.removeHighlighter(rangeHighlighter);
+            }
         }
-        activeHighlighters.clear();
+        List<ActiveHighlight> updated = new ArrayList<>(highlights.size());
+        List<Highlight> added = new ArrayList<>();
+        for (Highlight highlight : highlights) {
+            ActiveHighlight reused = takeWithRangeOf(
+                    unusedByRange.get(getRangeKey(highlight.startOffset(), highlight.endOffset())), highlight);
+            if (reused == null || !update(reused, highlight)) {
+                added.add(highlight);
+            } else {
+                updated.add(new ActiveHighlight(highlight, reused.rangeHighlighter()));
+            }
+        }
+        for (List<ActiveHighlight> unused : unusedByRange.values()) {
+            for (ActiveHighlight active : unused) {
+                markupModel.removeHighlighter(active.rangeHighlighter());
+            }
+        }
+        for (Highlight highlight : added) {
+            updated.add(new ActiveHighlight(highlight, highlightRange(highlight)));
+        }
+        activeHighlights = updated;
+    }
+
+    private static long getRangeKey(int startOffset, int endOffset) {
+        return ((long) startOffset << 32) | (endOffset & 0xFFFFFFFFL);
     }
 
     /**
-     * Highlights a single syntax element with the specified color.
+     * Removes an active highlight of the same range from the list, preferring the one of the same kind.
      */
-    private void highlightElement(@NotNull SyntaxNode element, @NotNull Color backgroundColor, @NotNull String tooltip) {
-        HighlightingConfig config = HighlightingConfig.getInstance();
+    private static @Nullable ActiveHighlight takeWithRangeOf(@Nullable List<ActiveHighlight> sameRange,
+                                                             @NotNull Highlight highlight) {
+        if (sameRange == null || sameRange.isEmpty()) {
+            return null;
+        }
+        for (int i = 0; i < sameRange.size(); i++) {
+            if (sameRange.get(i).highlight().kind() == highlight.kind()) {
+                return sameRange.remove(i);
+            }
+        }
+        return sameRange.removeLast();
+    }
 
-        TextAttributes attributes = new TextAttributes();
-        attributes.setBackgroundColor(backgroundColor);
+    /**
+     * Updates the color and tooltip of a highlighter covering the same range.
+     *
+     * @return false if the highlighter cannot be recolored and has to be replaced
+     */
+    private boolean update(@NotNull ActiveHighlight active, @NotNull Highlight highlight) {
+        RangeHighlighter rangeHighlighter = active.rangeHighlighter();
+        if (active.highlight().kind() != highlight.kind()) {
+            if (!(rangeHighlighter instanceof RangeHighlighterEx rangeHighlighterEx)) {
+                markupModel.removeHighlighter(rangeHighlighter);
+                return false;
+            }
+            rangeHighlighterEx.setTextAttributes(highlight.kind().attributes);
+        }
+        String tooltip = getTooltip(highlight);
+        if (!Objects.equals(tooltip, getTooltip(active.highlight()))) {
+            rangeHighlighter.setErrorStripeTooltip(tooltip);
+        }
+        return true;
+    }
+
+    /**
+     * Clears all active highlights.
+     */
+    public void clearHighlights() {
+        for (ActiveHighlight active : activeHighlights) {
+            markupModel.removeHighlighter(active.rangeHighlighter());
+        }
+        activeHighlights.clear();
+    }
 
+    /**
+     * Highlights a single range with the color of its kind.
+     */
+    private @NotNull RangeHighlighter highlightRange(@NotNull Highlight highlight) {
         RangeHighlighter highlighter = markupModel.addRangeHighlighter(
-                element.getTextRange().getStartOffset(),
-                element.getTextRange().getEndOffset(),
+                highlight.startOffset(),
+                highlight.endOffset(),
                 HighlighterLayer.SELECTION - 1, // Layer below selection but above syntax highlighting
-                attributes,
+                highlight.kind().attributes,
                 com.intellij.openapi.editor.markup.HighlighterTargetArea.EXACT_RANGE
         );
 
-        if (config.showTooltips) {
-            highlighter.setErrorStripeTooltip(tooltip + ": " + element.getNodeTypeName());
+        String tooltip = getTooltip(highlight);
+        if (tooltip != null) {
+            highlighter.setErrorStripeTooltip(tooltip);
         }
         highlighter.setGutterIconRenderer(null); // No gutter icons
+        return highlighter;
+    }
 
-        activeHighlighters.add(highlighter);
+    private static @Nullable String getTooltip(@NotNull Highlight highlight) {
+        if (!HighlightingConfig.getInstance().showTooltips) {
+            return null;
+        }
+        return highlight.kind().tooltip + ": " + highlight.nodeTypeName();
     }
 }
\ No newline at end of file
@@ -1,18 +1,11 @@
 package com.zyurkalov.ideavim.syntaxtreejumper.highlighting;
 
-import com.intellij.openapi.editor.Editor;
-import com.intellij.openapi.editor.EditorFactory;
 import com.maddyhome.idea.vim.api.ExecutionContext;
 import com.maddyhome.idea.vim.api.VimEditor;
-import com.maddyhome.idea.vim.api.VimEditorGroup;
 import com.maddyhome.idea.vim.command.OperatorArguments;
 import com.maddyhome.idea.vim.extension.ExtensionHandler;
-import com.maddyhome.idea.vim.newapi.IjVimEditorKt;
-import com.zyurkalov.ideavim.syntaxtreejumper.handlers.FunctionHandler;
 import org.jetbrains.annotations.NotNull;
 
-import java.util.Collection;
-
 import static com.maddyhome.idea.vim.api.VimInjectorKt.injector;
 
 /**
@@ -21,6 +14,16 @@ import static com.maddyhome.idea.vim.api.VimInjectorKt.injector;
  */
 public class ToggleHighlightingHandler implements ExtensionHandler {
 
+    private final Runnable onEnabled;
+
+    /**
+     * @param onEnabled Called after the highlighting is enabled, to start the {@link HighlightingListener}
+     *                  and highlight the open editors
+     */
+    public ToggleHighlightingHandler(@NotNull Runnable onEnabled) {
+        this.onEnabled = onEnabled;
+    }
+
     @Override
     public void execute(
             @NotNull VimEditor vimEditor,
@@ -31,38 +34,15 @@ public class ToggleHighlightingHandler implements ExtensionHandler {
         config.toggleHighlighting();
 
         if (config.isHighlightingEnabled()) {
-            // When enabling highlighting, set up highlighting for all editors and update them
-            setupAndUpdateAllEditors();
+            // Start listening to the carets of all editors and highlight them
+            onEnabled.run();
         } else {
-            // When disabling highlighting, clear all existing highlights
-            clearAllHighlights();
+            // Stop listening and clear all existing highlights
+            HighlightingListener.stop();
         }
 
-        // Print status to console
-        System.out.println("PSI Element Highlighting: " +
+        // Show the status in the status bar
+        injector.getMessages().showStatusBarMessage(vimEditor, "PSI Element Highlighting: " +
                 (config.isHighlightingEnabled() ? "ENABLED" : "DISABLED"));
     }
-
-    /**
-     * Sets up highlighting listeners and updates highlighting for all open editors.
-     */
-    private void setupAndUpdateAllEditors() {
-        VimEditorGroup editorGroup = injector.getEditorGroup();
-        Collection<VimEditor> allEditors = editorGroup.getEditors();
-
-        for (VimEditor vimEditor : allEditors) {
-            Editor editor = IjVimEditorKt.getIj(vimEditor);
-            FunctionHandler.setupEditorHighlighting(editor, vimEditor);
-        }
-    }
-
-    /**
-     * Clears highlights from all open editors.
-     */
-    private void clearAllHighlights() {
-        Editor[] allEditors = EditorFactory.getInstance().getAllEditors();
-        for (Editor editor : allEditors) {
-            FunctionHandler.clearHighlightsForEditor(editor);
-        }
-    }
 }
\ No newline at end of file
@@ -0,0 +1,65 @@
+package com.zyurkalov.ideavim.syntaxtreejumper.index;
+
+import com.zyurkalov.ideavim.syntaxtreejumper.adapters.NodeCategory;
+import com.zyurkalov.ideavim.syntaxtreejumper.adapters.SyntaxNode;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.function.Predicate;
+
+/**
+ * The targets of the motions that continue into other files, stored per file by {@link FileTargetIndex}.
+ * The predicates are the same as those of the motion handlers.
+ */
+public enum FileTarget {
+    FUNCTION(0, "MethodFunction", NodeCategory.NONE,
+            node -> node.isMethodDefinition() || node.isFunctionDefinition()),
+    CLASS(1, "ClassDefinition", NodeCategory.NONE, SyntaxNode::isClassDefinition),
+    IMPORT(2, "Import", NodeCategory.NONE, SyntaxNode::isImport),
+    COMMENT(3, "Comment", NodeCategory.COMMENT, SyntaxNode::isComment);
+
+    private final int id;
+    private final String motionName;
+    private final long categories;
+    private final Predicate<SyntaxNode> isTarget;
+
+    FileTarget(int id, String motionName, long categories, Predicate<SyntaxNode> isTarget) {
+        this.id = id;
+        this.motionName = motionName;
+        this.categories = categories;
+        this.isTarget = isTarget;
+    }
+
+    /**
+     * Gets the key of the targets in {@link FileTargetIndex}. It is stored in the index, so it must not change.
+     */
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * Gets the {@link NodeCategory} flags of which every target has one, or {@link NodeCategory#NONE}.
+     */
+    public long getCategories() {
+        return categories;
+    }
+
+    public boolean isTarget(@NotNull SyntaxNode node) {
+        return isTarget.test(node);
+    }
+
+    /**
+     * Finds the target of a motion by the name of its {@code MotionHandlerConfig}.
+     *
+     * @return The target, or null if the motion does not continue into other files
+     */
+    @Nullable
+    public static FileTarget forMotion(@NotNull String motionName) {
+        for (FileTarget target : values()) {
+            if (target.motionName.equals(motionName)) {
+                return target;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,327 @@
+package com.zyurkalov.ideavim.syntaxtreejumper.index;
+
+import com.intellij.openapi.fileTypes.LanguageFileType;
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.project.DumbService;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.roots.ProjectFileIndex;
+import com.intellij.openapi.util.TextRange;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.PsiFile;
+import com.intellij.util.indexing.DataIndexer;
+import com.intellij.util.indexing.FileBasedIndex;
+import com.intellij.util.indexing.FileBasedIndexExtension;
+import com.intellij.util.indexing.FileContent;
+import com.intellij.util.indexing.ID;
+import com.intellij.util.io.DataExternalizer;
+import com.intellij.util.io.DataInputOutputUtil;
+import com.intellij.util.io.EnumeratorIntegerDescriptor;
+import com.intellij.util.io.KeyDescriptor;
+import com.zyurkalov.ideavim.syntaxtreejumper.Offsets;
+import com.zyurkalov.ideavim.syntaxtreejumper.adapters.NodeCategory;
+import com.zyurkalov.ideavim.syntaxtreejumper.adapters.NodeCategoryRules;
+import com.zyurkalov.ideavim.syntaxtreejumper.adapters.SyntaxNode;
+import com.zyurkalov.ideavim.syntaxtreejumper.adapters.SyntaxTreeAdapter;
+import com.zyurkalov.ideavim.syntaxtreejumper.adapters.SyntaxTreeAdapterFactory;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * Index of the {@link FileTarget}s of every file, so that a motion can continue into another file
+ * without parsing it.
+ * <p>
+ * For every kind of target, the index stores the {@link TargetRanges} of the file. Like {@code TargetIndex},
+ * they only contain the targets that the tree walk of the motions reaches from the root of the file, which descends
+ * into the nodes whose {@link SyntaxNode#getChildren()} is not empty.
+ * <p>
+ * Only the files of the project content whose language has node category rules are indexed.
+ * The platform updates the index of a file when its content changes and keeps it on disk between restarts,
+ * so the motions can also use it in a file whose syntax tree has not been walked since the IDE started.
+ * {@link #getVersion()} must be increased when the targets or the node category rules change.
+ */
+public final class FileTargetIndex extends FileBasedIndexExtension<Integer, TargetRanges> {
+    public static final ID<Integer, TargetRanges> NAME = ID.create("com.zyurkalov.ideavim.syntaxtreejumper.FileTargetIndex");
+
+    @Override
+    public @NotNull ID<Integer, TargetRanges> getName() {
+        return NAME;
+    }
+
+    @Override
+    public @NotNull DataIndexer<Integer, TargetRanges, FileContent> getIndexer() {
+        return inputData -> findTargets(inputData.getPsiFile());
+    }
+
+    @Override
+    public @NotNull KeyDescriptor<Integer> getKeyDescriptor() {
+        return EnumeratorIntegerDescriptor.INSTANCE;
+    }
+
+    @Override
+    public @NotNull DataExternalizer<TargetRanges> getValueExternalizer() {
+        return TargetRangesExternalizer.INSTANCE;
+    }
+
+    @Override
+    public int getVersion() {
+        return 3;
+    }
+
+    /**
+     * Accepts the files of the project content whose language has {@link NodeCategoryRules}, the other files
+     * have no targets, and the motions never continue into library files.
+     */
+    @Override
+    public @NotNull FileBasedIndex.InputFilter getInputFilter() {
+        FileBasedIndex.ProjectSpecificInputFilter filter = file -> {
+            Project project = file.getProject();
+            return project != null && file.getFileType() instanceof LanguageFileType fileType &&
+                    NodeCategoryRules.existFor(fileType.getLanguage().getID(), fileType.getName()) &&
+                    ProjectFileIndex.getInstance(project).isInContent(file.getFile());
+        };
+        return filter;
+    }
+
+    @Override
+    public boolean dependsOnFileContent() {
+        return true;
+    }
+
+    /**
+     * Finds the targets of all kinds in a file, in one walk of its syntax tree.
+     *
+     * @return The target ranges by {@link FileTarget#getId()}, without the kinds the file has none of
+     */
+    @NotNull
+    static Map<Integer, TargetRanges> findTargets(@NotNull PsiFile psiFile) {
+        Map<Integer, TargetRanges> targets = new HashMap<>();
+        SyntaxNode root = findRoot(SyntaxTreeAdapterFactory.createAdapter(psiFile));
+        if (root == null) {
+            return targets;
+        }
+        FileTarget[] fileTargets = FileTarget.values();
+        long[] targetCategories = new long[fileTargets.length];
+        List<Predicate<SyntaxNode>> isTarget = new ArrayList<>(fileTargets.length);
+        for (int i = 0; i < fileTargets.length; i++) {
+            targetCategories[i] = fileTargets[i].getCategories();
+            isTarget.add(fileTargets[i]::isTarget);
+        }
+        TargetRanges[] ranges = findTargets(root, targetCategories, isTarget);
+        for (int i = 0; i < fileTargets.length; i++) {
+            if (!ranges[i].equals(TargetRanges.NONE)) {
+                targets.put(fileTargets[i].getId(), ranges[i]);
+            }
+        }
+        return targets;
+    }
+
+    @Nullable
+    private static SyntaxNode findRoot(@NotNull SyntaxTreeAdapter syntaxTree) {
+        SyntaxNode node = syntaxTree.findNodeAt(0);
+        while (node != null && !node.isPsiFile()) {
+            node = node.getParent();
+        }
+        return node;
+    }
+
+    /**
+     * A node to visit, with the bits of the targets that its parent may contain.
+     */
+    private record PendingNode(@NotNull SyntaxNode node, boolean reachable, int candidateTargets) {
+    }
+
+    /**
+     * Finds the targets of one kind in the subtree of the root.
+     *
+     * @param targetCategories The {@link NodeCategory} flags of which every target has one,
+     *                         or {@link NodeCategory#NONE} if the targets are not restricted to categories
+     */
+    @NotNull
+    static TargetRanges findTargets(@NotNull SyntaxNode root, long targetCategories,
+                                    @NotNull Predicate<SyntaxNode> isTarget) {
+        return findTargets(root, new long[]{targetCategories}, List.of(isTarget))[0];
+    }
+
+    /**
+     * Finds the targets of several kinds in the subtree of the root, in one walk.
+     * A subtree is skipped when it cannot contain a target of any kind.
+     *
+     * @param targetCategories The {@link NodeCategory} flags of every kind, see {@link FileTarget#getCategories()}
+     * @param isTarget         The predicate of every kind, at most 32
+     * @return The target ranges of every kind, in the same order
+     */
+    @NotNull
+    static TargetRanges[] findTargets(@NotNull SyntaxNode root, long[] targetCategories,
+                                      @NotNull List<Predicate<SyntaxNode>> isTarget) {
+        int kinds = isTarget.size();
+        RangesBuilder[] builders = new RangesBuilder[kinds];
+        for (int kind = 0; kind < kinds; kind++) {
+            builders[kind] = new RangesBuilder();
+        }
+        // Pre-order, so that the targets are sorted by start offset
+        Deque<PendingNode> stack = new ArrayDeque<>();
+        stack.push(new PendingNode(root, true, kinds == 32 ? -1 : (1 << kinds) - 1));
+        while (!stack.isEmpty()) {
+            ProgressManager.checkCanceled();
+            PendingNode pending = stack.pop();
+            SyntaxNode node = pending.node();
+            int candidateTargets = 0;
+            for (int kind = 0; kind < kinds; kind++) {
+                if ((pending.candidateTargets() & 1 << kind) != 0 && (targetCategories[kind] == NodeCategory.NONE ||
+                        node.mayContainCategory(targetCategories[kind]))) {
+                    candidateTargets |= 1 << kind;
+                }
+            }
+            if (candidateTargets == 0) {
+                // Nothing in the subtree can be a target
+                continue;
+            }
+            TextRange range = null;
+            for (int kind = 0; kind < kinds; kind++) {
+                if ((candidateTargets & 1 << kind) != 0 && isTarget.get(kind).test(node)) {
+                    if (range == null) {
+                        range = node.getTextRange();
+                    }
+                    builders[kind].add(range, pending.reachable());
+                }
+            }
+            // Like the tree walk of the motions, only the nodes with PSI children are descended into,
+            // but every node of the syntax tree can be a target, also leaves that are not PSI children
+            boolean childrenReachable = pending.reachable() && node.hasChildren();
+            for (SyntaxNode child = node.getLastChild(); child != null; child = child.getPreviousSibling()) {
+                stack.push(new PendingNode(child, childrenReachable, candidateTargets));
+            }
+        }
+        TargetRanges[] ranges = new TargetRanges[kinds];
+        for (int kind = 0; kind < kinds; kind++) {
+            ranges[kind] = builders[kind].build();
+        }
+        return ranges;
+    }
+
+    /**
+     * Collects the ranges of the targets of one kind in pre-order.
+     */
+    private static final class RangesBuilder {
+        private int[] ranges = new int[16];
+        private int count;
+        private boolean complete = true;
+
+        void add(@NotNull TextRange range, boolean reachable) {
+            if (reachable) {
+                if (count + 2 > ranges.length) {
+                    ranges = Arrays.copyOf(ranges, ranges.length * 2);
+                }
+                ranges[count++] = range.getStartOffset();
+                ranges[count++] = range.getEndOffset();
+            }
+            complete &= reachable && !range.isEmpty();
+        }
+
+        @NotNull
+        TargetRanges build() {
+            return new TargetRanges(Arrays.copyOf(ranges, count), complete);
+        }
+    }
+
+    /**
+     * Gets the target ranges of a file from the index.
+     * Must be called inside a read action and outside of dumb mode.
+     */
+    @NotNull
+    public static TargetRanges getTargets(@NotNull Project project, @NotNull VirtualFile file,
+                                          @NotNull FileTarget target) {
+        TargetRanges ranges = FileBasedIndex.getInstance().getFileData(NAME, file, project).get(target.getId());
+        return ranges != null ? ranges : TargetRanges.NONE;
+    }
+
+    /**
+     * A target in another file.
+     */
+    public record Location(@NotNull VirtualFile file, @NotNull Offsets offsets) {
+    }
+
+    /**
+     * Finds the target a motion continues with after the last or before the first target of a file:
+     * the first target of the next file of the same directory that has one, or the last target of
+     * the previous one. The files of a directory are ordered by name, and only the files of the project
+     * content are searched. Must be called inside a read action.
+     *
+     * @param forward Whether to search the following files, or the preceding ones
+     * @return The target, or null if there is none or the index is being updated
+     */
+    @Nullable
+    public static Location findInOtherFile(@NotNull Project project, @NotNull VirtualFile file,
+                                           @NotNull FileTarget target, boolean forward) {
+        VirtualFile directory = file.getParent();
+        if (directory == null || DumbService.isDumb(project)) {
+            return null;
+        }
+        ProjectFileIndex fileIndex = ProjectFileIndex.getInstance(project);
+        VirtualFile[] files = directory.getChildren().clone();
+        Arrays.sort(files, Comparator.comparing(VirtualFile::getName));
+        int position = Arrays.asList(files).indexOf(file);
+        if (position < 0) {
+            return null;
+        }
+        int step = forward ? 1 : -1;
+        for (int i = position + step; i >= 0 && i < files.length; i += step) {
+            VirtualFile candidate = files[i];
+            if (candidate.isDirectory() || !fileIndex.isInContent(candidate)) {
+                continue;
+            }
+            TargetRanges ranges = getTargets(project, candidate, target);
+            if (!ranges.isEmpty()) {
+                return new Location(candidate, forward ? ranges.getFirst() : ranges.getLast());
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Writes the start offsets as differences to the previous one and the end offsets as lengths,
+     * which keeps most of the numbers in one or two bytes.
+     */
+    static final class TargetRangesExternalizer implements DataExternalizer<TargetRanges> {
+        static final TargetRangesExternalizer INSTANCE = new TargetRangesExternalizer();
+
+        @Override
+        public void save(@NotNull DataOutput out, TargetRanges targetRanges) throws IOException {
+            int[] ranges = targetRanges.toArray();
+            out.writeBoolean(targetRanges.isComplete());
+            DataInputOutputUtil.writeINT(out, ranges.length / 2);
+            int previousStart = 0;
+            for (int i = 0; i < ranges.length; i += 2) {
+                DataInputOutputUtil.writeINT(out, ranges[i] - previousStart);
+                DataInputOutputUtil.writeINT(out, ranges[i + 1] - ranges[i]);
+                previousStart = ranges[i];
+            }
+        }
+
+        @Override
+        public TargetRanges read(@NotNull DataInput in) throws IOException {
+            boolean complete = in.readBoolean();
+            int[] ranges = new int[DataInputOutputUtil.readINT(in) * 2];
+            int previousStart = 0;
+            for (int i = 0; i < ranges.length; i += 2) {
+                ranges[i] = previousStart + DataInputOutputUtil.readINT(in);
+                ranges[i + 1] = ranges[i] + DataInputOutputUtil.readINT(in);
+                previousStart = ranges[i];
+            }
+            return new TargetRanges(ranges, complete);
+        }
+    }
+}
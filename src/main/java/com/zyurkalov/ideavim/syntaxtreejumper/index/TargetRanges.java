@@ -0,0 +1,175 @@
+package com.zyurkalov.ideavim.syntaxtreejumper.index;
+
+import com.zyurkalov.ideavim.syntaxtreejumper.Offsets;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Arrays;
+import java.util.Optional;
+
+/**
+ * The text ranges of the targets of one kind in a file, as stored by {@link FileTargetIndex}.
+ * <p>
+ * The ranges are kept as pairs of start and end offsets, sorted by start offset with the outer of nested targets
+ * first. They are the targets that the tree walk of the motions reaches from the root of the file.
+ * <p>
+ * Jumping forward or backward gives the same target as {@code TargetIndex} when the ranges are complete: when no
+ * target is empty and every target is reachable from the root. Otherwise, a target could only be reached
+ * from inside of a node that the walk does not descend into, which the offsets do not tell.
+ */
+public final class TargetRanges {
+    static final TargetRanges NONE = new TargetRanges(new int[0], true);
+
+    private final int[] ranges;
+    private final boolean complete;
+    /**
+     * The position of the innermost target that contains the target at a position, or -1. Computed on first use.
+     */
+    private volatile int[] parents;
+
+    TargetRanges(int[] ranges, boolean complete) {
+        this.ranges = ranges;
+        this.complete = complete;
+    }
+
+    public int size() {
+        return ranges.length / 2;
+    }
+
+    public boolean isEmpty() {
+        return ranges.length == 0;
+    }
+
+    public boolean isComplete() {
+        return complete;
+    }
+
+    @NotNull
+    public Offsets get(int position) {
+        return new Offsets(ranges[position * 2], ranges[position * 2 + 1]);
+    }
+
+    /**
+     * Gets the first target, where a motion forward from the start of the file goes.
+     */
+    @NotNull
+    public Offsets getFirst() {
+        return get(0);
+    }
+
+    /**
+     * Gets the outermost of the targets that contain the last one, where a motion backward from the end
+     * of the file goes.
+     */
+    @NotNull
+    public Offsets getLast() {
+        return getOutermost(size() - 1, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Checks if {@link #findTarget} knows the current element of a motion from the offsets. From the offsets alone
+     * it is only known for a caret without a selection, where it is the leaf at the caret.
+     */
+    public boolean canFindTarget(@NotNull Offsets from) {
+        return complete && from.leftOffset() == from.rightOffset();
+    }
+
+    /**
+     * Finds the target a motion reaches from a caret, or from a target it reached before, with the same result as
+     * {@code TargetIndex}: going forward finds the first target after the current element, going backward
+     * the outermost of the nearest targets before it. See {@link #canFindTarget} for the offsets it accepts.
+     *
+     * @return The target, or empty if there is none in the direction
+     */
+    @NotNull
+    public Optional<Offsets> findTarget(@NotNull Offsets from, boolean forward) {
+        int start = from.leftOffset();
+        int end = from.rightOffset();
+        if (forward) {
+            // The targets that start at the caret contain the leaf at the caret
+            int first = start == end ? lowerBound(start + 1) : lowerBound(end);
+            return first < size() ? Optional.of(get(first)) : Optional.empty();
+        }
+        // The targets that start after the caret end after it too. Of those that start before it,
+        // only the ones that contain the caret are skipped, so the scan is as long as their nesting is deep
+        for (int position = lowerBound(start + 1) - 1; position >= 0; position--) {
+            if (ranges[position * 2 + 1] <= start) {
+                return Optional.of(getOutermost(position, start));
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Gets the outermost target that contains the target at a position and ends before an offset.
+     */
+    @NotNull
+    private Offsets getOutermost(int position, int maxEnd) {
+        int[] parents = getParents();
+        int outermost = position;
+        // The targets that contain a target end after it, so the ones that end too late are the outer ones
+        for (int outer = parents[position]; outer >= 0 && ranges[outer * 2 + 1] <= maxEnd; outer = parents[outer]) {
+            outermost = outer;
+        }
+        return get(outermost);
+    }
+
+    @NotNull
+    private int[] getParents() {
+        int[] result = parents;
+        if (result == null) {
+            // The targets on the stack contain each other, the innermost is on top
+            result = new int[size()];
+            int[] stack = new int[size()];
+            int depth = 0;
+            for (int position = 0; position < result.length; position++) {
+                while (depth > 0 && !contains(stack[depth - 1], position)) {
+                    depth--;
+                }
+                result[position] = depth > 0 ? stack[depth - 1] : -1;
+                stack[depth++] = position;
+            }
+            parents = result;
+        }
+        return result;
+    }
+
+    private boolean contains(int outer, int inner) {
+        return ranges[outer * 2] <= ranges[inner * 2] && ranges[outer * 2 + 1] >= ranges[inner * 2 + 1];
+    }
+
+    /**
+     * Finds the position of the first target whose start offset is not less than the given one.
+     */
+    private int lowerBound(int offset) {
+        int low = 0;
+        int high = size();
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (ranges[middle * 2] < offset) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    int[] toArray() {
+        return ranges;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof TargetRanges other && complete == other.complete && Arrays.equals(ranges, other.ranges);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Arrays.hashCode(ranges) + Boolean.hashCode(complete);
+    }
+
+    @Override
+    public String toString() {
+        return "TargetRanges{" + Arrays.toString(ranges) + (complete ? "" : ", incomplete") + "}";
+    }
+}
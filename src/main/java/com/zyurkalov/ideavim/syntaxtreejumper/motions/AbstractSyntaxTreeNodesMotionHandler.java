@@ -1,14 +1,26 @@
 package com.zyurkalov.ideavim.syntaxtreejumper.motions;
 
+import com.intellij.openapi.progress.ProgressManager;
 import com.intellij.openapi.util.TextRange;
 import com.zyurkalov.ideavim.syntaxtreejumper.MotionDirection;
 import com.zyurkalov.ideavim.syntaxtreejumper.Offsets;
+import com.zyurkalov.ideavim.syntaxtreejumper.adapters.NodeCategory;
 import com.zyurkalov.ideavim.syntaxtreejumper.adapters.SyntaxNode;
 import com.zyurkalov.ideavim.syntaxtreejumper.adapters.SyntaxTreeAdapter;
+import com.zyurkalov.ideavim.syntaxtreejumper.adapters.TargetIndex;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 
 import static com.zyurkalov.ideavim.syntaxtreejumper.MotionDirection.BACKWARD;
@@ -32,8 +44,9 @@ public abstract class AbstractSyntaxTreeNodesMotionHandler implements MotionHand
         Offsets elementRelativeOffset = new Offsets(offsetInParent, offsetInParent);
         SubWordFinder finderBackward = new SubWordFinder(BACKWARD);
         SubWordFinder finderForward = new SubWordFinder(FORWARD);
-        Offsets left = finderBackward.findNext(elementRelativeOffset, targetElement.getText());
-        Offsets right = finderForward.findNext(elementRelativeOffset, targetElement.getText());
+        CharSequence elementText = targetElement.getTextSequence();
+        Offsets left = finderBackward.findNext(elementRelativeOffset, elementText);
+        Offsets right = finderForward.findNext(elementRelativeOffset, elementText);
         return Optional.of(new Offsets(left.leftOffset() + elementOffset, right.rightOffset() + elementOffset));
     }
 
@@ -45,8 +58,8 @@ public abstract class AbstractSyntaxTreeNodesMotionHandler implements MotionHand
             return Optional.of(initialOffsets);
         }
         Optional<SyntaxNode> foundElement = switch (direction) {
-            case BACKWARD -> goBackwardOrForward(currentElement, initialOffsets, true, currentElement, BACKWARD);
-            case FORWARD -> goBackwardOrForward(currentElement, initialOffsets, true, currentElement, FORWARD);
+            case BACKWARD -> findTarget(currentElement, initialOffsets, BACKWARD);
+            case FORWARD -> findTarget(currentElement, initialOffsets, FORWARD);
             case EXPAND -> expandSelection(currentElement, initialOffsets);
             case SHRINK -> shrinkSelection(currentElement, initialOffsets);
         };
@@ -60,6 +73,113 @@ public abstract class AbstractSyntaxTreeNodesMotionHandler implements MotionHand
 
     }
 
+    /**
+     * Jumps {@code count} times forward or backward in one traversal.
+     * Instead of resolving the current element from the offsets after every step, the traversal continues
+     * from the found node, widened to the outermost ancestor with the same text like {@link #findNext} does.
+     */
+    @Override
+    public Optional<Offsets> findNth(Offsets initialOffsets, int count) {
+        if (count <= 1 || (direction != FORWARD && direction != BACKWARD)) {
+            return MotionHandler.super.findNth(initialOffsets, count);
+        }
+        SyntaxNode currentElement = syntaxTree.findCurrentElement(initialOffsets, MotionDirection.FORWARD);
+        Offsets found = currentElement != null ? findNthFrom(currentElement, initialOffsets, count) : null;
+        return Optional.of(found != null ? found : initialOffsets);
+    }
+
+    /**
+     * Resolves forward and backward motions of many carets in one pass in document order.
+     * Neighbouring carets in the same leaf share the lookup of the current element, and carets that start
+     * from the same element share the search for the target.
+     */
+    @Override
+    public List<Optional<Offsets>> findNthForAll(List<Offsets> initialOffsets, int count) {
+        if (direction != FORWARD && direction != BACKWARD) {
+            return MotionHandler.super.findNthForAll(initialOffsets, count);
+        }
+        // With a target index the target depends on the current element only, otherwise on the offsets too
+        boolean targetsDependOnElementOnly = shallGoDeeper() && areTargetsIndependentOfStartingPoint();
+        Integer[] order = new Integer[initialOffsets.size()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.comparing(initialOffsets::get,
+                Comparator.comparingInt(Offsets::leftOffset).thenComparingInt(Offsets::rightOffset)));
+
+        List<Optional<Offsets>> results = new ArrayList<>(Collections.nCopies(order.length, Optional.empty()));
+        // Elements are compared by identity, some PSI elements implement a structural equals
+        Map<Object, Optional<Offsets>> foundByStart = targetsDependOnElementOnly ?
+                new IdentityHashMap<>() : new HashMap<>();
+        SyntaxNode previousLeaf = null;
+        SyntaxNode previousElement = null;
+        for (int caret : order) {
+            Offsets offsets = initialOffsets.get(caret);
+            SyntaxNode currentElement;
+            if (SyntaxTreeAdapter.isOnlyCaretButNoSelection(offsets)) {
+                SyntaxNode leaf = syntaxTree.findNodeAt(offsets.leftOffset());
+                if (leaf != null && (previousLeaf == null || leaf.getIdentity() != previousLeaf.getIdentity())) {
+                    previousElement = syntaxTree.replaceWithParentIfParentEqualsTheNode(leaf);
+                }
+                previousLeaf = leaf;
+                currentElement = leaf != null ? previousElement : null;
+            } else {
+                currentElement = syntaxTree.findCurrentElement(offsets, MotionDirection.FORWARD);
+            }
+            if (currentElement == null) {
+                results.set(caret, Optional.of(offsets));
+                continue;
+            }
+            // Without a target index, the same offsets always resolve to the same element
+            Object start = targetsDependOnElementOnly ? currentElement.getIdentity() : offsets;
+            Optional<Offsets> found = foundByStart.computeIfAbsent(start,
+                    key -> Optional.ofNullable(findNthFrom(currentElement, offsets, count)));
+            results.set(caret, Optional.of(found.orElse(offsets)));
+        }
+        return results;
+    }
+
+    /**
+     * Jumps up to {@code count} times from the element, stopping at the first step that finds nothing.
+     *
+     * @return The offsets of the last found target, or null if the first step found nothing
+     */
+    private @Nullable Offsets findNthFrom(SyntaxNode currentElement, Offsets initialOffsets, int count) {
+        Offsets found = null;
+        Offsets currentOffsets = initialOffsets;
+        for (int i = 0; i < count && currentElement != null; i++) {
+            Optional<SyntaxNode> foundElement = findTarget(currentElement, currentOffsets, direction);
+            if (foundElement.isEmpty()) {
+                // Every further step would start from the same offsets and find nothing again
+                break;
+            }
+            TextRange textRange = foundElement.get().getTextRange();
+            currentOffsets = new Offsets(textRange.getStartOffset(), textRange.getEndOffset());
+            found = currentOffsets;
+            currentElement = textRange.isEmpty() ?
+                    syntaxTree.findCurrentElement(currentOffsets, MotionDirection.FORWARD) :
+                    syntaxTree.replaceWithParentIfParentEqualsTheNode(foundElement.get());
+        }
+        return found;
+    }
+
+    /**
+     * Finds the next target in the direction, using the {@link TargetIndex} of the file when the handler allows it.
+     */
+    private Optional<SyntaxNode> findTarget(SyntaxNode currentElement, Offsets initialOffsets,
+                                            MotionDirection motionDirection) {
+        if (shallGoDeeper() && areTargetsIndependentOfStartingPoint()) {
+            TargetIndex targetIndex = TargetIndex.get(currentElement, getClass(), getTargetCategories(),
+                    node -> doesTargetFollowRequirements(null, node, null));
+            if (targetIndex != null) {
+                return Optional.ofNullable(motionDirection == FORWARD ?
+                        targetIndex.findNext(currentElement) :
+                        targetIndex.findPrevious(currentElement));
+            }
+        }
+        return goBackwardOrForward(currentElement, initialOffsets, true, currentElement, motionDirection);
+    }
+
     protected Optional<SyntaxNode> goBackwardOrForward(SyntaxNode currentElement, Offsets initialOffsets,
                                                        boolean skipFirstStep, SyntaxNode startingPoint,
                                                        MotionDirection motionDirection
@@ -76,32 +196,99 @@ public abstract class AbstractSyntaxTreeNodesMotionHandler implements MotionHand
         return Optional.ofNullable(found);
     }
 
+    /**
+     * Walks the siblings of the element in the direction and, for handlers that go deeper, depth-first through
+     * the subtrees of the siblings that are not targets.
+     * The walk keeps the siblings of the enclosing levels on an explicit stack, so deeply nested trees cannot
+     * overflow the call stack. Subtrees that lie entirely behind the initial offsets are not entered,
+     * as they cannot contain a target in the direction, and neither are subtrees without the categories
+     * of the targets, see {@link #getTargetCategories()}.
+     *
+     * @return The first target, a sibling after the first step with the borders of the initial offsets, or null
+     */
     private @Nullable SyntaxNode findWithinNeighbours(SyntaxNode currentElement, Offsets initialOffsets,
                                                       boolean skipFirstStep, SyntaxNode startingPoint,
                                                       MotionDirection motionDirection
     ) {
-        SyntaxNode sibling = skipFirstStep ?
+        ArrayDeque<SiblingWalk> enclosingWalks = new ArrayDeque<>();
+        SiblingWalk walk = new SiblingWalk(skipFirstStep ?
                 getNextSibling(currentElement, startingPoint, motionDirection) :
-                currentElement;
-        boolean isFirstStep = true;
-        while (
-                sibling != null && !doesTargetFollowRequirements(startingPoint, sibling, initialOffsets)
-        ) {
-            if (shallGoDeeper() && !sibling.getChildren().isEmpty()) {
-                var found = findWithinNeighbours(
-                        getChild(sibling, motionDirection), initialOffsets, false, startingPoint, motionDirection);
-                if (found != null) {
-                    sibling = found;
-                    break;
+                currentElement);
+        SearchBudget budget = SearchBudget.current();
+        while (true) {
+            // Lets background searches of huge files be cancelled, and stops searches over their budget
+            ProgressManager.checkCanceled();
+            if (budget != null) {
+                budget.step();
+            }
+            SyntaxNode sibling = walk.sibling;
+            if (sibling == null || doesTargetFollowRequirements(startingPoint, sibling, initialOffsets)) {
+                if (sibling != null || enclosingWalks.isEmpty()) {
+                    return sibling;
                 }
+                // Nothing found in the subtree, continue with the siblings of its root
+                walk = enclosingWalks.pop();
+            } else if (shallGoDeeper() && !isBehind(sibling, initialOffsets, motionDirection) &&
+                    (mayContainTarget(sibling) || contains(sibling, initialOffsets)) &&
+                    sibling.hasChildren()) {
+                // A subtree without targets is still entered if it may contain the initial offsets,
+                // the walk stops at a node with the same borders
+                enclosingWalks.push(walk);
+                walk = new SiblingWalk(getChild(sibling, motionDirection));
+                continue;
             }
-            sibling = getNextSibling(sibling, startingPoint, motionDirection);
-            if (!isFirstStep && sibling != null && sibling.areBordersEqual(initialOffsets)) {
-                break;
+            if (walk.step(initialOffsets, startingPoint, motionDirection)) {
+                return walk.sibling;
             }
+        }
+    }
+
+    /**
+     * The position of {@link #findWithinNeighbours} among the siblings of one level.
+     */
+    private final class SiblingWalk {
+        private @Nullable SyntaxNode sibling;
+        private boolean isFirstStep = true;
+
+        private SiblingWalk(@Nullable SyntaxNode sibling) {
+            this.sibling = sibling;
+        }
+
+        /**
+         * Moves to the next sibling.
+         *
+         * @return True if the walk ends at the new sibling, because it has the borders of the initial offsets
+         */
+        private boolean step(Offsets initialOffsets, SyntaxNode startingPoint, MotionDirection motionDirection) {
+            sibling = getNextSibling(Objects.requireNonNull(sibling), startingPoint, motionDirection);
+            boolean isAtInitialOffsets = !isFirstStep && sibling != null && sibling.areBordersEqual(initialOffsets);
             isFirstStep = false;
+            return isAtInitialOffsets;
         }
-        return sibling;
+    }
+
+    /**
+     * Checks if the node ends before the initial offsets when going forward, or starts after them when going
+     * backward, so neither it nor its descendants can be the next target.
+     */
+    private static boolean isBehind(SyntaxNode node, Offsets initialOffsets, MotionDirection motionDirection) {
+        TextRange textRange = node.getTextRange();
+        return motionDirection == FORWARD ?
+                textRange.getEndOffset() < initialOffsets.leftOffset() :
+                textRange.getStartOffset() > initialOffsets.rightOffset();
+    }
+
+    private static boolean contains(SyntaxNode node, Offsets offsets) {
+        TextRange textRange = node.getTextRange();
+        return textRange.getStartOffset() <= offsets.leftOffset() && offsets.rightOffset() <= textRange.getEndOffset();
+    }
+
+    /**
+     * Checks if the node or one of its descendants may be a target, judging by their categories only.
+     */
+    private boolean mayContainTarget(SyntaxNode node) {
+        long targetCategories = getTargetCategories();
+        return targetCategories == NodeCategory.NONE || node.mayContainCategory(targetCategories);
     }
 
     private @Nullable SyntaxNode getNextSibling(SyntaxNode element, SyntaxNode startingPoint,
@@ -151,38 +338,88 @@ public abstract class AbstractSyntaxTreeNodesMotionHandler implements MotionHand
 
     /**
      * Shrinks the selection to the largest meaningful child (Alt-i behaviour)
+     * <p>
+     * Handlers that go deeper search the children depth-first, keeping the children left to check on each
+     * level on an explicit stack. Every level starts from the node it descended into and returns its first
+     * target that is not equivalent to that node.
      */
     protected Optional<SyntaxNode> shrinkSelection(SyntaxNode initialElement, Offsets initialOffsets) {
-        // Find the largest meaningful child that fits within the current selection
-        List<SyntaxNode> candidateChildren = initialElement.getChildren();
-        while (candidateChildren.size() == 1 &&
-                candidateChildren.getFirst().getTextRange().equals(initialElement.getTextRange())) {
-            candidateChildren = candidateChildren.getFirst().getChildren();
+        ArrayDeque<ShrinkLevel> enclosingLevels = new ArrayDeque<>();
+        ShrinkLevel level = new ShrinkLevel(initialElement);
+        while (true) {
+            if (level.hasNextChild()) {
+                SyntaxNode child = level.nextChild();
+                if (doesTargetFollowRequirements(level.parent, child, initialOffsets)) {
+                    if (!child.isEquivalentTo(level.parent)) {
+                        return Optional.of(child);
+                    }
+                    // The level found nothing, continue with the next child of the enclosing level
+                } else if (shallGoDeeper() && mayContainTarget(child)) {
+                    enclosingLevels.push(level);
+                    level = new ShrinkLevel(child);
+                    continue;
+                } else {
+                    continue;
+                }
+            }
+            if (enclosingLevels.isEmpty()) {
+                return Optional.empty();
+            }
+            level = enclosingLevels.pop();
         }
+    }
 
-        SyntaxNode foundElement = null;
-        for (SyntaxNode child : candidateChildren) {
-            if (doesTargetFollowRequirements(initialElement, child, initialOffsets)) {
-                foundElement = child;
-                break;
-            }
-            Optional<SyntaxNode> found;
-            if (shallGoDeeper()) {
-                found = shrinkSelection(child, initialOffsets);
-                if (found.isPresent()) {
-                    return found;
+    /**
+     * The children of a node that {@link #shrinkSelection} has not checked yet.
+     */
+    private static final class ShrinkLevel {
+        private final SyntaxNode parent;
+        private final List<SyntaxNode> children;
+        private int nextChild;
+
+        private ShrinkLevel(SyntaxNode parent) {
+            this.parent = parent;
+            // Look through the chain of single children with the same range as the parent
+            SyntaxNode node = parent;
+            while (node.getChildCount() == 1) {
+                SyntaxNode onlyChild = Objects.requireNonNull(node.getChild(0));
+                if (!onlyChild.getTextRange().equals(parent.getTextRange())) {
+                    break;
                 }
+                node = onlyChild;
             }
+            this.children = node.getChildren();
         }
-        if (foundElement == null || foundElement.isEquivalentTo(initialElement)) {
-            return Optional.empty();
+
+        private boolean hasNextChild() {
+            return nextChild < children.size();
         }
-        return Optional.of(foundElement);
 
+        private SyntaxNode nextChild() {
+            return children.get(nextChild++);
+        }
     }
 
     protected boolean shallGoDeeper() {
         return false;
     }
 
+    /**
+     * Gets the {@link NodeCategory} flags of which every target has at least one, so that searches can skip
+     * the subtrees that have none of them. Only worth it for categories that are rare in a file.
+     *
+     * @return The flags, or {@link NodeCategory#NONE} if the targets are not restricted to categories
+     */
+    protected long getTargetCategories() {
+        return NodeCategory.NONE;
+    }
+
+    /**
+     * Tells that {@link #doesTargetFollowRequirements} only looks at the target element and ignores the other
+     * arguments, so the targets of a file can be collected once into a {@link TargetIndex}.
+     */
+    protected boolean areTargetsIndependentOfStartingPoint() {
+        return false;
+    }
+
 }
\ No newline at end of file
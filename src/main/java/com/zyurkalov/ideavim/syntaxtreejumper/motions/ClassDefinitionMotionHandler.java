@@ -11,6 +11,11 @@ public class ClassDefinitionMotionHandler extends AbstractSyntaxTreeNodesMotionH
         return true;
     }
 
+    @Override
+    protected boolean areTargetsIndependentOfStartingPoint() {
+        return true;
+    }
+
     @Override
     protected boolean doesTargetFollowRequirements(SyntaxNode startingPoint, SyntaxNode targetElement, Offsets initialOffsets) {
         return targetElement.isClassDefinition();
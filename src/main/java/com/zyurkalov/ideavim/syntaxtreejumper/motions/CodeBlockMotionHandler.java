@@ -21,6 +21,11 @@ public class CodeBlockMotionHandler extends AbstractSyntaxTreeNodesMotionHandler
         return true;
     }
 
+    @Override
+    protected boolean areTargetsIndependentOfStartingPoint() {
+        return true;
+    }
+
     @Override
     protected boolean doesTargetFollowRequirements(SyntaxNode startingPoint, SyntaxNode targetElement, Offsets initialOffsets) {
         return targetElement.isBlock();
@@ -2,6 +2,7 @@ package com.zyurkalov.ideavim.syntaxtreejumper.motions;
 
 import com.zyurkalov.ideavim.syntaxtreejumper.MotionDirection;
 import com.zyurkalov.ideavim.syntaxtreejumper.Offsets;
+import com.zyurkalov.ideavim.syntaxtreejumper.adapters.NodeCategory;
 import com.zyurkalov.ideavim.syntaxtreejumper.adapters.SyntaxNode;
 import com.zyurkalov.ideavim.syntaxtreejumper.adapters.SyntaxTreeAdapter;
 
@@ -29,6 +30,16 @@ public class CommentMotionHandler extends AbstractSyntaxTreeNodesMotionHandler {
         return true;
     }
 
+    @Override
+    protected boolean areTargetsIndependentOfStartingPoint() {
+        return true;
+    }
+
+    @Override
+    protected long getTargetCategories() {
+        return NodeCategory.COMMENT;
+    }
+
     public CommentMotionHandler(SyntaxTreeAdapter syntaxTree, MotionDirection direction) {
         super(syntaxTree, direction);
     }
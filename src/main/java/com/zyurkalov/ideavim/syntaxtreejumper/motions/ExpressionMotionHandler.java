@@ -21,6 +21,11 @@ public class ExpressionMotionHandler extends AbstractSyntaxTreeNodesMotionHandle
         return true;
     }
 
+    @Override
+    protected boolean areTargetsIndependentOfStartingPoint() {
+        return true;
+    }
+
     @Override
     protected boolean doesTargetFollowRequirements(SyntaxNode startingPoint, SyntaxNode targetElement, Offsets initialOffsets) {
         return targetElement.isExpression();
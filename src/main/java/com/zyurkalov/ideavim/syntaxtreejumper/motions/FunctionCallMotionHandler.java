@@ -21,6 +21,11 @@ public class FunctionCallMotionHandler extends AbstractSyntaxTreeNodesMotionHand
         return true;
     }
 
+    @Override
+    protected boolean areTargetsIndependentOfStartingPoint() {
+        return true;
+    }
+
     @Override
     protected boolean doesTargetFollowRequirements(SyntaxNode startingPoint, SyntaxNode targetElement, Offsets initialOffsets) {
         return targetElement.isMethodOrFunctionCallExpression();
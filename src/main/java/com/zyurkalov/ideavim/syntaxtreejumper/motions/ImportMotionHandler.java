@@ -15,6 +15,11 @@ public class ImportMotionHandler extends AbstractSyntaxTreeNodesMotionHandler{
         return true;
     }
 
+    @Override
+    protected boolean areTargetsIndependentOfStartingPoint() {
+        return true;
+    }
+
     @Override
     protected boolean doesTargetFollowRequirements(SyntaxNode startingPoint, SyntaxNode targetElement, Offsets initialOffsets) {
         return targetElement.isImport();
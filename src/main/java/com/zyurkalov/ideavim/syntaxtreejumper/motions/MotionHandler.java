@@ -2,6 +2,8 @@ package com.zyurkalov.ideavim.syntaxtreejumper.motions;
 
 import com.zyurkalov.ideavim.syntaxtreejumper.Offsets;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -18,4 +20,42 @@ public interface MotionHandler {
      * @return Optional containing the new offsets or empty if no valid next position found
      */
     Optional<Offsets> findNext(Offsets initialOffsets);
+
+    /**
+     * Finds the position reached by applying the motion {@code count} times, stopping at the first step that fails.
+     * Handlers that can keep their traversal state between the steps override it.
+     *
+     * @param initialOffsets The current cursor position or selection range
+     * @param count          The number of steps
+     * @return Optional containing the offsets after the last successful step or empty if even the first step failed
+     */
+    default Optional<Offsets> findNth(Offsets initialOffsets, int count) {
+        Optional<Offsets> result = Optional.empty();
+        Offsets currentOffsets = initialOffsets;
+        for (int i = 0; i < count; i++) {
+            Optional<Offsets> nextOffsets = findNext(currentOffsets);
+            if (nextOffsets.isEmpty()) {
+                break;
+            }
+            result = nextOffsets;
+            currentOffsets = nextOffsets.get();
+        }
+        return result;
+    }
+
+    /**
+     * Applies {@link #findNth} to many carets at once. Handlers that can share work between the carets override it,
+     * the results must be the same as those of {@link #findNth} for every caret.
+     *
+     * @param initialOffsets The positions or selection ranges of the carets
+     * @param count          The number of steps
+     * @return The results of {@link #findNth} in the order of {@code initialOffsets}
+     */
+    default List<Optional<Offsets>> findNthForAll(List<Offsets> initialOffsets, int count) {
+        List<Optional<Offsets>> results = new ArrayList<>(initialOffsets.size());
+        for (Offsets offsets : initialOffsets) {
+            results.add(findNth(offsets, count));
+        }
+        return results;
+    }
 }
@@ -28,4 +28,9 @@ public class OperatorMotionHandler extends AbstractSyntaxTreeNodesMotionHandler
     protected boolean shallGoDeeper() {
         return true;
     }
+
+    @Override
+    protected boolean areTargetsIndependentOfStartingPoint() {
+        return true;
+    }
 }
\ No newline at end of file
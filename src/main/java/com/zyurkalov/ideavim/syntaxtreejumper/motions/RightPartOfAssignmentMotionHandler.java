@@ -21,6 +21,11 @@ public class RightPartOfAssignmentMotionHandler extends AbstractSyntaxTreeNodesM
         return true;
     }
 
+    @Override
+    protected boolean areTargetsIndependentOfStartingPoint() {
+        return true;
+    }
+
     @Override
     protected boolean doesTargetFollowRequirements(SyntaxNode startingPoint, SyntaxNode targetElement, Offsets initialOffsets) {
         boolean isExpression = targetElement.isExpression();
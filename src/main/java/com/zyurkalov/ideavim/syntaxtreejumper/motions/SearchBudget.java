@@ -0,0 +1,120 @@
+package com.zyurkalov.ideavim.syntaxtreejumper.motions;
+
+import com.zyurkalov.ideavim.syntaxtreejumper.stats.NodeVisitCounter;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Limits the number of syntax nodes a motion may visit and the time it may take, so that a motion in
+ * a minified or generated file stops instead of freezing the IDE.
+ * <p>
+ * The budget applies to the current thread while {@link #run} runs the search. The loops of the motion handlers
+ * look it up once with {@link #current()} and call {@link #step()} on every iteration, which checks the budget
+ * every {@value #CHECK_INTERVAL} iterations and throws {@link ExceededException} once it is used up.
+ * The visited nodes are those counted by {@link NodeVisitCounter}.
+ */
+public final class SearchBudget {
+    private static final ThreadLocal<SearchBudget> current = new ThreadLocal<>();
+    /**
+     * The number of loop iterations between two checks, a search overshoots its budget by at most that many.
+     */
+    static final int CHECK_INTERVAL = 1024;
+
+    private final long maxVisitedNodes;
+    private final long maxNanos;
+    private final long startVisitedNodes;
+    private final long startNanos;
+    private int uncheckedSteps;
+
+    private SearchBudget(long maxVisitedNodes, long maxMillis) {
+        this.maxVisitedNodes = maxVisitedNodes;
+        this.maxNanos = TimeUnit.MILLISECONDS.toNanos(maxMillis);
+        this.startVisitedNodes = NodeVisitCounter.get();
+        this.startNanos = System.nanoTime();
+    }
+
+    /**
+     * Runs a search with a budget.
+     *
+     * @param maxVisitedNodes The maximum number of syntax nodes the search may visit
+     * @param maxMillis       The maximum duration of the search
+     * @throws ExceededException If the search used up the budget
+     */
+    public static <T> T run(long maxVisitedNodes, long maxMillis, @NotNull Supplier<T> search) {
+        SearchBudget previous = current.get();
+        current.set(new SearchBudget(maxVisitedNodes, maxMillis));
+        try {
+            return search.get();
+        } finally {
+            current.set(previous);
+        }
+    }
+
+    /**
+     * Gets the budget of the current thread, or null outside of {@link #run}.
+     */
+    @Nullable
+    public static SearchBudget current() {
+        return current.get();
+    }
+
+    /**
+     * Stops the search if the budget of the current thread is used up.
+     * Does nothing outside of {@link #run}.
+     *
+     * @throws ExceededException If the budget is used up
+     */
+    public static void check() {
+        SearchBudget budget = current.get();
+        if (budget != null) {
+            budget.checkNow();
+        }
+    }
+
+    /**
+     * Counts one iteration of a search loop. Reading the clock and the visited nodes on every iteration would
+     * slow down the loops, so the budget is only checked every {@value #CHECK_INTERVAL} iterations.
+     *
+     * @throws ExceededException If the budget is used up
+     */
+    public void step() {
+        if (++uncheckedSteps >= CHECK_INTERVAL) {
+            uncheckedSteps = 0;
+            checkNow();
+        }
+    }
+
+    private void checkNow() {
+        long visitedNodes = NodeVisitCounter.get() - startVisitedNodes;
+        long nanos = System.nanoTime() - startNanos;
+        if (visitedNodes > maxVisitedNodes || nanos > maxNanos) {
+            throw new ExceededException(visitedNodes, nanos);
+        }
+    }
+
+    /**
+     * Thrown when a search used up its budget.
+     */
+    public static final class ExceededException extends RuntimeException {
+        private final long visitedNodes;
+        private final long nanos;
+
+        ExceededException(long visitedNodes, long nanos) {
+            super("Search stopped after visiting " + visitedNodes + " nodes in " +
+                    TimeUnit.NANOSECONDS.toMillis(nanos) + " ms", null, false, false);
+            this.visitedNodes = visitedNodes;
+            this.nanos = nanos;
+        }
+
+        public long getVisitedNodes() {
+            return visitedNodes;
+        }
+
+        public long getNanos() {
+            return nanos;
+        }
+    }
+}
@@ -28,6 +28,11 @@ public class StatementMotionHandler extends AbstractSyntaxTreeNodesMotionHandler
         return true;
     }
 
+    @Override
+    protected boolean areTargetsIndependentOfStartingPoint() {
+        return true;
+    }
+
     @Override
     protected boolean doesTargetFollowRequirements(SyntaxNode startingPoint, SyntaxNode targetElement, Offsets initialOffsets) {
         return targetElement.isDeclarationStatement() || targetElement.isExpressionStatement() ||
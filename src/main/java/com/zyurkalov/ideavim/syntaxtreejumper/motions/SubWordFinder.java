@@ -15,7 +15,7 @@ import static com.zyurkalov.ideavim.syntaxtreejumper.MotionDirection.FORWARD;
 public record SubWordFinder(MotionDirection direction) {
 
     class BoundaryFinder {
-        private final String str;
+        private final CharSequence str;
         Map<Integer, Integer> memoization;
         List<Function<Integer, Integer>> delimiters;
 
@@ -28,7 +28,7 @@ public record SubWordFinder(MotionDirection direction) {
                     ? position + 1 : position;
         }
 
-        BoundaryFinder(String str) {
+        BoundaryFinder(CharSequence str) {
             this.str = str;
             this.delimiters = new ArrayList<>();
             if (direction == FORWARD) { //TODO: what shall I do here?
@@ -75,12 +75,12 @@ public record SubWordFinder(MotionDirection direction) {
         }
     }
 
-    public Offsets findNext(Offsets strPosition, String elementText) {
+    public Offsets findNext(Offsets strPosition, CharSequence elementText) {
         if (elementText == null) {
             return strPosition;
         }
         if (direction == BACKWARD) {
-            elementText = new StringBuilder(elementText).reverse().toString();
+            elementText = new StringBuilder(elementText).reverse();
             strPosition = new Offsets(
                     elementText.length() - strPosition.rightOffset(),
                     elementText.length() - strPosition.leftOffset()
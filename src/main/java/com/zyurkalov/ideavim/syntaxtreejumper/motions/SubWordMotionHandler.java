@@ -1,5 +1,6 @@
 package com.zyurkalov.ideavim.syntaxtreejumper.motions;
 
+import com.intellij.lang.ASTNode;
 import com.intellij.psi.PsiElement;
 import com.intellij.psi.PsiFile;
 import com.zyurkalov.ideavim.syntaxtreejumper.MotionDirection;
@@ -53,9 +54,14 @@ public class SubWordMotionHandler implements MotionHandler {
         int relativeRightTextPosition = initialOffsets.rightOffset() - leftElementBorder;
 
         Offsets relativeOffset = new Offsets(relativeLeftTextPosition, relativeRightTextPosition);
-        Offsets newRelativeOffset = navigation.findNext(relativeOffset, elementAtLeft.getText());
+        Offsets newRelativeOffset = navigation.findNext(relativeOffset, getLeafText(elementAtLeft));
 
         return new Offsets(newRelativeOffset.leftOffset() + leftElementBorder,
                 newRelativeOffset.rightOffset() + leftElementBorder);
     }
+
+    private static CharSequence getLeafText(PsiElement leaf) {
+        ASTNode node = leaf.getNode();
+        return node != null ? node.getChars() : leaf.getText();
+    }
 }
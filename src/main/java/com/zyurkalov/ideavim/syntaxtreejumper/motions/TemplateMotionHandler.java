@@ -2,6 +2,7 @@ package com.zyurkalov.ideavim.syntaxtreejumper.motions;
 
 import com.zyurkalov.ideavim.syntaxtreejumper.MotionDirection;
 import com.zyurkalov.ideavim.syntaxtreejumper.Offsets;
+import com.zyurkalov.ideavim.syntaxtreejumper.adapters.NodeCategory;
 import com.zyurkalov.ideavim.syntaxtreejumper.adapters.SyntaxNode;
 import com.zyurkalov.ideavim.syntaxtreejumper.adapters.SyntaxTreeAdapter;
 
@@ -16,6 +17,16 @@ public class TemplateMotionHandler extends AbstractSyntaxTreeNodesMotionHandler
         return true;
     }
 
+    @Override
+    protected boolean areTargetsIndependentOfStartingPoint() {
+        return true;
+    }
+
+    @Override
+    protected long getTargetCategories() {
+        return NodeCategory.TEMPLATE_CANDIDATE;
+    }
+
     public TemplateMotionHandler(SyntaxTreeAdapter syntaxTree, MotionDirection direction) {
         super(syntaxTree, direction);
     }
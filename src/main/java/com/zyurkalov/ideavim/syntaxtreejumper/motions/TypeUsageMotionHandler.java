@@ -19,4 +19,9 @@ public class TypeUsageMotionHandler extends AbstractSyntaxTreeNodesMotionHandler
     protected boolean shallGoDeeper() {
         return true;
     }
+
+    @Override
+    protected boolean areTargetsIndependentOfStartingPoint() {
+        return true;
+    }
 }
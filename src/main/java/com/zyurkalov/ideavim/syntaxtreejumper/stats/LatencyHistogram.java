@@ -0,0 +1,87 @@
+package com.zyurkalov.ideavim.syntaxtreejumper.stats;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free histogram of durations with logarithmic buckets.
+ * <p>
+ * Bucket 0 counts durations below one microsecond, bucket {@code i} counts durations from {@code 2^(i-1)}
+ * up to {@code 2^i} microseconds. Percentiles are therefore reported as the upper bound of their bucket,
+ * which is at most twice the real value. Recording is a few atomic increments and can be done from any thread.
+ */
+public final class LatencyHistogram {
+    static final int BUCKETS = 40;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    public void record(long nanos) {
+        long durationNanos = Math.max(nanos, 0);
+        buckets.incrementAndGet(getBucket(durationNanos));
+        count.increment();
+        totalNanos.add(durationNanos);
+        maxNanos.accumulateAndGet(durationNanos, Math::max);
+    }
+
+    static int getBucket(long nanos) {
+        long micros = nanos / 1000;
+        return Math.min(64 - Long.numberOfLeadingZeros(micros), BUCKETS - 1);
+    }
+
+    /**
+     * Gets the upper bound of a bucket in nanoseconds.
+     */
+    static long getBucketUpperBoundNanos(int bucket) {
+        return (1L << bucket) * 1000;
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public double getMeanMillis() {
+        long recorded = count.sum();
+        return recorded == 0 ? 0 : totalNanos.sum() / 1e6 / recorded;
+    }
+
+    public double getMaxMillis() {
+        return maxNanos.get() / 1e6;
+    }
+
+    /**
+     * Gets the upper bound of the bucket that contains the given percentile, capped by the maximum.
+     *
+     * @param percentile A value from 0 to 100
+     */
+    public double getPercentileMillis(double percentile) {
+        long recorded = count.sum();
+        if (recorded == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(recorded * percentile / 100));
+        long seen = 0;
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            seen += buckets.get(bucket);
+            if (seen >= rank) {
+                return Math.min(getBucketUpperBoundNanos(bucket), maxNanos.get()) / 1e6;
+            }
+        }
+        return getMaxMillis();
+    }
+
+    /**
+     * Clears the histogram. Durations recorded concurrently with the reset may be partially kept.
+     */
+    public void reset() {
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            buckets.set(bucket, 0);
+        }
+        count.reset();
+        totalNanos.reset();
+        maxNanos.set(0);
+    }
+}
@@ -0,0 +1,223 @@
+package com.zyurkalov.ideavim.syntaxtreejumper.stats;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntSupplier;
+
+/**
+ * Always-on statistics of the motions and highlighting updates since the start of the IDE or the last reset.
+ * <p>
+ * Every measurement is recorded under a handler name, e.g. the name of a {@code MotionHandlerConfig},
+ * and a direction or kind of operation. Each of them keeps a {@link LatencyHistogram}, the number of visited
+ * syntax nodes, and how many of the measurements were made in files of each size bucket.
+ * Recording is lock-free and does not allocate once the handler and direction have been seen.
+ */
+public final class MotionStats {
+    /**
+     * Upper bounds of the file size buckets in characters, the last bucket has no bound.
+     */
+    private static final int[] FILE_SIZE_BOUNDS = {10_000, 100_000, 1_000_000};
+    private static final String[] FILE_SIZE_NAMES = {"<10K", "<100K", "<1M", ">=1M"};
+
+    private static final ConcurrentHashMap<String, ConcurrentHashMap<String, Entry>> entries =
+            new ConcurrentHashMap<>();
+    private static volatile @Nullable Entry lastEntry;
+    private static volatile long lastNanos;
+
+    private MotionStats() {
+    }
+
+    /**
+     * The statistics of one handler name and direction.
+     */
+    public static final class Entry {
+        private final String handler;
+        private final String direction;
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final LongAdder visitedNodes = new LongAdder();
+        private final AtomicLongArray fileSizes = new AtomicLongArray(FILE_SIZE_NAMES.length);
+
+        private Entry(@NotNull String handler, @NotNull String direction) {
+            this.handler = handler;
+            this.direction = direction;
+        }
+
+        public @NotNull String getHandler() {
+            return handler;
+        }
+
+        public @NotNull String getDirection() {
+            return direction;
+        }
+
+        public @NotNull LatencyHistogram getLatency() {
+            return latency;
+        }
+
+        public double getAverageVisitedNodes() {
+            long count = latency.getCount();
+            return count == 0 ? 0 : (double) visitedNodes.sum() / count;
+        }
+
+        public long getCountInFileSizeBucket(int bucket) {
+            return fileSizes.get(bucket);
+        }
+
+        private void reset() {
+            latency.reset();
+            visitedNodes.reset();
+            for (int bucket = 0; bucket < FILE_SIZE_NAMES.length; bucket++) {
+                fileSizes.set(bucket, 0);
+            }
+        }
+    }
+
+    /**
+     * Records one measurement.
+     *
+     * @param handler      The name of the handler, e.g. "Element"
+     * @param direction    The direction of the motion or the kind of operation
+     * @param nanos        The duration
+     * @param visitedNodes The number of syntax nodes created during the measurement
+     * @param fileLength   The length of the file in characters
+     */
+    public static void record(@NotNull String handler, @NotNull String direction, long nanos,
+                              long visitedNodes, int fileLength) {
+        Entry entry = getEntry(handler, direction);
+        entry.latency.record(nanos);
+        entry.visitedNodes.add(Math.max(visitedNodes, 0));
+        entry.fileSizes.incrementAndGet(getFileSizeBucket(fileLength));
+        lastNanos = nanos;
+        lastEntry = entry;
+    }
+
+    /**
+     * Runs an action and records its duration and the number of syntax nodes it visited.
+     * The measurement is recorded even if the action throws.
+     */
+    public static void measure(@NotNull String handler, @NotNull String direction, int fileLength,
+                               @NotNull Runnable action) {
+        measure(handler, direction, () -> fileLength, action);
+    }
+
+    /**
+     * Same as {@link #measure(String, String, int, Runnable)}, but gets the file length after the action,
+     * for actions that change the file.
+     */
+    public static void measure(@NotNull String handler, @NotNull String direction,
+                               @NotNull IntSupplier fileLength, @NotNull Runnable action) {
+        long startNanos = System.nanoTime();
+        long startVisitedNodes = NodeVisitCounter.get();
+        try {
+            action.run();
+        } finally {
+            record(handler, direction, System.nanoTime() - startNanos,
+                    NodeVisitCounter.get() - startVisitedNodes, fileLength.getAsInt());
+        }
+    }
+
+    private static @NotNull Entry getEntry(@NotNull String handler, @NotNull String direction) {
+        ConcurrentHashMap<String, Entry> byDirection = entries.get(handler);
+        if (byDirection == null) {
+            byDirection = entries.computeIfAbsent(handler, h -> new ConcurrentHashMap<>());
+        }
+        Entry entry = byDirection.get(direction);
+        if (entry == null) {
+            entry = byDirection.computeIfAbsent(direction, d -> new Entry(handler, d));
+        }
+        return entry;
+    }
+
+    static int getFileSizeBucket(int fileLength) {
+        for (int bucket = 0; bucket < FILE_SIZE_BOUNDS.length; bucket++) {
+            if (fileLength < FILE_SIZE_BOUNDS[bucket]) {
+                return bucket;
+            }
+        }
+        return FILE_SIZE_BOUNDS.length;
+    }
+
+    /**
+     * Gets the statistics of a handler and direction, or null if nothing was recorded for them.
+     */
+    public static @Nullable Entry getEntryOrNull(@NotNull String handler, @NotNull String direction) {
+        Map<String, Entry> byDirection = entries.get(handler);
+        return byDirection != null ? byDirection.get(direction) : null;
+    }
+
+    /**
+     * Gets the statistics that have measurements, sorted by handler name and direction.
+     */
+    public static @NotNull List<Entry> getEntries() {
+        List<Entry> result = new ArrayList<>();
+        for (Map<String, Entry> byDirection : entries.values()) {
+            for (Entry entry : byDirection.values()) {
+                if (entry.latency.getCount() > 0) {
+                    result.add(entry);
+                }
+            }
+        }
+        result.sort(Comparator.comparing(Entry::getHandler).thenComparing(Entry::getDirection));
+        return result;
+    }
+
+    /**
+     * Gets the last measurement as "handler direction duration", or null if there is none since the last reset.
+     */
+    public static @Nullable String getLastMeasurement() {
+        Entry entry = lastEntry;
+        if (entry == null) {
+            return null;
+        }
+        return String.format(Locale.ROOT, "%s %s %.1f ms", entry.handler, entry.direction, lastNanos / 1e6);
+    }
+
+    /**
+     * Formats the statistics as a table, one line per handler and direction.
+     */
+    public static @NotNull String getReport() {
+        List<Entry> recorded = getEntries();
+        if (recorded.isEmpty()) {
+            return "No syntax tree motions recorded";
+        }
+        StringBuilder report = new StringBuilder(String.format(Locale.ROOT,
+                "%-28s %-10s %7s %9s %9s %9s %9s %9s %9s",
+                "Handler", "Direction", "Count", "Mean ms", "p50 ms", "p95 ms", "p99 ms", "Max ms", "Nodes"));
+        for (String fileSizeName : FILE_SIZE_NAMES) {
+            report.append(String.format(Locale.ROOT, " %7s", fileSizeName));
+        }
+        for (Entry entry : recorded) {
+            LatencyHistogram latency = entry.latency;
+            report.append('\n').append(String.format(Locale.ROOT,
+                    "%-28s %-10s %7d %9.2f %9.2f %9.2f %9.2f %9.2f %9.1f",
+                    entry.handler, entry.direction, latency.getCount(), latency.getMeanMillis(),
+                    latency.getPercentileMillis(50), latency.getPercentileMillis(95),
+                    latency.getPercentileMillis(99), latency.getMaxMillis(), entry.getAverageVisitedNodes()));
+            for (int bucket = 0; bucket < FILE_SIZE_NAMES.length; bucket++) {
+                report.append(String.format(Locale.ROOT, " %7d", entry.getCountInFileSizeBucket(bucket)));
+            }
+        }
+        return report.toString();
+    }
+
+    /**
+     * Clears all statistics.
+     */
+    public static void reset() {
+        for (Map<String, Entry> byDirection : entries.values()) {
+            for (Entry entry : byDirection.values()) {
+                entry.reset();
+            }
+        }
+        lastEntry = null;
+    }
+}
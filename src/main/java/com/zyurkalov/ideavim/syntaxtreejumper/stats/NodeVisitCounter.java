@@ -0,0 +1,20 @@
+package com.zyurkalov.ideavim.syntaxtreejumper.stats;
+
+/**
+ * Counts the syntax nodes created by the current thread, which is the number of nodes a motion visited.
+ * Measurements take the difference of {@link #get()} before and after the motion.
+ */
+public final class NodeVisitCounter {
+    private static final ThreadLocal<long[]> visitedNodes = ThreadLocal.withInitial(() -> new long[1]);
+
+    private NodeVisitCounter() {
+    }
+
+    public static void increment() {
+        visitedNodes.get()[0]++;
+    }
+
+    public static long get() {
+        return visitedNodes.get()[0];
+    }
+}
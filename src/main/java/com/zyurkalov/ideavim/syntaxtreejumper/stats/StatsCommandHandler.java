@@ -0,0 +1,40 @@
+package com.zyurkalov.ideavim.syntaxtreejumper.stats;
+
+import com.maddyhome.idea.vim.api.ExecutionContext;
+import com.maddyhome.idea.vim.api.VimEditor;
+import com.maddyhome.idea.vim.common.CommandAliasHandler;
+import com.maddyhome.idea.vim.ex.ExOutputModel;
+import com.maddyhome.idea.vim.ex.ranges.Range;
+import com.maddyhome.idea.vim.newapi.IjVimEditorKt;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Handler of the ex commands {@code :SyntaxTreeJumperStats}, which shows the {@link MotionStats} report
+ * in the output panel, and {@code :SyntaxTreeJumperStatsReset}, which clears the statistics.
+ */
+public class StatsCommandHandler implements CommandAliasHandler {
+    public static final String SHOW_COMMAND = "SyntaxTreeJumperStats";
+    public static final String RESET_COMMAND = "SyntaxTreeJumperStatsReset";
+
+    private final boolean reset;
+
+    /**
+     * @param reset Whether to clear the statistics (true) or show them (false)
+     */
+    public StatsCommandHandler(boolean reset) {
+        this.reset = reset;
+    }
+
+    @Override
+    public void execute(@NotNull String command, @NotNull Range range, @NotNull VimEditor editor,
+                        @NotNull ExecutionContext context) {
+        String text;
+        if (reset) {
+            MotionStats.reset();
+            text = "Syntax tree motion statistics cleared";
+        } else {
+            text = MotionStats.getReport();
+        }
+        ExOutputModel.getInstance(IjVimEditorKt.getIj(editor)).output(text);
+    }
+}
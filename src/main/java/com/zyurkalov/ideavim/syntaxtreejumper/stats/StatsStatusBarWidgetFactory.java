@@ -0,0 +1,93 @@
+package com.zyurkalov.ideavim.syntaxtreejumper.stats;
+
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.NlsContexts;
+import com.intellij.openapi.wm.StatusBar;
+import com.intellij.openapi.wm.StatusBarWidget;
+import com.intellij.openapi.wm.StatusBarWidgetFactory;
+import com.intellij.util.Consumer;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import javax.swing.Timer;
+import java.awt.*;
+import java.awt.event.MouseEvent;
+
+/**
+ * Status bar widget showing the duration of the last syntax tree motion.
+ * It is disabled by default and can be enabled from the status bar context menu.
+ */
+public class StatsStatusBarWidgetFactory implements StatusBarWidgetFactory {
+    public static final String ID = "SyntaxTreeJumperStats";
+
+    @Override
+    public @NotNull String getId() {
+        return ID;
+    }
+
+    @Override
+    public @NlsContexts.ConfigurableName @NotNull String getDisplayName() {
+        return "Syntax Tree Jumper Statistics";
+    }
+
+    @Override
+    public boolean isEnabledByDefault() {
+        return false;
+    }
+
+    @Override
+    public @NotNull StatusBarWidget createWidget(@NotNull Project project) {
+        return new StatsWidget();
+    }
+
+    private static class StatsWidget implements StatusBarWidget, StatusBarWidget.TextPresentation {
+        private static final int REFRESH_MILLIS = 1000;
+
+        private @Nullable Timer timer;
+
+        @Override
+        public @NotNull String ID() {
+            return ID;
+        }
+
+        @Override
+        public @NotNull WidgetPresentation getPresentation() {
+            return this;
+        }
+
+        @Override
+        public void install(@NotNull StatusBar statusBar) {
+            timer = new Timer(REFRESH_MILLIS, event -> statusBar.updateWidget(ID));
+            timer.start();
+        }
+
+        @Override
+        public @NotNull String getText() {
+            String lastMeasurement = MotionStats.getLastMeasurement();
+            return lastMeasurement != null ? "STJ: " + lastMeasurement : "STJ: -";
+        }
+
+        @Override
+        public float getAlignment() {
+            return Component.CENTER_ALIGNMENT;
+        }
+
+        @Override
+        public @Nullable String getTooltipText() {
+            return "Last syntax tree motion, run :" + StatsCommandHandler.SHOW_COMMAND + " for all statistics";
+        }
+
+        @Override
+        public @Nullable Consumer<MouseEvent> getClickConsumer() {
+            return null;
+        }
+
+        @Override
+        public void dispose() {
+            if (timer != null) {
+                timer.stop();
+                timer = null;
+            }
+        }
+    }
+}
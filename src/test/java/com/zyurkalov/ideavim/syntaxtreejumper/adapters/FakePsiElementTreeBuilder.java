@@ -1,8 +1,12 @@
 
 package com.zyurkalov.ideavim.syntaxtreejumper.adapters;
 
+import com.intellij.lang.ASTNode;
 import com.intellij.psi.PsiElement;
 import com.intellij.psi.impl.FakePsiElement;
+import com.intellij.psi.impl.source.tree.CompositeElement;
+import com.intellij.psi.impl.source.tree.LeafPsiElement;
+import com.intellij.psi.tree.IElementType;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
@@ -15,29 +19,23 @@ import java.util.stream.Stream;
 public class FakePsiElementTreeBuilder {
     public static class MyFakePsiElement extends FakePsiElement {
         private final String text;
-        private final List<MyFakePsiElement> children;
+        private List<MyFakePsiElement> children;
         private final String type;
         private MyFakePsiElement parent;
         private MyFakePsiElement prevSibling;
         private MyFakePsiElement nextSibling;
+        private int textRequests;
+        private boolean childrenHidden;
+        private ASTNode node;
 
         private MyFakePsiElement(String text, String type, List<MyFakePsiElement> children) {
             this.text = text;
             this.type = type;
-            this.children = children;
-            MyFakePsiElement prev = null;
-            for (int i = 0; i < children.size(); i++) {
-                var child = children.get(i);
-                child.parent = this;
-                child.prevSibling = prev;
-                child.nextSibling = (i + 1 < children.size()) ? children.get(i + 1) : null;
-                prev = child;
-            }
+            setChildren(children);
         }
 
         private MyFakePsiElement(String text, List<MyFakePsiElement> children) {
             this.text = text;
-            this.children = children;
             this.type = switch (text) {
                 case "for" -> "FOR_KEYWORD";
                 case "while" -> "WHILE_KEYWORD";
@@ -67,6 +65,14 @@ public class FakePsiElementTreeBuilder {
                     }
                 }
             };
+            setChildren(children);
+        }
+
+        /**
+         * Replaces the children of this element, like a reparse of the element would.
+         */
+        public void setChildren(List<MyFakePsiElement> children) {
+            this.children = children;
             MyFakePsiElement prev = null;
             for (int i = 0; i < children.size(); i++) {
                 var child = children.get(i);
@@ -82,21 +88,90 @@ public class FakePsiElementTreeBuilder {
         }
 
         public String getText() {
+            textRequests++;
+            return buildText();
+        }
+
+        /**
+         * Same as {@link #getText()}, without counting the request, for building the tree.
+         */
+        private String buildText() {
             if (children.isEmpty()) {
                 return text;
             }
             StringBuilder result = new StringBuilder();
             for (MyFakePsiElement child : children) {
-                result.append(child.getText());
+                result.append(child.buildText());
             }
             return result.toString();
         }
 
         @Override
         public PsiElement [] getChildren() {
+            if (childrenHidden) {
+                return PsiElement.EMPTY_ARRAY;
+            }
             return children.toArray(PsiElement[]::new);
         }
 
+        /**
+         * Makes {@link #getChildren()} return nothing, like PSI elements that consist of leaf tokens only.
+         * The children are still reachable with {@link #getFirstChild()} and {@link #getNextSibling()}.
+         */
+        public MyFakePsiElement hideChildren() {
+            childrenHidden = true;
+            return this;
+        }
+
+        @Override
+        public int getTextLength() {
+            if (children.isEmpty()) {
+                return text.length();
+            }
+            int length = 0;
+            for (MyFakePsiElement child : children) {
+                length += child.getTextLength();
+            }
+            return length;
+        }
+
+        /**
+         * Gives this element an AST node of the given element type, so that it has the {@link NodeCategory}
+         * of that type. The node provides the element type and the text only, it is not part of an AST.
+         */
+        public MyFakePsiElement withElementType(IElementType elementType) {
+            node = children.isEmpty() ? new LeafPsiElement(elementType, text) : new CompositeElement(elementType) {
+                @Override
+                public @NotNull CharSequence getChars() {
+                    // The node has no child nodes to collect the text from
+                    return buildText();
+                }
+            };
+            return this;
+        }
+
+        @Override
+        public @Nullable ASTNode getNode() {
+            return node;
+        }
+
+        /**
+         * Gets how many times the text of this element was built.
+         */
+        public int getTextRequests() {
+            return textRequests;
+        }
+
+        @Override
+        public @Nullable PsiElement getFirstChild() {
+            return children.isEmpty() ? null : children.get(0);
+        }
+
+        @Override
+        public @Nullable PsiElement getLastChild() {
+            return children.isEmpty() ? null : children.get(children.size() - 1);
+        }
+
         @Override
         public PsiElement getParent() {
             return parent;
@@ -162,7 +237,7 @@ public class FakePsiElementTreeBuilder {
         // Apply the same flattening logic as in list()
         List<MyFakePsiElement> flattened = psiList.stream()
                 .flatMap(element -> {
-                    if ("list".equals(element.getText())) {
+                    if ("list".equals(element.buildText())) {
                         // If it's a list, return its children as a stream
                         return Arrays.stream(element.getChildren())
                                 .map(child -> (MyFakePsiElement) child);
@@ -191,7 +266,7 @@ public class FakePsiElementTreeBuilder {
     private static MyFakePsiElement list(List<MyFakePsiElement> elements) {
         List<MyFakePsiElement> flattened = elements.stream()
                 .flatMap(element -> {
-                    if ("list".equals(element.getText())) {
+                    if ("list".equals(element.buildText())) {
                         // If it's a list, return its children as a stream
                         return Arrays.stream(element.getChildren())
                                 .map(child -> (MyFakePsiElement) child);
@@ -0,0 +1,102 @@
+package com.zyurkalov.ideavim.syntaxtreejumper.adapters;
+
+import com.intellij.lang.Language;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.tree.IElementType;
+import com.zyurkalov.ideavim.syntaxtreejumper.adapters.FakePsiElementTreeBuilder.MyFakePsiElement;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import static com.zyurkalov.ideavim.syntaxtreejumper.adapters.FakePsiElementTreeBuilder.branch;
+import static com.zyurkalov.ideavim.syntaxtreejumper.adapters.FakePsiElementTreeBuilder.leaf;
+
+/**
+ * Checks the Lua predicates that depend on the shape of the tree, with fake elements named like the EmmyLua PSI.
+ */
+class LuaSyntaxNodeTest {
+    private static final IElementType LOCAL_DEF = new IElementType("LOCAL_DEF", Language.ANY);
+    private static final IElementType ASSIGN_STAT = new IElementType("ASSIGN_STAT", Language.ANY);
+    private static final IElementType EXPR_LIST = new IElementType("EXPR_LIST", Language.ANY);
+    private static final IElementType TABLE_EXPR = new IElementType("TABLE_EXPR", Language.ANY);
+    private static final IElementType TABLE_FIELD = new IElementType("TABLE_FIELD", Language.ANY);
+    private static final IElementType CALL_EXPR = new IElementType("CALL_EXPR", Language.ANY);
+    private static final IElementType NAME_EXPR = new IElementType("NAME_EXPR", Language.ANY);
+    private static final IElementType LIST_ARGS = new IElementType("LIST_ARGS", Language.ANY);
+    private static final IElementType CLASS_METHOD = new IElementType("Class Method", Language.ANY);
+    private static final IElementType CLASS_METHOD_NAME = new IElementType("CLASS_METHOD_NAME", Language.ANY);
+
+    /**
+     * {@code local Account = {}} or, with a field, {@code local Account = {balance = 0}}.
+     */
+    private static MyFakePsiElement tableDeclaration(IElementType statementType, boolean withField) {
+        MyFakePsiElement table = withField
+                ? branch(leaf("{"), leaf("balance = 0").withElementType(TABLE_FIELD), leaf("}"))
+                : branch(leaf("{"), leaf("}"));
+        MyFakePsiElement values = branch(table.withElementType(TABLE_EXPR)).withElementType(EXPR_LIST);
+        return branch(leaf("local "), leaf("Account"), leaf(" = "), values).withElementType(statementType);
+    }
+
+    /**
+     * {@code name("module")}.
+     */
+    private static MyFakePsiElement call(String name) {
+        return branch(leaf(name).withElementType(NAME_EXPR), branch(leaf("("), leaf("\"module\""), leaf(")"))
+                .withElementType(LIST_ARGS)).withElementType(CALL_EXPR);
+    }
+
+    /**
+     * {@code function Account<separator>deposit() end}.
+     */
+    private static MyFakePsiElement classMethod(String separator) {
+        MyFakePsiElement name = branch(leaf("Account").withElementType(NAME_EXPR), leaf(separator), leaf("deposit"))
+                .withElementType(CLASS_METHOD_NAME);
+        return branch(leaf("function "), name, leaf("() end")).withElementType(CLASS_METHOD);
+    }
+
+    @Test
+    void testDeclarationsOfEmptyTablesAreClassDefinitions() {
+        Assertions.assertTrue(new LuaSyntaxNode(tableDeclaration(LOCAL_DEF, false)).isClassDefinition());
+        Assertions.assertTrue(new LuaSyntaxNode(tableDeclaration(ASSIGN_STAT, false)).isClassDefinition());
+        Assertions.assertFalse(new LuaSyntaxNode(tableDeclaration(LOCAL_DEF, true)).isClassDefinition());
+
+        PsiElement filled = tableDeclaration(LOCAL_DEF, true);
+        SyntaxTreeSnapshot snapshot = SyntaxTreeSnapshot.build(filled, 0, 0);
+        Assertions.assertFalse(new LuaSyntaxNode(snapshot, snapshot.getRoot()).isClassDefinition());
+        // The table itself still is one
+        PsiElement table = filled.getLastChild().getFirstChild();
+        Assertions.assertTrue(new LuaSyntaxNode(snapshot, snapshot.indexOf(table, "local Account = ".length()))
+                .isClassDefinition());
+    }
+
+    @Test
+    void testRequireCallsAreImports() {
+        Assertions.assertTrue(new LuaSyntaxNode(call("require")).isImport());
+        Assertions.assertFalse(new LuaSyntaxNode(call("required")).isImport());
+        Assertions.assertFalse(new LuaSyntaxNode(call("print")).isImport());
+
+        SyntaxTreeSnapshot snapshot = SyntaxTreeSnapshot.build(call("require"), 0, 0);
+        LuaSyntaxNode node = new LuaSyntaxNode(snapshot, snapshot.getRoot());
+        Assertions.assertTrue(node.isImport());
+        Assertions.assertTrue(node.mayContainCategory(NodeCategory.IMPORT));
+    }
+
+    @Test
+    void testClassMethodsWithColonAreMethods() {
+        LuaSyntaxNode method = new LuaSyntaxNode(classMethod(":"));
+        Assertions.assertTrue(method.isMethodDefinition());
+        Assertions.assertTrue(method.isFunctionDefinition());
+
+        LuaSyntaxNode function = new LuaSyntaxNode(classMethod("."));
+        Assertions.assertFalse(function.isMethodDefinition());
+        Assertions.assertTrue(function.isFunctionDefinition());
+    }
+
+    @Test
+    void testSubtreeCategoriesIncludeTheConditionalCategories() {
+        // Searches skip the subtrees without candidates, so they may not rely on the conditions
+        SyntaxTreeSnapshot snapshot = SyntaxTreeSnapshot.build(branch(leaf("x"), call("print")), 0, 0);
+        LuaSyntaxNode root = new LuaSyntaxNode(snapshot, snapshot.getRoot());
+        Assertions.assertTrue(root.mayContainCategory(NodeCategory.IMPORT));
+        Assertions.assertFalse(root.getLastChild().isImport());
+    }
+}
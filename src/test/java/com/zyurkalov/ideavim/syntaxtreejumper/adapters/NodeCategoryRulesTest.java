@@ -0,0 +1,165 @@
+package com.zyurkalov.ideavim.syntaxtreejumper.adapters;
+
+import com.intellij.lang.Language;
+import com.intellij.psi.tree.IElementType;
+import com.zyurkalov.ideavim.syntaxtreejumper.adapters.FakePsiElementTreeBuilder.MyFakePsiElement;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static com.zyurkalov.ideavim.syntaxtreejumper.adapters.FakePsiElementTreeBuilder.branch;
+import static com.zyurkalov.ideavim.syntaxtreejumper.adapters.FakePsiElementTreeBuilder.leaf;
+import static com.zyurkalov.ideavim.syntaxtreejumper.adapters.NodeCategory.*;
+
+class NodeCategoryRulesTest {
+    private static final IElementType DEF = new IElementType("DEF", Language.ANY);
+    private static final IElementType LIST = new IElementType("LIST", Language.ANY);
+    private static final IElementType TABLE = new IElementType("TABLE", Language.ANY);
+    private static final IElementType FIELD = new IElementType("FIELD", Language.ANY);
+    private static final IElementType NAME = new IElementType("NAME", Language.ANY);
+
+    @Test
+    void testPatterns() {
+        NodeCategoryRules rules = NodeCategoryRules.parse("test", List.of(
+                "# comment",
+                "",
+                "LOOP = FOR WHILE_*",
+                "BLOCK STATEMENT = *_BLOCK",
+                "COMMENT = *COMMENT*",
+                "EQUAL_SYMBOL = \"=\" \"Class Method\" \"*\""));
+
+        Assertions.assertEquals(LOOP, rules.classify("FOR"));
+        Assertions.assertEquals(NONE, rules.classify("FOR_STATEMENT"));
+        Assertions.assertEquals(LOOP, rules.classify("WHILE_LOOP"));
+        Assertions.assertEquals(BLOCK | STATEMENT, rules.classify("CODE_BLOCK"));
+        Assertions.assertEquals(NONE, rules.classify("BLOCK_STATEMENT"));
+        Assertions.assertEquals(COMMENT, rules.classify("END_OF_LINE_COMMENT"));
+        Assertions.assertEquals(COMMENT, rules.classify("COMMENT"));
+        Assertions.assertEquals(EQUAL_SYMBOL, rules.classify("="));
+        Assertions.assertEquals(EQUAL_SYMBOL, rules.classify("Class Method"));
+        Assertions.assertEquals(EQUAL_SYMBOL, rules.classify("*"));
+        Assertions.assertEquals(NONE, rules.classify("Class"));
+        Assertions.assertEquals(NONE, rules.classify(""));
+    }
+
+    @Test
+    void testExtendsAndOverride() {
+        NodeCategoryRules rules = NodeCategoryRules.parse("test", List.of(
+                "extends default",
+                "override BLOCK METHOD_DEFINITION",
+                "BLOCK = BLOCK"));
+
+        Assertions.assertEquals(NodeCategoryRules.load("default").classify("FOR_STATEMENT"),
+                rules.classify("FOR_STATEMENT"));
+        Assertions.assertEquals(NONE, rules.classify("CODE_BLOCK") & BLOCK);
+        Assertions.assertEquals(BLOCK, rules.classify("BLOCK") & BLOCK);
+        Assertions.assertEquals(NONE, rules.classify("METHOD_DECLARATION") & METHOD_DEFINITION);
+        Assertions.assertEquals(LOOP, rules.classify("WHILE") & LOOP);
+    }
+
+    @Test
+    void testMalformedRules() {
+        IllegalArgumentException unknownCategory = Assertions.assertThrows(IllegalArgumentException.class,
+                () -> NodeCategoryRules.parse("test", List.of("LOOP = FOR", "LOOPS = WHILE")));
+        Assertions.assertTrue(unknownCategory.getMessage().startsWith("test.rules:2:"), unknownCategory.getMessage());
+
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> NodeCategoryRules.parse("test", List.of("LOOP =")));
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> NodeCategoryRules.parse("test", List.of("LOOP = \"FOR")));
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> NodeCategoryRules.parse("test", List.of("include default")));
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> NodeCategoryRules.parse("test", List.of("extends missing")));
+    }
+
+    @Test
+    void testConditionalPatterns() {
+        NodeCategoryRules rules = NodeCategoryRules.parse("test", List.of(
+                "CLASS_DEFINITION = DEF[child:LIST[child:TABLE[!child:FIELD]]]",
+                "IMPORT = \"Class Method\"[child:NAME[text:\"require\"]][parent:DEF]",
+                "ARGUMENT = *[parent:LIST]"));
+
+        // The categories of conditional patterns are not given to the whole type
+        Assertions.assertEquals(NONE, rules.classify("DEF"));
+        Assertions.assertEquals(NONE, rules.classify("Class Method"));
+        Assertions.assertEquals(CLASS_DEFINITION | ARGUMENT, rules.classifyConditional("DEF"));
+        Assertions.assertEquals(IMPORT | ARGUMENT, rules.classifyConditional("Class Method"));
+        Assertions.assertEquals(ARGUMENT, rules.classifyConditional("FIELD"));
+    }
+
+    @Test
+    void testConditionsAreCheckedOnTheNodes() {
+        NodeCategoryRules rules = NodeCategoryRules.parse("test", List.of(
+                "CLASS_DEFINITION = DEF[child:LIST[child:TABLE[!child:FIELD]]]",
+                "IMPORT = LIST[child:NAME[text:\"require\"]][parent:DEF]"));
+        MyFakePsiElement emptyTable = branch(leaf("{"), leaf("}")).withElementType(TABLE);
+        MyFakePsiElement require = leaf("require").withElementType(NAME);
+        MyFakePsiElement list = branch(emptyTable, leaf(" "), require).withElementType(LIST);
+        MyFakePsiElement root = branch(leaf("x"), list).withElementType(DEF);
+        MyFakePsiElement filledTable = branch(leaf("{"), leaf("a").withElementType(FIELD), leaf("}"))
+                .withElementType(TABLE);
+        MyFakePsiElement otherList = branch(filledTable, leaf("requires").withElementType(NAME)).withElementType(LIST);
+        MyFakePsiElement otherRoot = branch(otherList).withElementType(DEF);
+
+        Assertions.assertEquals(CLASS_DEFINITION, rules.classifyNode(new PsiSyntaxNode(root)));
+        Assertions.assertEquals(IMPORT, rules.classifyNode(new PsiSyntaxNode(list)));
+        Assertions.assertEquals(NONE, rules.classifyNode(new PsiSyntaxNode(otherRoot)));
+        Assertions.assertEquals(NONE, rules.classifyNode(new PsiSyntaxNode(otherList)));
+
+        SyntaxTreeSnapshot snapshot = SyntaxTreeSnapshot.build(root, 0, 0);
+        Assertions.assertEquals(CLASS_DEFINITION, rules.classifyNode(new PsiSyntaxNode(snapshot, snapshot.getRoot())));
+        Assertions.assertEquals(IMPORT, rules.classifyNode(new PsiSyntaxNode(snapshot, snapshot.indexOf(list, 1))));
+    }
+
+    @Test
+    void testMalformedConditions() {
+        for (String line : List.of("LOOP = FOR[child:WHILE", "LOOP = FOR[sibling:WHILE]", "LOOP = FOR[child]",
+                "LOOP = FOR[text:WHILE]", "LOOP = FOR[child:]", "languages lua[child:WHILE]")) {
+            Assertions.assertThrows(IllegalArgumentException.class,
+                    () -> NodeCategoryRules.parse("test", List.of(line)), line);
+        }
+    }
+
+    @Test
+    void testBundledRulesLoad() {
+        for (String name : List.of("default", "cpp", "rust", "lua", "go", "python", "kotlin")) {
+            Assertions.assertEquals(name, NodeCategoryRules.load(name).getName());
+        }
+        Assertions.assertSame(NodeCategoryRules.load("rust"), NodeCategoryRules.load("rust"));
+    }
+
+    @Test
+    void testFindFor() {
+        Assertions.assertEquals("cpp", NodeCategoryRules.findFor("ObjectiveC", "ObjectiveC"));
+        Assertions.assertEquals("cpp", NodeCategoryRules.findFor("C++", "C++"));
+        Assertions.assertEquals("rust", NodeCategoryRules.findFor("Rust", "Rust"));
+        Assertions.assertEquals("lua", NodeCategoryRules.findFor("Lua", "Lua"));
+        Assertions.assertEquals("go", NodeCategoryRules.findFor("go", "Go"));
+        Assertions.assertEquals("python", NodeCategoryRules.findFor("Python", "Python"));
+        Assertions.assertEquals("kotlin", NodeCategoryRules.findFor("kotlin", "Kotlin"));
+        Assertions.assertNull(NodeCategoryRules.findFor("JAVA", "JAVA"));
+        Assertions.assertNull(NodeCategoryRules.findFor("Django", "Django Template"));
+        Assertions.assertNull(NodeCategoryRules.findFor("TEXT", "PLAIN_TEXT"));
+    }
+
+    @Test
+    void testExistFor() {
+        Assertions.assertTrue(NodeCategoryRules.existFor("Rust", "Rust"));
+        Assertions.assertTrue(NodeCategoryRules.existFor("JAVA", "JAVA"));
+        Assertions.assertFalse(NodeCategoryRules.existFor("TEXT", "PLAIN_TEXT"));
+        Assertions.assertFalse(NodeCategoryRules.existFor("JSON", "JSON"));
+    }
+
+    @Test
+    void testGoArgumentsAreExpressionsOfAnArgumentList() {
+        NodeCategoryRules rules = NodeCategoryRules.load("go");
+        Assertions.assertEquals(METHOD_OR_FUNCTION_CALL, rules.classify("CALL_EXPR") & METHOD_OR_FUNCTION_CALL);
+        Assertions.assertEquals(EXPRESSION_LIST, rules.classify("ARGUMENT_LIST") & EXPRESSION_LIST);
+        Assertions.assertEquals(ARGUMENT, rules.classify("REFERENCE_EXPRESSION") & ARGUMENT);
+        Assertions.assertEquals(ARGUMENT, rules.classify("STRING_LIT") & ARGUMENT);
+        Assertions.assertEquals(FUNCTION_DEFINITION, rules.classify("FUNCTION_DECLARATION") & FUNCTION_DEFINITION);
+        Assertions.assertEquals(IMPORT, rules.classify("IMPORT_DECLARATION") & IMPORT);
+    }
+}
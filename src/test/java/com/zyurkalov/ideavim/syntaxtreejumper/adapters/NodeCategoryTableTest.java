@@ -0,0 +1,81 @@
+package com.zyurkalov.ideavim.syntaxtreejumper.adapters;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import static com.zyurkalov.ideavim.syntaxtreejumper.adapters.NodeCategory.*;
+
+class NodeCategoryTableTest {
+
+    private static void assertHas(NodeCategoryTable table, String typeName, long expected) {
+        long categories = table.classify(typeName);
+        Assertions.assertEquals(expected, categories & expected, typeName);
+    }
+
+    private static void assertHasNot(NodeCategoryTable table, String typeName, long unexpected) {
+        long categories = table.classify(typeName);
+        Assertions.assertEquals(NONE, categories & unexpected, typeName);
+    }
+
+    @Test
+    void testDefaultTable() {
+        NodeCategoryTable table = NodeCategoryTable.INSTANCE;
+        assertHas(table, "FOR_STATEMENT", LOOP | STATEMENT);
+        assertHas(table, "SWITCH_EXPRESSION", CONDITIONAL | EXPRESSION | ARGUMENT | COMPOUND_EXPRESSION);
+        assertHas(table, "METHOD_CALL_EXPRESSION", METHOD_OR_FUNCTION_CALL | EXPRESSION);
+        assertHas(table, "EXPRESSION_LIST", EXPRESSION_LIST | COMPOUND_EXPRESSION);
+        assertHas(table, "LAMBDA_EXPRESSION", FUNCTION_DEFINITION);
+        assertHas(table, "END_OF_LINE_COMMENT", COMMENT);
+        assertHas(table, "IMPORT_STATEMENT", IMPORT | STATEMENT);
+        assertHas(table, "CLASS", CLASS_DEFINITION);
+        assertHasNot(table, "IDENTIFIER", LOOP | CONDITIONAL | COMMENT | EXPRESSION | MACRO | TYPE_USAGE);
+        Assertions.assertEquals(NONE, table.classify(""));
+    }
+
+    @Test
+    void testCppTableOverridesDefaults() {
+        NodeCategoryTable table = NodeCategoryTable.forRules("cpp");
+        assertHas(table, "FUNCTION_DEFINITION", FUNCTION_DEFINITION | METHOD_DEFINITION | TEMPLATE_CANDIDATE);
+        assertHasNot(table, "METHOD_DECLARATION", METHOD_DEFINITION);
+        assertHas(table, "CALL_EXPRESSION", METHOD_OR_FUNCTION_CALL);
+        assertHasNot(table, "METHOD_CALL_EXPRESSION", METHOD_OR_FUNCTION_CALL);
+        assertHas(table, "PARAMETER_DECLARATION", FUNCTION_PARAMETER | COMPOUND_EXPRESSION);
+        assertHas(table, "COMPOUND_INITIALIZER", ARGUMENT_LIST);
+        assertHas(table, "EAGER_BLOCK", BLOCK);
+        assertHasNot(table, "CODE_BLOCK", BLOCK);
+        assertHas(table, "OCKeyword:template", TEMPLATE_MARKER);
+        assertHas(table, "MACRO_REF", MACRO);
+        assertHas(table, "OCPunctuator:=", EQUAL_SYMBOL);
+        assertHas(table, "FOR_STATEMENT", LOOP);
+    }
+
+    @Test
+    void testRustTableOverridesDefaults() {
+        NodeCategoryTable table = NodeCategoryTable.forRules("rust");
+        assertHas(table, "FOR_EXPR", LOOP | EXPRESSION | ARGUMENT);
+        assertHas(table, "MATCH_ARM", LOOP);
+        assertHas(table, "LIFETIME", TYPE_PARAMETER);
+        assertHas(table, "PATH_TYPE", TYPE_USAGE | TYPE_ARGUMENT);
+        assertHas(table, "STRUCT_ITEM", CLASS_DEFINITION | TEMPLATE_CANDIDATE);
+        assertHas(table, "MACRO_CALL", MACRO);
+        assertHas(table, "<EOL_COMMENT>", COMMENT);
+        assertHasNot(table, "RETURN_STATEMENT", RETURN_STATEMENT | STATEMENT);
+        assertHasNot(table, "END_OF_LINE_COMMENT", COMMENT);
+    }
+
+    @Test
+    void testLuaTableOverridesDefaults() {
+        NodeCategoryTable table = NodeCategoryTable.forRules("lua");
+        assertHas(table, "Class Method", FUNCTION_DEFINITION);
+        // Only Class Methods with ':' in their name are methods, see LuaSyntaxNodeTest
+        assertHasNot(table, "Class Method", METHOD_DEFINITION);
+        Assertions.assertEquals(METHOD_DEFINITION, table.getRules().classifyConditional("Class Method"));
+        assertHas(table, "Global Function", FUNCTION_DEFINITION);
+        assertHasNot(table, "Global Function", METHOD_DEFINITION);
+        assertHas(table, "NAME_EXPR", VARIABLE_NAME | VARIABLE_CONTEXT | REFERENCE | ARGUMENT | EXPRESSION);
+        assertHas(table, "IF_STAT", LOOP | STATEMENT);
+        assertHas(table, "FUNC_BODY", PARAMETER_LIST);
+        assertHas(table, "GENERAL_TY", TYPE_USAGE);
+        assertHasNot(table, "EQ", EQUAL_SYMBOL);
+    }
+}
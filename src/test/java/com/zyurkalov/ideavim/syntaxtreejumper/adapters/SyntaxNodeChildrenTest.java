@@ -0,0 +1,111 @@
+package com.zyurkalov.ideavim.syntaxtreejumper.adapters;
+
+import com.intellij.psi.PsiElement;
+import com.zyurkalov.ideavim.syntaxtreejumper.stats.NodeVisitCounter;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static com.zyurkalov.ideavim.syntaxtreejumper.adapters.FakePsiElementTreeBuilder.branch;
+import static com.zyurkalov.ideavim.syntaxtreejumper.adapters.FakePsiElementTreeBuilder.leaf;
+import static com.zyurkalov.ideavim.syntaxtreejumper.adapters.FakePsiElementTreeBuilder.makeForLoop1To10;
+
+class SyntaxNodeChildrenTest {
+
+    private static void assertChildAccessMatchesGetChildren(SyntaxNode node, String message) {
+        List<SyntaxNode> children = node.getChildren();
+        Assertions.assertEquals(!children.isEmpty(), node.hasChildren(), message);
+        Assertions.assertEquals(children.size(), node.getChildCount(), message);
+        for (int i = 0; i < children.size(); i++) {
+            Assertions.assertSame(children.get(i).getPsiElement(), node.getChild(i).getPsiElement(), message);
+        }
+        Assertions.assertNull(node.getChild(children.size()), message);
+        Assertions.assertNull(node.getChild(-1), message);
+
+        List<PsiElement> visited = new ArrayList<>();
+        node.forEachChild(child -> visited.add(child.getPsiElement()));
+        Assertions.assertEquals(children.stream().map(SyntaxNode::getPsiElement).toList(), visited, message);
+        if (!children.isEmpty()) {
+            PsiElement last = children.get(children.size() - 1).getPsiElement();
+            Assertions.assertSame(last, node.findChild(child -> child.getPsiElement() == last).getPsiElement(), message);
+        }
+        Assertions.assertFalse(node.anyChildMatches(child -> false), message);
+    }
+
+    @Test
+    void testChildAccessMatchesGetChildren() {
+        FakePsiElementTreeBuilder.MyFakePsiElement root = branch(makeForLoop1To10(),
+                branch(leaf("a"), leaf(" "), leaf("b")).hideChildren(), leaf("c"));
+        SyntaxTreeSnapshot snapshot = SyntaxTreeSnapshot.build(root, 0, 0);
+        for (int i = 0; i < snapshot.size(); i++) {
+            assertChildAccessMatchesGetChildren(new PsiSyntaxNode(snapshot, i), "snapshot node " + i);
+            assertChildAccessMatchesGetChildren(new PsiSyntaxNode(snapshot.getElement(i)), "PSI node " + i);
+        }
+    }
+
+    @Test
+    void testChildAccessCreatesOnlyTheReturnedNodes() {
+        SyntaxTreeSnapshot snapshot = SyntaxTreeSnapshot.build(wideBranch(100), 0, 0);
+        SyntaxNode root = new PsiSyntaxNode(snapshot, snapshot.getRoot());
+
+        long before = NodeVisitCounter.get();
+        Assertions.assertTrue(root.hasChildren());
+        Assertions.assertEquals(100, root.getChildCount());
+        Assertions.assertEquals(0, NodeVisitCounter.get() - before);
+
+        before = NodeVisitCounter.get();
+        Assertions.assertNotNull(root.getChild(50));
+        Assertions.assertEquals(1, NodeVisitCounter.get() - before);
+
+        before = NodeVisitCounter.get();
+        Assertions.assertTrue(root.anyChildMatches(child -> child.getText().equals("x2")));
+        Assertions.assertEquals(3, NodeVisitCounter.get() - before);
+
+        before = NodeVisitCounter.get();
+        root.getChildren();
+        Assertions.assertEquals(100, NodeVisitCounter.get() - before);
+    }
+
+    @Test
+    void testCountingChildrenAllocatesLessThanListingThem() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        Assumptions.assumeTrue(bean instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) bean;
+        Assumptions.assumeTrue(threadBean.isThreadAllocatedMemoryEnabled());
+
+        SyntaxTreeSnapshot snapshot = SyntaxTreeSnapshot.build(wideBranch(100), 0, 0);
+        SyntaxNode root = new PsiSyntaxNode(snapshot, snapshot.getRoot());
+        long threadId = Thread.currentThread().getId();
+        long sink = 0;
+        for (int warmUp = 0; warmUp < 1000; warmUp++) {
+            sink += root.getChildren().size() + root.getChildCount();
+        }
+
+        long before = threadBean.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < 1000; i++) {
+            sink += root.getChildren().size();
+        }
+        long listing = threadBean.getThreadAllocatedBytes(threadId) - before;
+
+        before = threadBean.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < 1000; i++) {
+            sink += root.getChildCount();
+        }
+        long counting = threadBean.getThreadAllocatedBytes(threadId) - before;
+
+        Assertions.assertEquals(4 * 1000 * 100, sink);
+        // Listing creates 100 nodes and a list per call, counting creates nothing
+        Assertions.assertTrue(counting * 10 < listing, "counting " + counting + " bytes, listing " + listing + " bytes");
+    }
+
+    private static FakePsiElementTreeBuilder.MyFakePsiElement wideBranch(int children) {
+        return branch(IntStream.range(0, children)
+                .mapToObj(i -> leaf("x" + i))
+                .toArray(FakePsiElementTreeBuilder.MyFakePsiElement[]::new));
+    }
+}
@@ -0,0 +1,89 @@
+package com.zyurkalov.ideavim.syntaxtreejumper.adapters;
+
+import com.intellij.openapi.application.ReadAction;
+import com.intellij.openapi.command.WriteCommandAction;
+import com.intellij.psi.PsiDocumentManager;
+import com.intellij.psi.PsiFile;
+import com.intellij.testFramework.ExtensionTestUtil;
+import com.intellij.testFramework.fixtures.CodeInsightTestFixture;
+import com.intellij.testFramework.fixtures.IdeaProjectTestFixture;
+import com.intellij.testFramework.fixtures.IdeaTestFixtureFactory;
+import com.intellij.testFramework.fixtures.TestFixtureBuilder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+class SyntaxTreeAdapterFactoryTest {
+    private static final String JAVA_CODE = """
+            public class SameLevelElementsNavigator {
+                void execute() {
+                    int b = 2;
+                }
+            }
+            """;
+
+    private CodeInsightTestFixture myFixture;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        IdeaTestFixtureFactory factory = IdeaTestFixtureFactory.getFixtureFactory();
+        TestFixtureBuilder<IdeaProjectTestFixture> fixtureBuilder = factory.createLightFixtureBuilder(getClass().getName());
+        IdeaProjectTestFixture fixture = fixtureBuilder.getFixture();
+        myFixture = factory.createCodeInsightFixture(fixture);
+        myFixture.setUp();
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        myFixture.tearDown();
+    }
+
+    private static SyntaxTreeAdapter createAdapter(PsiFile psiFile) {
+        return ReadAction.compute(() -> SyntaxTreeAdapterFactory.createAdapter(psiFile));
+    }
+
+    @Test
+    void testAdapterIsReusedUntilTheFileChanges() {
+        PsiFile psiFile = myFixture.configureByText("test.java", JAVA_CODE);
+        SyntaxTreeAdapter adapter = createAdapter(psiFile);
+        Assertions.assertInstanceOf(PsiSyntaxTreeAdapter.class, adapter);
+        Assertions.assertSame(adapter, createAdapter(psiFile));
+
+        WriteCommandAction.runWriteCommandAction(myFixture.getProject(),
+                () -> myFixture.getEditor().getDocument().insertString(0, " "));
+        PsiDocumentManager.getInstance(myFixture.getProject()).commitAllDocuments();
+
+        SyntaxTreeAdapter edited = createAdapter(psiFile);
+        Assertions.assertNotSame(adapter, edited);
+        Assertions.assertEquals(JAVA_CODE.length() + 1, edited.getDocumentLength());
+        Assertions.assertSame(edited, createAdapter(psiFile));
+    }
+
+    @Test
+    void testProvidersOfOtherPluginsAreAskedFirst() {
+        PsiFile psiFile = myFixture.configureByText("test.java", JAVA_CODE);
+        SyntaxTreeAdapter defaultAdapter = createAdapter(psiFile);
+
+        AtomicInteger lookups = new AtomicInteger();
+        AtomicInteger created = new AtomicInteger();
+        SyntaxTreeAdapterProvider provider = (language, fileType) -> {
+            lookups.incrementAndGet();
+            return (file, snapshot) -> {
+                created.incrementAndGet();
+                return new PsiSyntaxTreeAdapter(file, snapshot);
+            };
+        };
+        ExtensionTestUtil.maskExtensions(SyntaxTreeAdapterProvider.EP_NAME,
+                List.of(provider, new RulesSyntaxTreeAdapterProvider()), myFixture.getTestRootDisposable());
+
+        SyntaxTreeAdapter adapter = createAdapter(psiFile);
+        Assertions.assertNotSame(defaultAdapter, adapter);
+        Assertions.assertSame(adapter, createAdapter(psiFile));
+        Assertions.assertEquals(1, lookups.get());
+        Assertions.assertEquals(1, created.get());
+    }
+}
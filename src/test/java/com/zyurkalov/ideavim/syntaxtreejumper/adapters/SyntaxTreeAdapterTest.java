@@ -0,0 +1,63 @@
+package com.zyurkalov.ideavim.syntaxtreejumper.adapters;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.stream.IntStream;
+
+import static com.zyurkalov.ideavim.syntaxtreejumper.adapters.FakePsiElementTreeBuilder.branch;
+import static com.zyurkalov.ideavim.syntaxtreejumper.adapters.FakePsiElementTreeBuilder.leaf;
+
+class SyntaxTreeAdapterTest {
+
+    private static boolean isASymbolToSkip(FakePsiElementTreeBuilder.MyFakePsiElement element) {
+        return SyntaxTreeAdapter.isASymbolToSkip(new PsiSyntaxNode(element));
+    }
+
+    @Test
+    void testPunctuationAndOperatorsAreSkipped() {
+        for (String text : new String[]{"(", ")", "[", "]", "{", "}", "'", "\"", ";", ",", "=", "||", "+=", "->"}) {
+            Assertions.assertTrue(isASymbolToSkip(leaf(text)), text);
+        }
+        Assertions.assertTrue(isASymbolToSkip(leaf(" ")));
+        Assertions.assertTrue(isASymbolToSkip(branch(leaf(" "), leaf("\n    "))));
+    }
+
+    @Test
+    void testIdentifiersAndLiteralsAreNotSkipped() {
+        Assertions.assertFalse(isASymbolToSkip(leaf("foo")));
+        Assertions.assertFalse(isASymbolToSkip(leaf("10")));
+        Assertions.assertFalse(isASymbolToSkip(branch(leaf("a"), leaf("+"), leaf("b"))));
+    }
+
+    @Test
+    void testTextOfLargeElementsIsNotBuilt() {
+        FakePsiElementTreeBuilder.MyFakePsiElement[] statements = IntStream.range(0, 10_000)
+                .mapToObj(i -> branch(leaf("i"), leaf("++"), leaf(";")))
+                .toArray(FakePsiElementTreeBuilder.MyFakePsiElement[]::new);
+        FakePsiElementTreeBuilder.MyFakePsiElement body = branch(statements);
+
+        Assertions.assertFalse(isASymbolToSkip(body));
+        Assertions.assertEquals(0, body.getTextRequests());
+        Assertions.assertEquals(0, statements[1].getTextRequests());
+    }
+
+    @Test
+    void testOperatorsWrappedInElementsAreOperators() {
+        FakePsiElementTreeBuilder.MyFakePsiElement operator = branch(leaf(" "), branch(leaf("&&")), leaf(" "));
+        SyntaxTreeSnapshot snapshot = SyntaxTreeSnapshot.build(operator, 0, 0, " && ");
+
+        Assertions.assertTrue(new PsiSyntaxNode(operator).isOperator());
+        Assertions.assertTrue(new PsiSyntaxNode(snapshot, snapshot.getRoot()).isOperator());
+    }
+
+    @Test
+    void testTextOfShortElementsWithSeveralTokensIsNotBuilt() {
+        FakePsiElementTreeBuilder.MyFakePsiElement expression = branch(leaf("a"), leaf(" "), leaf("+"), leaf("b"));
+        SyntaxTreeSnapshot snapshot = SyntaxTreeSnapshot.build(expression, 0, 0);
+
+        Assertions.assertFalse(new PsiSyntaxNode(expression).isOperator());
+        Assertions.assertFalse(new PsiSyntaxNode(snapshot, snapshot.getRoot()).isOperator());
+        Assertions.assertEquals(0, expression.getTextRequests());
+    }
+}
@@ -0,0 +1,143 @@
+package com.zyurkalov.ideavim.syntaxtreejumper.adapters;
+
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.psi.PsiFile;
+import com.intellij.testFramework.fixtures.CodeInsightTestFixture;
+import com.intellij.testFramework.fixtures.IdeaProjectTestFixture;
+import com.intellij.testFramework.fixtures.IdeaTestFixtureFactory;
+import com.intellij.testFramework.fixtures.TestFixtureBuilder;
+import com.zyurkalov.ideavim.syntaxtreejumper.MotionDirection;
+import com.zyurkalov.ideavim.syntaxtreejumper.Offsets;
+import com.zyurkalov.ideavim.syntaxtreejumper.motions.SyntaxTreeNodesMotionHandler;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.stream.IntStream;
+
+class SyntaxTreeSnapshotFromAstTest {
+    private static final String JAVA_CODE = """
+            public class SameLevelElementsNavigator {
+                void execute() {
+                    int[] a = new int[10] ;
+                    for (int i = 0; i < 10; i++) {
+                        a[i] = 2 * i;
+                    }
+                    int b = 2;
+                }
+            }
+            """;
+    private static final String RUST_CODE = """
+            // Fills the array
+            fn execute() {
+                let mut a = [0; 10];
+                for i in 0..10 {
+                    a[i] = 2 * i;
+                }
+                let b = 2;
+            }
+            """;
+
+    private CodeInsightTestFixture myFixture;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        IdeaTestFixtureFactory factory = IdeaTestFixtureFactory.getFixtureFactory();
+        TestFixtureBuilder<IdeaProjectTestFixture> fixtureBuilder = factory.createLightFixtureBuilder(getClass().getName());
+        IdeaProjectTestFixture fixture = fixtureBuilder.getFixture();
+        myFixture = factory.createCodeInsightFixture(fixture);
+        myFixture.setUp();
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        myFixture.tearDown();
+    }
+
+    @Test
+    void testSnapshotFromAstMirrorsTheSnapshotFromPsi() {
+        // Rust elements return the children that have children of their own, as the snapshot assumes
+        PsiFile psiFile = myFixture.configureByText("test.rs", RUST_CODE);
+        ApplicationManager.getApplication().runReadAction(() -> {
+            SyntaxTreeSnapshot fromPsi = SyntaxTreeSnapshot.build(psiFile);
+            SyntaxTreeSnapshot fromAst = SyntaxTreeSnapshot.buildFromAst(psiFile);
+
+            Assertions.assertTrue(fromAst.isFromAst());
+            Assertions.assertEquals(fromPsi.size(), fromAst.size());
+            for (int i = 0; i < fromPsi.size(); i++) {
+                Assertions.assertSame(fromPsi.getNode(i), fromAst.getNode(i), "node " + i);
+                Assertions.assertEquals(fromPsi.getParent(i), fromAst.getParent(i), "node " + i);
+                Assertions.assertEquals(fromPsi.getNextSibling(i), fromAst.getNextSibling(i), "node " + i);
+                Assertions.assertEquals(fromPsi.getStartOffset(i), fromAst.getStartOffset(i), "node " + i);
+                Assertions.assertEquals(fromPsi.getEndOffset(i), fromAst.getEndOffset(i), "node " + i);
+                Assertions.assertEquals(fromPsi.getTypeId(i), fromAst.getTypeId(i), "node " + i);
+                Assertions.assertEquals(fromPsi.getSubtreeEnd(i), fromAst.getSubtreeEnd(i), "node " + i);
+                Assertions.assertEquals(fromPsi.isPsiChild(i), fromAst.isPsiChild(i), "node " + i);
+                Assertions.assertEquals(fromPsi.hasPsiChildren(i), fromAst.hasPsiChildren(i), "node " + i);
+            }
+            for (int offset = 0; offset < RUST_CODE.length(); offset++) {
+                Assertions.assertEquals(fromPsi.findLeafAt(offset), fromAst.findLeafAt(offset), "offset " + offset);
+            }
+            for (int i = 1; i < fromPsi.size(); i++) {
+                Assertions.assertFalse(fromAst.isElementCreated(i), "node " + i);
+                Assertions.assertSame(fromPsi.getElement(i), fromAst.getElement(i), "node " + i);
+                Assertions.assertTrue(fromAst.isElementCreated(i), "node " + i);
+            }
+        });
+    }
+
+    @Test
+    void testOnlyLanguagesWithCompositePsiChildrenGetSnapshotsFromAst() {
+        PsiFile rustFile = myFixture.configureByText("test.rs", RUST_CODE);
+        PsiFile javaFile = myFixture.configureByText("test.java", JAVA_CODE);
+        SyntaxTreeAdapterProvider provider = new RulesSyntaxTreeAdapterProvider();
+
+        Assertions.assertTrue(provider.hasCompositePsiChildren(rustFile.getLanguage(), rustFile.getFileType()));
+        Assertions.assertFalse(provider.hasCompositePsiChildren(javaFile.getLanguage(), javaFile.getFileType()));
+        ApplicationManager.getApplication().runReadAction(() -> {
+            // Java elements also return their tokens, which a snapshot from the AST would leave out
+            SyntaxTreeSnapshot fromPsi = SyntaxTreeSnapshot.build(javaFile);
+            SyntaxTreeSnapshot fromAst = SyntaxTreeSnapshot.buildFromAst(javaFile);
+            Assertions.assertTrue(IntStream.range(0, fromPsi.size())
+                    .anyMatch(i -> fromPsi.isPsiChild(i) != fromAst.isPsiChild(i)));
+        });
+    }
+
+    @Test
+    void testNavigatingTheSnapshotFromAstCreatesNoPsi() {
+        PsiFile psiFile = myFixture.configureByText("test.java", JAVA_CODE);
+        ApplicationManager.getApplication().runReadAction(() -> {
+            SyntaxTreeSnapshot snapshot = SyntaxTreeSnapshot.buildFromAst(psiFile);
+            var handler = new SyntaxTreeNodesMotionHandler(new PsiSyntaxTreeAdapter(psiFile, snapshot),
+                    MotionDirection.FORWARD);
+
+            int forStart = JAVA_CODE.indexOf("for");
+            Offsets next = handler.findNext(new Offsets(forStart, forStart)).orElseThrow();
+            Assertions.assertEquals("int i = 0;", JAVA_CODE.substring(next.leftOffset(), next.rightOffset()));
+            for (int i = 1; i < snapshot.size(); i++) {
+                Assertions.assertFalse(snapshot.isElementCreated(i), "node " + i);
+            }
+        });
+    }
+
+    @Test
+    void testNodesOfBothSnapshotsAreEqual() {
+        PsiFile psiFile = myFixture.configureByText("test.java", JAVA_CODE);
+        ApplicationManager.getApplication().runReadAction(() -> {
+            SyntaxTreeSnapshot fromPsi = SyntaxTreeSnapshot.build(psiFile);
+            SyntaxTreeSnapshot fromAst = SyntaxTreeSnapshot.buildFromAst(psiFile);
+            for (int i = 0; i < fromPsi.size(); i++) {
+                SyntaxNode psiNode = new PsiSyntaxNode(fromPsi, i);
+                SyntaxNode astNode = new PsiSyntaxNode(fromAst, i);
+                Assertions.assertEquals(psiNode, astNode, "node " + i);
+                Assertions.assertEquals(psiNode.hashCode(), astNode.hashCode(), "node " + i);
+                Assertions.assertEquals(psiNode.getText(), astNode.getText(), "node " + i);
+                Assertions.assertEquals(psiNode.isWhitespace(), astNode.isWhitespace(), "node " + i);
+                Assertions.assertEquals(psiNode.isPsiFile(), astNode.isPsiFile(), "node " + i);
+                Assertions.assertEquals(psiNode.getTypeName(), astNode.getTypeName(), "node " + i);
+                Assertions.assertEquals(psiNode, new PsiSyntaxNode(fromPsi.getElement(i)), "node " + i);
+            }
+        });
+    }
+}
@@ -0,0 +1,272 @@
+package com.zyurkalov.ideavim.syntaxtreejumper.adapters;
+
+import com.intellij.psi.PsiElement;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static com.zyurkalov.ideavim.syntaxtreejumper.adapters.FakePsiElementTreeBuilder.branch;
+import static com.zyurkalov.ideavim.syntaxtreejumper.adapters.FakePsiElementTreeBuilder.leaf;
+import static com.zyurkalov.ideavim.syntaxtreejumper.adapters.FakePsiElementTreeBuilder.makeForLoop1To10;
+
+class SyntaxTreeSnapshotTest {
+
+    private static void collectPreOrder(PsiElement element, List<PsiElement> result) {
+        result.add(element);
+        for (PsiElement child = element.getFirstChild(); child != null; child = child.getNextSibling()) {
+            collectPreOrder(child, result);
+        }
+    }
+
+    private static PsiElement findLeafAt(PsiElement element, int offset) {
+        int start = 0;
+        while (element.getFirstChild() != null) {
+            PsiElement child = element.getFirstChild();
+            while (child != null && start + child.getTextLength() <= offset) {
+                start += child.getTextLength();
+                child = child.getNextSibling();
+            }
+            if (child == null) {
+                return null;
+            }
+            element = child;
+        }
+        return element;
+    }
+
+    private static PsiElement elementOrNull(SyntaxTreeSnapshot snapshot, int index) {
+        return index == SyntaxTreeSnapshot.NONE ? null : snapshot.getElement(index);
+    }
+
+    @Test
+    void testSnapshotMirrorsTheTreeInPreOrder() {
+        FakePsiElementTreeBuilder.MyFakePsiElement root = makeForLoop1To10();
+        SyntaxTreeSnapshot snapshot = SyntaxTreeSnapshot.build(root, 0, 0);
+
+        List<PsiElement> preOrder = new ArrayList<>();
+        collectPreOrder(root, preOrder);
+        Assertions.assertEquals(preOrder.size(), snapshot.size());
+
+        int offset = 0;
+        for (int i = 0; i < snapshot.size(); i++) {
+            PsiElement element = preOrder.get(i);
+            Assertions.assertSame(element, snapshot.getElement(i));
+            Assertions.assertSame(i == 0 ? null : element.getParent(),
+                    elementOrNull(snapshot, snapshot.getParent(i)));
+            Assertions.assertSame(element.getFirstChild(), elementOrNull(snapshot, snapshot.getFirstChild(i)));
+            Assertions.assertSame(element.getLastChild(), elementOrNull(snapshot, snapshot.getLastChild(i)));
+            Assertions.assertSame(element.getNextSibling(), elementOrNull(snapshot, snapshot.getNextSibling(i)));
+            Assertions.assertSame(element.getPrevSibling(), elementOrNull(snapshot, snapshot.getPreviousSibling(i)));
+
+            Assertions.assertEquals(offset, snapshot.getStartOffset(i));
+            Assertions.assertEquals(offset + element.getTextLength(), snapshot.getEndOffset(i));
+            if (element.getFirstChild() == null) {
+                offset += element.getTextLength();
+            }
+        }
+        Assertions.assertEquals(root.getTextLength(), snapshot.getEndOffset(snapshot.getRoot()));
+    }
+
+    @Test
+    void testSubtreeEndCoversAllDescendants() {
+        FakePsiElementTreeBuilder.MyFakePsiElement root = makeForLoop1To10();
+        SyntaxTreeSnapshot snapshot = SyntaxTreeSnapshot.build(root, 0, 0);
+
+        Assertions.assertEquals(snapshot.size(), snapshot.getSubtreeEnd(snapshot.getRoot()));
+        for (int i = 1; i < snapshot.size(); i++) {
+            int parent = snapshot.getParent(i);
+            Assertions.assertTrue(parent < i);
+            Assertions.assertTrue(i < snapshot.getSubtreeEnd(parent));
+            Assertions.assertEquals(snapshot.getDepth(parent) + 1, snapshot.getDepth(i));
+        }
+    }
+
+    @Test
+    void testFindLeafAtMatchesTreeWalk() {
+        FakePsiElementTreeBuilder.MyFakePsiElement root = makeForLoop1To10();
+        SyntaxTreeSnapshot snapshot = SyntaxTreeSnapshot.build(root, 0, 0);
+
+        for (int offset = 0; offset < root.getTextLength(); offset++) {
+            Assertions.assertSame(findLeafAt(root, offset), snapshot.getElement(snapshot.findLeafAt(offset)),
+                    "offset " + offset);
+        }
+        Assertions.assertEquals(SyntaxTreeSnapshot.NONE, snapshot.findLeafAt(root.getTextLength()));
+    }
+
+    @Test
+    void testFindCommonParent() {
+        FakePsiElementTreeBuilder.MyFakePsiElement root = makeForLoop1To10();
+        SyntaxTreeSnapshot snapshot = SyntaxTreeSnapshot.build(root, 0, 0);
+
+        // "for (int i = 0; i < 10; ..." - "int" and "0" belong to the same declaration statement
+        int intKeyword = snapshot.findLeafAt(5);
+        int zero = snapshot.findLeafAt(13);
+        Assertions.assertEquals("int", snapshot.getElement(intKeyword).getText());
+        Assertions.assertEquals("0", snapshot.getElement(zero).getText());
+
+        int commonParent = snapshot.findCommonParent(intKeyword, zero);
+        Assertions.assertEquals("OCDeclarationStatement",
+                ((FakePsiElementTreeBuilder.MyFakePsiElement) snapshot.getElement(commonParent)).getType());
+        Assertions.assertEquals(intKeyword, snapshot.findCommonParent(intKeyword, intKeyword));
+        Assertions.assertEquals(snapshot.getRoot(), snapshot.findCommonParent(intKeyword, snapshot.findLeafAt(40)));
+    }
+
+    @Test
+    void testSnapshotNodesNavigateLikePsiNodes() {
+        FakePsiElementTreeBuilder.MyFakePsiElement root = makeForLoop1To10();
+        SyntaxTreeSnapshot snapshot = SyntaxTreeSnapshot.build(root, 0, 0);
+
+        for (int i = 1; i < snapshot.size(); i++) {
+            SyntaxNode snapshotNode = new PsiSyntaxNode(snapshot, i);
+            SyntaxNode psiNode = new PsiSyntaxNode(snapshot.getElement(i));
+
+            Assertions.assertSame(psiNode.getParent().getPsiElement(), snapshotNode.getParent().getPsiElement());
+            assertSameElement(psiNode.getNextSibling(), snapshotNode.getNextSibling());
+            assertSameElement(psiNode.getPreviousSibling(), snapshotNode.getPreviousSibling());
+            assertSameElement(psiNode.getFirstChild(), snapshotNode.getFirstChild());
+            assertSameElement(psiNode.getLastChild(), snapshotNode.getLastChild());
+
+            List<SyntaxNode> psiChildren = psiNode.getChildren();
+            List<SyntaxNode> snapshotChildren = snapshotNode.getChildren();
+            Assertions.assertEquals(psiChildren.size(), snapshotChildren.size());
+            for (int child = 0; child < psiChildren.size(); child++) {
+                assertSameElement(psiChildren.get(child), snapshotChildren.get(child));
+            }
+        }
+    }
+
+    @Test
+    void testTextViewsMatchElementText() {
+        FakePsiElementTreeBuilder.MyFakePsiElement root = makeForLoop1To10();
+        SyntaxTreeSnapshot snapshot = SyntaxTreeSnapshot.build(root, 0, 0, root.getText());
+
+        for (int i = 0; i < snapshot.size(); i++) {
+            String expected = snapshot.getElement(i).getText();
+            Assertions.assertEquals(expected, String.valueOf(snapshot.getText(i)));
+            Assertions.assertEquals(expected, new PsiSyntaxNode(snapshot, i).getTextSequence().toString());
+        }
+        Assertions.assertNull(SyntaxTreeSnapshot.build(root, 0, 0).getText(0));
+        Assertions.assertNull(SyntaxTreeSnapshot.build(root, 0, 0, "for").getText(0));
+    }
+
+    @Test
+    void testIndexOfFindsElementsAtTheirOffset() {
+        FakePsiElementTreeBuilder.MyFakePsiElement root = makeForLoop1To10();
+        SyntaxTreeSnapshot snapshot = SyntaxTreeSnapshot.build(root, 0, 0);
+
+        for (int i = 0; i < snapshot.size(); i++) {
+            Assertions.assertEquals(i, snapshot.indexOf(snapshot.getElement(i), snapshot.getStartOffset(i)));
+        }
+        Assertions.assertEquals(SyntaxTreeSnapshot.NONE, snapshot.indexOf(root, 1));
+        Assertions.assertEquals(SyntaxTreeSnapshot.NONE, snapshot.indexOf(leaf("for"), 0));
+    }
+
+    @Test
+    void testRebuiltSubtreeMatchesFreshBuildAfterRandomEdits() {
+        Random random = new Random(42);
+        FakePsiElementTreeBuilder.MyFakePsiElement root = makeForLoop1To10();
+        SyntaxTreeSnapshot snapshot = SyntaxTreeSnapshot.build(root, 0, 0);
+
+        for (int edit = 1; edit <= 500; edit++) {
+            List<PsiElement> elements = new ArrayList<>();
+            collectPreOrder(root, elements);
+
+            // Several changes between two updates are merged into their common parent, like the cache does
+            PsiElement changed = null;
+            int changes = 1 + random.nextInt(3);
+            for (int change = 0; change < changes; change++) {
+                var target = (FakePsiElementTreeBuilder.MyFakePsiElement) elements.get(random.nextInt(elements.size()));
+                target.setChildren(randomChildren(random, target));
+                changed = changed == null ? target : findCommonParent(changed, target);
+            }
+
+            int index = snapshot.indexOf(changed, getStartOffset(changed));
+            Assertions.assertNotEquals(SyntaxTreeSnapshot.NONE, index, "edit " + edit);
+            snapshot.getSubtreeCategories(NodeCategoryTable.INSTANCE);
+            snapshot = snapshot.withRebuiltSubtree(index, edit, null);
+            SyntaxTreeSnapshot fresh = SyntaxTreeSnapshot.build(root, 0, edit);
+            assertSameSnapshot(fresh, snapshot, "edit " + edit);
+            Assertions.assertArrayEquals(fresh.getSubtreeCategories(NodeCategoryTable.INSTANCE),
+                    snapshot.getSubtreeCategories(NodeCategoryTable.INSTANCE), "edit " + edit);
+        }
+    }
+
+    private static List<FakePsiElementTreeBuilder.MyFakePsiElement> randomChildren(
+            Random random, FakePsiElementTreeBuilder.MyFakePsiElement parent) {
+        String[] texts = {"a", "bc", " ", "", ";", "10", "(", ")"};
+        List<FakePsiElementTreeBuilder.MyFakePsiElement> children = new ArrayList<>();
+        for (PsiElement child : parent.getChildren()) {
+            if (random.nextInt(3) > 0) {
+                children.add((FakePsiElementTreeBuilder.MyFakePsiElement) child);
+            }
+        }
+        int added = random.nextInt(3);
+        for (int i = 0; i < added; i++) {
+            var newChild = random.nextBoolean()
+                    ? leaf(texts[random.nextInt(texts.length)])
+                    : branch(leaf(texts[random.nextInt(texts.length)]), leaf(texts[random.nextInt(texts.length)]));
+            children.add(random.nextInt(children.size() + 1), newChild);
+        }
+        return children;
+    }
+
+    private static PsiElement findCommonParent(PsiElement first, PsiElement second) {
+        Set<PsiElement> ancestors = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (PsiElement element = first; element != null; element = element.getParent()) {
+            ancestors.add(element);
+        }
+        PsiElement element = second;
+        while (!ancestors.contains(element)) {
+            element = element.getParent();
+        }
+        return element;
+    }
+
+    private static int getStartOffset(PsiElement element) {
+        int offset = 0;
+        for (; element.getParent() != null; element = element.getParent()) {
+            for (PsiElement sibling = element.getPrevSibling(); sibling != null; sibling = sibling.getPrevSibling()) {
+                offset += sibling.getTextLength();
+            }
+        }
+        return offset;
+    }
+
+    private static void assertSameSnapshot(SyntaxTreeSnapshot expected, SyntaxTreeSnapshot actual, String message) {
+        Assertions.assertEquals(expected.size(), actual.size(), message);
+        for (int i = 0; i < expected.size(); i++) {
+            String node = message + ", node " + i;
+            Assertions.assertSame(expected.getElement(i), actual.getElement(i), node);
+            Assertions.assertEquals(expected.getParent(i), actual.getParent(i), node);
+            Assertions.assertEquals(expected.getFirstChild(i), actual.getFirstChild(i), node);
+            Assertions.assertEquals(expected.getLastChild(i), actual.getLastChild(i), node);
+            Assertions.assertEquals(expected.getNextSibling(i), actual.getNextSibling(i), node);
+            Assertions.assertEquals(expected.getPreviousSibling(i), actual.getPreviousSibling(i), node);
+            Assertions.assertEquals(expected.getStartOffset(i), actual.getStartOffset(i), node);
+            Assertions.assertEquals(expected.getEndOffset(i), actual.getEndOffset(i), node);
+            Assertions.assertEquals(expected.getTypeId(i), actual.getTypeId(i), node);
+            Assertions.assertEquals(expected.getSubtreeEnd(i), actual.getSubtreeEnd(i), node);
+            Assertions.assertEquals(expected.getDepth(i), actual.getDepth(i), node);
+            Assertions.assertEquals(expected.isPsiChild(i), actual.isPsiChild(i), node);
+            Assertions.assertEquals(expected.hasPsiChildren(i), actual.hasPsiChildren(i), node);
+        }
+        for (int offset = 0; offset <= expected.getEndOffset(expected.getRoot()); offset++) {
+            Assertions.assertEquals(expected.findLeafAt(offset), actual.findLeafAt(offset), message + ", offset " + offset);
+        }
+    }
+
+    private static void assertSameElement(SyntaxNode expected, SyntaxNode actual) {
+        if (expected == null) {
+            Assertions.assertNull(actual);
+            return;
+        }
+        Assertions.assertNotNull(actual);
+        Assertions.assertSame(expected.getPsiElement(), actual.getPsiElement());
+    }
+}
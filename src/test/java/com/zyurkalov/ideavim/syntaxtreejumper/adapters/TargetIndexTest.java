@@ -0,0 +1,189 @@
+package com.zyurkalov.ideavim.syntaxtreejumper.adapters;
+
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiFile;
+import com.zyurkalov.ideavim.syntaxtreejumper.MotionDirection;
+import com.zyurkalov.ideavim.syntaxtreejumper.Offsets;
+import com.zyurkalov.ideavim.syntaxtreejumper.motions.AbstractSyntaxTreeNodesMotionHandler;
+import com.zyurkalov.ideavim.syntaxtreejumper.motions.MotionHandler;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.Predicate;
+
+import static com.zyurkalov.ideavim.syntaxtreejumper.MotionDirection.BACKWARD;
+import static com.zyurkalov.ideavim.syntaxtreejumper.MotionDirection.FORWARD;
+import static com.zyurkalov.ideavim.syntaxtreejumper.adapters.FakePsiElementTreeBuilder.branch;
+import static com.zyurkalov.ideavim.syntaxtreejumper.adapters.FakePsiElementTreeBuilder.leaf;
+import static com.zyurkalov.ideavim.syntaxtreejumper.adapters.FakePsiElementTreeBuilder.makeForLoop1To10;
+
+class TargetIndexTest {
+
+    /**
+     * A handler that goes deeper and finds the given targets, with or without a target index.
+     */
+    private static final class TargetHandler extends AbstractSyntaxTreeNodesMotionHandler {
+        private final Predicate<SyntaxNode> isTarget;
+        private final boolean indexed;
+
+        private TargetHandler(SyntaxTreeAdapter syntaxTree, MotionDirection direction,
+                              Predicate<SyntaxNode> isTarget, boolean indexed) {
+            super(syntaxTree, direction);
+            this.isTarget = isTarget;
+            this.indexed = indexed;
+        }
+
+        @Override
+        protected boolean doesTargetFollowRequirements(SyntaxNode startingPoint, SyntaxNode targetElement,
+                                                       Offsets initialOffsets) {
+            return isTarget.test(targetElement);
+        }
+
+        @Override
+        protected boolean shallGoDeeper() {
+            return true;
+        }
+
+        @Override
+        protected boolean areTargetsIndependentOfStartingPoint() {
+            return indexed;
+        }
+    }
+
+    /**
+     * Answers the queries of the handlers from the snapshot of a tree without a file.
+     */
+    private static final class SnapshotAdapter extends SyntaxTreeAdapter {
+        private final SyntaxTreeSnapshot snapshot;
+
+        private SnapshotAdapter(SyntaxTreeSnapshot snapshot) {
+            this.snapshot = snapshot;
+        }
+
+        @Override
+        public @Nullable PsiFile getPsiFile() {
+            return null;
+        }
+
+        @Override
+        public @Nullable SyntaxNode findNodeAt(int offset) {
+            int index = snapshot.findLeafAt(offset);
+            return index != SyntaxTreeSnapshot.NONE ? new PsiSyntaxNode(snapshot, index) : null;
+        }
+
+        @Override
+        public @Nullable SyntaxNode findCommonParent(@NotNull SyntaxNode node1, @NotNull SyntaxNode node2) {
+            return new PsiSyntaxNode(snapshot,
+                    snapshot.findCommonParent(node1.getSnapshotIndex(), node2.getSnapshotIndex()));
+        }
+
+        @Override
+        public int getDocumentLength() {
+            return snapshot.getEndOffset(snapshot.getRoot());
+        }
+    }
+
+    private static FakePsiElementTreeBuilder.MyFakePsiElement randomTree(Random random, int depth) {
+        if (depth == 0 || random.nextInt(4) == 0) {
+            return leaf(random.nextInt(5) == 0 ? "" : "x" + random.nextInt(10));
+        }
+        FakePsiElementTreeBuilder.MyFakePsiElement[] children =
+                new FakePsiElementTreeBuilder.MyFakePsiElement[1 + random.nextInt(4)];
+        for (int i = 0; i < children.length; i++) {
+            children[i] = randomTree(random, depth - 1);
+        }
+        FakePsiElementTreeBuilder.MyFakePsiElement branch = branch(children);
+        return random.nextInt(6) == 0 ? branch.hideChildren() : branch;
+    }
+
+    private static void assertIndexMatchesWalk(PsiElement root, Random random) {
+        SyntaxTreeSnapshot snapshot = SyntaxTreeSnapshot.build(root, 0, 0);
+        Set<PsiElement> targets = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (int i = 0; i < snapshot.size(); i++) {
+            if (random.nextInt(4) == 0) {
+                targets.add(snapshot.getElement(i));
+            }
+        }
+        Predicate<SyntaxNode> isTarget = node -> targets.contains(node.getPsiElement());
+
+        SyntaxNode rootNode = new PsiSyntaxNode(snapshot, snapshot.getRoot());
+        TargetIndex index = TargetIndex.get(rootNode, "test", isTarget);
+        Assertions.assertNotNull(index);
+        Assertions.assertEquals(targets.size(), index.size());
+        SyntaxTreeAdapter adapter = new SnapshotAdapter(snapshot);
+        for (MotionDirection direction : new MotionDirection[]{FORWARD, BACKWARD}) {
+            MotionHandler indexed = new TargetHandler(adapter, direction, isTarget, true);
+            MotionHandler walk = new TargetHandler(adapter, direction, isTarget, false);
+            for (int offset = 0; offset <= adapter.getDocumentLength(); offset++) {
+                Offsets caret = new Offsets(offset, offset);
+                Offsets expected = walk.findNext(caret).orElseThrow();
+                Offsets actual = indexed.findNext(caret).orElseThrow();
+                if (!expected.equals(actual)) {
+                    // The walk stops at empty siblings at the caret, see the test below
+                    Assertions.assertEquals(caret, expected, direction + " from " + offset);
+                    continue;
+                }
+                Assertions.assertEquals(expected, actual, direction + " from " + offset);
+            }
+        }
+    }
+
+    @Test
+    void testIndexMatchesTreeWalk() {
+        Random random = new Random(42);
+        assertIndexMatchesWalk(makeForLoop1To10(), random);
+        for (int tree = 0; tree < 200; tree++) {
+            assertIndexMatchesWalk(randomTree(random, 5), random);
+        }
+    }
+
+    @Test
+    void testOnlyTheWalkStopsAtEmptySiblingsAtTheCaret() {
+        FakePsiElementTreeBuilder.MyFakePsiElement target = leaf("x");
+        FakePsiElementTreeBuilder.MyFakePsiElement root =
+                branch(branch(target, leaf(""), leaf(""), leaf("")), leaf("y"));
+        SyntaxTreeSnapshot snapshot = SyntaxTreeSnapshot.build(root, 0, 0);
+        Predicate<SyntaxNode> isTarget = node -> node.getPsiElement() == target;
+        SyntaxTreeAdapter adapter = new SnapshotAdapter(snapshot);
+        Offsets caret = new Offsets(1, 1);
+
+        Assertions.assertEquals(caret,
+                new TargetHandler(adapter, BACKWARD, isTarget, false).findNext(caret).orElseThrow());
+        Assertions.assertEquals(new Offsets(0, 1),
+                new TargetHandler(adapter, BACKWARD, isTarget, true).findNext(caret).orElseThrow());
+    }
+
+    @Test
+    void testIndexSkipsSubtreesWithoutTargetCategories() {
+        SyntaxTreeSnapshot snapshot = SyntaxTreeSnapshot.build(makeForLoop1To10(), 0, 0);
+        SyntaxNode root = new PsiSyntaxNode(snapshot, snapshot.getRoot());
+
+        // Fake elements have no element type, so none of them is a comment
+        Assertions.assertEquals(NodeCategory.NONE, root.getCategories());
+        Assertions.assertFalse(root.mayContainCategory(NodeCategory.COMMENT));
+        TargetIndex comments = TargetIndex.get(root, "comments", NodeCategory.COMMENT, node -> true);
+        Assertions.assertNotNull(comments);
+        Assertions.assertEquals(0, comments.size());
+        TargetIndex all = TargetIndex.get(root, "all", NodeCategory.NONE, node -> true);
+        Assertions.assertNotNull(all);
+        Assertions.assertEquals(snapshot.size(), all.size());
+    }
+
+    @Test
+    void testIndexIsCachedPerSnapshotAndKey() {
+        SyntaxTreeSnapshot snapshot = SyntaxTreeSnapshot.build(makeForLoop1To10(), 0, 0);
+        SyntaxNode root = new PsiSyntaxNode(snapshot, snapshot.getRoot());
+
+        TargetIndex identifiers = TargetIndex.get(root, "identifiers", SyntaxNode::isVariable);
+        Assertions.assertSame(identifiers, TargetIndex.get(root, "identifiers", SyntaxNode::isVariable));
+        Assertions.assertNotSame(identifiers, TargetIndex.get(root, "comments", SyntaxNode::isComment));
+        Assertions.assertNull(TargetIndex.get(new PsiSyntaxNode(snapshot.getElement(0)), "identifiers",
+                SyntaxNode::isVariable));
+    }
+}
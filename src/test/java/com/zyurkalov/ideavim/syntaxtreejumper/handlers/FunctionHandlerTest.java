@@ -0,0 +1,84 @@
+package com.zyurkalov.ideavim.syntaxtreejumper.handlers;
+
+import com.intellij.openapi.editor.Caret;
+import com.intellij.openapi.editor.Editor;
+import com.intellij.openapi.fileEditor.FileEditorManager;
+import com.intellij.psi.PsiFile;
+import com.intellij.testFramework.EdtTestUtil;
+import com.intellij.testFramework.fixtures.CodeInsightTestFixture;
+import com.intellij.testFramework.fixtures.IdeaProjectTestFixture;
+import com.intellij.testFramework.fixtures.IdeaTestFixtureFactory;
+import com.intellij.testFramework.fixtures.TestFixtureBuilder;
+import com.maddyhome.idea.vim.api.VimEditor;
+import com.maddyhome.idea.vim.command.OperatorArguments;
+import com.maddyhome.idea.vim.newapi.IjVimEditorKt;
+import com.maddyhome.idea.vim.state.mode.Mode;
+import com.zyurkalov.ideavim.syntaxtreejumper.motions.MethodFunctionMotionHandler;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static com.maddyhome.idea.vim.api.VimInjectorKt.injector;
+import static com.zyurkalov.ideavim.syntaxtreejumper.MotionDirection.FORWARD;
+
+class FunctionHandlerTest {
+    private static final String FIRST_CODE = """
+            public class First {
+                void first() {
+                }
+            }
+            """;
+    private static final String SECOND_CODE = """
+            public class Second {
+                void second() {
+                }
+
+                void third() {
+                }
+            }
+            """;
+
+    private CodeInsightTestFixture myFixture;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        IdeaTestFixtureFactory factory = IdeaTestFixtureFactory.getFixtureFactory();
+        TestFixtureBuilder<IdeaProjectTestFixture> fixtureBuilder = factory.createLightFixtureBuilder(getClass().getName());
+        IdeaProjectTestFixture fixture = fixtureBuilder.getFixture();
+        myFixture = factory.createCodeInsightFixture(fixture);
+        myFixture.setUp();
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        myFixture.tearDown();
+    }
+
+    @Test
+    void testMotionPastTheLastFunctionSelectsTheFirstFunctionOfTheNextFile() {
+        PsiFile first = myFixture.addFileToProject("nav/First.java", FIRST_CODE);
+        PsiFile second = myFixture.addFileToProject("nav/Second.java", SECOND_CODE);
+        FunctionHandler handler = new FunctionHandler("MethodFunction", FORWARD, MethodFunctionMotionHandler::new);
+
+        EdtTestUtil.runInEdtAndWait(() -> {
+            myFixture.configureFromExistingVirtualFile(first.getVirtualFile());
+            Editor editor = myFixture.getEditor();
+            // After the last function of the file
+            editor.getCaretModel().moveToOffset(FIRST_CODE.lastIndexOf('}'));
+            VimEditor vimEditor = IjVimEditorKt.getVim(editor);
+
+            handler.execute(vimEditor, injector.getExecutionContextManager().getEditorExecutionContext(vimEditor),
+                    new OperatorArguments(0, new Mode.NORMAL()));
+
+            Editor otherEditor = FileEditorManager.getInstance(myFixture.getProject()).getSelectedTextEditor();
+            Assertions.assertNotNull(otherEditor);
+            Assertions.assertEquals(second.getVirtualFile(), otherEditor.getVirtualFile());
+            Caret caret = otherEditor.getCaretModel().getPrimaryCaret();
+            int start = SECOND_CODE.indexOf("void second");
+            Assertions.assertEquals(start, caret.getSelectionStart());
+            Assertions.assertEquals(SECOND_CODE.indexOf("}", start) + 1, caret.getSelectionEnd());
+            Assertions.assertEquals(start, caret.getOffset());
+        });
+    }
+}
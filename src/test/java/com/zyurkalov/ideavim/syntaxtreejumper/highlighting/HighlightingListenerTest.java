@@ -0,0 +1,92 @@
+package com.zyurkalov.ideavim.syntaxtreejumper.highlighting;
+
+import com.intellij.openapi.Disposable;
+import com.intellij.openapi.editor.Editor;
+import com.intellij.openapi.editor.EditorFactory;
+import com.intellij.openapi.util.Disposer;
+import com.intellij.testFramework.EdtTestUtil;
+import com.intellij.testFramework.fixtures.CodeInsightTestFixture;
+import com.intellij.testFramework.fixtures.IdeaProjectTestFixture;
+import com.intellij.testFramework.fixtures.IdeaTestFixtureFactory;
+import com.intellij.testFramework.fixtures.TestFixtureBuilder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class HighlightingListenerTest {
+    private static final String JAVA_CODE = """
+            public class TestClass {
+                int first = 1;
+            }
+            """;
+
+    private CodeInsightTestFixture myFixture;
+    private Disposable testDisposable;
+    private boolean highlightingEnabled;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        IdeaTestFixtureFactory factory = IdeaTestFixtureFactory.getFixtureFactory();
+        TestFixtureBuilder<IdeaProjectTestFixture> fixtureBuilder = factory.createLightFixtureBuilder(getClass().getName());
+        IdeaProjectTestFixture fixture = fixtureBuilder.getFixture();
+        myFixture = factory.createCodeInsightFixture(fixture);
+        myFixture.setUp();
+        testDisposable = Disposer.newDisposable();
+        highlightingEnabled = HighlightingConfig.getInstance().highlightingEnabled;
+        HighlightingConfig.getInstance().highlightingEnabled = true;
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        EdtTestUtil.runInEdtAndWait(HighlightingListener::stop);
+        HighlightingConfig.getInstance().highlightingEnabled = highlightingEnabled;
+        Disposer.dispose(testDisposable);
+        myFixture.tearDown();
+    }
+
+    @Test
+    void testStopDisposesTheUpdatersAndTheListener() {
+        myFixture.configureByText("TestClass.java", JAVA_CODE);
+        Editor editor = myFixture.getEditor();
+
+        EdtTestUtil.runInEdtAndWait(() -> {
+            HighlightingListener.start(testDisposable);
+            HighlightingListener.update(editor);
+            Assertions.assertNotNull(HighlightingListener.getUpdater(editor));
+
+            HighlightingListener.stop();
+            Assertions.assertNull(HighlightingListener.getUpdater(editor));
+
+            // Nothing listens to the carets anymore
+            editor.getCaretModel().moveToOffset(JAVA_CODE.indexOf("first"));
+            Assertions.assertNull(HighlightingListener.getUpdater(editor));
+        });
+    }
+
+    @Test
+    void testUpdaterIsDisposedWithItsEditor() {
+        EdtTestUtil.runInEdtAndWait(() -> {
+            EditorFactory editorFactory = EditorFactory.getInstance();
+            Editor editor = editorFactory.createEditor(editorFactory.createDocument(JAVA_CODE), myFixture.getProject());
+            HighlightingListener.update(editor);
+            HighlightingUpdater updater = HighlightingListener.getUpdater(editor);
+            Assertions.assertNotNull(updater);
+
+            editorFactory.releaseEditor(editor);
+
+            Assertions.assertNull(HighlightingListener.getUpdater(editor));
+        });
+    }
+
+    @Test
+    void testUpdateWhileTheHighlightingIsOffCreatesNoUpdater() {
+        myFixture.configureByText("TestClass.java", JAVA_CODE);
+        Editor editor = myFixture.getEditor();
+        HighlightingConfig.getInstance().highlightingEnabled = false;
+
+        EdtTestUtil.runInEdtAndWait(() -> HighlightingListener.update(editor));
+
+        Assertions.assertNull(HighlightingListener.getUpdater(editor));
+    }
+}
@@ -0,0 +1,160 @@
+package com.zyurkalov.ideavim.syntaxtreejumper.highlighting;
+
+import com.intellij.openapi.Disposable;
+import com.intellij.openapi.editor.Editor;
+import com.intellij.openapi.editor.ex.MarkupModelEx;
+import com.intellij.openapi.editor.ex.RangeHighlighterEx;
+import com.intellij.openapi.editor.impl.event.MarkupModelListener;
+import com.intellij.openapi.editor.markup.RangeHighlighter;
+import com.intellij.openapi.editor.markup.TextAttributes;
+import com.intellij.openapi.util.Disposer;
+import com.intellij.testFramework.EdtTestUtil;
+import com.intellij.testFramework.fixtures.CodeInsightTestFixture;
+import com.intellij.testFramework.fixtures.IdeaProjectTestFixture;
+import com.intellij.testFramework.fixtures.IdeaTestFixtureFactory;
+import com.intellij.testFramework.fixtures.TestFixtureBuilder;
+import com.zyurkalov.ideavim.syntaxtreejumper.highlighting.PsiElementHighlighter.Highlight;
+import com.zyurkalov.ideavim.syntaxtreejumper.highlighting.PsiElementHighlighter.Kind;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+class PsiElementHighlighterTest {
+    private static final String JAVA_CODE = """
+            public class TestClass {
+                int first = 1;
+                int second = 2;
+            }
+            """;
+
+    private CodeInsightTestFixture myFixture;
+    private Disposable testDisposable;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        IdeaTestFixtureFactory factory = IdeaTestFixtureFactory.getFixtureFactory();
+        TestFixtureBuilder<IdeaProjectTestFixture> fixtureBuilder = factory.createLightFixtureBuilder(getClass().getName());
+        IdeaProjectTestFixture fixture = fixtureBuilder.getFixture();
+        myFixture = factory.createCodeInsightFixture(fixture);
+        myFixture.setUp();
+        testDisposable = Disposer.newDisposable();
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        Disposer.dispose(testDisposable);
+        myFixture.tearDown();
+    }
+
+    private Highlight highlight(Kind kind, String text) {
+        int start = JAVA_CODE.indexOf(text);
+        return new Highlight(kind, start, start + text.length(), "FIELD");
+    }
+
+    private static int countHighlighters(Editor editor) {
+        return editor.getMarkupModel().getAllHighlighters().length;
+    }
+
+    private RangeHighlighter findHighlighter(Editor editor, Highlight highlight) {
+        return Arrays.stream(editor.getMarkupModel().getAllHighlighters())
+                .filter(h -> h.getStartOffset() == highlight.startOffset() && h.getEndOffset() == highlight.endOffset())
+                .findFirst()
+                .orElseThrow();
+    }
+
+    /**
+     * Counts the highlighters added, removed and changed in the markup model of the editor.
+     */
+    private int[] countMarkupChanges(Editor editor) {
+        int[] changes = {0};
+        ((MarkupModelEx) editor.getMarkupModel()).addMarkupModelListener(testDisposable, new MarkupModelListener() {
+            @Override
+            public void afterAdded(@NotNull RangeHighlighterEx highlighter) {
+                changes[0]++;
+            }
+
+            @Override
+            public void beforeRemoved(@NotNull RangeHighlighterEx highlighter) {
+                changes[0]++;
+            }
+
+            @Override
+            public void attributesChanged(@NotNull RangeHighlighterEx highlighter, boolean renderersChanged,
+                                          boolean fontStyleOrColorChanged) {
+                changes[0]++;
+            }
+        });
+        return changes;
+    }
+
+    @Test
+    void testApplyingTheSameHighlightsAgainDoesNotChangeTheMarkupModel() {
+        myFixture.configureByText("TestClass.java", JAVA_CODE);
+        Editor editor = myFixture.getEditor();
+        List<Highlight> highlights = List.of(
+                highlight(Kind.CURRENT_ELEMENT, "int first = 1;"),
+                highlight(Kind.NEXT_SIBLING, "int second = 2;"));
+
+        EdtTestUtil.runInEdtAndWait(() -> {
+            int existing = countHighlighters(editor);
+            PsiElementHighlighter highlighter = new PsiElementHighlighter(editor);
+            highlighter.applyHighlights(highlights);
+            int[] changes = countMarkupChanges(editor);
+
+            highlighter.applyHighlights(highlights);
+
+            Assertions.assertEquals(0, changes[0]);
+            Assertions.assertEquals(existing + 2, countHighlighters(editor));
+        });
+    }
+
+    @Test
+    void testHighlighterOfTheNextSiblingIsRecoloredWhenItBecomesTheCurrentElement() {
+        myFixture.configureByText("TestClass.java", JAVA_CODE);
+        Editor editor = myFixture.getEditor();
+        Highlight first = highlight(Kind.CURRENT_ELEMENT, "int first = 1;");
+        Highlight second = highlight(Kind.NEXT_SIBLING, "int second = 2;");
+
+        EdtTestUtil.runInEdtAndWait(() -> {
+            int existing = countHighlighters(editor);
+            PsiElementHighlighter highlighter = new PsiElementHighlighter(editor);
+            highlighter.applyHighlights(List.of(first, second));
+            TextAttributes currentElementAttributes = findHighlighter(editor, first).getTextAttributes(null);
+            RangeHighlighter secondHighlighter = findHighlighter(editor, second);
+
+            highlighter.applyHighlights(List.of(
+                    highlight(Kind.PREVIOUS_SIBLING, "int first = 1;"),
+                    highlight(Kind.CURRENT_ELEMENT, "int second = 2;")));
+
+            Assertions.assertSame(secondHighlighter, findHighlighter(editor, second));
+            Assertions.assertTrue(secondHighlighter.isValid());
+            Assertions.assertEquals(currentElementAttributes, secondHighlighter.getTextAttributes(null));
+            Assertions.assertEquals(existing + 2, countHighlighters(editor));
+        });
+    }
+
+    @Test
+    void testHighlightersOfRangesThatAreNoLongerHighlightedAreRemoved() {
+        myFixture.configureByText("TestClass.java", JAVA_CODE);
+        Editor editor = myFixture.getEditor();
+
+        EdtTestUtil.runInEdtAndWait(() -> {
+            int existing = countHighlighters(editor);
+            PsiElementHighlighter highlighter = new PsiElementHighlighter(editor);
+            highlighter.applyHighlights(List.of(
+                    highlight(Kind.CURRENT_ELEMENT, "int first = 1;"),
+                    highlight(Kind.NEXT_SIBLING, "int second = 2;")));
+
+            highlighter.applyHighlights(List.of(highlight(Kind.CURRENT_ELEMENT, "int first = 1;")));
+            Assertions.assertEquals(existing + 1, countHighlighters(editor));
+
+            highlighter.clearHighlights();
+            Assertions.assertEquals(existing, countHighlighters(editor));
+        });
+    }
+}
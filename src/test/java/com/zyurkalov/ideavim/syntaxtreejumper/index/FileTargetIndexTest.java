@@ -0,0 +1,125 @@
+package com.zyurkalov.ideavim.syntaxtreejumper.index;
+
+import com.intellij.openapi.application.ReadAction;
+import com.intellij.psi.PsiFile;
+import com.intellij.testFramework.fixtures.CodeInsightTestFixture;
+import com.intellij.testFramework.fixtures.IdeaProjectTestFixture;
+import com.intellij.testFramework.fixtures.IdeaTestFixtureFactory;
+import com.intellij.testFramework.fixtures.TestFixtureBuilder;
+import com.zyurkalov.ideavim.syntaxtreejumper.Offsets;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+class FileTargetIndexTest {
+    private static final String FIRST_CODE = """
+            public class First {
+                void first() {
+                    Runnable r = new Runnable() {
+                        public void run() {
+                        }
+                    };
+                }
+            }
+            """;
+    private static final String SECOND_CODE = """
+            public class Second {
+                int second = 2;
+            }
+            """;
+    private static final String THIRD_CODE = """
+            import java.util.List;
+
+            public class Third {
+                void third() {
+                }
+            }
+            """;
+
+    private CodeInsightTestFixture myFixture;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        IdeaTestFixtureFactory factory = IdeaTestFixtureFactory.getFixtureFactory();
+        TestFixtureBuilder<IdeaProjectTestFixture> fixtureBuilder = factory.createLightFixtureBuilder(getClass().getName());
+        IdeaProjectTestFixture fixture = fixtureBuilder.getFixture();
+        myFixture = factory.createCodeInsightFixture(fixture);
+        myFixture.setUp();
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        myFixture.tearDown();
+    }
+
+    private Offsets rangeOf(String code, String text) {
+        int start = code.indexOf(text);
+        return new Offsets(start, start + text.length());
+    }
+
+    private FileTargetIndex.Location findInOtherFile(PsiFile psiFile, FileTarget target, boolean forward) {
+        return ReadAction.compute(() -> FileTargetIndex.findInOtherFile(myFixture.getProject(),
+                psiFile.getVirtualFile(), target, forward));
+    }
+
+    @Test
+    void testTargetsAreSortedWithOuterTargetsFirst() {
+        PsiFile first = myFixture.addFileToProject("nav/First.java", FIRST_CODE);
+
+        TargetRanges functions = ReadAction.compute(() -> FileTargetIndex.getTargets(myFixture.getProject(),
+                first.getVirtualFile(), FileTarget.FUNCTION));
+
+        int outerStart = FIRST_CODE.indexOf("void first");
+        int outerEnd = FIRST_CODE.lastIndexOf("    }\n}") + "    }".length();
+        Assertions.assertEquals(2, functions.size());
+        Assertions.assertTrue(functions.isComplete());
+        Assertions.assertEquals(new Offsets(outerStart, outerEnd), functions.get(0));
+        Assertions.assertEquals(rangeOf(FIRST_CODE, "public void run() {\n                }"), functions.get(1));
+    }
+
+    @Test
+    void testMotionContinuesInTheNextFileWithATarget() {
+        myFixture.addFileToProject("nav/First.java", FIRST_CODE);
+        PsiFile second = myFixture.addFileToProject("nav/Second.java", SECOND_CODE);
+        PsiFile third = myFixture.addFileToProject("nav/Third.java", THIRD_CODE);
+
+        FileTargetIndex.Location location = findInOtherFile(second, FileTarget.FUNCTION, true);
+
+        Assertions.assertNotNull(location);
+        Assertions.assertEquals(third.getVirtualFile(), location.file());
+        Assertions.assertEquals(rangeOf(THIRD_CODE, "void third() {\n    }"), location.offsets());
+    }
+
+    @Test
+    void testMotionContinuesWithTheOutermostLastTargetOfThePreviousFile() {
+        PsiFile first = myFixture.addFileToProject("nav/First.java", FIRST_CODE);
+        myFixture.addFileToProject("nav/Second.java", SECOND_CODE);
+        PsiFile third = myFixture.addFileToProject("nav/Third.java", THIRD_CODE);
+
+        FileTargetIndex.Location location = findInOtherFile(third, FileTarget.FUNCTION, false);
+
+        Assertions.assertNotNull(location);
+        Assertions.assertEquals(first.getVirtualFile(), location.file());
+        Assertions.assertEquals(FIRST_CODE.indexOf("void first"), location.offsets().leftOffset());
+        Assertions.assertNull(findInOtherFile(first, FileTarget.FUNCTION, false));
+        Assertions.assertNull(findInOtherFile(third, FileTarget.IMPORT, true));
+    }
+
+    @Test
+    void testTargetRangesAreWrittenAndReadBack() throws IOException {
+        TargetRanges ranges = new TargetRanges(new int[]{0, 100, 10, 20, 10, 15, 200_000, 200_001}, false);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        FileTargetIndex.TargetRangesExternalizer.INSTANCE.save(new DataOutputStream(bytes), ranges);
+
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+        Assertions.assertEquals(ranges, FileTargetIndex.TargetRangesExternalizer.INSTANCE.read(in));
+        Assertions.assertEquals(0, in.available());
+    }
+}
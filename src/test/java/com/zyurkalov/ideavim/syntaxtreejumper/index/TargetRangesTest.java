@@ -0,0 +1,211 @@
+package com.zyurkalov.ideavim.syntaxtreejumper.index;
+
+import com.intellij.lang.Language;
+import com.intellij.openapi.util.TextRange;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.tree.IElementType;
+import com.zyurkalov.ideavim.syntaxtreejumper.Offsets;
+import com.zyurkalov.ideavim.syntaxtreejumper.adapters.FakePsiElementTreeBuilder;
+import com.zyurkalov.ideavim.syntaxtreejumper.adapters.NodeCategory;
+import com.zyurkalov.ideavim.syntaxtreejumper.adapters.PsiSyntaxNode;
+import com.zyurkalov.ideavim.syntaxtreejumper.adapters.SyntaxNode;
+import com.zyurkalov.ideavim.syntaxtreejumper.adapters.SyntaxTreeSnapshot;
+import com.zyurkalov.ideavim.syntaxtreejumper.adapters.TargetIndex;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.Predicate;
+
+import static com.zyurkalov.ideavim.syntaxtreejumper.adapters.FakePsiElementTreeBuilder.branch;
+import static com.zyurkalov.ideavim.syntaxtreejumper.adapters.FakePsiElementTreeBuilder.leaf;
+
+class TargetRangesTest {
+
+    private static FakePsiElementTreeBuilder.MyFakePsiElement randomTree(Random random, int depth) {
+        if (depth == 0 || random.nextInt(4) == 0) {
+            return leaf(random.nextInt(5) == 0 ? "" : "x" + random.nextInt(10));
+        }
+        FakePsiElementTreeBuilder.MyFakePsiElement[] children =
+                new FakePsiElementTreeBuilder.MyFakePsiElement[1 + random.nextInt(4)];
+        for (int i = 0; i < children.length; i++) {
+            children[i] = randomTree(random, depth - 1);
+        }
+        FakePsiElementTreeBuilder.MyFakePsiElement branch = branch(children);
+        return random.nextInt(6) == 0 ? branch.hideChildren() : branch;
+    }
+
+    /**
+     * The current element of a motion from a caret, see {@code AbstractSyntaxTreeNodesMotionHandler.findNthForAll}.
+     */
+    private static SyntaxNode widen(SyntaxNode node) {
+        SyntaxNode parent = node.getParent();
+        while (parent != null && parent.getTextRange().equals(node.getTextRange())) {
+            node = parent;
+            parent = node.getParent();
+        }
+        return node;
+    }
+
+    private static Optional<Offsets> toOffsets(SyntaxNode node) {
+        if (node == null) {
+            return Optional.empty();
+        }
+        TextRange range = node.getTextRange();
+        return Optional.of(new Offsets(range.getStartOffset(), range.getEndOffset()));
+    }
+
+    /**
+     * Jumps twice from every caret position with the index and with the ranges.
+     *
+     * @return Whether the ranges are complete, so that they were compared
+     */
+    private static boolean assertRangesMatchIndex(PsiElement root, Random random) {
+        SyntaxTreeSnapshot snapshot = SyntaxTreeSnapshot.build(root, 0, 0);
+        Set<PsiElement> targets = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (int i = 1; i < snapshot.size(); i++) {
+            if (random.nextInt(4) == 0) {
+                targets.add(snapshot.getElement(i));
+            }
+        }
+        Predicate<SyntaxNode> isTarget = node -> targets.contains(node.getPsiElement());
+        SyntaxNode rootNode = new PsiSyntaxNode(snapshot, snapshot.getRoot());
+        TargetIndex index = TargetIndex.get(rootNode, "test", isTarget);
+        Assertions.assertNotNull(index);
+        TargetRanges ranges = FileTargetIndex.findTargets(rootNode, NodeCategory.NONE, isTarget);
+        if (!ranges.canFindTarget(new Offsets(0, 0))) {
+            return false;
+        }
+
+        int length = rootNode.getTextLength();
+        for (int offset = 0; offset < length; offset++) {
+            for (boolean forward : new boolean[]{true, false}) {
+                String message = (forward ? "forward from " : "backward from ") + offset;
+                int leaf = snapshot.findLeafAt(offset);
+                if (leaf == SyntaxTreeSnapshot.NONE) {
+                    continue;
+                }
+                SyntaxNode current = widen(new PsiSyntaxNode(snapshot, leaf));
+                Offsets currentOffsets = new Offsets(offset, offset);
+                for (int step = 0; step < 2 && current != null; step++) {
+                    SyntaxNode expected = forward ? index.findNext(current) : index.findPrevious(current);
+                    Optional<Offsets> actual = ranges.findTarget(currentOffsets, forward);
+                    Assertions.assertEquals(toOffsets(expected), actual, message + ", step " + step);
+                    current = expected != null ? widen(expected) : null;
+                    currentOffsets = actual.orElse(null);
+                }
+            }
+        }
+        return true;
+    }
+
+    @Test
+    void testRangesMatchTargetIndex() {
+        Random random = new Random(42);
+        int compared = 0;
+        for (int tree = 0; tree < 500; tree++) {
+            if (assertRangesMatchIndex(randomTree(random, 5), random)) {
+                compared++;
+            }
+        }
+        Assertions.assertTrue(compared > 100, "Too few complete trees: " + compared);
+    }
+
+    /**
+     * Jumps backward by scanning all targets, the outermost of the nearest targets before the caret.
+     */
+    private static Optional<Offsets> findPreviousByScan(int[] ranges, int caret) {
+        for (int position = ranges.length / 2 - 1; position >= 0; position--) {
+            int start = ranges[position * 2];
+            int end = ranges[position * 2 + 1];
+            if (end <= caret) {
+                for (int outer = 0; outer < position; outer++) {
+                    if (ranges[outer * 2] <= start && ranges[outer * 2 + 1] >= end && ranges[outer * 2 + 1] <= caret) {
+                        return Optional.of(new Offsets(ranges[outer * 2], ranges[outer * 2 + 1]));
+                    }
+                }
+                return Optional.of(new Offsets(start, end));
+            }
+        }
+        return Optional.empty();
+    }
+
+    @Test
+    void testBackwardSearchMatchesAScanOfAllTargets() {
+        Random random = new Random(7);
+        for (int tree = 0; tree < 300; tree++) {
+            SyntaxTreeSnapshot snapshot = SyntaxTreeSnapshot.build(randomTree(random, 6), 0, 0);
+            SyntaxNode rootNode = new PsiSyntaxNode(snapshot, snapshot.getRoot());
+            int percent = 10 + random.nextInt(90);
+            Set<PsiElement> targets = Collections.newSetFromMap(new IdentityHashMap<>());
+            for (int i = 1; i < snapshot.size(); i++) {
+                if (random.nextInt(100) < percent) {
+                    targets.add(snapshot.getElement(i));
+                }
+            }
+            // Empty targets touch their siblings, which the scan takes as containing them
+            TargetRanges ranges = FileTargetIndex.findTargets(rootNode, NodeCategory.NONE,
+                    node -> node.getTextLength() > 0 && targets.contains(node.getPsiElement()));
+            if (ranges.isEmpty()) {
+                continue;
+            }
+
+            for (int caret = 0; caret <= rootNode.getTextLength(); caret++) {
+                Assertions.assertEquals(findPreviousByScan(ranges.toArray(), caret),
+                        ranges.findTarget(new Offsets(caret, caret), false), "tree " + tree + ", caret " + caret);
+            }
+            Assertions.assertEquals(findPreviousByScan(ranges.toArray(), Integer.MAX_VALUE).orElseThrow(),
+                    ranges.getLast(), "tree " + tree);
+        }
+    }
+
+    @Test
+    void testTargetsBehindNodesWithoutPsiChildrenMakeTheRangesIncomplete() {
+        PsiElement root = branch(branch("a", "b").hideChildren(), leaf("c"));
+        SyntaxTreeSnapshot snapshot = SyntaxTreeSnapshot.build(root, 0, 0);
+        SyntaxNode rootNode = new PsiSyntaxNode(snapshot, snapshot.getRoot());
+
+        TargetRanges leaves = FileTargetIndex.findTargets(rootNode, NodeCategory.NONE, node -> node.getTextLength() == 1);
+
+        // "a" and "b" are only found from inside of their parent
+        Assertions.assertEquals(1, leaves.size());
+        Assertions.assertEquals(new Offsets(2, 3), leaves.getFirst());
+        Assertions.assertFalse(leaves.isComplete());
+        Assertions.assertFalse(leaves.canFindTarget(new Offsets(0, 0)));
+    }
+
+    @Test
+    void testSubtreesWithoutTargetsOfOneKindAreStillWalkedForTheOthers() {
+        IElementType commentType = new IElementType("LINE_COMMENT", Language.ANY);
+        // "a", "b" and "c" are in subtrees without comments
+        PsiElement root = branch(branch(leaf("//x").withElementType(commentType), leaf("a")), branch("b", "c"));
+        SyntaxTreeSnapshot snapshot = SyntaxTreeSnapshot.build(root, 0, 0);
+        SyntaxNode rootNode = new PsiSyntaxNode(snapshot, snapshot.getRoot());
+
+        TargetRanges[] ranges = FileTargetIndex.findTargets(rootNode,
+                new long[]{NodeCategory.COMMENT, NodeCategory.NONE},
+                List.of(SyntaxNode::isComment, node -> node.getTextLength() == 1));
+
+        Assertions.assertEquals(new TargetRanges(new int[]{0, 3}, true), ranges[0]);
+        Assertions.assertEquals(new TargetRanges(new int[]{3, 4, 4, 5, 5, 6}, true), ranges[1]);
+        Assertions.assertEquals(ranges[1], FileTargetIndex.findTargets(rootNode, NodeCategory.NONE,
+                node -> node.getTextLength() == 1));
+    }
+
+    @Test
+    void testLastTargetIsTheOutermostOfTheNested() {
+        TargetRanges ranges = new TargetRanges(new int[]{0, 10, 2, 4, 5, 9, 6, 8, 12, 20, 14, 16}, true);
+
+        Assertions.assertEquals(new Offsets(0, 10), ranges.getFirst());
+        Assertions.assertEquals(new Offsets(12, 20), ranges.getLast());
+        Assertions.assertEquals(Optional.of(new Offsets(5, 9)), ranges.findTarget(new Offsets(4, 4), true));
+        Assertions.assertEquals(Optional.of(new Offsets(2, 4)), ranges.findTarget(new Offsets(5, 5), false));
+        Assertions.assertEquals(Optional.of(new Offsets(0, 10)), ranges.findTarget(new Offsets(11, 11), false));
+        Assertions.assertEquals(Optional.empty(), ranges.findTarget(new Offsets(15, 15), true));
+    }
+}
@@ -1,30 +1,57 @@
 package com.zyurkalov.ideavim.syntaxtreejumper.motions;
 
 import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.psi.PsiElement;
 import com.intellij.psi.PsiFile;
+import com.intellij.psi.util.PsiTreeUtil;
 import com.intellij.testFramework.fixtures.CodeInsightTestFixture;
 import com.intellij.testFramework.fixtures.IdeaProjectTestFixture;
 import com.intellij.testFramework.fixtures.IdeaTestFixtureFactory;
 import com.intellij.testFramework.fixtures.TestFixtureBuilder;
 import com.zyurkalov.ideavim.syntaxtreejumper.MotionDirection;
 import com.zyurkalov.ideavim.syntaxtreejumper.Offsets;
+import com.zyurkalov.ideavim.syntaxtreejumper.adapters.NodeCategoryTable;
+import com.zyurkalov.ideavim.syntaxtreejumper.adapters.PsiSyntaxNode;
 import com.zyurkalov.ideavim.syntaxtreejumper.adapters.PsiSyntaxTreeAdapter;
+import com.zyurkalov.ideavim.syntaxtreejumper.adapters.SyntaxNode;
+import com.zyurkalov.ideavim.syntaxtreejumper.adapters.SyntaxTreeAdapter;
+import com.zyurkalov.ideavim.syntaxtreejumper.adapters.SyntaxTreeAdapterFactory;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.MethodSource;
+import org.junit.jupiter.params.provider.ValueSource;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
 import java.util.stream.Stream;
 
 import static com.zyurkalov.ideavim.syntaxtreejumper.MotionDirection.BACKWARD;
 import static com.zyurkalov.ideavim.syntaxtreejumper.MotionDirection.FORWARD;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class ArgumentParameterListMotionHandlerTest {
 
+    // TODO: Create appropriate test Java code with parameter lists and argument lists
+    private static final String JAVA_CODE = """
+            public class TestClass {
+                public void methodWithParams(int param1, String param2, boolean param3) {
+                    int a = 1 + 2 + 3 + 4 + 5 +5;
+                    String b = "singleStr";
+                }
+            
+                public int anotherMethod(double x, double y) {
+                    return (int) Math.max(x, y);
+                }
+            }
+            """;
+
     private CodeInsightTestFixture myFixture;
 
     @BeforeEach
@@ -215,20 +242,142 @@ class ArgumentParameterListMotionHandlerTest {
         runArgumentParameterListTest(testData);
     }
 
-    private void runArgumentParameterListTest(ArgumentParameterListTestData testData) {
-        // TODO: Create appropriate test Java code with parameter lists and argument lists
-        String javaCode = """
-                public class TestClass {
-                    public void methodWithParams(int param1, String param2, boolean param3) {
-                        int a = 1 + 2 + 3 + 4 + 5 +5;
-                        String b = "singleStr";
+    @ParameterizedTest
+    @ValueSource(ints = {1, 2, 3, 5, 20})
+    void testFindNthMatchesRepeatedFindNext(int count) {
+        PsiFile javaFile = myFixture.configureByText("TestClass.java", JAVA_CODE);
+
+        ApplicationManager.getApplication().runReadAction(() -> {
+            List<SyntaxTreeAdapter> adapters = List.of(
+                    new PsiSyntaxTreeAdapter(javaFile), SyntaxTreeAdapterFactory.createAdapter(javaFile));
+            for (SyntaxTreeAdapter adapter : adapters) {
+                for (MotionDirection direction : List.of(FORWARD, BACKWARD)) {
+                    ArgumentParameterListMotionHandler handler =
+                            new ArgumentParameterListMotionHandler(adapter, direction);
+                    for (int offset = 0; offset < JAVA_CODE.length(); offset += 7) {
+                        Offsets initialOffsets = new Offsets(offset, offset);
+                        Optional<Offsets> expected = Optional.empty();
+                        Offsets currentOffsets = initialOffsets;
+                        for (int i = 0; i < count; i++) {
+                            Optional<Offsets> nextOffsets = handler.findNext(currentOffsets);
+                            if (nextOffsets.isEmpty()) {
+                                break;
+                            }
+                            expected = nextOffsets;
+                            currentOffsets = nextOffsets.get();
+                        }
+                        assertEquals(expected, handler.findNth(initialOffsets, count),
+                                direction + " " + count + " times from " + offset);
                     }
-                
-                    public int anotherMethod(double x, double y) {
-                        return (int) Math.max(x, y);
+                }
+            }
+        });
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 3})
+    void testFindNthForAllMatchesFindNthPerCaret(int count) {
+        PsiFile javaFile = myFixture.configureByText("TestClass.java", JAVA_CODE);
+
+        ApplicationManager.getApplication().runReadAction(() -> {
+            // Unsorted carets, some of them in the same leaf, some selections and duplicates
+            List<Offsets> carets = new ArrayList<>();
+            for (int offset = JAVA_CODE.length() - 1; offset >= 0; offset -= 3) {
+                carets.add(new Offsets(offset, offset));
+                if (offset % 5 == 0) {
+                    carets.add(new Offsets(offset, Math.min(offset + 4, JAVA_CODE.length())));
+                    carets.add(new Offsets(offset, offset));
+                }
+            }
+            List<SyntaxTreeAdapter> adapters = List.of(
+                    new PsiSyntaxTreeAdapter(javaFile), SyntaxTreeAdapterFactory.createAdapter(javaFile));
+            for (SyntaxTreeAdapter adapter : adapters) {
+                for (MotionDirection direction : List.of(FORWARD, BACKWARD)) {
+                    ArgumentParameterListMotionHandler handler =
+                            new ArgumentParameterListMotionHandler(adapter, direction);
+                    List<Optional<Offsets>> results = handler.findNthForAll(carets, count);
+                    assertEquals(carets.size(), results.size());
+                    for (int i = 0; i < carets.size(); i++) {
+                        assertEquals(handler.findNth(carets.get(i), count), results.get(i),
+                                direction + " " + count + " times from " + carets.get(i));
                     }
                 }
-                """;
+            }
+        });
+    }
+
+    /**
+     * A node whose equals compares the element class and text, like the PSI elements that implement
+     * a structural equals.
+     */
+    private static class StructurallyEqualNode extends PsiSyntaxNode {
+        StructurallyEqualNode(PsiElement psiElement) {
+            super(psiElement, NodeCategoryTable.INSTANCE);
+        }
+
+        @Override
+        protected @NotNull SyntaxNode createNode(@NotNull PsiElement element) {
+            return new StructurallyEqualNode(element);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof StructurallyEqualNode other &&
+                    getPsiElement().getClass() == other.getPsiElement().getClass() &&
+                    getText().equals(other.getText());
+        }
+
+        @Override
+        public int hashCode() {
+            return getText().hashCode();
+        }
+    }
+
+    private static class StructurallyEqualAdapter extends PsiSyntaxTreeAdapter {
+        StructurallyEqualAdapter(@NotNull PsiFile psiFile) {
+            super(psiFile);
+        }
+
+        @Override
+        public @Nullable SyntaxNode findNodeAt(int offset) {
+            PsiElement element = psiFile().findElementAt(offset);
+            return element != null ? new StructurallyEqualNode(element) : null;
+        }
+
+        @Override
+        public @Nullable SyntaxNode findCommonParent(@NotNull SyntaxNode node1, @NotNull SyntaxNode node2) {
+            PsiElement commonParent = PsiTreeUtil.findCommonParent(node1.getPsiElement(), node2.getPsiElement());
+            return commonParent != null ? new StructurallyEqualNode(commonParent) : null;
+        }
+    }
+
+    @Test
+    void testFindNthForAllDoesNotShareTheElementOfEqualLeaves() {
+        PsiFile javaFile = myFixture.configureByText("TestClass.java", JAVA_CODE);
+
+        ApplicationManager.getApplication().runReadAction(() -> {
+            // The parameter 'x' and the argument 'x' are different leaves with the same text
+            int parameter = JAVA_CODE.indexOf("double x") + "double ".length();
+            int argument = JAVA_CODE.indexOf("max(x") + "max(".length();
+            List<Offsets> carets = List.of(new Offsets(argument, argument), new Offsets(parameter, parameter));
+            SyntaxTreeAdapter adapter = new StructurallyEqualAdapter(javaFile);
+            for (MotionDirection direction : List.of(FORWARD, BACKWARD)) {
+                ArgumentParameterListMotionHandler handler = new ArgumentParameterListMotionHandler(adapter, direction);
+                List<Optional<Offsets>> results = handler.findNthForAll(carets, 1);
+                for (int i = 0; i < carets.size(); i++) {
+                    assertEquals(handler.findNth(carets.get(i), 1), results.get(i),
+                            direction + " from " + carets.get(i));
+                }
+            }
+            // The two carets do not reach the same target
+            ArgumentParameterListMotionHandler forward = new ArgumentParameterListMotionHandler(adapter, FORWARD);
+            List<Optional<Offsets>> results = forward.findNthForAll(carets, 1);
+            assertNotEquals(results.get(0), results.get(1));
+        });
+    }
+
+    private void runArgumentParameterListTest(ArgumentParameterListTestData testData) {
+        String javaCode = JAVA_CODE;
 
         PsiFile javaFile = myFixture.configureByText("TestClass.java", javaCode);
         ArgumentParameterListMotionHandler handler = new ArgumentParameterListMotionHandler(
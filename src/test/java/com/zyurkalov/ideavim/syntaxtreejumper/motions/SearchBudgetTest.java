@@ -0,0 +1,78 @@
+package com.zyurkalov.ideavim.syntaxtreejumper.motions;
+
+import com.zyurkalov.ideavim.syntaxtreejumper.stats.NodeVisitCounter;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class SearchBudgetTest {
+
+    private static void visitNodes(int count) {
+        for (int i = 0; i < count; i++) {
+            NodeVisitCounter.increment();
+            SearchBudget.check();
+        }
+    }
+
+    @Test
+    void testSearchWithinBudgetReturnsItsResult() {
+        Assertions.assertEquals("found", SearchBudget.run(100, 60_000, () -> {
+            visitNodes(100);
+            return "found";
+        }));
+    }
+
+    @Test
+    void testSearchStopsWhenNodesAreUsedUp() {
+        SearchBudget.ExceededException exception = Assertions.assertThrows(SearchBudget.ExceededException.class,
+                () -> SearchBudget.run(100, 60_000, () -> {
+                    visitNodes(1000);
+                    return "found";
+                }));
+        Assertions.assertEquals(101, exception.getVisitedNodes());
+    }
+
+    @Test
+    void testSearchStopsWhenTimeIsUsedUp() {
+        SearchBudget.ExceededException exception = Assertions.assertThrows(SearchBudget.ExceededException.class,
+                () -> SearchBudget.run(Long.MAX_VALUE, 0, () -> {
+                    long start = System.nanoTime();
+                    while (System.nanoTime() == start) {
+                        Thread.onSpinWait();
+                    }
+                    visitNodes(1);
+                    return "found";
+                }));
+        Assertions.assertTrue(exception.getNanos() > 0);
+    }
+
+    @Test
+    void testStepsCheckTheBudgetEveryInterval() {
+        SearchBudget.run(0, 60_000, () -> {
+            NodeVisitCounter.increment();
+            SearchBudget budget = SearchBudget.current();
+            Assertions.assertNotNull(budget);
+            for (int i = 1; i < SearchBudget.CHECK_INTERVAL; i++) {
+                budget.step();
+            }
+            Assertions.assertThrows(SearchBudget.ExceededException.class, budget::step);
+            return null;
+        });
+        Assertions.assertNull(SearchBudget.current());
+    }
+
+    @Test
+    void testCheckDoesNothingOutsideOfASearch() {
+        visitNodes(1000);
+        SearchBudget.run(10, 60_000, () -> {
+            visitNodes(5);
+            // The budget of the outer search applies again after the inner one
+            SearchBudget.run(Long.MAX_VALUE, 60_000, () -> {
+                visitNodes(100);
+                return null;
+            });
+            Assertions.assertThrows(SearchBudget.ExceededException.class, SearchBudget::check);
+            return null;
+        });
+        visitNodes(1000);
+    }
+}
@@ -0,0 +1,86 @@
+package com.zyurkalov.ideavim.syntaxtreejumper.stats;
+
+import com.zyurkalov.ideavim.syntaxtreejumper.adapters.FakePsiElementTreeBuilder;
+import com.zyurkalov.ideavim.syntaxtreejumper.adapters.PsiSyntaxNode;
+import com.zyurkalov.ideavim.syntaxtreejumper.adapters.SyntaxNode;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+class MotionStatsTest {
+
+    @AfterEach
+    void tearDown() {
+        MotionStats.reset();
+    }
+
+    @Test
+    void testHistogramPercentilesAreBucketUpperBounds() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 0; i < 90; i++) {
+            histogram.record(TimeUnit.MICROSECONDS.toNanos(100));
+        }
+        for (int i = 0; i < 10; i++) {
+            histogram.record(TimeUnit.MILLISECONDS.toNanos(30));
+        }
+
+        Assertions.assertEquals(100, histogram.getCount());
+        Assertions.assertEquals(0.128, histogram.getPercentileMillis(50), 1e-9);
+        Assertions.assertEquals(0.128, histogram.getPercentileMillis(90), 1e-9);
+        // The bucket of 30 ms ends at 32.768 ms, which is capped by the maximum
+        Assertions.assertEquals(30, histogram.getPercentileMillis(95), 1e-9);
+        Assertions.assertEquals(30, histogram.getMaxMillis(), 1e-9);
+        Assertions.assertEquals(3.09, histogram.getMeanMillis(), 1e-9);
+
+        histogram.reset();
+        Assertions.assertEquals(0, histogram.getCount());
+        Assertions.assertEquals(0, histogram.getPercentileMillis(50));
+    }
+
+    @Test
+    void testBucketsCoverAllDurations() {
+        Assertions.assertEquals(0, LatencyHistogram.getBucket(-1));
+        Assertions.assertEquals(0, LatencyHistogram.getBucket(999));
+        Assertions.assertEquals(1, LatencyHistogram.getBucket(1000));
+        Assertions.assertEquals(LatencyHistogram.BUCKETS - 1, LatencyHistogram.getBucket(Long.MAX_VALUE));
+    }
+
+    @Test
+    void testMeasureRecordsVisitedNodesAndFileSize() {
+        FakePsiElementTreeBuilder.MyFakePsiElement loop = FakePsiElementTreeBuilder.makeForLoop1To10();
+        MotionStats.measure("Test", "FORWARD", 50_000, () -> {
+            SyntaxNode node = new PsiSyntaxNode(loop);
+            node.getChildren();
+        });
+        MotionStats.measure("Test", "FORWARD", 2_000_000, () -> {
+        });
+
+        MotionStats.Entry entry = MotionStats.getEntryOrNull("Test", "FORWARD");
+        Assertions.assertNotNull(entry);
+        Assertions.assertEquals(2, entry.getLatency().getCount());
+        double expectedNodes = (1 + new PsiSyntaxNode(loop).getChildren().size()) / 2.0;
+        Assertions.assertEquals(expectedNodes, entry.getAverageVisitedNodes(), 1e-9);
+        Assertions.assertEquals(0, entry.getCountInFileSizeBucket(0));
+        Assertions.assertEquals(1, entry.getCountInFileSizeBucket(1));
+        Assertions.assertEquals(1, entry.getCountInFileSizeBucket(3));
+        Assertions.assertTrue(MotionStats.getReport().contains("Test"));
+        Assertions.assertNotNull(MotionStats.getLastMeasurement());
+    }
+
+    @Test
+    void testMeasurementIsRecordedWhenTheActionThrows() {
+        Assertions.assertThrows(IllegalStateException.class, () -> MotionStats.measure("Test", "BACKWARD", 0, () -> {
+            throw new IllegalStateException();
+        }));
+
+        MotionStats.Entry entry = MotionStats.getEntryOrNull("Test", "BACKWARD");
+        Assertions.assertNotNull(entry);
+        Assertions.assertEquals(1, entry.getLatency().getCount());
+
+        MotionStats.reset();
+        Assertions.assertTrue(MotionStats.getEntries().isEmpty());
+        Assertions.assertNull(MotionStats.getLastMeasurement());
+    }
+}